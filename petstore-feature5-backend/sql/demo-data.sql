@@ -20,7 +20,8 @@ INSERT INTO public.statuses (status_name) VALUES
 ('INACTIVE'),
 ('PENDING'),
 ('EXPIRED'),
-('DRAFT')
+('DRAFT'),
+('SCHEDULED')
 ON CONFLICT (status_name) DO NOTHING;
 
 -- 3. INSERTAR CATEGORÍAS
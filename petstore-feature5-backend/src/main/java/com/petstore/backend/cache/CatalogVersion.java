@@ -0,0 +1,90 @@
+package com.petstore.backend.cache;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.petstore.backend.event.PromotionChangedEvent;
+
+/**
+ * Versión monótona del catálogo (promociones, productos y categorías) usada para los ETag
+ * de los endpoints de lectura.
+ *
+ * La versión vive en una fila de la BD ({@code catalog_versions}) y cada escritura la incrementa
+ * dentro de su propia transacción: todos los nodos leen el mismo valor, el cambio se ve solo
+ * cuando la escritura se confirma y un rollback lo descarta. Leer el ETag cuesta una consulta
+ * por clave primaria, mucho menos que armar la respuesta. Mientras la transacción no termina,
+ * la fila queda bloqueada, así que las escrituras concurrentes del catálogo se serializan.
+ */
+@Component
+public class CatalogVersion {
+
+    private static final int ROW_ID = 1;
+
+    static final String CURRENT_SQL = "SELECT version FROM catalog_versions WHERE id = " + ROW_ID;
+    static final String BUMP_SQL = "UPDATE catalog_versions SET version = version + 1 WHERE id = " + ROW_ID;
+    static final String INIT_SQL = "INSERT INTO catalog_versions (id, version) SELECT " + ROW_ID + ", 0 " +
+        "WHERE NOT EXISTS (SELECT 1 FROM catalog_versions WHERE id = " + ROW_ID + ")";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CatalogVersion(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long current() {
+        try {
+            Long version = jdbcTemplate.queryForObject(CURRENT_SQL, Long.class);
+            return version != null ? version : 0;
+        } catch (EmptyResultDataAccessException e) {
+            return 0; // Aún no se creó la fila
+        }
+    }
+
+    /**
+     * Incrementa la versión en la transacción actual (sin transacción se confirma de inmediato)
+     */
+    public void bump() {
+        if (jdbcTemplate.update(BUMP_SQL) == 0) {
+            initialize();
+            jdbcTemplate.update(BUMP_SQL);
+        }
+    }
+
+    /**
+     * ETag fuerte de la versión actual (debe leerse antes de consultar los datos)
+     */
+    public String etag() {
+        return "\"" + current() + "\"";
+    }
+
+    /**
+     * ETag fuerte para respuestas que además dependen de otro valor (p. ej. la fecha actual)
+     */
+    public String etag(Object variant) {
+        return "\"" + current() + "-" + variant + "\"";
+    }
+
+    /**
+     * Se publica dentro de la transacción que modificó la promoción
+     */
+    @EventListener
+    public void onPromotionChanged(PromotionChangedEvent event) {
+        bump();
+    }
+
+    /**
+     * Crea la fila de la versión si no existe
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            jdbcTemplate.update(INIT_SQL);
+        } catch (DataIntegrityViolationException e) {
+            // Otro nodo la creó al mismo tiempo
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.petstore.backend.cache;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.petstore.backend.entity.NotificationConsent.NotificationType;
+import com.petstore.backend.event.NotificationConsentChangedEvent;
+import com.petstore.backend.repository.NotificationConsentRepository;
+import com.petstore.backend.util.UserIdBitmap;
+
+/**
+ * Índice en memoria de los usuarios con consentimiento activo, un {@link UserIdBitmap} por tipo
+ * de notificación.
+ *
+ * Verificar un consentimiento o filtrar un lote de destinatarios es una búsqueda en el bitmap,
+ * sin consultas. El estado es un snapshot inmutable que se reemplaza atómicamente: se carga al
+ * arrancar con una consulta de IDs por tipo, cada cambio confirmado
+ * ({@link NotificationConsentChangedEvent}) actualiza solo el bit del usuario, y una recarga
+ * periódica incorpora los cambios hechos desde otros nodos. Hasta esa recarga el índice puede ir
+ * atrasado respecto de otro nodo, así que el encolado y el envío de notificaciones confirman el
+ * consentimiento en BD.
+ */
+@Component
+public class NotificationConsentIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationConsentIndex.class);
+
+    private final NotificationConsentRepository consentRepository;
+
+    private volatile Map<NotificationType, UserIdBitmap> snapshot; // null hasta la primera carga
+
+    public NotificationConsentIndex(NotificationConsentRepository consentRepository) {
+        this.consentRepository = consentRepository;
+    }
+
+    // === CONSULTAS ===
+
+    /**
+     * Indica si el usuario tiene consentimiento activo para el tipo de notificación
+     */
+    public boolean hasConsent(Integer userId, NotificationType type) {
+        return userId != null && current().get(type).contains(userId);
+    }
+
+    /**
+     * Número de usuarios con consentimiento activo para el tipo de notificación
+     */
+    public int count(NotificationType type) {
+        return current().get(type).cardinality();
+    }
+
+    // === MANTENIMIENTO ===
+
+    /**
+     * Recarga todos los bitmaps desde la base de datos (una consulta de IDs por tipo)
+     */
+    @Scheduled(fixedDelayString = "${notification.consent-index.refresh-interval:PT10M}",
+               initialDelayString = "${notification.consent-index.refresh-interval:PT10M}")
+    public synchronized void reload() {
+        Map<NotificationType, UserIdBitmap> bitmaps = new EnumMap<>(NotificationType.class);
+        long bytes = 0;
+        for (NotificationType type : NotificationType.values()) {
+            UserIdBitmap bitmap = UserIdBitmap.of(consentRepository.findConsentingUserIds(type));
+            bitmaps.put(type, bitmap);
+            bytes += bitmap.sizeInBytes();
+        }
+        this.snapshot = Collections.unmodifiableMap(bitmaps);
+        logger.info("Índice de consentimientos cargado: {} usuarios con EMAIL_PROMOTION ({} bytes en total)",
+            bitmaps.get(NotificationType.EMAIL_PROMOTION).cardinality(), bytes);
+    }
+
+    /**
+     * Carga el índice al arrancar para que la primera verificación no espere la consulta
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        current();
+    }
+
+    /**
+     * Marca o desmarca el consentimiento de un usuario
+     */
+    public synchronized void update(Integer userId, NotificationType type, boolean consentGiven) {
+        if (snapshot == null || userId == null) {
+            return; // La primera consulta cargará el estado ya confirmado en BD
+        }
+        UserIdBitmap bitmap = snapshot.get(type);
+        UserIdBitmap updated = consentGiven ? bitmap.with(userId) : bitmap.without(userId);
+        if (updated != bitmap) {
+            Map<NotificationType, UserIdBitmap> bitmaps = new EnumMap<>(snapshot);
+            bitmaps.put(type, updated);
+            this.snapshot = Collections.unmodifiableMap(bitmaps);
+        }
+    }
+
+    /**
+     * Aplica los cambios de consentimiento una vez confirmada la transacción
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onConsentChanged(NotificationConsentChangedEvent event) {
+        update(event.getUserId(), event.getNotificationType(), event.isConsentGiven());
+    }
+
+    private Map<NotificationType, UserIdBitmap> current() {
+        Map<NotificationType, UserIdBitmap> current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+}
@@ -0,0 +1,323 @@
+package com.petstore.backend.cache;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.petstore.backend.dto.NotificationSendTime;
+import com.petstore.backend.entity.NotificationConsent.NotificationType;
+import com.petstore.backend.repository.NotificationLogRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Rate limit de notificaciones en memoria con ventana deslizante por (usuario, tipo).
+ *
+ * Cada clave guarda los instantes de sus últimos N envíos (N = máximo por ventana) en un
+ * buffer circular de {@code long}; hay cupo si el más antiguo de esos N ya salió de la ventana.
+ * Verificar y consumir el cupo es una sola operación bajo el lock de la clave, sin BD: dos envíos
+ * solo compiten si son del mismo usuario y tipo, y las claves se reparten en un
+ * {@link ConcurrentHashMap} (segmentado internamente).
+ *
+ * Al arrancar se reconstruyen las ventanas desde notification_logs; un job periódico guarda en
+ * notification_rate_limits, por lotes JDBC, el contador de las claves que cambiaron y descarta
+ * las ventanas que quedaron vacías.
+ */
+@Component
+public class NotificationRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRateLimiter.class);
+
+    static final String UPDATE_SQL =
+        "UPDATE notification_rate_limits SET notification_count = ?, time_window_start = ?, last_reset = ? " +
+        "WHERE user_id = ? AND notification_type = ?";
+
+    static final String INSERT_SQL =
+        "INSERT INTO notification_rate_limits (user_id, notification_type, notification_count, time_window_start, last_reset) " +
+        "VALUES (?, ?, ?, ?, ?)";
+
+    private final NotificationLogRepository logRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int emailMaxPerWindow;
+    private final Duration window;
+    private final Clock clock;
+
+    private final Map<RateKey, SendWindow> windows = new ConcurrentHashMap<>();
+    private final Set<RateKey> dirty = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public NotificationRateLimiter(NotificationLogRepository logRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   @Value("${notification.rate-limit.email.max-per-hour:10}") int emailMaxPerWindow,
+                                   @Value("${notification.rate-limit.window-hours:1}") int windowHours) {
+        this(logRepository, jdbcTemplate, emailMaxPerWindow, Duration.ofHours(windowHours), Clock.systemDefaultZone());
+    }
+
+    NotificationRateLimiter(NotificationLogRepository logRepository,
+                            JdbcTemplate jdbcTemplate,
+                            int emailMaxPerWindow,
+                            Duration window,
+                            Clock clock) {
+        this.logRepository = logRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.emailMaxPerWindow = emailMaxPerWindow;
+        this.window = window;
+        this.clock = clock;
+    }
+
+    // === CONSULTAS ===
+
+    /**
+     * Consume un envío del cupo del usuario si no alcanzó el máximo de la ventana
+     *
+     * @return false si el usuario está limitado (el cupo no cambia)
+     */
+    public boolean tryAcquire(Integer userId, NotificationType type) {
+        RateKey key = new RateKey(userId, type);
+        long now = clock.millis();
+        long windowStart = now - window.toMillis();
+        while (true) {
+            SendWindow sendWindow = windows.computeIfAbsent(key, k -> new SendWindow(getMaxPerWindow(type)));
+            Boolean acquired = sendWindow.tryAcquire(now, windowStart);
+            if (acquired != null) {
+                if (acquired) {
+                    dirty.add(key);
+                }
+                return acquired;
+            }
+            windows.remove(key, sendWindow); // Ventana descartada por el checkpoint: se crea otra
+        }
+    }
+
+    /**
+     * Envíos del usuario dentro de la ventana actual
+     */
+    public int sentInWindow(Integer userId, NotificationType type) {
+        SendWindow sendWindow = windows.get(new RateKey(userId, type));
+        return sendWindow == null ? 0 : sendWindow.count(clock.millis() - window.toMillis());
+    }
+
+    /**
+     * Claves (usuario, tipo) con ventana en memoria
+     */
+    public int size() {
+        return windows.size();
+    }
+
+    // === MANTENIMIENTO ===
+
+    /**
+     * Reconstruye las ventanas con los envíos registrados en notification_logs
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        LocalDateTime since = LocalDateTime.now(clock).minus(window);
+        List<NotificationSendTime> sends = logRepository.findSendTimesSince(since);
+        for (NotificationSendTime send : sends) {
+            RateKey key = new RateKey(send.userId(), send.notificationType());
+            windows.computeIfAbsent(key, k -> new SendWindow(getMaxPerWindow(k.type())))
+                .record(toMillis(send.sentAt()));
+        }
+        logger.info("Rate limit de notificaciones cargado: {} envíos recientes de {} claves", sends.size(), windows.size());
+    }
+
+    /**
+     * Guarda los contadores de las claves que cambiaron y descarta las ventanas vacías.
+     * Si la escritura falla, las claves quedan pendientes para el próximo checkpoint.
+     * Devuelve el número de claves escritas.
+     */
+    @Scheduled(fixedDelayString = "${notification.rate-limit.checkpoint-interval:PT30S}")
+    public synchronized int checkpoint() {
+        long windowStart = clock.millis() - window.toMillis();
+        List<RateKey> keys = new ArrayList<>();
+        for (Iterator<RateKey> it = dirty.iterator(); it.hasNext(); ) {
+            keys.add(it.next());
+            it.remove();
+        }
+
+        int written = 0;
+        if (!keys.isEmpty()) {
+            try {
+                written = write(keys, windowStart);
+            } catch (RuntimeException e) {
+                logger.error("Error guardando el rate limit de {} claves, se reintentará: {}", keys.size(), e.getMessage(), e);
+                dirty.addAll(keys);
+            }
+        }
+
+        windows.forEach((key, sendWindow) -> {
+            if (!dirty.contains(key) && sendWindow.retireIfEmpty(windowStart)) {
+                windows.remove(key, sendWindow);
+            }
+        });
+        return written;
+    }
+
+    /**
+     * Guarda lo pendiente al detener la aplicación
+     */
+    @PreDestroy
+    public void checkpointOnShutdown() {
+        checkpoint();
+    }
+
+    private int write(List<RateKey> keys, long windowStart) {
+        List<RateLimitRow> rows = new ArrayList<>(keys.size());
+        for (RateKey key : keys) {
+            SendWindow sendWindow = windows.get(key);
+            if (sendWindow != null) {
+                long oldest = sendWindow.oldest(windowStart);
+                rows.add(new RateLimitRow(key, sendWindow.count(windowStart),
+                    Timestamp.valueOf(toDateTime(oldest > 0 ? oldest : clock.millis()))));
+            }
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now(clock));
+        int[][] updated = jdbcTemplate.batchUpdate(UPDATE_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setInt(1, row.count());
+            ps.setTimestamp(2, row.windowStart());
+            ps.setTimestamp(3, now);
+            ps.setInt(4, row.key().userId());
+            ps.setString(5, row.key().type().name());
+        });
+
+        // Las claves sin fila todavía se insertan en un segundo lote
+        List<RateLimitRow> missing = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (updated[0][i] == 0) {
+                missing.add(rows.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, missing, missing.size(), (ps, row) -> {
+                ps.setInt(1, row.key().userId());
+                ps.setString(2, row.key().type().name());
+                ps.setInt(3, row.count());
+                ps.setTimestamp(4, row.windowStart());
+                ps.setTimestamp(5, now);
+            });
+        }
+        return rows.size();
+    }
+
+    private int getMaxPerWindow(NotificationType type) {
+        return switch (type) {
+            case EMAIL_PROMOTION, EMAIL_GENERAL -> emailMaxPerWindow;
+        };
+    }
+
+    private long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(clock.getZone()).toInstant().toEpochMilli();
+    }
+
+    private LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), clock.getZone());
+    }
+
+    private record RateKey(Integer userId, NotificationType type) {
+    }
+
+    private record RateLimitRow(RateKey key, int count, Timestamp windowStart) {
+    }
+
+    /**
+     * Instantes (epoch millis) de los últimos N envíos de una clave en un buffer circular.
+     * {@code head} es el próximo slot a reemplazar, que siempre guarda el envío más antiguo. Todo
+     * el estado está protegido por el lock de la ventana: verificar el slot y escribirlo es atómico.
+     */
+    static final class SendWindow {
+        private final int maxPerWindow;
+        private final long[] sends;
+        private int head;
+        private boolean retired;
+
+        SendWindow(int maxPerWindow) {
+            this.maxPerWindow = maxPerWindow;
+            this.sends = new long[Math.max(maxPerWindow, 1)];
+        }
+
+        /**
+         * @return true si registró el envío, false si no hay cupo, null si la ventana fue descartada
+         */
+        synchronized Boolean tryAcquire(long now, long windowStart) {
+            if (maxPerWindow <= 0) {
+                return Boolean.FALSE;
+            }
+            if (retired) {
+                return null;
+            }
+            if (sends[head] >= windowStart) {
+                return Boolean.FALSE; // Los últimos N envíos siguen dentro de la ventana
+            }
+            append(now);
+            return Boolean.TRUE;
+        }
+
+        /**
+         * Registra un envío ya realizado, sin verificar el cupo (carga inicial)
+         */
+        synchronized void record(long sentAt) {
+            append(sentAt);
+        }
+
+        synchronized int count(long windowStart) {
+            int count = 0;
+            for (long sentAt : sends) {
+                if (sentAt >= windowStart) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Envío más antiguo dentro de la ventana, 0 si no hay
+         */
+        synchronized long oldest(long windowStart) {
+            long oldest = 0L;
+            for (long sentAt : sends) {
+                if (sentAt >= windowStart && (oldest == 0L || sentAt < oldest)) {
+                    oldest = sentAt;
+                }
+            }
+            return oldest;
+        }
+
+        /**
+         * Marca la ventana como descartada si no tiene envíos vigentes. Un envío que llegue después
+         * ve la marca y crea una ventana nueva, así que ninguno se pierde.
+         */
+        synchronized boolean retireIfEmpty(long windowStart) {
+            if (!retired && count(windowStart) == 0) {
+                retired = true;
+            }
+            return retired;
+        }
+
+        private void append(long sentAt) {
+            sends[head] = sentAt;
+            head = (head + 1) % sends.length;
+        }
+    }
+}
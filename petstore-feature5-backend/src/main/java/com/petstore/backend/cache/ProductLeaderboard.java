@@ -0,0 +1,313 @@
+package com.petstore.backend.cache;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.petstore.backend.dto.LatestProductMetrics;
+import com.petstore.backend.dto.ProductLeaderboardEntryDTO;
+import com.petstore.backend.event.PromotionChangedEvent;
+import com.petstore.backend.event.PromotionMetricsChangedEvent;
+import com.petstore.backend.repository.PromotionMetricsRepository;
+import com.petstore.backend.repository.PromotionRepository;
+import com.petstore.backend.util.Money;
+
+/**
+ * Ranking en memoria de los productos más vendidos sumando todas las promociones activas hoy.
+ *
+ * Guarda las ventas de cada producto por promoción (último snapshot de promotion_metrics) y los
+ * totales por producto ordenados en skip lists concurrentes, por unidades y por ingresos, global
+ * y por categoría. Un top-N se responde recorriendo los primeros N nodos sin tocar la BD.
+ *
+ * Las escrituras (eventos de métricas y de promociones) recargan solo la promoción afectada y
+ * reordenan los productos que cambiaron; las lecturas recorren las skip lists sin bloqueo.
+ */
+@Component
+public class ProductLeaderboard {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductLeaderboard.class);
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 100;
+
+    /**
+     * Criterio de orden del ranking
+     */
+    public enum Ranking {
+        UNITS,
+        REVENUE
+    }
+
+    private static final Comparator<ProductLeaderboardEntryDTO> BY_UNITS =
+        Comparator.comparingLong(ProductLeaderboardEntryDTO::unitsSold).reversed()
+            .thenComparing(ProductLeaderboardEntryDTO::productId);
+
+    private static final Comparator<ProductLeaderboardEntryDTO> BY_REVENUE =
+        Comparator.comparing(ProductLeaderboardEntryDTO::revenue).reversed()
+            .thenComparing(ProductLeaderboardEntryDTO::productId);
+
+    private final PromotionRepository promotionRepository;
+    private final PromotionMetricsRepository promotionMetricsRepository;
+    private final Clock clock;
+
+    private volatile State state; // null hasta la primera consulta
+
+    @Autowired
+    public ProductLeaderboard(PromotionRepository promotionRepository,
+                              PromotionMetricsRepository promotionMetricsRepository) {
+        this(promotionRepository, promotionMetricsRepository, Clock.systemDefaultZone());
+    }
+
+    ProductLeaderboard(PromotionRepository promotionRepository,
+                       PromotionMetricsRepository promotionMetricsRepository,
+                       Clock clock) {
+        this.promotionRepository = promotionRepository;
+        this.promotionMetricsRepository = promotionMetricsRepository;
+        this.clock = clock;
+    }
+
+    // === CONSULTAS ===
+
+    /**
+     * Los {@code limit} productos con más ventas según el criterio, opcionalmente de una sola categoría
+     */
+    public List<ProductLeaderboardEntryDTO> top(Ranking ranking, int limit, Integer categoryId) {
+        State current = current();
+        Rankings rankings = categoryId == null ? current.all : current.byCategory.get(categoryId);
+        if (rankings == null) {
+            return List.of();
+        }
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<ProductLeaderboardEntryDTO> result = new ArrayList<>(size);
+        for (ProductLeaderboardEntryDTO entry : rankings.ordered(ranking)) {
+            if (result.size() == size) {
+                break;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    /**
+     * Número de productos con ventas en las promociones activas
+     */
+    public int size() {
+        return current().entries.size();
+    }
+
+    // === MANTENIMIENTO ===
+
+    /**
+     * Recarga el ranking completo: promociones activas hoy y el último snapshot de cada una
+     */
+    public synchronized void reload() {
+        LocalDate today = LocalDate.now(clock);
+        State fresh = new State(today);
+        for (PromotionInterval interval : promotionRepository.findAllIntervals()) {
+            if (isActiveOn(interval, today)) {
+                fresh.activePromotionIds.add(interval.promotionId());
+                fresh.apply(interval.promotionId(), loadSales(interval.promotionId()));
+            }
+        }
+        this.state = fresh;
+        logger.info("Ranking de productos cargado: {} productos en {} promociones activas",
+            fresh.entries.size(), fresh.activePromotionIds.size());
+    }
+
+    /**
+     * Vuelve a leer las ventas de una promoción activa y reordena sus productos
+     */
+    public synchronized void refreshPromotion(Integer promotionId) {
+        State current = state;
+        if (current == null || !current.activePromotionIds.contains(promotionId)) {
+            return;
+        }
+        current.apply(promotionId, loadSales(promotionId));
+    }
+
+    /**
+     * Aplica los cambios de promociones (alta, baja, cambio de estado o fechas) tras el commit
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onPromotionChanged(PromotionChangedEvent event) {
+        State current = state;
+        if (current == null) {
+            return; // La primera consulta cargará el estado ya confirmado en BD
+        }
+        if (event.isReloadAll()) {
+            reload();
+        } else if (!event.isDeleted() && isActiveOn(event.getInterval(), current.loadedOn)) {
+            current.activePromotionIds.add(event.getPromotionId());
+            current.apply(event.getPromotionId(), loadSales(event.getPromotionId()));
+        } else if (current.activePromotionIds.remove(event.getPromotionId())) {
+            current.apply(event.getPromotionId(), Map.of());
+        }
+    }
+
+    /**
+     * Recarga la promoción cuyas métricas cambiaron, una vez confirmada la transacción
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMetricsChanged(PromotionMetricsChangedEvent event) {
+        refreshPromotion(event.getPromotionId());
+    }
+
+    private State current() {
+        State current = state;
+        LocalDate today = LocalDate.now(clock);
+        if (current == null || !current.loadedOn.equals(today)) {
+            synchronized (this) {
+                if (state == null || !state.loadedOn.equals(today)) {
+                    reload(); // Primera consulta o cambio de día (otras promociones vigentes)
+                }
+                current = state;
+            }
+        }
+        return current;
+    }
+
+    private Map<Integer, ProductSales> loadSales(Integer promotionId) {
+        Map<Integer, ProductSales> sales = new HashMap<>();
+        for (LatestProductMetrics row : promotionMetricsRepository.findLatestSnapshotsByPromotionId(promotionId)) {
+            sales.put(row.productId(), new ProductSales(row.productName(), row.categoryId(), row.categoryName(),
+                row.unitsSold() != null ? row.unitsSold() : 0,
+                Money.toCents(row.revenueGenerated())));
+        }
+        return sales;
+    }
+
+    private static boolean isActiveOn(PromotionInterval interval, LocalDate date) {
+        return interval != null && interval.isActive()
+            && interval.startDate() != null && interval.endDate() != null && interval.isValidOn(date);
+    }
+
+    /**
+     * Ventas de un producto en una promoción
+     */
+    private record ProductSales(String productName, Integer categoryId, String categoryName,
+                                long unitsSold, long revenueCents) {
+    }
+
+    /**
+     * Productos ordenados por unidades y por ingresos
+     */
+    private static final class Rankings {
+        private final NavigableSet<ProductLeaderboardEntryDTO> byUnits = new ConcurrentSkipListSet<>(BY_UNITS);
+        private final NavigableSet<ProductLeaderboardEntryDTO> byRevenue = new ConcurrentSkipListSet<>(BY_REVENUE);
+
+        NavigableSet<ProductLeaderboardEntryDTO> ordered(Ranking ranking) {
+            return ranking == Ranking.REVENUE ? byRevenue : byUnits;
+        }
+
+        void add(ProductLeaderboardEntryDTO entry) {
+            byUnits.add(entry);
+            byRevenue.add(entry);
+        }
+
+        void remove(ProductLeaderboardEntryDTO entry) {
+            byUnits.remove(entry);
+            byRevenue.remove(entry);
+        }
+
+        boolean isEmpty() {
+            return byUnits.isEmpty();
+        }
+    }
+
+    private static final class State {
+        private final LocalDate loadedOn;
+        private final Set<Integer> activePromotionIds = new HashSet<>();
+        private final Map<Integer, Map<Integer, ProductSales>> salesByPromotion = new HashMap<>();
+        private final Map<Integer, ProductLeaderboardEntryDTO> entries = new ConcurrentHashMap<>();
+        private final Rankings all = new Rankings();
+        private final Map<Integer, Rankings> byCategory = new ConcurrentHashMap<>();
+
+        private State(LocalDate loadedOn) {
+            this.loadedOn = loadedOn;
+        }
+
+        /**
+         * Reemplaza las ventas de una promoción y reordena solo los productos afectados
+         */
+        void apply(Integer promotionId, Map<Integer, ProductSales> sales) {
+            Map<Integer, ProductSales> previous = sales.isEmpty()
+                ? salesByPromotion.remove(promotionId)
+                : salesByPromotion.put(promotionId, sales);
+            if (previous == null) {
+                previous = Map.of();
+            }
+
+            Set<Integer> productIds = new HashSet<>(previous.keySet());
+            productIds.addAll(sales.keySet());
+            for (Integer productId : productIds) {
+                ProductSales before = previous.get(productId);
+                ProductSales after = sales.get(productId);
+                if (before != null && before.equals(after)) {
+                    continue;
+                }
+                ProductLeaderboardEntryDTO old = entries.get(productId);
+                long units = old != null ? old.unitsSold() : 0;
+                long revenueCents = old != null ? Money.toCents(old.revenue()) : 0L;
+                int promotions = old != null ? old.promotions() : 0;
+                if (before != null) {
+                    units -= before.unitsSold();
+                    revenueCents -= before.revenueCents();
+                    promotions--;
+                }
+                if (after != null) {
+                    units += after.unitsSold();
+                    revenueCents += after.revenueCents();
+                    promotions++;
+                }
+
+                ProductLeaderboardEntryDTO updated = null;
+                if (promotions > 0) {
+                    ProductSales info = after != null ? after : before;
+                    updated = new ProductLeaderboardEntryDTO(productId,
+                        after != null || old == null ? info.productName() : old.productName(),
+                        after != null || old == null ? info.categoryId() : old.categoryId(),
+                        after != null || old == null ? info.categoryName() : old.categoryName(),
+                        units, Money.toBigDecimal(revenueCents), promotions);
+                }
+                replace(old, updated);
+            }
+        }
+
+        private void replace(ProductLeaderboardEntryDTO old, ProductLeaderboardEntryDTO updated) {
+            // Se quita antes de agregar: la posición en las skip lists depende de los totales
+            if (old != null) {
+                all.remove(old);
+                Rankings category = old.categoryId() != null ? byCategory.get(old.categoryId()) : null;
+                if (category != null) {
+                    category.remove(old);
+                    if (category.isEmpty()) {
+                        byCategory.remove(old.categoryId());
+                    }
+                }
+                entries.remove(old.productId());
+            }
+            if (updated != null) {
+                entries.put(updated.productId(), updated);
+                all.add(updated);
+                if (updated.categoryId() != null) {
+                    byCategory.computeIfAbsent(updated.categoryId(), key -> new Rankings()).add(updated);
+                }
+            }
+        }
+    }
+}
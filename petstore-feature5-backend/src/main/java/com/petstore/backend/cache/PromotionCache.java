@@ -0,0 +1,236 @@
+package com.petstore.backend.cache;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.petstore.backend.entity.Category;
+import com.petstore.backend.entity.Promotion;
+import com.petstore.backend.entity.Status;
+import com.petstore.backend.entity.User;
+import com.petstore.backend.event.CategoryChangedEvent;
+import com.petstore.backend.event.PromotionChangedEvent;
+import com.petstore.backend.repository.PromotionRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Caché read-through de promociones por ID, acotada por tamaño (LRU) y por TTL.
+ *
+ * Guarda snapshots inmutables (con estado, categoría y usuario ya inicializados) y entrega
+ * en cada lectura una entidad desprendida nueva, por lo que los llamadores no pueden alterar
+ * la copia en caché. Se invalida con los eventos {@link PromotionChangedEvent} y
+ * {@link CategoryChangedEvent} una vez confirmada la transacción. Publica aciertos, fallos, expulsiones y tamaño en Micrometer
+ * ({@code cache.gets}, {@code cache.evictions}, {@code cache.size} con tag {@code cache=promotions}).
+ */
+@Component
+public class PromotionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PromotionCache.class);
+
+    private static final String CACHE_NAME = "promotions";
+
+    private final PromotionRepository promotionRepository;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+
+    private final Map<Integer, Entry> entries;
+    private long invalidations; // Evita guardar una carga que empezó antes de una invalidación
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expirations;
+
+    @Autowired
+    public PromotionCache(PromotionRepository promotionRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.cache.promotions.max-size:1000}") int maxSize,
+                          @Value("${app.cache.promotions.ttl:PT5M}") Duration ttl) {
+        this(promotionRepository, meterRegistry, maxSize, ttl, System::nanoTime);
+    }
+
+    PromotionCache(PromotionRepository promotionRepository,
+                   MeterRegistry meterRegistry,
+                   int maxSize,
+                   Duration ttl,
+                   LongSupplier nanoTime) {
+        this.promotionRepository = promotionRepository;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                boolean evict = size() > PromotionCache.this.maxSize;
+                if (evict) {
+                    sizeEvictions.increment();
+                }
+                return evict;
+            }
+        };
+
+        this.hits = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "hit")
+            .description("Lecturas de la caché de promociones").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "miss")
+            .description("Lecturas de la caché de promociones").register(meterRegistry);
+        this.sizeEvictions = Counter.builder("cache.evictions").tag("cache", CACHE_NAME).tag("cause", "size")
+            .description("Entradas expulsadas de la caché de promociones").register(meterRegistry);
+        this.expirations = Counter.builder("cache.evictions").tag("cache", CACHE_NAME).tag("cause", "expired")
+            .description("Entradas expulsadas de la caché de promociones").register(meterRegistry);
+        Gauge.builder("cache.size", this, PromotionCache::size).tag("cache", CACHE_NAME)
+            .description("Entradas en la caché de promociones").register(meterRegistry);
+    }
+
+    /**
+     * Promoción por ID; si no está en caché (o expiró) se carga con sus asociaciones en una consulta
+     */
+    public Optional<Promotion> get(Integer promotionId) {
+        if (promotionId == null) {
+            return Optional.empty();
+        }
+        long generation;
+        synchronized (this) {
+            Entry entry = entries.get(promotionId);
+            if (entry != null && entry.expiresAt - nanoTime.getAsLong() > 0) {
+                hits.increment();
+                return Optional.of(entry.snapshot.toEntity());
+            }
+            if (entry != null) {
+                entries.remove(promotionId);
+                expirations.increment();
+            }
+            misses.increment();
+            generation = invalidations;
+        }
+
+        Optional<Promotion> loaded = promotionRepository.findDetailedById(promotionId);
+        if (loaded.isEmpty()) {
+            return Optional.empty(); // Las ausencias no se cachean
+        }
+        Snapshot snapshot = Snapshot.from(loaded.get());
+        synchronized (this) {
+            if (generation == invalidations && !insideWriteTransaction()) {
+                entries.put(promotionId, new Entry(snapshot, nanoTime.getAsLong() + ttlNanos));
+            }
+        }
+        return Optional.of(snapshot.toEntity());
+    }
+
+    public synchronized void invalidate(Integer promotionId) {
+        invalidations++;
+        entries.remove(promotionId);
+    }
+
+    public synchronized void invalidateAll() {
+        invalidations++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Invalida con precisión una vez confirmada la transacción que cambió la promoción
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromotionChanged(PromotionChangedEvent event) {
+        if (event.isReloadAll()) {
+            invalidateAll();
+            logger.debug("Caché de promociones vaciada por cambio masivo");
+        } else {
+            invalidate(event.getPromotionId());
+        }
+    }
+
+    /**
+     * Vacía la caché una vez confirmado el cambio de una categoría. Los cambios de categoría son
+     * raros, así que no se indexa categoría → promociones.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        invalidateAll();
+        logger.debug("Caché de promociones vaciada por cambio de la categoría {}", event.getCategoryId());
+    }
+
+    /**
+     * Dentro de una transacción de escritura la carga puede ver cambios que luego se revierten
+     * (y un rollback no publica evento de invalidación), así que no se guarda
+     */
+    private static boolean insideWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+            && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    private record Entry(Snapshot snapshot, long expiresAt) {
+    }
+
+    /**
+     * Copia inmutable de la promoción y sus asociaciones (el usuario sin contraseña)
+     */
+    private record Snapshot(Integer promotionId, String promotionName, String description,
+                            LocalDate startDate, LocalDate endDate, Double discountValue,
+                            Integer statusId, String statusName,
+                            Integer categoryId, String categoryName, String categoryDescription,
+                            User user) {
+
+        static Snapshot from(Promotion promotion) {
+            Status status = promotion.getStatus();
+            Category category = promotion.getCategory();
+            User user = null;
+            if (promotion.getUser() != null) {
+                User source = promotion.getUser();
+                user = new User(source.getUserName(), source.getEmail(), null, source.getRole());
+                user.setUserId(source.getUserId());
+            }
+            return new Snapshot(promotion.getPromotionId(), promotion.getPromotionName(), promotion.getDescription(),
+                promotion.getStartDate(), promotion.getEndDate(), promotion.getDiscountValue(),
+                status != null ? status.getStatusId() : null, status != null ? status.getStatusName() : null,
+                category != null ? category.getCategoryId() : null,
+                category != null ? category.getCategoryName() : null,
+                category != null ? category.getDescription() : null,
+                user);
+        }
+
+        Promotion toEntity() {
+            Promotion promotion = new Promotion();
+            promotion.setPromotionId(promotionId);
+            promotion.setPromotionName(promotionName);
+            promotion.setDescription(description);
+            promotion.setStartDate(startDate);
+            promotion.setEndDate(endDate);
+            promotion.setDiscountValue(discountValue);
+            if (statusId != null) {
+                Status status = new Status(statusName);
+                status.setStatusId(statusId);
+                promotion.setStatus(status);
+            }
+            if (categoryId != null) {
+                Category category = new Category(categoryName, categoryDescription);
+                category.setCategoryId(categoryId);
+                promotion.setCategory(category);
+            }
+            if (user != null) {
+                User copy = new User(user.getUserName(), user.getEmail(), null, user.getRole());
+                copy.setUserId(user.getUserId());
+                promotion.setUser(copy);
+            }
+            return promotion;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.petstore.backend.cache;
+
+import java.time.LocalDate;
+
+import com.petstore.backend.entity.Promotion;
+
+/**
+ * Vista mínima de una promoción usada por el índice de intervalos de fechas.
+ * Solo contiene lo necesario para responder "vigente en la fecha D" sin cargar la entidad.
+ */
+public record PromotionInterval(Integer promotionId,
+                                LocalDate startDate,
+                                LocalDate endDate,
+                                Integer categoryId,
+                                String statusName) {
+
+    /**
+     * Construye el intervalo a partir de una entidad (no inicializa proxies LAZY: solo lee el ID de categoría)
+     */
+    public static PromotionInterval from(Promotion promotion) {
+        return new PromotionInterval(
+            promotion.getPromotionId(),
+            promotion.getStartDate(),
+            promotion.getEndDate(),
+            promotion.getCategory() != null ? promotion.getCategory().getCategoryId() : null,
+            promotion.getStatus() != null ? promotion.getStatus().getStatusName() : null
+        );
+    }
+
+    public boolean isActive() {
+        return "ACTIVE".equalsIgnoreCase(statusName);
+    }
+
+    public boolean isValidOn(LocalDate date) {
+        return !date.isBefore(startDate) && !date.isAfter(endDate);
+    }
+}
@@ -0,0 +1,426 @@
+package com.petstore.backend.cache;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.petstore.backend.event.PromotionChangedEvent;
+import com.petstore.backend.repository.PromotionRepository;
+
+/**
+ * Índice en memoria de los intervalos [startDate, endDate] de todas las promociones.
+ *
+ * Usa un árbol de intervalos centrado (global y uno por categoría) para responder
+ * "vigentes en la fecha D", "vigentes en D para la categoría C" y "vigentes en el rango [D1, D2]"
+ * en O(log n + k), sin escanear la tabla ni filtrar en Java.
+ *
+ * El estado es un snapshot inmutable que se reemplaza atómicamente. Las escrituras
+ * (eventos {@link PromotionChangedEvent}) parchean el árbol global y el de cada categoría tocada
+ * copiando solo el camino hasta el nodo del intervalo (O(profundidad + intervalos del nodo)).
+ * Como los parches no rebalancean, tras un número de escrituras proporcional al tamaño del índice
+ * se reconstruye todo con centros nuevos, lo que deja el costo amortizado en O(log n) por escritura.
+ */
+@Component
+public class PromotionIntervalIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PromotionIntervalIndex.class);
+
+    private static final Comparator<PromotionInterval> BY_ID =
+        Comparator.comparing(PromotionInterval::promotionId);
+
+    private static final Comparator<PromotionInterval> BY_START =
+        Comparator.comparing(PromotionInterval::startDate);
+
+    private static final Comparator<PromotionInterval> BY_END_DESC =
+        Comparator.comparing(PromotionInterval::endDate).reversed();
+
+    // Parches tolerados antes de reconstruir: una fracción del índice, con un mínimo para índices chicos
+    private static final int MIN_PATCHES_BEFORE_REBUILD = 64;
+
+    private final PromotionRepository promotionRepository;
+
+    private volatile Snapshot snapshot; // null hasta la primera carga
+
+    public PromotionIntervalIndex(PromotionRepository promotionRepository) {
+        this.promotionRepository = promotionRepository;
+    }
+
+    // === CONSULTAS ===
+
+    /**
+     * Promociones cuyo intervalo contiene la fecha indicada (ordenadas por ID)
+     */
+    public List<PromotionInterval> findValidOn(LocalDate date) {
+        return stab(current().all, date);
+    }
+
+    /**
+     * Promociones de una categoría cuyo intervalo contiene la fecha indicada (ordenadas por ID)
+     */
+    public List<PromotionInterval> findValidOn(LocalDate date, Integer categoryId) {
+        return stab(current().byCategory.get(categoryId), date);
+    }
+
+    /**
+     * Promociones vigentes en algún momento del rango [from, to] (ordenadas por ID)
+     */
+    public List<PromotionInterval> findValidBetween(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            return List.of();
+        }
+        List<PromotionInterval> result = new ArrayList<>();
+        overlap(current().all, from.toEpochDay(), to.toEpochDay(), result::add);
+        result.sort(BY_ID);
+        return result;
+    }
+
+    /**
+     * Número de promociones indexadas
+     */
+    public int size() {
+        return current().entries.size();
+    }
+
+    // === MANTENIMIENTO ===
+
+    /**
+     * Recarga el índice completo desde la base de datos (una sola consulta de proyección)
+     */
+    public synchronized void reload() {
+        List<PromotionInterval> intervals = promotionRepository.findAllIntervals();
+        Map<Integer, PromotionInterval> entries = new HashMap<>();
+        for (PromotionInterval interval : intervals) {
+            if (isIndexable(interval)) {
+                entries.put(interval.promotionId(), interval);
+            }
+        }
+        this.snapshot = Snapshot.build(entries);
+        logger.info("Índice de intervalos de promociones cargado: {} promociones", entries.size());
+    }
+
+    /**
+     * Inserta o reemplaza el intervalo de una promoción
+     */
+    public synchronized void upsert(PromotionInterval interval) {
+        if (snapshot == null) {
+            return; // La primera consulta cargará el estado ya confirmado en BD
+        }
+        if (!isIndexable(interval)) {
+            remove(interval.promotionId());
+            return;
+        }
+        Map<Integer, PromotionInterval> entries = new HashMap<>(snapshot.entries);
+        PromotionInterval previous = entries.put(interval.promotionId(), interval);
+        this.snapshot = snapshot.withChange(entries, previous, interval);
+    }
+
+    /**
+     * Elimina una promoción del índice
+     */
+    public synchronized void remove(Integer promotionId) {
+        if (snapshot == null || !snapshot.entries.containsKey(promotionId)) {
+            return;
+        }
+        Map<Integer, PromotionInterval> entries = new HashMap<>(snapshot.entries);
+        PromotionInterval previous = entries.remove(promotionId);
+        this.snapshot = snapshot.withChange(entries, previous, null);
+    }
+
+    /**
+     * Aplica los cambios de promociones una vez confirmada la transacción
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromotionChanged(PromotionChangedEvent event) {
+        if (event.isReloadAll()) {
+            if (snapshot != null) {
+                reload();
+            }
+        } else if (event.isDeleted()) {
+            remove(event.getPromotionId());
+        } else {
+            upsert(event.getInterval());
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private static boolean isIndexable(PromotionInterval interval) {
+        return interval != null && interval.promotionId() != null
+            && interval.startDate() != null && interval.endDate() != null
+            && !interval.endDate().isBefore(interval.startDate());
+    }
+
+    private static List<PromotionInterval> stab(Node root, LocalDate date) {
+        if (root == null) {
+            return List.of();
+        }
+        List<PromotionInterval> result = new ArrayList<>();
+        stab(root, date.toEpochDay(), result::add);
+        result.sort(BY_ID);
+        return result;
+    }
+
+    // === ÁRBOL DE INTERVALOS CENTRADO ===
+
+    private static void stab(Node node, long point, Consumer<PromotionInterval> sink) {
+        while (node != null) {
+            if (point < node.center) {
+                // Todos los intervalos del nodo terminan después del centro: basta con start <= point
+                for (PromotionInterval interval : node.byStart) {
+                    if (interval.startDate().toEpochDay() > point) {
+                        break;
+                    }
+                    sink.accept(interval);
+                }
+                node = node.left;
+            } else if (point > node.center) {
+                // Todos empiezan antes del centro: basta con end >= point
+                for (PromotionInterval interval : node.byEnd) {
+                    if (interval.endDate().toEpochDay() < point) {
+                        break;
+                    }
+                    sink.accept(interval);
+                }
+                node = node.right;
+            } else {
+                for (PromotionInterval interval : node.byStart) {
+                    sink.accept(interval);
+                }
+                return;
+            }
+        }
+    }
+
+    private static void overlap(Node node, long from, long to, Consumer<PromotionInterval> sink) {
+        if (node == null) {
+            return;
+        }
+        if (to < node.center) {
+            for (PromotionInterval interval : node.byStart) {
+                if (interval.startDate().toEpochDay() > to) {
+                    break;
+                }
+                sink.accept(interval);
+            }
+            overlap(node.left, from, to, sink);
+        } else if (from > node.center) {
+            for (PromotionInterval interval : node.byEnd) {
+                if (interval.endDate().toEpochDay() < from) {
+                    break;
+                }
+                sink.accept(interval);
+            }
+            overlap(node.right, from, to, sink);
+        } else {
+            // El centro cae dentro del rango: todos los intervalos del nodo se solapan
+            for (PromotionInterval interval : node.byStart) {
+                sink.accept(interval);
+            }
+            overlap(node.left, from, to, sink);
+            overlap(node.right, from, to, sink);
+        }
+    }
+
+    private static final class Node {
+        private final long center;
+        private final PromotionInterval[] byStart; // start ascendente
+        private final PromotionInterval[] byEnd;   // end descendente
+        private final Node left;
+        private final Node right;
+
+        private Node(long center, PromotionInterval[] byStart, PromotionInterval[] byEnd, Node left, Node right) {
+            this.center = center;
+            this.byStart = byStart;
+            this.byEnd = byEnd;
+            this.left = left;
+            this.right = right;
+        }
+
+        static Node build(List<PromotionInterval> intervals) {
+            if (intervals.isEmpty()) {
+                return null;
+            }
+            // Centro = mediana de todos los extremos, garantiza profundidad O(log n)
+            long[] endpoints = new long[intervals.size() * 2];
+            int i = 0;
+            for (PromotionInterval interval : intervals) {
+                endpoints[i++] = interval.startDate().toEpochDay();
+                endpoints[i++] = interval.endDate().toEpochDay();
+            }
+            Arrays.sort(endpoints);
+            long center = endpoints[endpoints.length / 2];
+
+            List<PromotionInterval> left = new ArrayList<>();
+            List<PromotionInterval> right = new ArrayList<>();
+            List<PromotionInterval> here = new ArrayList<>();
+            for (PromotionInterval interval : intervals) {
+                if (interval.endDate().toEpochDay() < center) {
+                    left.add(interval);
+                } else if (interval.startDate().toEpochDay() > center) {
+                    right.add(interval);
+                } else {
+                    here.add(interval);
+                }
+            }
+
+            PromotionInterval[] byStart = here.toArray(new PromotionInterval[0]);
+            Arrays.sort(byStart, BY_START);
+            PromotionInterval[] byEnd = here.toArray(new PromotionInterval[0]);
+            Arrays.sort(byEnd, BY_END_DESC);
+
+            return new Node(center, byStart, byEnd, build(left), build(right));
+        }
+
+        /**
+         * Árbol con el intervalo agregado: copia solo los nodos del camino hasta el que lo contiene
+         * (o crea una hoja centrada en el intervalo si el camino termina)
+         */
+        static Node insert(Node node, PromotionInterval interval) {
+            if (node == null) {
+                return build(List.of(interval));
+            }
+            if (interval.endDate().toEpochDay() < node.center) {
+                return new Node(node.center, node.byStart, node.byEnd, insert(node.left, interval), node.right);
+            }
+            if (interval.startDate().toEpochDay() > node.center) {
+                return new Node(node.center, node.byStart, node.byEnd, node.left, insert(node.right, interval));
+            }
+            return new Node(node.center, insertSorted(node.byStart, interval, BY_START),
+                insertSorted(node.byEnd, interval, BY_END_DESC), node.left, node.right);
+        }
+
+        /**
+         * Árbol sin el intervalo (tal como fue indexado). Los nodos que quedan vacíos y sin hijos
+         * desaparecen; los que tienen hijos se conservan hasta la próxima reconstrucción.
+         */
+        static Node remove(Node node, PromotionInterval interval) {
+            if (node == null) {
+                return null;
+            }
+            Node left = node.left;
+            Node right = node.right;
+            PromotionInterval[] byStart = node.byStart;
+            PromotionInterval[] byEnd = node.byEnd;
+            if (interval.endDate().toEpochDay() < node.center) {
+                left = remove(left, interval);
+            } else if (interval.startDate().toEpochDay() > node.center) {
+                right = remove(right, interval);
+            } else {
+                byStart = without(byStart, interval.promotionId());
+                byEnd = without(byEnd, interval.promotionId());
+            }
+            if (byStart.length == 0 && left == null && right == null) {
+                return null;
+            }
+            return new Node(node.center, byStart, byEnd, left, right);
+        }
+
+        private static PromotionInterval[] insertSorted(PromotionInterval[] sorted, PromotionInterval interval,
+                                                        Comparator<PromotionInterval> order) {
+            int position = 0;
+            while (position < sorted.length && order.compare(sorted[position], interval) <= 0) {
+                position++;
+            }
+            PromotionInterval[] result = new PromotionInterval[sorted.length + 1];
+            System.arraycopy(sorted, 0, result, 0, position);
+            result[position] = interval;
+            System.arraycopy(sorted, position, result, position + 1, sorted.length - position);
+            return result;
+        }
+
+        private static PromotionInterval[] without(PromotionInterval[] intervals, Integer promotionId) {
+            return Arrays.stream(intervals)
+                .filter(interval -> !Objects.equals(interval.promotionId(), promotionId))
+                .toArray(PromotionInterval[]::new);
+        }
+    }
+
+    private static final class Snapshot {
+        private final Map<Integer, PromotionInterval> entries;
+        private final Node all;
+        private final Map<Integer, Node> byCategory;
+        private final int patches; // Escrituras aplicadas como parche desde la última reconstrucción
+
+        private Snapshot(Map<Integer, PromotionInterval> entries, Node all, Map<Integer, Node> byCategory, int patches) {
+            this.entries = entries;
+            this.all = all;
+            this.byCategory = byCategory;
+            this.patches = patches;
+        }
+
+        static Snapshot build(Map<Integer, PromotionInterval> entries) {
+            Map<Integer, List<PromotionInterval>> grouped = groupByCategory(entries);
+            Map<Integer, Node> byCategory = new HashMap<>();
+            grouped.forEach((categoryId, intervals) -> byCategory.put(categoryId, Node.build(intervals)));
+            return new Snapshot(entries, Node.build(new ArrayList<>(entries.values())), byCategory, 0);
+        }
+
+        /**
+         * Nuevo snapshot que reemplaza {@code previous} por {@code current} (cualquiera puede ser
+         * null) parcheando el árbol global y los de sus categorías. Reconstruye todo cuando se
+         * acumularon demasiados parches sin rebalancear.
+         */
+        Snapshot withChange(Map<Integer, PromotionInterval> newEntries, PromotionInterval previous,
+                            PromotionInterval current) {
+            if (patches + 1 > Math.max(MIN_PATCHES_BEFORE_REBUILD, newEntries.size() / 4)) {
+                return build(newEntries);
+            }
+            Node newAll = all;
+            Map<Integer, Node> newByCategory = new HashMap<>(byCategory);
+            if (previous != null) {
+                newAll = Node.remove(newAll, previous);
+                patchCategory(newByCategory, previous.categoryId(), tree -> Node.remove(tree, previous));
+            }
+            if (current != null) {
+                newAll = Node.insert(newAll, current);
+                patchCategory(newByCategory, current.categoryId(), tree -> Node.insert(tree, current));
+            }
+            return new Snapshot(newEntries, newAll, newByCategory, patches + 1);
+        }
+
+        private static void patchCategory(Map<Integer, Node> byCategory, Integer categoryId, UnaryOperator<Node> patch) {
+            if (categoryId == null) {
+                return;
+            }
+            Node tree = patch.apply(byCategory.get(categoryId));
+            if (tree == null) {
+                byCategory.remove(categoryId);
+            } else {
+                byCategory.put(categoryId, tree);
+            }
+        }
+
+        private static Map<Integer, List<PromotionInterval>> groupByCategory(Map<Integer, PromotionInterval> entries) {
+            Map<Integer, List<PromotionInterval>> grouped = new HashMap<>();
+            for (PromotionInterval interval : entries.values()) {
+                if (interval.categoryId() != null) {
+                    grouped.computeIfAbsent(interval.categoryId(), key -> new ArrayList<>()).add(interval);
+                }
+            }
+            return grouped;
+        }
+    }
+}
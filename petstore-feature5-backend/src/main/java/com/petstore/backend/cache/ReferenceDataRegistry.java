@@ -0,0 +1,232 @@
+package com.petstore.backend.cache;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.petstore.backend.entity.Category;
+import com.petstore.backend.entity.Role;
+import com.petstore.backend.entity.Status;
+import com.petstore.backend.repository.CategoryRepository;
+import com.petstore.backend.repository.RoleRepository;
+import com.petstore.backend.repository.StatusRepository;
+
+/**
+ * Registro en memoria de los datos de referencia (Status, Role y Category): tablas pequeñas
+ * y casi estáticas que los servicios consultan en cada operación.
+ *
+ * Se carga al arrancar y se guarda en un snapshot inmutable que se reemplaza atómicamente;
+ * las lecturas no toman locks ni van a la base de datos. Las categorías se actualizan a través
+ * de {@link com.petstore.backend.service.CategoryService}. Un ID o nombre que no está en el
+ * snapshot se busca en la BD sin cachearlo (p. ej. filas de una transacción aún no confirmada).
+ *
+ * Las instancias devueltas son entidades desprendidas compartidas: sirven como referencias
+ * para asociaciones ({@code promotion.setStatus(...)}) y no deben modificarse.
+ *
+ * Los estados que los servicios resuelven por nombre ({@code app.reference-data.required-statuses})
+ * se validan al arrancar: si falta alguno la aplicación no inicia.
+ */
+@Component
+public class ReferenceDataRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataRegistry.class);
+
+    private final StatusRepository statusRepository;
+    private final RoleRepository roleRepository;
+    private final CategoryRepository categoryRepository;
+    private final List<String> requiredStatuses;
+
+    private volatile Snapshot snapshot; // null hasta la primera carga
+
+    public ReferenceDataRegistry(StatusRepository statusRepository,
+                                 RoleRepository roleRepository,
+                                 CategoryRepository categoryRepository,
+                                 @Value("${app.reference-data.required-statuses:ACTIVE,EXPIRED,SCHEDULED}") List<String> requiredStatuses) {
+        this.statusRepository = statusRepository;
+        this.roleRepository = roleRepository;
+        this.categoryRepository = categoryRepository;
+        this.requiredStatuses = List.copyOf(requiredStatuses);
+    }
+
+    // === CONSULTAS ===
+
+    public Optional<Status> findStatus(Integer statusId) {
+        if (statusId == null) {
+            return Optional.empty();
+        }
+        Status status = current().statusById.get(statusId);
+        return status != null ? Optional.of(status) : statusRepository.findById(statusId);
+    }
+
+    public Optional<Status> findStatus(String statusName) {
+        if (statusName == null) {
+            return Optional.empty();
+        }
+        Status status = current().statusByName.get(statusName);
+        return status != null ? Optional.of(status) : statusRepository.findByStatusName(statusName);
+    }
+
+    /**
+     * Estado por nombre; los estados son configuración obligatoria del sistema
+     *
+     * @throws IllegalStateException si el estado no existe
+     */
+    public Status requireStatus(String statusName) {
+        return findStatus(statusName)
+            .orElseThrow(() -> new IllegalStateException("Estado no configurado: " + statusName));
+    }
+
+    public Optional<Role> findRole(Integer roleId) {
+        if (roleId == null) {
+            return Optional.empty();
+        }
+        Role role = current().roleById.get(roleId);
+        return role != null ? Optional.of(role) : roleRepository.findById(roleId);
+    }
+
+    public Optional<Role> findRole(String roleName) {
+        if (roleName == null) {
+            return Optional.empty();
+        }
+        Role role = current().roleByName.get(roleName);
+        return role != null ? Optional.of(role) : roleRepository.findByRoleName(roleName);
+    }
+
+    public Optional<Category> findCategory(Integer categoryId) {
+        if (categoryId == null) {
+            return Optional.empty();
+        }
+        Category category = current().categoryById.get(categoryId);
+        return category != null ? Optional.of(category) : categoryRepository.findById(categoryId);
+    }
+
+    public Optional<Category> findCategory(String categoryName) {
+        if (categoryName == null) {
+            return Optional.empty();
+        }
+        Category category = current().categoryByName.get(categoryName);
+        return category != null ? Optional.of(category) : categoryRepository.findByCategoryName(categoryName);
+    }
+
+    /**
+     * Todas las categorías cargadas, ordenadas por ID
+     */
+    public List<Category> categories() {
+        return current().categoryById.values().stream()
+            .sorted(Comparator.comparing(Category::getCategoryId))
+            .toList();
+    }
+
+    // === MANTENIMIENTO ===
+
+    /**
+     * Carga el registro al arrancar y verifica que existan los estados obligatorios
+     *
+     * @throws IllegalStateException si falta alguno (la aplicación no inicia)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        Map<String, Status> statusByName = current().statusByName;
+        List<String> missing = requiredStatuses.stream()
+            .filter(name -> !statusByName.containsKey(name))
+            .toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Estados no configurados en la tabla statuses: " + missing);
+        }
+    }
+
+    /**
+     * Recarga las tres tablas desde la base de datos
+     */
+    public synchronized void reload() {
+        this.snapshot = new Snapshot(
+            statusRepository.findAll(), roleRepository.findAll(), categoryRepository.findAll());
+        logger.info("Datos de referencia cargados: {} estados, {} roles, {} categorías",
+            snapshot.statusById.size(), snapshot.roleById.size(), snapshot.categoryById.size());
+    }
+
+    /**
+     * Reemplaza (o agrega) una categoría guardada
+     */
+    public synchronized void categorySaved(Category category) {
+        if (snapshot == null || category == null || category.getCategoryId() == null) {
+            return; // La primera consulta cargará el estado ya confirmado en BD
+        }
+        Map<Integer, Category> categories = new HashMap<>(snapshot.categoryById);
+        categories.put(category.getCategoryId(), category);
+        this.snapshot = snapshot.withCategories(categories.values());
+    }
+
+    /**
+     * Quita una categoría eliminada
+     */
+    public synchronized void categoryDeleted(Integer categoryId) {
+        if (snapshot == null || !snapshot.categoryById.containsKey(categoryId)) {
+            return;
+        }
+        Map<Integer, Category> categories = new HashMap<>(snapshot.categoryById);
+        categories.remove(categoryId);
+        this.snapshot = snapshot.withCategories(categories.values());
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Estado inmutable del registro: mapas por ID y por nombre de cada tabla
+     */
+    private static final class Snapshot {
+
+        private final List<Status> statuses;
+        private final List<Role> roles;
+        private final Map<Integer, Status> statusById;
+        private final Map<String, Status> statusByName;
+        private final Map<Integer, Role> roleById;
+        private final Map<String, Role> roleByName;
+        private final Map<Integer, Category> categoryById;
+        private final Map<String, Category> categoryByName;
+
+        Snapshot(Collection<Status> statuses, Collection<Role> roles, Collection<Category> categories) {
+            this.statuses = List.copyOf(statuses);
+            this.roles = List.copyOf(roles);
+            this.statusById = index(statuses, Status::getStatusId);
+            this.statusByName = index(statuses, Status::getStatusName);
+            this.roleById = index(roles, Role::getRoleId);
+            this.roleByName = index(roles, Role::getRoleName);
+            this.categoryById = index(categories, Category::getCategoryId);
+            this.categoryByName = index(categories, Category::getCategoryName);
+        }
+
+        Snapshot withCategories(Collection<Category> categories) {
+            return new Snapshot(statuses, roles, categories);
+        }
+
+        private static <K, V> Map<K, V> index(Collection<V> values, Function<V, K> key) {
+            return values.stream()
+                .filter(value -> key.apply(value) != null)
+                .collect(Collectors.toUnmodifiableMap(key, Function.identity(), (first, second) -> second));
+        }
+    }
+}
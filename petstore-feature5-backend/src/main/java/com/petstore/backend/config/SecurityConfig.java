@@ -129,7 +129,7 @@ public class SecurityConfig {
                         authz.requestMatchers("/actuator/**").authenticated();
                         
                         // Productos: solo lectura pública, modificaciones requieren auth
-                        authz.requestMatchers("GET", "/api/products", "/api/products/category/*").permitAll();
+                        authz.requestMatchers("GET", "/api/products", "/api/products/page", "/api/products/category/*").permitAll();
                         authz.requestMatchers(PRODUCTAPIPATTERN).authenticated();
                     }
                     
@@ -3,6 +3,7 @@ package com.petstore.backend.controller;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -13,9 +14,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.petstore.backend.cache.CatalogVersion;
 import com.petstore.backend.dto.CategoryDTO;
+import com.petstore.backend.dto.CursorPage;
 import com.petstore.backend.entity.Category;
 import com.petstore.backend.service.CategoryService;
 
@@ -33,6 +38,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
  * Controlador REST para gestión de categorías
  * Endpoints disponibles:
  * - GET /api/categories - Obtener todas las categorías
+ * - GET /api/categories/page - Obtener categorías paginadas por cursor
  * - GET /api/categories/{id} - Obtener categoría por ID
  * - POST /api/categories - Crear nueva categoría
  * - PUT /api/categories/{id} - Actualizar categoría
@@ -46,9 +52,11 @@ public class CategoryController {
 
     
     private final CategoryService categoryService; // Inyección de dependencia del servicio de categorías
+    private final CatalogVersion catalogVersion; // Versión del catálogo para los ETag
 
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService, CatalogVersion catalogVersion) {
         this.categoryService = categoryService;
+        this.catalogVersion = catalogVersion;
     }
 
     @Operation(
@@ -64,6 +72,11 @@ public class CategoryController {
                             array = @ArraySchema(schema = @Schema(implementation = CategoryDTO.class))
                     )
             ),
+            @ApiResponse(
+                    responseCode = "304", 
+                    description = "El catálogo no cambió desde el ETag enviado en If-None-Match",
+                    content = @Content
+            ),
             @ApiResponse(
                     responseCode = "500", 
                     description = "Error interno del servidor",
@@ -71,14 +84,55 @@ public class CategoryController {
             )
     })
     @GetMapping
-    public ResponseEntity<List<CategoryDTO>> getAllCategories() {
+    public ResponseEntity<List<CategoryDTO>> getAllCategories(WebRequest request) {
+        String etag = catalogVersion.etag(); // Se lee antes que los datos
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
         try {
             List<Category> categories = categoryService.findAll();
             List<CategoryDTO> categoryDTOs = categories.stream()
                     .map(this::convertToDTO)
                     .toList();
             
-            return ResponseEntity.ok(categoryDTOs);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(categoryDTOs);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @Operation(
+            summary = "Obtener categorías paginadas",
+            description = "Retorna una página de categorías ordenadas por ID usando paginación por cursor (keyset)"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", 
+                    description = "Página de categorías obtenida exitosamente",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "400", 
+                    description = "Cursor inválido",
+                    content = @Content
+            ),
+            @ApiResponse(
+                    responseCode = "500", 
+                    description = "Error interno del servidor",
+                    content = @Content
+            )
+    })
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<CategoryDTO>> getCategoriesPage(
+            @Parameter(description = "Cursor devuelto por la página anterior (nextCursor)")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Tamaño de página (máximo 100)", example = "20")
+            @RequestParam(required = false) Integer size) {
+        try {
+            CursorPage<Category> page = categoryService.findPage(after, size);
+            return ResponseEntity.ok(page.map(this::convertToDTO));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
@@ -280,6 +334,7 @@ public class CategoryController {
             "service", "Categories API",
             "endpoints", java.util.List.of(
                 "GET /api/categories - Todas las categorías",
+                "GET /api/categories/page - Categorías paginadas por cursor",
                 "GET /api/categories/{id} - Categoría por ID",
                 "POST /api/categories - Crear categoría",
                 "PUT /api/categories/{id} - Actualizar categoría",
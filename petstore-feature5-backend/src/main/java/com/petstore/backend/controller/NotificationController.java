@@ -1,5 +1,6 @@
 package com.petstore.backend.controller;
 
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,7 +13,9 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.petstore.backend.dto.NotificationFanOutProgressDTO;
 import com.petstore.backend.entity.NotificationConsent;
+import com.petstore.backend.service.NotificationFanOutService;
 import com.petstore.backend.service.NotificationService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -31,6 +34,9 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
     
+    @Autowired
+    private NotificationFanOutService notificationFanOutService;
+    
     @Operation(
             summary = "Actualizar consentimiento de notificaciones",
             description = "Permite al usuario gestionar sus preferencias de notificaciones de email para promociones"
@@ -162,11 +168,22 @@ public class NotificationController {
             "endpoints", new String[]{
                 "POST /api/notifications/consent - Actualizar consentimiento",
                 "GET /api/notifications/consent/{userId}/{type} - Verificar consentimiento",
-                "GET /api/notifications/status - Estado del servicio"
+                "GET /api/notifications/status - Estado del servicio",
+                "GET /api/notifications/fanout - Avance de los envíos masivos"
             }
         ));
     }
     
+    @Operation(
+            summary = "Avance de los envíos masivos",
+            description = "Retorna los contadores de las campañas de notificación recientes (la más nueva primero), " +
+                          "incluidas las que siguen en curso"
+    )
+    @GetMapping("/fanout")
+    public ResponseEntity<List<NotificationFanOutProgressDTO>> getFanOutProgress() {
+        return ResponseEntity.ok(notificationFanOutService.recentCampaigns());
+    }
+    
     @Operation(
             summary = "Enviar email de prueba",
             description = "Envía un email de prueba para verificar la configuración del servicio de email"
@@ -5,6 +5,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,8 +14,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.petstore.backend.cache.CatalogVersion;
 import com.petstore.backend.dto.CategoryDTO;
+import com.petstore.backend.dto.CursorPage;
 import com.petstore.backend.dto.ProductDTO;
 import com.petstore.backend.entity.Product;
 import com.petstore.backend.service.ProductService;
@@ -34,9 +39,11 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class ProductController {
 
     private final ProductService productService; // Inyección de dependencia del servicio de productos
+    private final CatalogVersion catalogVersion; // Versión del catálogo para los ETag
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, CatalogVersion catalogVersion) {
         this.productService = productService;
+        this.catalogVersion = catalogVersion;
     }
 
     @Operation(
@@ -52,6 +59,11 @@ public class ProductController {
                             array = @ArraySchema(schema = @Schema(implementation = ProductDTO.class))
                     )
             ),
+            @ApiResponse(
+                    responseCode = "304", 
+                    description = "El catálogo no cambió desde el ETag enviado en If-None-Match",
+                    content = @Content
+            ),
             @ApiResponse(
                     responseCode = "500", 
                     description = "Error interno del servidor",
@@ -59,13 +71,56 @@ public class ProductController {
             )
     })
     @GetMapping
-    public ResponseEntity<List<ProductDTO>> getAllProducts() {
+    public ResponseEntity<List<ProductDTO>> getAllProducts(WebRequest request) {
+        String etag = catalogVersion.etag(); // Se lee antes que los datos
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
         try {
             List<Product> products = productService.findAll();
             List<ProductDTO> productDTOs = products.stream()
                     .map(this::convertToDTO)
                     .toList();
-            return ResponseEntity.ok(productDTOs);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(productDTOs);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(
+            summary = "Obtener productos paginados",
+            description = "Retorna una página de productos usando paginación por cursor (keyset), ordenada por ID o por precio base"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200", 
+                    description = "Página de productos obtenida exitosamente",
+                    content = @Content(mediaType = "application/json")
+            ),
+            @ApiResponse(
+                    responseCode = "400", 
+                    description = "Cursor u orden inválido",
+                    content = @Content
+            ),
+            @ApiResponse(
+                    responseCode = "500", 
+                    description = "Error interno del servidor",
+                    content = @Content
+            )
+    })
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<ProductDTO>> getProductsPage(
+            @Parameter(description = "Cursor devuelto por la página anterior (nextCursor)")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Tamaño de página (máximo 100)", example = "20")
+            @RequestParam(required = false) Integer size,
+            @Parameter(description = "Orden: id o basePrice", example = "id")
+            @RequestParam(required = false, defaultValue = "id") String sortBy) {
+        try {
+            CursorPage<Product> page = productService.findPage(after, size, sortBy);
+            return ResponseEntity.ok(page.map(this::convertToDTO));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -1,8 +1,12 @@
 package com.petstore.backend.controller;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -12,7 +16,11 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.petstore.backend.cache.CatalogVersion;
+import com.petstore.backend.dto.CursorPage;
+import com.petstore.backend.dto.ProductAssociationResult;
 import com.petstore.backend.dto.PromotionDTO;
 import com.petstore.backend.dto.PromotionDeletedDTO;
 import com.petstore.backend.service.PromotionService;
@@ -35,11 +43,14 @@ public class PromotionController {
 
     private static final String MESSAGE_KEY = "message"; // Constante para key de mensaje en respuestas
     private static final String SUCCESS_STATUS = "success"; // Constante para estado de éxito
+    private static final String RESULTS_KEY = "results"; // IDs de productos agrupados por resultado
 
     private final PromotionService promotionService; // Inyección de dependencia del servicio de promociones
+    private final CatalogVersion catalogVersion; // Versión del catálogo para los ETag
 
-    public PromotionController(PromotionService promotionService) {
+    public PromotionController(PromotionService promotionService, CatalogVersion catalogVersion) {
         this.promotionService = promotionService;
+        this.catalogVersion = catalogVersion;
     }
 
     /**
@@ -54,13 +65,19 @@ public class PromotionController {
         @ApiResponse(responseCode = "200", description = "Lista de promociones activas obtenida exitosamente",
                 content = @Content(mediaType = "application/json", 
                           schema = @Schema(implementation = PromotionDTO.class))),
+        @ApiResponse(responseCode = "304", description = "El catálogo no cambió desde el ETag enviado en If-None-Match"),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @GetMapping
-    public ResponseEntity<List<PromotionDTO>> getAllActivePromotions() {
+    public ResponseEntity<List<PromotionDTO>> getAllActivePromotions(WebRequest request) {
+        // La vigencia depende también de la fecha: el ETag cambia cada día
+        String etag = catalogVersion.etag(LocalDate.now());
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
         try {
             List<PromotionDTO> promotions = promotionService.getAllActivePromotions();
-            return ResponseEntity.ok(promotions);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(promotions);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -76,14 +93,50 @@ public class PromotionController {
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Lista completa de promociones obtenida exitosamente"),
+        @ApiResponse(responseCode = "304", description = "El catálogo no cambió desde el ETag enviado en If-None-Match"),
         @ApiResponse(responseCode = "500", description = "Error interno del servidor")
     })
     @SecurityRequirement(name = "bearerAuth")
     @GetMapping("/all")
-    public ResponseEntity<List<PromotionDTO>> getAllPromotions() {
+    public ResponseEntity<List<PromotionDTO>> getAllPromotions(WebRequest request) {
+        String etag = catalogVersion.etag(); // Se lee antes que los datos
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
         try {
             List<PromotionDTO> promotions = promotionService.getAllPromotions();
-            return ResponseEntity.ok(promotions);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(promotions);
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Obtiene promociones paginadas por cursor (keyset)
+     * GET /api/promotions/page?after={cursor}&size=20&sortBy=id|startDate
+     */
+    @Operation(
+        summary = "Obtener promociones paginadas",
+        description = "Obtiene una página de promociones usando paginación por cursor; el tiempo de respuesta no depende de la profundidad de la página"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Página de promociones obtenida exitosamente"),
+        @ApiResponse(responseCode = "400", description = "Cursor u orden inválido"),
+        @ApiResponse(responseCode = "500", description = "Error interno del servidor")
+    })
+    @SecurityRequirement(name = "bearerAuth")
+    @GetMapping("/page")
+    public ResponseEntity<CursorPage<PromotionDTO>> getPromotionsPage(
+            @Parameter(description = "Cursor devuelto por la página anterior (nextCursor)")
+            @RequestParam(required = false) String after,
+            @Parameter(description = "Tamaño de página (máximo 100)", example = "20")
+            @RequestParam(required = false) Integer size,
+            @Parameter(description = "Orden: id o startDate", example = "id")
+            @RequestParam(required = false, defaultValue = "id") String sortBy) {
+        try {
+            return ResponseEntity.ok(promotionService.getPromotionsPage(after, size, sortBy));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -374,12 +427,13 @@ public class PromotionController {
             @PathVariable Integer promotionId,
             @RequestParam List<Integer> productIds) {
         try {
-            boolean associated = promotionService.associateProductsToPromotion(promotionId, productIds);
+            Optional<ProductAssociationResult> result = promotionService.associateProducts(promotionId, productIds);
             
-            if (associated) {
+            if (result.isPresent()) {
                 return ResponseEntity.ok(java.util.Map.of(
                     SUCCESS_STATUS, true,
-                    MESSAGE_KEY, "Productos asociados a la promoción con éxito"
+                    MESSAGE_KEY, "Productos asociados a la promoción con éxito",
+                    RESULTS_KEY, result.get().byOutcome()
                 ));
             } else {
                 return ResponseEntity.badRequest().body(java.util.Map.of(
@@ -405,12 +459,13 @@ public class PromotionController {
             @PathVariable Integer promotionId,
             @RequestParam List<Integer> productIds) {
         try {
-            boolean removed = promotionService.removeProductsFromPromotion(promotionId, productIds);
+            Optional<ProductAssociationResult> result = promotionService.removeProducts(promotionId, productIds);
             
-            if (removed) {
+            if (result.isPresent()) {
                 return ResponseEntity.ok(java.util.Map.of(
                     SUCCESS_STATUS, true,
-                    MESSAGE_KEY, "Productos removidos de la promoción con éxito"
+                    MESSAGE_KEY, "Productos removidos de la promoción con éxito",
+                    RESULTS_KEY, result.get().byOutcome()
                 ));
             } else {
                 return ResponseEntity.badRequest().body(java.util.Map.of(
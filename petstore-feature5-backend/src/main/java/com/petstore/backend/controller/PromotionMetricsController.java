@@ -1,23 +1,41 @@
 package com.petstore.backend.controller;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.petstore.backend.cache.ProductLeaderboard;
+import com.petstore.backend.dto.MetricsSeriesDTO;
+import com.petstore.backend.dto.ProductLeaderboardEntryDTO;
 import com.petstore.backend.dto.ProductMetricsDTO;
 import com.petstore.backend.dto.PromotionPerformanceDTO;
+import com.petstore.backend.dto.PromotionPerformanceUpdateDTO;
+import com.petstore.backend.dto.SalesEventDTO;
+import com.petstore.backend.dto.SalesIngestionResult;
+import com.petstore.backend.service.MetricsExportService;
 import com.petstore.backend.service.PromotionMetricsService;
+import com.petstore.backend.service.PromotionPerformanceStreamService;
+import com.petstore.backend.service.SalesIngestionService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -27,6 +45,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import reactor.core.publisher.Flux;
 
 @Tag(name = "Métricas de Promociones", description = "API para obtener métricas de rendimiento de promociones")
 @RestController
@@ -35,14 +54,27 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 public class PromotionMetricsController {
 
     private final PromotionMetricsService promotionMetricsService;
+    private final SalesIngestionService salesIngestionService;
+    private final ProductLeaderboard productLeaderboard;
+    private final MetricsExportService metricsExportService;
+    private final PromotionPerformanceStreamService performanceStreamService;
 
-    public PromotionMetricsController(PromotionMetricsService promotionMetricsService) {
+    public PromotionMetricsController(PromotionMetricsService promotionMetricsService,
+                                      SalesIngestionService salesIngestionService,
+                                      ProductLeaderboard productLeaderboard,
+                                      MetricsExportService metricsExportService,
+                                      PromotionPerformanceStreamService performanceStreamService) {
         this.promotionMetricsService = promotionMetricsService;
+        this.salesIngestionService = salesIngestionService;
+        this.productLeaderboard = productLeaderboard;
+        this.metricsExportService = metricsExportService;
+        this.performanceStreamService = performanceStreamService;
     }
 
     @Operation(
         summary = "Obtener métricas de rendimiento de una promoción",
-        description = "Retorna métricas completas de rendimiento incluyendo variación de inventario, ventas e ingresos para una promoción específica"
+        description = "Retorna métricas completas de rendimiento incluyendo variación de inventario, ventas e ingresos para una promoción específica. " +
+                      "Los totales salen del rollup de la promoción; con includeProducts=false se omite el detalle por producto"
     )
     @ApiResponses(value = {
         @ApiResponse(
@@ -72,7 +104,9 @@ public class PromotionMetricsController {
     @GetMapping("/{promotionId}")
     public ResponseEntity<PromotionPerformanceDTO> getPromotionMetrics(
             @Parameter(description = "ID de la promoción", example = "1", required = true)
-            @PathVariable Integer promotionId) {
+            @PathVariable Integer promotionId,
+            @Parameter(description = "Incluir las métricas detalladas por producto (false devuelve solo los totales)", example = "true")
+            @RequestParam(defaultValue = "true") boolean includeProducts) {
         try {
             Optional<PromotionPerformanceDTO> metrics = promotionMetricsService.getPromotionPerformance(promotionId);
             
@@ -87,6 +121,9 @@ public class PromotionMetricsController {
                 return ResponseEntity.noContent().build();
             }
             
+            performance.setProductMetrics(includeProducts
+                    ? promotionMetricsService.getProductMetricsByPromotionId(promotionId)
+                    : List.of());
             return ResponseEntity.ok(performance);
             
         } catch (Exception e) {
@@ -136,6 +173,198 @@ public class PromotionMetricsController {
         }
     }
 
+    @Operation(
+        summary = "Obtener la serie temporal de métricas de una promoción",
+        description = "Retorna los totales acumulados en el rango [from, to] con la resolución adecuada al rango: " +
+                      "puntos crudos (hasta 2 días recientes), buckets horarios (hasta 60 días) o diarios"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200", 
+            description = "Serie obtenida exitosamente",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = MetricsSeriesDTO.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400", 
+            description = "Rango inválido",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "404", 
+            description = "Promoción no encontrada",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "500", 
+            description = "Error interno del servidor",
+            content = @Content
+        )
+    })
+    @GetMapping("/{promotionId}/series")
+    public ResponseEntity<MetricsSeriesDTO> getMetricsSeries(
+            @Parameter(description = "ID de la promoción", example = "1", required = true)
+            @PathVariable Integer promotionId,
+            @Parameter(description = "Inicio del rango (ISO-8601); por defecto 24 horas antes de 'to'", example = "2025-06-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Fin del rango (ISO-8601); por defecto ahora", example = "2025-06-02T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusHours(24);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return promotionMetricsService.getMetricsSeries(promotionId, start, end)
+                    .map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+            
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @Operation(
+        summary = "Seguir el rendimiento de una promoción en vivo",
+        description = "Server-Sent Events con el rendimiento de la promoción: el primer evento trae todos los campos y los " +
+                      "siguientes solo los que cambiaron tras cada escritura de métricas, como mucho uno por intervalo. " +
+                      "Sin escrituras no se envía nada"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200", 
+            description = "Flujo de eventos iniciado",
+            content = @Content(
+                mediaType = "text/event-stream",
+                schema = @Schema(implementation = PromotionPerformanceUpdateDTO.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "404", 
+            description = "Promoción no encontrada",
+            content = @Content
+        )
+    })
+    @GetMapping(value = "/{promotionId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<PromotionPerformanceUpdateDTO>>> streamPromotionPerformance(
+            @Parameter(description = "ID de la promoción", example = "1", required = true)
+            @PathVariable Integer promotionId) {
+        if (promotionMetricsService.getPromotionPerformance(promotionId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(performanceStreamService.updates(promotionId)
+                .map(update -> ServerSentEvent.builder(update).event("performance").build()));
+    }
+
+    @Operation(
+        summary = "Exportar métricas de todas las promociones",
+        description = "Descarga en streaming (CSV o NDJSON, opcionalmente gzip) las filas de métricas con snapshot en el rango. " +
+                      "Por defecto exporta los últimos 30 días"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200", 
+            description = "Exportación iniciada",
+            content = @Content(mediaType = "text/csv")
+        ),
+        @ApiResponse(
+            responseCode = "400", 
+            description = "Formato o rango inválido",
+            content = @Content
+        )
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportAllMetrics(
+            @Parameter(description = "Inicio del rango (ISO-8601); por defecto 30 días antes de 'to'", example = "2025-06-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Fin del rango (ISO-8601); por defecto ahora", example = "2025-07-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Formato: csv o ndjson", example = "csv")
+            @RequestParam(defaultValue = "csv") String format,
+            @Parameter(description = "Comprimir la descarga con gzip", example = "false")
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return exportMetrics(null, from, to, format, gzip);
+    }
+
+    @Operation(
+        summary = "Exportar métricas de una promoción",
+        description = "Descarga en streaming (CSV o NDJSON, opcionalmente gzip) las filas de métricas de la promoción con snapshot en el rango"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200", 
+            description = "Exportación iniciada",
+            content = @Content(mediaType = "text/csv")
+        ),
+        @ApiResponse(
+            responseCode = "400", 
+            description = "Formato o rango inválido",
+            content = @Content
+        )
+    })
+    @GetMapping("/{promotionId}/export")
+    public ResponseEntity<StreamingResponseBody> exportPromotionMetrics(
+            @Parameter(description = "ID de la promoción", example = "1", required = true)
+            @PathVariable Integer promotionId,
+            @Parameter(description = "Inicio del rango (ISO-8601); por defecto 30 días antes de 'to'", example = "2025-06-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Fin del rango (ISO-8601); por defecto ahora", example = "2025-07-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Formato: csv o ndjson", example = "csv")
+            @RequestParam(defaultValue = "csv") String format,
+            @Parameter(description = "Comprimir la descarga con gzip", example = "false")
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        return exportMetrics(promotionId, from, to, format, gzip);
+    }
+
+    @Operation(
+        summary = "Ranking de productos más vendidos",
+        description = "Top-N de productos por unidades vendidas o ingresos sumando todas las promociones activas hoy. " +
+                      "Se responde desde memoria; opcionalmente filtra por categoría"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200", 
+            description = "Ranking obtenido exitosamente",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(implementation = ProductLeaderboardEntryDTO.class)
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400", 
+            description = "Criterio de orden inválido",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "500", 
+            description = "Error interno del servidor",
+            content = @Content
+        )
+    })
+    @GetMapping("/leaderboard")
+    public ResponseEntity<List<ProductLeaderboardEntryDTO>> getProductLeaderboard(
+            @Parameter(description = "Criterio de orden: units o revenue", example = "units")
+            @RequestParam(defaultValue = "units") String by,
+            @Parameter(description = "Número de productos (máximo 100)", example = "10")
+            @RequestParam(defaultValue = "10") int limit,
+            @Parameter(description = "ID de categoría para filtrar", example = "1")
+            @RequestParam(required = false) Integer categoryId) {
+        ProductLeaderboard.Ranking ranking;
+        try {
+            ranking = ProductLeaderboard.Ranking.valueOf(by.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(productLeaderboard.top(ranking, limit, categoryId));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @Operation(
         summary = "Verificar si una promoción tiene métricas",
         description = "Endpoint para verificar rápidamente si existen datos de métricas para una promoción"
@@ -206,11 +435,12 @@ public class PromotionMetricsController {
             @Parameter(description = "ID de la promoción", example = "1", required = true)
             @PathVariable Integer promotionId) {
         try {
-            promotionMetricsService.initializeMetricsForPromotion(promotionId);
+            int created = promotionMetricsService.initializeMetricsForPromotion(promotionId);
             
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("promotionId", promotionId);
+            response.put("created", created);
             response.put("message", "Métricas inicializadas exitosamente");
             
             return ResponseEntity.ok(response);
@@ -289,6 +519,135 @@ public class PromotionMetricsController {
         }
     }
 
+    @Operation(
+        summary = "Registrar ventas por lotes",
+        description = "Acepta miles de eventos de venta por petición. Se acumulan en memoria por promoción y producto " +
+                      "y se vuelcan a las métricas en lotes JDBC cada pocos instantes (consistencia eventual). Las ventas de productos que " +
+                      "no pertenecen a la promoción se descartan al volcar (métrica sales.ingest.events{result=\"dropped\"}). Solo para administradores."
+    )
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "202", 
+            description = "Lote aceptado; las métricas se actualizan en el próximo volcado",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(type = "object", example = "{\"success\": true, \"accepted\": 1000, \"rejected\": 0}")
+            )
+        ),
+        @ApiResponse(
+            responseCode = "400", 
+            description = "Lote vacío",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "401", 
+            description = "No autorizado - Token requerido",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "413", 
+            description = "El lote supera el máximo de eventos por petición",
+            content = @Content
+        )
+    })
+    @PostMapping("/sales/batch")
+    public ResponseEntity<Map<String, Object>> ingestSales(
+            @Parameter(description = "Eventos de venta", required = true)
+            @RequestBody List<SalesEventDTO> events) {
+        Map<String, Object> response = new HashMap<>();
+        if (events == null || events.isEmpty()) {
+            response.put("success", false);
+            response.put("message", "El lote de ventas está vacío");
+            return ResponseEntity.badRequest().body(response);
+        }
+        if (events.size() > salesIngestionService.getMaxBatchSize()) {
+            response.put("success", false);
+            response.put("message", "El lote supera el máximo de " + salesIngestionService.getMaxBatchSize() + " eventos");
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(response);
+        }
+
+        SalesIngestionResult result = salesIngestionService.ingest(events);
+        response.put("success", true);
+        response.put("accepted", result.accepted());
+        response.put("rejected", result.rejected());
+        return ResponseEntity.accepted().body(response);
+    }
+
+    @Operation(
+        summary = "Reconstruir los rollups de rendimiento",
+        description = "Recalcula desde promotion_metrics los totales de todas las promociones (reparación). Solo para administradores."
+    )
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "200", 
+            description = "Rollups reconstruidos exitosamente",
+            content = @Content(
+                mediaType = "application/json",
+                schema = @Schema(type = "object", example = "{\"success\": true, \"rebuiltPromotions\": 3}")
+            )
+        ),
+        @ApiResponse(
+            responseCode = "401", 
+            description = "No autorizado - Token requerido",
+            content = @Content
+        ),
+        @ApiResponse(
+            responseCode = "500", 
+            description = "Error interno del servidor",
+            content = @Content
+        )
+    })
+    @PostMapping("/rollup/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildRollups() {
+        try {
+            int rebuilt = promotionMetricsService.rebuildAllRollups();
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("rebuiltPromotions", rebuilt);
+            response.put("message", "Rollups de rendimiento reconstruidos exitosamente");
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("success", false);
+            errorResponse.put("message", "Error al reconstruir rollups: " + e.getMessage());
+            
+            return ResponseEntity.internalServerError().body(errorResponse);
+        }
+    }
+
+    /**
+     * Arma la respuesta de descarga; las filas se escriben al consumir el cuerpo (fuera del hilo de la petición)
+     */
+    private ResponseEntity<StreamingResponseBody> exportMetrics(Integer promotionId, LocalDateTime from, LocalDateTime to,
+                                                                String format, boolean gzip) {
+        MetricsExportService.Format exportFormat;
+        try {
+            exportFormat = MetricsExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(30);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String filename = "promotion-metrics" + (promotionId != null ? "-" + promotionId : "")
+                + "." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = output ->
+                metricsExportService.export(promotionId, start, end, exportFormat, gzip, output);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip")
+                                  : MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .body(body);
+    }
+
     // Clase interna para el request de simulación
     @Schema(description = "Request para simular actualización de métricas")
     public static class SimulationRequest {
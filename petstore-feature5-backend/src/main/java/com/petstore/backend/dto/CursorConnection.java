@@ -0,0 +1,49 @@
+package com.petstore.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conexión estilo Relay (edges + pageInfo) para las consultas GraphQL paginadas.
+ * Se construye a partir de un {@link CursorPage}.
+ */
+public class CursorConnection<T> {
+
+    private final List<Edge<T>> edges;
+    private final PageInfo pageInfo;
+
+    public CursorConnection(List<Edge<T>> edges, PageInfo pageInfo) {
+        this.edges = edges;
+        this.pageInfo = pageInfo;
+    }
+
+    public static <T> CursorConnection<T> from(CursorPage<T> page) {
+        List<T> items = page.getItems();
+        List<String> cursors = page.getCursors();
+        List<Edge<T>> edges = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            edges.add(new Edge<>(cursors.get(i), items.get(i)));
+        }
+        PageInfo pageInfo = new PageInfo(
+            page.isHasNextPage(),
+            page.isHasPreviousPage(),
+            cursors.isEmpty() ? null : cursors.get(0),
+            cursors.isEmpty() ? null : cursors.get(cursors.size() - 1)
+        );
+        return new CursorConnection<>(edges, pageInfo);
+    }
+
+    public List<Edge<T>> getEdges() {
+        return edges;
+    }
+
+    public PageInfo getPageInfo() {
+        return pageInfo;
+    }
+
+    public record Edge<T>(String cursor, T node) {
+    }
+
+    public record PageInfo(boolean hasNextPage, boolean hasPreviousPage, String startCursor, String endCursor) {
+    }
+}
@@ -0,0 +1,91 @@
+package com.petstore.backend.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Página de resultados con paginación por cursor (keyset)")
+public class CursorPage<T> {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    @Schema(description = "Elementos de la página")
+    private final List<T> items;
+
+    @JsonIgnore
+    private final List<String> cursors; // Cursor de cada elemento (para aristas GraphQL)
+
+    @Schema(description = "Indica si existen más elementos después de esta página", example = "true")
+    private final boolean hasNextPage;
+
+    @JsonIgnore
+    private final boolean hasPreviousPage;
+
+    public CursorPage(List<T> items, List<String> cursors, boolean hasNextPage, boolean hasPreviousPage) {
+        this.items = items;
+        this.cursors = cursors;
+        this.hasNextPage = hasNextPage;
+        this.hasPreviousPage = hasPreviousPage;
+    }
+
+    /**
+     * Construye la página a partir de las filas leídas (se piden {@code size + 1} para saber si hay más)
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, boolean hasPreviousPage, Function<T, String> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<T> items = hasNext ? rows.subList(0, size) : rows;
+        List<String> cursors = new ArrayList<>(items.size());
+        for (T item : items) {
+            cursors.add(cursorOf.apply(item));
+        }
+        return new CursorPage<>(List.copyOf(items), cursors, hasNext, hasPreviousPage);
+    }
+
+    /**
+     * Normaliza el tamaño de página solicitado al rango [1, MAX_SIZE]
+     */
+    public static int normalizeSize(Integer size) {
+        if (size == null || size < 1) {
+            return DEFAULT_SIZE;
+        }
+        return Math.min(size, MAX_SIZE);
+    }
+
+    /**
+     * Transforma los elementos conservando los cursores
+     */
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(items.stream().map(mapper).toList(), cursors, hasNextPage, hasPreviousPage);
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public List<String> getCursors() {
+        return cursors;
+    }
+
+    @Schema(description = "Cursor a enviar en 'after' para obtener la siguiente página (null si no hay más)")
+    public String getNextCursor() {
+        return hasNextPage && !cursors.isEmpty() ? cursors.get(cursors.size() - 1) : null;
+    }
+
+    @Schema(description = "Número de elementos en la página", example = "20")
+    public int getSize() {
+        return items.size();
+    }
+
+    public boolean isHasNextPage() {
+        return hasNextPage;
+    }
+
+    public boolean isHasPreviousPage() {
+        return hasPreviousPage;
+    }
+}
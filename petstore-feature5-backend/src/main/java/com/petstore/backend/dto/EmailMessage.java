@@ -0,0 +1,7 @@
+package com.petstore.backend.dto;
+
+/**
+ * Email a enviar por lotes con {@link com.petstore.backend.service.EmailService#sendBatch}
+ */
+public record EmailMessage(String to, String subject, String htmlContent) {
+}
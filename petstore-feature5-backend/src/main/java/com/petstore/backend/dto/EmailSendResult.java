@@ -0,0 +1,20 @@
+package com.petstore.backend.dto;
+
+/**
+ * Resultado del envío de un email: ID asignado por el proveedor si se aceptó, o el error. Un fallo
+ * no reintentable (mensaje inválido o rechazado por el proveedor) volvería a fallar igual.
+ */
+public record EmailSendResult(String to, boolean sent, String providerId, String error, boolean retryable) {
+
+    public static EmailSendResult sent(String to, String providerId) {
+        return new EmailSendResult(to, true, providerId, null, false);
+    }
+
+    public static EmailSendResult failed(String to, String error) {
+        return new EmailSendResult(to, false, null, error, true);
+    }
+
+    public static EmailSendResult rejected(String to, String error) {
+        return new EmailSendResult(to, false, null, error, false);
+    }
+}
@@ -0,0 +1,26 @@
+package com.petstore.backend.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Último snapshot de métricas de un producto dentro de una promoción, con los datos del
+ * producto y los valores de ventana necesarios para los totales (inventario inicial del
+ * primer snapshot y última actualización de toda la promoción).
+ */
+public record LatestProductMetrics(Integer productId,
+                                   String productName,
+                                   Integer sku,
+                                   Double basePrice,
+                                   Integer categoryId,
+                                   String categoryName,
+                                   String categoryDescription,
+                                   Double discountValue,
+                                   Integer initialInventory,
+                                   Integer currentInventory,
+                                   Integer unitsSold,
+                                   BigDecimal revenueGenerated,
+                                   LocalDateTime updatedAt,
+                                   Integer firstInitialInventory,
+                                   LocalDateTime promotionLastUpdated) {
+}
@@ -0,0 +1,34 @@
+package com.petstore.backend.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Punto de la serie temporal de métricas de una promoción (totales acumulados al instante dado)
+ */
+@Schema(description = "Punto de la serie temporal de métricas de una promoción")
+public record MetricsPointDTO(
+        @Schema(description = "Instante del punto (inicio del bucket en resoluciones agregadas)")
+        LocalDateTime timestamp,
+        @Schema(description = "Unidades vendidas acumuladas", example = "120")
+        int totalUnitsSold,
+        @Schema(description = "Ingresos acumulados", example = "2450.50")
+        BigDecimal totalRevenue,
+        @Schema(description = "Inventario inicial total", example = "500")
+        int totalInitialInventory,
+        @Schema(description = "Inventario actual total", example = "380")
+        int totalCurrentInventory,
+        @Schema(description = "Porcentaje de sell-through (vendidas / inventario inicial)", example = "24.0")
+        double sellThroughPercentage,
+        @Schema(description = "Puntos crudos resumidos en este punto", example = "12")
+        int samples) {
+
+    public static MetricsPointDTO of(LocalDateTime timestamp, int totalUnitsSold, BigDecimal totalRevenue,
+                                     int totalInitialInventory, int totalCurrentInventory, int samples) {
+        double sellThrough = totalInitialInventory > 0 ? ((double) totalUnitsSold / totalInitialInventory) * 100 : 0.0;
+        return new MetricsPointDTO(timestamp, totalUnitsSold, totalRevenue, totalInitialInventory,
+                totalCurrentInventory, sellThrough, samples);
+    }
+}
@@ -0,0 +1,23 @@
+package com.petstore.backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Serie temporal de métricas de una promoción en la resolución elegida para el rango pedido
+ */
+@Schema(description = "Serie temporal de métricas de una promoción")
+public record MetricsSeriesDTO(
+        @Schema(description = "ID de la promoción", example = "1")
+        Integer promotionId,
+        @Schema(description = "Resolución de los puntos", example = "HOURLY", allowableValues = {"RAW", "HOURLY", "DAILY"})
+        String resolution,
+        @Schema(description = "Inicio del rango consultado")
+        LocalDateTime from,
+        @Schema(description = "Fin del rango consultado")
+        LocalDateTime to,
+        @Schema(description = "Puntos ordenados por instante")
+        List<MetricsPointDTO> points) {
+}
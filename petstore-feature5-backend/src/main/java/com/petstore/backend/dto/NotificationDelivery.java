@@ -0,0 +1,23 @@
+package com.petstore.backend.dto;
+
+import com.petstore.backend.entity.NotificationLog.NotificationStatus;
+
+/**
+ * Resultado de entregar una notificación del outbox. Un fallo reintentable vuelve a PENDING con
+ * backoff; los demás estados son definitivos.
+ */
+public record NotificationDelivery(long id, NotificationStatus status, String subject, String content,
+                                   String externalId, String error, boolean retryable) {
+
+    public static NotificationDelivery sent(long id, String subject, String content, String externalId) {
+        return new NotificationDelivery(id, NotificationStatus.SENT, subject, content, externalId, null, false);
+    }
+
+    public static NotificationDelivery failed(long id, String subject, String content, String error) {
+        return new NotificationDelivery(id, NotificationStatus.FAILED, subject, content, null, error, true);
+    }
+
+    public static NotificationDelivery rejected(long id, NotificationStatus status, String error) {
+        return new NotificationDelivery(id, status, null, null, null, error, false);
+    }
+}
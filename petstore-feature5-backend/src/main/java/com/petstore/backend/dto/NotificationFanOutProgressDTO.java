@@ -0,0 +1,34 @@
+package com.petstore.backend.dto;
+
+import java.time.LocalDateTime;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Avance del envío de notificaciones de una promoción a sus destinatarios
+ */
+@Schema(description = "Avance del envío masivo de notificaciones de una promoción")
+public record NotificationFanOutProgressDTO(
+        @Schema(description = "ID de la promoción", example = "1")
+        Integer promotionId,
+        @Schema(description = "Nombre de la promoción", example = "Descuento de verano")
+        String promotionName,
+        @Schema(description = "Destinatarios con consentimiento", example = "50000")
+        int total,
+        @Schema(description = "Envíos procesados sin error", example = "12000")
+        int completed,
+        @Schema(description = "Envíos que fallaron", example = "3")
+        int failed,
+        @Schema(description = "Envíos en curso o esperando reintento", example = "32")
+        int inFlight,
+        @Schema(description = "Envíos pendientes de despachar", example = "37965")
+        int pending,
+        @Schema(description = "Inicio del envío")
+        LocalDateTime startedAt,
+        @Schema(description = "Fin del envío (null mientras está en curso)")
+        LocalDateTime finishedAt) {
+
+    public boolean isFinished() {
+        return finishedAt != null;
+    }
+}
@@ -0,0 +1,11 @@
+package com.petstore.backend.dto;
+
+/**
+ * Notificación pendiente tomada del outbox por un worker; {@code attempts} ya incluye el intento actual
+ */
+public record NotificationOutboxEntry(long id, Integer userId, Integer promotionId, String recipient, int attempts) {
+
+    public boolean isFirstAttempt() {
+        return attempts <= 1;
+    }
+}
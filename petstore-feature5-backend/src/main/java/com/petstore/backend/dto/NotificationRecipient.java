@@ -0,0 +1,7 @@
+package com.petstore.backend.dto;
+
+/**
+ * Datos de un usuario necesarios para armar una notificación (proyección JPQL)
+ */
+public record NotificationRecipient(Integer userId, String userName, String email) {
+}
@@ -0,0 +1,11 @@
+package com.petstore.backend.dto;
+
+import java.time.LocalDateTime;
+
+import com.petstore.backend.entity.NotificationConsent.NotificationType;
+
+/**
+ * Momento de un envío registrado en notification_logs (para reconstruir las ventanas de rate limit)
+ */
+public record NotificationSendTime(Integer userId, NotificationType notificationType, LocalDateTime sentAt) {
+}
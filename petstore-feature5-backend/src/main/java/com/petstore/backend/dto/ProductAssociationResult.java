@@ -0,0 +1,39 @@
+package com.petstore.backend.dto;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado por producto de una asociación o remoción masiva de productos en una promoción.
+ * Conserva el orden de los IDs recibidos (sin duplicados).
+ */
+public record ProductAssociationResult(Integer promotionId, Map<Integer, Outcome> outcomes) {
+
+    public enum Outcome {
+        ASSOCIATED,          // Se asignó a la promoción
+        ALREADY_ASSOCIATED,  // Ya pertenecía a esta promoción
+        IN_OTHER_PROMOTION,  // Pertenece a otra promoción: no se modifica
+        REMOVED,             // Se quitó de la promoción
+        NOT_IN_PROMOTION,    // No pertenecía a esta promoción: no se modifica
+        MISSING              // El producto no existe
+    }
+
+    public List<Integer> idsWith(Outcome outcome) {
+        return outcomes.entrySet().stream()
+            .filter(entry -> entry.getValue() == outcome)
+            .map(Map.Entry::getKey)
+            .toList();
+    }
+
+    /**
+     * IDs agrupados por resultado (solo los resultados presentes)
+     */
+    public Map<Outcome, List<Integer>> byOutcome() {
+        Map<Outcome, List<Integer>> grouped = new EnumMap<>(Outcome.class);
+        outcomes.forEach((productId, outcome) ->
+            grouped.computeIfAbsent(outcome, key -> new ArrayList<>()).add(productId));
+        return grouped;
+    }
+}
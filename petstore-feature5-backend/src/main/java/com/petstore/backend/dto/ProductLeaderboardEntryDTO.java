@@ -0,0 +1,26 @@
+package com.petstore.backend.dto;
+
+import java.math.BigDecimal;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Ventas acumuladas de un producto sumando todas las promociones activas
+ */
+@Schema(description = "Ventas de un producto en todas las promociones activas")
+public record ProductLeaderboardEntryDTO(
+        @Schema(description = "ID del producto", example = "1")
+        Integer productId,
+        @Schema(description = "Nombre del producto", example = "Collar Premium")
+        String productName,
+        @Schema(description = "ID de la categoría del producto", example = "2")
+        Integer categoryId,
+        @Schema(description = "Nombre de la categoría del producto", example = "Accesorios")
+        String categoryName,
+        @Schema(description = "Unidades vendidas en las promociones activas", example = "120")
+        long unitsSold,
+        @Schema(description = "Ingresos generados en las promociones activas", example = "2450.50")
+        BigDecimal revenue,
+        @Schema(description = "Número de promociones activas en las que se vendió", example = "2")
+        int promotions) {
+}
@@ -66,6 +66,26 @@ public class PromotionDTO {
         this.updatedAt = updatedAt;
     }
 
+    /**
+     * Constructor de proyección JPQL: arma el DTO (y su categoría) en la misma consulta,
+     * sin inicializar las asociaciones LAZY de la entidad Promotion
+     */
+    public PromotionDTO(Integer promotionId, String promotionName, String description,
+                       Double discountValue, LocalDate startDate, LocalDate endDate,
+                       String status, Integer categoryId, String categoryName,
+                       String categoryDescription) {
+        this.promotionId = promotionId;
+        this.promotionName = promotionName;
+        this.description = description;
+        this.discountPercentage = discountValue != null ? BigDecimal.valueOf(discountValue) : null;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.status = status;
+        if (categoryId != null) {
+            this.category = new CategoryDTO(categoryId, categoryName, categoryDescription);
+        }
+    }
+
     // Getters and Setters
     public Integer getPromotionId() {
         return promotionId;
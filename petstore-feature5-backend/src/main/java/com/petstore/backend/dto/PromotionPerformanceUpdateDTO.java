@@ -0,0 +1,43 @@
+package com.petstore.backend.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Cambio en el rendimiento de una promoción enviado a los suscriptores en vivo.
+ * Solo trae valor en los campos listados en {@code changedFields}; el primer mensaje de cada
+ * suscripción lleva todos los campos.
+ */
+@Schema(description = "Campos del rendimiento de una promoción que cambiaron desde el último mensaje")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PromotionPerformanceUpdateDTO(
+        @Schema(description = "ID de la promoción", example = "1")
+        Integer promotionId,
+        @Schema(description = "Nombres de los campos que cambiaron", example = "[\"totalUnitsSold\", \"totalRevenue\"]")
+        List<String> changedFields,
+        @Schema(description = "Si la promoción está vigente")
+        Boolean isActive,
+        @Schema(description = "Productos con métricas", example = "12")
+        Integer totalProducts,
+        @Schema(description = "Unidades vendidas", example = "120")
+        Integer totalUnitsSold,
+        @Schema(description = "Ingresos generados", example = "2450.50")
+        BigDecimal totalRevenue,
+        @Schema(description = "Inventario inicial total", example = "500")
+        Integer totalInitialInventory,
+        @Schema(description = "Inventario actual total", example = "380")
+        Integer totalCurrentInventory,
+        @Schema(description = "Diferencia de inventario", example = "120")
+        Integer totalInventoryDifference,
+        @Schema(description = "Porcentaje de reducción de inventario", example = "24.0")
+        Double inventoryReductionPercentage,
+        @Schema(description = "Variación promedio de SKU", example = "18.5")
+        Double averageSkuVariationPercentage,
+        @Schema(description = "Última actualización de las métricas")
+        LocalDateTime lastUpdated) {
+}
@@ -0,0 +1,20 @@
+package com.petstore.backend.dto;
+
+import java.math.BigDecimal;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Evento de venta de un producto dentro de una promoción (ingesta por lotes)
+ */
+@Schema(description = "Evento de venta de un producto en una promoción")
+public record SalesEventDTO(
+        @Schema(description = "ID de la promoción", example = "1", required = true)
+        Integer promotionId,
+        @Schema(description = "ID del producto", example = "3", required = true)
+        Integer productId,
+        @Schema(description = "Unidades vendidas (> 0)", example = "2", required = true)
+        Integer units,
+        @Schema(description = "Precio unitario cobrado (>= 0)", example = "19.99", required = true)
+        BigDecimal unitPrice) {
+}
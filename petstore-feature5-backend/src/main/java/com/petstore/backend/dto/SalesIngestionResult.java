@@ -0,0 +1,8 @@
+package com.petstore.backend.dto;
+
+/**
+ * Resultado de la ingesta de un lote de ventas: eventos aceptados (quedan en memoria hasta el
+ * próximo volcado a la BD) y rechazados por datos inválidos.
+ */
+public record SalesIngestionResult(int accepted, int rejected) {
+}
@@ -0,0 +1,14 @@
+package com.petstore.backend.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de la actualización masiva de estados de promociones:
+ * filas cambiadas por estado destino e IDs que pasaron a ACTIVE.
+ */
+public record StatusTransitionResult(int expired, int scheduled, List<Integer> activatedIds) {
+
+    public int total() {
+        return expired + scheduled + activatedIds.size();
+    }
+}
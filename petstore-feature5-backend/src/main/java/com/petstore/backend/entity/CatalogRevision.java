@@ -0,0 +1,27 @@
+package com.petstore.backend.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Fila única con la versión del catálogo compartida por todos los nodos
+ * (ver {@link com.petstore.backend.cache.CatalogVersion})
+ */
+@Entity
+@Table(name = "catalog_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogRevision {
+
+    @Id
+    private Integer id;
+
+    @Column(name = "version", nullable = false)
+    private Long version = 0L;
+}
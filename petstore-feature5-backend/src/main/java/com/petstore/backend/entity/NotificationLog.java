@@ -10,6 +10,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -18,7 +19,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "notification_logs")
+@Table(name = "notification_logs", indexes = {
+    @Index(name = "idx_notification_logs_status_next_attempt", columnList = "status, next_attempt_at") // Reclamo del outbox
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -62,6 +65,16 @@ public class NotificationLog {
     @Column(name = "external_id") // ID del proveedor externo (SendGrid, Twilio, etc.)
     private String externalId;
     
+    // Outbox: intentos de entrega, próximo intento (o fin del lease del worker que la tomó) y alta
+    @Column(name = "attempts")
+    private Integer attempts = 0;
+    
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
     public enum NotificationStatus {
         PENDING,
         SENT,
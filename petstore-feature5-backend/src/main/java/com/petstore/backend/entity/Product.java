@@ -3,7 +3,9 @@ package com.petstore.backend.entity;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "products", schema = "public")
+@Table(name = "products", schema = "public", indexes = {
+    @Index(name = "idx_products_base_price_id", columnList = "base_price, product_id") // Paginación keyset por precio
+})
 public class Product {
     
     @Id
@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "promotions", schema = "public")
+@Table(name = "promotions", schema = "public", indexes = {
+    @Index(name = "idx_promotions_start_date_id", columnList = "start_date, promotion_id") // Paginación keyset por fecha
+})
 public class Promotion {
     
     @Id
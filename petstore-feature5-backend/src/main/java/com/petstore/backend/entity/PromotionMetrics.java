@@ -13,6 +13,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
 @Table(name = "promotion_metrics", schema = "public")
@@ -55,6 +56,11 @@ public class PromotionMetrics {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Bloqueo optimista: las escrituras por entidad fallan si un UPDATE atómico cambió la fila
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version = 0L;
+    
     // Constructores
     public PromotionMetrics() {
         this.createdAt = LocalDateTime.now();
@@ -173,6 +179,14 @@ public class PromotionMetrics {
         this.updatedAt = updatedAt;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     // Métodos de utilidad
     @PreUpdate
     public void preUpdate() {
@@ -0,0 +1,64 @@
+package com.petstore.backend.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Bucket de la serie temporal de métricas (resolución horaria o diaria). Los totales son los
+ * del último punto del periodo (valores de cierre) y samples cuenta los puntos crudos resumidos.
+ */
+@Entity
+@Table(name = "promotion_metrics_buckets", schema = "public", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_metrics_buckets_promotion_resolution_start",
+                      columnNames = {"promotion_id", "resolution", "bucket_start"})
+})
+@Data
+@NoArgsConstructor
+public class PromotionMetricsBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "promotion_id", nullable = false)
+    private Integer promotionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "resolution", nullable = false, length = 10)
+    private Resolution resolution;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "total_units_sold", nullable = false)
+    private Integer totalUnitsSold;
+
+    @Column(name = "total_revenue", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalRevenue;
+
+    @Column(name = "total_initial_inventory", nullable = false)
+    private Integer totalInitialInventory;
+
+    @Column(name = "total_current_inventory", nullable = false)
+    private Integer totalCurrentInventory;
+
+    @Column(name = "samples", nullable = false)
+    private Integer samples;
+
+    public enum Resolution {
+        HOURLY,
+        DAILY
+    }
+}
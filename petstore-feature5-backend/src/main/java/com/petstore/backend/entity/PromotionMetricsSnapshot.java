@@ -0,0 +1,51 @@
+package com.petstore.backend.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Punto crudo de la serie temporal de métricas de una promoción (solo inserción).
+ * Guarda los totales acumulados tras cada escritura de métricas; el job de downsampling
+ * los resume en buckets horarios y diarios y los puntos viejos se purgan por retención.
+ */
+@Entity
+@Table(name = "promotion_metrics_snapshots", schema = "public", indexes = {
+    @Index(name = "idx_metrics_snapshots_promotion_time", columnList = "promotion_id, recorded_at"),
+    @Index(name = "idx_metrics_snapshots_time", columnList = "recorded_at") // Downsampling y retención
+})
+@Data
+@NoArgsConstructor
+public class PromotionMetricsSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "promotion_id", nullable = false)
+    private Integer promotionId;
+
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+
+    @Column(name = "total_units_sold", nullable = false)
+    private Integer totalUnitsSold;
+
+    @Column(name = "total_revenue", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalRevenue;
+
+    @Column(name = "total_initial_inventory", nullable = false)
+    private Integer totalInitialInventory;
+
+    @Column(name = "total_current_inventory", nullable = false)
+    private Integer totalCurrentInventory;
+}
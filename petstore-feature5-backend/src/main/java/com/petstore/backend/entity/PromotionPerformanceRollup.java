@@ -0,0 +1,129 @@
+package com.petstore.backend.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Modelo de lectura con los totales acumulados de una promoción (una fila por promoción).
+ * Se mantiene con deltas en la misma transacción que escribe promotion_metrics, de modo que
+ * el tablero de rendimiento se resuelve con una búsqueda por clave primaria.
+ */
+@Entity
+@Table(name = "promotion_performance_rollup", schema = "public")
+public class PromotionPerformanceRollup {
+
+    @Id
+    @Column(name = "promotion_id")
+    private Integer promotionId;
+
+    @Column(name = "total_products", nullable = false)
+    private Integer totalProducts = 0;
+
+    @Column(name = "total_units_sold", nullable = false)
+    private Integer totalUnitsSold = 0;
+
+    @Column(name = "total_revenue", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalRevenue = BigDecimal.ZERO;
+
+    @Column(name = "total_initial_inventory", nullable = false)
+    private Integer totalInitialInventory = 0;
+
+    @Column(name = "total_current_inventory", nullable = false)
+    private Integer totalCurrentInventory = 0;
+
+    // Suma de las variaciones de SKU por producto; el promedio se obtiene dividiendo por totalProducts
+    @Column(name = "sku_variation_sum", nullable = false)
+    private Double skuVariationSum = 0.0;
+
+    @Column(name = "last_updated")
+    private LocalDateTime lastUpdated;
+
+    // Constructores
+    public PromotionPerformanceRollup() {}
+
+    public PromotionPerformanceRollup(Integer promotionId) {
+        this.promotionId = promotionId;
+    }
+
+    // Getters y Setters
+    public Integer getPromotionId() {
+        return promotionId;
+    }
+
+    public void setPromotionId(Integer promotionId) {
+        this.promotionId = promotionId;
+    }
+
+    public Integer getTotalProducts() {
+        return totalProducts;
+    }
+
+    public void setTotalProducts(Integer totalProducts) {
+        this.totalProducts = totalProducts;
+    }
+
+    public Integer getTotalUnitsSold() {
+        return totalUnitsSold;
+    }
+
+    public void setTotalUnitsSold(Integer totalUnitsSold) {
+        this.totalUnitsSold = totalUnitsSold;
+    }
+
+    public BigDecimal getTotalRevenue() {
+        return totalRevenue;
+    }
+
+    public void setTotalRevenue(BigDecimal totalRevenue) {
+        this.totalRevenue = totalRevenue;
+    }
+
+    public Integer getTotalInitialInventory() {
+        return totalInitialInventory;
+    }
+
+    public void setTotalInitialInventory(Integer totalInitialInventory) {
+        this.totalInitialInventory = totalInitialInventory;
+    }
+
+    public Integer getTotalCurrentInventory() {
+        return totalCurrentInventory;
+    }
+
+    public void setTotalCurrentInventory(Integer totalCurrentInventory) {
+        this.totalCurrentInventory = totalCurrentInventory;
+    }
+
+    public Double getSkuVariationSum() {
+        return skuVariationSum;
+    }
+
+    public void setSkuVariationSum(Double skuVariationSum) {
+        this.skuVariationSum = skuVariationSum;
+    }
+
+    public LocalDateTime getLastUpdated() {
+        return lastUpdated;
+    }
+
+    public void setLastUpdated(LocalDateTime lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+
+    // Métodos de utilidad
+
+    /**
+     * Variación promedio de SKU de los productos de la promoción
+     */
+    public Double getAverageSkuVariationPercentage() {
+        if (totalProducts == null || totalProducts == 0 || skuVariationSum == null) {
+            return 0.0;
+        }
+        return skuVariationSum / totalProducts;
+    }
+}
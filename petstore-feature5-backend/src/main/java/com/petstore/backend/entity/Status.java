@@ -1,8 +1,11 @@
 package com.petstore.backend.entity;
 
+import org.hibernate.annotations.Immutable;
+
 import jakarta.persistence.*;
 
 @Entity
+@Immutable // Catálogo casi estático: sin dirty checking (ver ReferenceDataRegistry)
 @Table(name = "statuses", schema = "public")
 public class Status {
     
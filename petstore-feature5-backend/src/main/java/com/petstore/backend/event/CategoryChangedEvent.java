@@ -0,0 +1,27 @@
+package com.petstore.backend.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Evento publicado cuando se guarda o elimina una categoría.
+ * La caché de promociones (que copia la categoría de cada una) lo escucha después del commit.
+ */
+public class CategoryChangedEvent extends ApplicationEvent {
+
+    private final Integer categoryId;
+    private final boolean deleted;
+
+    public CategoryChangedEvent(Object source, Integer categoryId, boolean deleted) {
+        super(source);
+        this.categoryId = categoryId;
+        this.deleted = deleted;
+    }
+
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+}
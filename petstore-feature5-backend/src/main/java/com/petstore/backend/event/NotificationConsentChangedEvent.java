@@ -0,0 +1,36 @@
+package com.petstore.backend.event;
+
+import org.springframework.context.ApplicationEvent;
+
+import com.petstore.backend.entity.NotificationConsent.NotificationType;
+
+/**
+ * Evento publicado cuando un usuario otorga o retira un consentimiento de notificaciones.
+ * El índice de consentimientos en memoria lo escucha después del commit.
+ */
+public class NotificationConsentChangedEvent extends ApplicationEvent {
+
+    private final Integer userId;
+    private final NotificationType notificationType;
+    private final boolean consentGiven;
+
+    public NotificationConsentChangedEvent(Object source, Integer userId, NotificationType notificationType,
+                                           boolean consentGiven) {
+        super(source);
+        this.userId = userId;
+        this.notificationType = notificationType;
+        this.consentGiven = consentGiven;
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public NotificationType getNotificationType() {
+        return notificationType;
+    }
+
+    public boolean isConsentGiven() {
+        return consentGiven;
+    }
+}
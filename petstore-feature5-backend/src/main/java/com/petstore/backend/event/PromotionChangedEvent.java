@@ -0,0 +1,58 @@
+package com.petstore.backend.event;
+
+import org.springframework.context.ApplicationEvent;
+
+import com.petstore.backend.cache.PromotionInterval;
+
+/**
+ * Evento publicado cuando una promoción se crea, actualiza, elimina o restaura.
+ * Los índices en memoria lo escuchan después del commit para mantenerse sincronizados.
+ */
+public class PromotionChangedEvent extends ApplicationEvent {
+
+    private final Integer promotionId;
+    private final PromotionInterval interval; // null si la promoción fue eliminada
+
+    public PromotionChangedEvent(Object source, Integer promotionId, PromotionInterval interval) {
+        super(source);
+        this.promotionId = promotionId;
+        this.interval = interval;
+    }
+
+    /**
+     * Evento para una promoción creada o modificada
+     */
+    public static PromotionChangedEvent upserted(Object source, PromotionInterval interval) {
+        return new PromotionChangedEvent(source, interval.promotionId(), interval);
+    }
+
+    /**
+     * Evento para una promoción eliminada
+     */
+    public static PromotionChangedEvent deleted(Object source, Integer promotionId) {
+        return new PromotionChangedEvent(source, promotionId, null);
+    }
+
+    /**
+     * Evento para cambios masivos o no identificables (p. ej. funciones de BD): obliga a recargar todo
+     */
+    public static PromotionChangedEvent reloadAll(Object source) {
+        return new PromotionChangedEvent(source, null, null);
+    }
+
+    public Integer getPromotionId() {
+        return promotionId;
+    }
+
+    public PromotionInterval getInterval() {
+        return interval;
+    }
+
+    public boolean isReloadAll() {
+        return promotionId == null;
+    }
+
+    public boolean isDeleted() {
+        return promotionId != null && interval == null;
+    }
+}
@@ -0,0 +1,21 @@
+package com.petstore.backend.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Evento publicado cuando cambian las métricas de ventas de una promoción.
+ * Las vistas en memoria derivadas de promotion_metrics lo escuchan después del commit.
+ */
+public class PromotionMetricsChangedEvent extends ApplicationEvent {
+
+    private final Integer promotionId;
+
+    public PromotionMetricsChangedEvent(Object source, Integer promotionId) {
+        super(source);
+        this.promotionId = promotionId;
+    }
+
+    public Integer getPromotionId() {
+        return promotionId;
+    }
+}
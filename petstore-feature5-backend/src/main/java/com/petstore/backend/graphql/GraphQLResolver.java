@@ -1,24 +1,37 @@
 package com.petstore.backend.graphql;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.data.method.annotation.SubscriptionMapping;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 
+import com.petstore.backend.cache.ProductLeaderboard;
+import com.petstore.backend.dto.CursorConnection;
 import com.petstore.backend.dto.LoginResponse;
+import com.petstore.backend.dto.MetricsSeriesDTO;
+import com.petstore.backend.dto.ProductAssociationResult;
+import com.petstore.backend.dto.ProductLeaderboardEntryDTO;
 import com.petstore.backend.dto.ProductMetricsDTO;
 import com.petstore.backend.dto.PromotionDTO;
 import com.petstore.backend.dto.PromotionDeletedDTO;
 import com.petstore.backend.dto.PromotionPerformanceDTO;
+import com.petstore.backend.dto.PromotionPerformanceUpdateDTO;
 import com.petstore.backend.entity.Category;
 import com.petstore.backend.entity.NotificationConsent;
 import com.petstore.backend.entity.NotificationLog;
@@ -33,10 +46,15 @@ import com.petstore.backend.repository.ProductRepository;
 import com.petstore.backend.repository.PromotionRepository;
 import com.petstore.backend.repository.UserRepository;
 import com.petstore.backend.service.AuthService; // Importar Logger
+import com.petstore.backend.service.CategoryService;
 import com.petstore.backend.service.NotificationService;
+import com.petstore.backend.service.ProductService;
 import com.petstore.backend.service.PromotionMetricsService;
+import com.petstore.backend.service.PromotionPerformanceStreamService;
 import com.petstore.backend.service.PromotionService; // Importar LoggerFactory
 
+import reactor.core.publisher.Flux;
+
 @Controller
 public class GraphQLResolver {
 
@@ -44,12 +62,16 @@ public class GraphQLResolver {
     private final PromotionMetricsService promotionMetricsService;
     private final AuthService authService;
     private final NotificationService notificationService;
+    private final ProductService productService;
+    private final CategoryService categoryService;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
     private final PromotionRepository promotionRepository;
     private final NotificationConsentRepository notificationConsentRepository;
     private final NotificationLogRepository notificationLogRepository;
+    private final ProductLeaderboard productLeaderboard;
+    private final PromotionPerformanceStreamService performanceStreamService;
     private static final Logger loggerGraphQL = LoggerFactory.getLogger(GraphQLResolver.class);
 
     public GraphQLResolver(
@@ -57,22 +79,30 @@ public class GraphQLResolver {
             PromotionMetricsService promotionMetricsService,
             AuthService authService,
             NotificationService notificationService,
+            ProductService productService,
+            CategoryService categoryService,
             UserRepository userRepository,
             CategoryRepository categoryRepository,
             ProductRepository productRepository,
             PromotionRepository promotionRepository,
             NotificationConsentRepository notificationConsentRepository,
-            NotificationLogRepository notificationLogRepository) {
+            NotificationLogRepository notificationLogRepository,
+            ProductLeaderboard productLeaderboard,
+            PromotionPerformanceStreamService performanceStreamService) {
         this.promotionService = promotionService;
         this.promotionMetricsService = promotionMetricsService;
         this.authService = authService;
         this.notificationService = notificationService;
+        this.productService = productService;
+        this.categoryService = categoryService;
         this.userRepository = userRepository;
         this.categoryRepository = categoryRepository;
         this.productRepository = productRepository;
         this.promotionRepository = promotionRepository;
         this.notificationConsentRepository = notificationConsentRepository;
         this.notificationLogRepository = notificationLogRepository;
+        this.productLeaderboard = productLeaderboard;
+        this.performanceStreamService = performanceStreamService;
     }
 
     // === HELPER METHODS ===
@@ -181,13 +211,24 @@ public class GraphQLResolver {
     public Promotion promotion(@Argument Integer id) {
         // Público - sin autenticación
         try {
-            return promotionRepository.findById(id).orElse(null);
+            return promotionService.getPromotionByIdEntity(id);
         } catch (Exception e) {
             loggerGraphQL.error("Error getting promotion by id: {}" , e.getMessage(), e);
             return null;
         }
     }
 
+    @QueryMapping
+    public CursorConnection<Promotion> promotionsConnection(@Argument Integer first, @Argument String after, @Argument String sortBy) {
+        // Público - sin autenticación
+        String sort = "START_DATE".equals(sortBy) ? PromotionService.SORT_BY_START_DATE : PromotionService.SORT_BY_ID;
+        try {
+            return CursorConnection.from(promotionService.getPromotionsPageEntities(after, first, sort));
+        } catch (IllegalArgumentException e) {
+            throw new GraphQLException("QUERY", "Invalid cursor", e.getMessage());
+        }
+    }
+
     @QueryMapping
     public List<Category> categories() {
         // Público - sin autenticación
@@ -210,6 +251,16 @@ public class GraphQLResolver {
         }
     }
 
+    @QueryMapping
+    public CursorConnection<Category> categoriesConnection(@Argument Integer first, @Argument String after) {
+        // Público - sin autenticación
+        try {
+            return CursorConnection.from(categoryService.findPage(after, first));
+        } catch (IllegalArgumentException e) {
+            throw new GraphQLException("QUERY", "Invalid cursor", e.getMessage());
+        }
+    }
+
     @QueryMapping
     public List<Product> products() {
         // Público - sin autenticación
@@ -221,6 +272,17 @@ public class GraphQLResolver {
         }
     }
 
+    @QueryMapping
+    public CursorConnection<Product> productsConnection(@Argument Integer first, @Argument String after, @Argument String sortBy) {
+        // Público - sin autenticación
+        String sort = "BASE_PRICE".equals(sortBy) ? ProductService.SORT_BY_BASE_PRICE : ProductService.SORT_BY_ID;
+        try {
+            return CursorConnection.from(productService.findPage(after, first, sort));
+        } catch (IllegalArgumentException e) {
+            throw new GraphQLException("QUERY", "Invalid cursor", e.getMessage());
+        }
+    }
+
     @QueryMapping
     public List<Product> productsByCategory(@Argument Integer categoryId) {
         // Público - sin autenticación
@@ -420,23 +482,14 @@ public class GraphQLResolver {
         try {
             loggerGraphQL.info("Associating products {} to promotion {}", productIds, promotionId);
             
-            // Obtener la promoción
-            Promotion promotion = promotionRepository.findById(promotionId).orElse(null);
-            if (promotion == null) {
-                throw new GraphQLException("ASSOCIATE", "Promotion not found", "ID: " + promotionId);
-            }
-            
-            // Asociar productos a la promoción
-            for (Integer productId : productIds) {
-                Product product = productRepository.findById(productId).orElse(null);
-                if (product != null) {
-                    product.setPromotion(promotion);
-                    productRepository.save(product);
-                }
-            }
+            // Validación y asignación por conjuntos (una consulta + UPDATE por bloques)
+            ProductAssociationResult result = promotionService.associateProducts(promotionId, productIds)
+                .orElseThrow(() -> new GraphQLException("ASSOCIATE", "Promotion not found", "ID: " + promotionId));
+            loggerGraphQL.info("Association results for promotion {}: {}", promotionId, result.byOutcome());
             
             // Retornar la promoción actualizada
-            return promotionRepository.findById(promotionId).orElse(null);
+            return promotionRepository.findById(promotionId)
+                .orElseThrow(() -> new GraphQLException("ASSOCIATE", "Promotion not found", "ID: " + promotionId));
         } catch (GraphQLException e) {
             loggerGraphQL.error("GraphQL error associating products to promotion {}: {}", promotionId, e.getMessage(), e);
             throw e;
@@ -452,23 +505,14 @@ public class GraphQLResolver {
         try {
             loggerGraphQL.info("Removing products {} from promotion {}", productIds, promotionId);
             
-            // Verificar que la promoción existe
-            Promotion promotion = promotionRepository.findById(promotionId).orElse(null);
-            if (promotion == null) {
-                throw new GraphQLException("REMOVE_ASSOCIATION", "Promotion not found", "ID: " + promotionId);
-            }
-            
-            // Remover asociación de productos
-            for (Integer productId : productIds) {
-                Product product = productRepository.findById(productId).orElse(null);
-                if (product != null && product.getPromotion() != null && product.getPromotion().getPromotionId().equals(promotionId)) {
-                    product.setPromotion(null);
-                    productRepository.save(product);
-                }
-            }
+            // Validación y remoción por conjuntos (una consulta + UPDATE por bloques)
+            ProductAssociationResult result = promotionService.removeProducts(promotionId, productIds)
+                .orElseThrow(() -> new GraphQLException("REMOVE_ASSOCIATION", "Promotion not found", "ID: " + promotionId));
+            loggerGraphQL.info("Removal results for promotion {}: {}", promotionId, result.byOutcome());
             
             // Retornar la promoción actualizada
-            return promotionRepository.findById(promotionId).orElse(null);
+            return promotionRepository.findById(promotionId)
+                .orElseThrow(() -> new GraphQLException("REMOVE_ASSOCIATION", "Promotion not found", "ID: " + promotionId));
         } catch (GraphQLException e) {
             loggerGraphQL.error("GraphQL error removing products from promotion {}: {}", promotionId, e.getMessage(), e);
             throw e;
@@ -558,13 +602,49 @@ public class GraphQLResolver {
     // Nota: Con los DTOs de respuesta, estas relaciones ya están aplanadas
     // Estos métodos pueden ser opcionales si usas solo los DTOs de respuesta
     
-    @SchemaMapping(typeName = "Promotion", field = "products")
-    public List<Product> promotionProducts(Promotion promotion) {
+    // Campos anidados resueltos por lotes: una consulta IN (...) por nivel en lugar de una por objeto padre
+
+    @BatchMapping(typeName = "Promotion", field = "products")
+    public Map<Promotion, List<Product>> promotionProducts(List<Promotion> promotions) {
         try {
-            return productRepository.findByPromotionPromotionId(promotion.getPromotionId());
+            List<Integer> promotionIds = idsOf(promotions, Promotion::getPromotionId);
+            Map<Integer, List<Product>> byPromotion = promotionIds.isEmpty() ? Map.of()
+                    : productRepository.findByPromotionIdIn(promotionIds).stream()
+                        .collect(Collectors.groupingBy(product -> product.getPromotion().getPromotionId()));
+            return byParent(promotions, Promotion::getPromotionId, byPromotion);
         } catch (Exception e) {
-            loggerGraphQL.error("Error getting products for promotion: {}" , e.getMessage(), e);
-            return Collections.emptyList();
+            loggerGraphQL.error("Error getting products for promotions: {}" , e.getMessage(), e);
+            return byParent(promotions, Promotion::getPromotionId, Map.of());
+        }
+    }
+
+    @BatchMapping(typeName = "Product", field = "promotion")
+    public Map<Product, Promotion> productPromotion(List<Product> products) {
+        try {
+            List<Integer> promotionIds = products.stream()
+                    .map(Product::getPromotion)
+                    .filter(Objects::nonNull)
+                    .map(Promotion::getPromotionId) // El ID no inicializa el proxy LAZY
+                    .distinct()
+                    .toList();
+            if (promotionIds.isEmpty()) {
+                return Map.of();
+            }
+            Map<Integer, Promotion> byId = promotionRepository.findWithStatusByIdIn(promotionIds).stream()
+                    .collect(Collectors.toMap(Promotion::getPromotionId, Function.identity()));
+            Map<Product, Promotion> result = new LinkedHashMap<>();
+            for (Product product : products) {
+                if (product.getPromotion() != null) {
+                    Promotion promotion = byId.get(product.getPromotion().getPromotionId());
+                    if (promotion != null) {
+                        result.put(product, promotion);
+                    }
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            loggerGraphQL.error("Error getting promotion for products: {}" , e.getMessage(), e);
+            return Map.of();
         }
     }
 
@@ -592,26 +672,51 @@ public class GraphQLResolver {
         }
     }
 
-    @SchemaMapping(typeName = "Category", field = "promotions")
-    public List<Promotion> categoryPromotions(Category category) {
+    @BatchMapping(typeName = "Category", field = "promotions")
+    public Map<Category, List<Promotion>> categoryPromotions(List<Category> categories) {
         try {
-            return promotionService.getPromotionsByCategoryEntities(category.getCategoryId());
+            Map<Integer, List<Promotion>> byCategory = promotionService
+                    .getPromotionsByCategoriesEntities(idsOf(categories, Category::getCategoryId)).stream()
+                    .collect(Collectors.groupingBy(promotion -> promotion.getCategory().getCategoryId()));
+            return byParent(categories, Category::getCategoryId, byCategory);
         } catch (Exception e) {
-            loggerGraphQL.error("Error getting promotions for category: {}" , e.getMessage(), e);
-            return Collections.emptyList();
+            loggerGraphQL.error("Error getting promotions for categories: {}" , e.getMessage(), e);
+            return byParent(categories, Category::getCategoryId, Map.of());
         }
     }
 
-    @SchemaMapping(typeName = "Category", field = "products")
-    public List<Product> categoryProducts(Category category) {
+    @BatchMapping(typeName = "Category", field = "products")
+    public Map<Category, List<Product>> categoryProducts(List<Category> categories) {
         try {
-            return productRepository.findByCategoryCategoryId(category.getCategoryId());
+            List<Integer> categoryIds = idsOf(categories, Category::getCategoryId);
+            Map<Integer, List<Product>> byCategory = categoryIds.isEmpty() ? Map.of()
+                    : productRepository.findByCategoryIdIn(categoryIds).stream()
+                        .collect(Collectors.groupingBy(product -> product.getCategory().getCategoryId()));
+            return byParent(categories, Category::getCategoryId, byCategory);
         } catch (Exception e) {
-            loggerGraphQL.error("Error getting products for category: {}" , e.getMessage(), e);
-            return Collections.emptyList();
+            loggerGraphQL.error("Error getting products for categories: {}" , e.getMessage(), e);
+            return byParent(categories, Category::getCategoryId, Map.of());
         }
     }
 
+    /**
+     * IDs distintos de los objetos padre de un lote
+     */
+    private static <P> List<Integer> idsOf(List<P> parents, Function<P, Integer> idOf) {
+        return parents.stream().map(idOf).filter(Objects::nonNull).distinct().toList();
+    }
+
+    /**
+     * Asigna a cada padre su lista agrupada (lista vacía si no tiene hijos, los campos son no nulos)
+     */
+    private static <P, C> Map<P, List<C>> byParent(List<P> parents, Function<P, Integer> idOf, Map<Integer, List<C>> grouped) {
+        Map<P, List<C>> result = new LinkedHashMap<>();
+        for (P parent : parents) {
+            result.put(parent, grouped.getOrDefault(idOf.apply(parent), List.of()));
+        }
+        return result;
+    }
+
     // === QUERIES DE MÉTRICAS DE PROMOCIONES ===
 
     @QueryMapping
@@ -625,6 +730,69 @@ public class GraphQLResolver {
         }
     }
 
+    @QueryMapping
+    public MetricsSeriesDTO promotionMetricsSeries(@Argument String promotionId, @Argument String from, @Argument String to) {
+        try {
+            Integer id = Integer.valueOf(promotionId);
+            return promotionMetricsService.getMetricsSeries(id, LocalDateTime.parse(from), LocalDateTime.parse(to)).orElse(null);
+        } catch (Exception e) {
+            loggerGraphQL.error("Error getting metrics series: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @QueryMapping
+    public List<ProductLeaderboardEntryDTO> productLeaderboard(@Argument String by, @Argument Integer limit,
+                                                               @Argument String categoryId) {
+        try {
+            ProductLeaderboard.Ranking ranking = by != null
+                    ? ProductLeaderboard.Ranking.valueOf(by.toUpperCase())
+                    : ProductLeaderboard.Ranking.UNITS;
+            return productLeaderboard.top(ranking,
+                    limit != null ? limit : ProductLeaderboard.DEFAULT_LIMIT,
+                    categoryId != null ? Integer.valueOf(categoryId) : null);
+        } catch (Exception e) {
+            loggerGraphQL.error("Error getting product leaderboard: {}", e.getMessage(), e);
+            return List.of();
+        }
+    }
+
+    // === SUSCRIPCIONES DE MÉTRICAS DE PROMOCIONES ===
+
+    /**
+     * Rendimiento en vivo de una promoción: el estado completo al suscribirse y después solo los
+     * campos que cambian, como mucho un mensaje por intervalo
+     */
+    @SubscriptionMapping
+    public Flux<PromotionPerformanceUpdateDTO> promotionPerformanceUpdated(@Argument String promotionId) {
+        Integer id;
+        try {
+            id = Integer.valueOf(promotionId);
+        } catch (NumberFormatException e) {
+            return Flux.error(new GraphQLException("SUBSCRIPTION", "Invalid promotion id", promotionId));
+        }
+        return performanceStreamService.updates(id)
+                .onErrorMap(IllegalArgumentException.class,
+                        e -> new GraphQLException("SUBSCRIPTION", "Promotion not found", e.getMessage()));
+    }
+
+    /**
+     * Detalle por producto del rendimiento: solo se consulta si el cliente selecciona el campo
+     * (los totales de promotionPerformance salen del rollup por clave primaria)
+     */
+    @SchemaMapping(typeName = "PromotionPerformance", field = "productMetrics")
+    public List<ProductMetricsDTO> promotionPerformanceProductMetrics(PromotionPerformanceDTO performance) {
+        if (performance.getProductMetrics() != null) {
+            return performance.getProductMetrics();
+        }
+        try {
+            return promotionMetricsService.getProductMetricsByPromotionId(performance.getPromotionId());
+        } catch (Exception e) {
+            loggerGraphQL.error("Error getting product metrics for performance: {}", e.getMessage(), e);
+            return Collections.emptyList();
+        }
+    }
+
     @QueryMapping
     public List<ProductMetricsDTO> promotionProductMetrics(@Argument String promotionId) {
         try {
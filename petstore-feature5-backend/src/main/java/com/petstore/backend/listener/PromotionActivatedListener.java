@@ -1,92 +1,63 @@
 package com.petstore.backend.listener;
 
-import java.util.List;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-import com.petstore.backend.entity.NotificationConsent;
-import com.petstore.backend.entity.NotificationConsent.NotificationType;
 import com.petstore.backend.event.PromotionActivatedEvent;
 import com.petstore.backend.entity.Promotion;
-import com.petstore.backend.repository.NotificationConsentRepository;
-import com.petstore.backend.service.NotificationService;
+import com.petstore.backend.service.NotificationFanOutService;
 
 /**
  * Listener que se ejecuta automáticamente cuando una promoción se activa
- * Envía notificaciones inmediatas a usuarios con consentimiento
+ * Encola las notificaciones de los usuarios con consentimiento en la misma transacción que la
+ * activa y, una vez confirmada, despierta el despacho del outbox
  */
 @Component
 public class PromotionActivatedListener {
 
     private static final Logger logger = LoggerFactory.getLogger(PromotionActivatedListener.class);
 
-    private final NotificationService notificationService;
-    private final NotificationConsentRepository notificationConsentRepository;
+    private final NotificationFanOutService notificationFanOutService;
 
-    public PromotionActivatedListener(NotificationService notificationService,
-                                    NotificationConsentRepository notificationConsentRepository) {
-        this.notificationService = notificationService;
-        this.notificationConsentRepository = notificationConsentRepository;
+    public PromotionActivatedListener(NotificationFanOutService notificationFanOutService) {
+        this.notificationFanOutService = notificationFanOutService;
     }
 
     /**
-     * Se ejecuta automáticamente cuando una promoción cambia a estado ACTIVE
+     * Se ejecuta antes de confirmar la transacción que cambió la promoción a ACTIVE: las filas del
+     * outbox se confirman junto con el cambio de estado o no se confirma ninguno de los dos.
      */
-    @EventListener
-    @Async
-    @Transactional
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
     public void handlePromotionActivated(PromotionActivatedEvent event) {
         Promotion promotion = event.getPromotion();
         if (promotion == null) {
             logger.warn("Evento recibido con promoción nula, ignorando");
             return;
         }
-        
-        logger.info("🔔 EVENTO RECIBIDO: Promoción activada - {} - Iniciando envío de notificaciones...", 
-                   promotion.getPromotionName());
-
-        try {
-            // Obtener todos los usuarios con consentimiento para EMAIL_PROMOTION
-            List<NotificationConsent> consents = notificationConsentRepository
-                    .findByNotificationTypeAndConsentGivenTrue(NotificationType.EMAIL_PROMOTION);
 
-            int emailsSent = 0;
-            int emailsFailed = 0;
-
-            // Enviar notificación a cada usuario con consentimiento
-            for (NotificationConsent consent : consents) {
-                try {
-                    // Enviar notificación personalizada para este usuario específico
-                    notificationService.sendPromotionNotificationToUser(
-                        event.getPromotion(), 
-                        consent.getUser()
-                    );
-                    emailsSent++;
-                    
-                    logger.debug("✅ Email enviado a: {}", consent.getUser().getEmail());
-                    
-                    // Pequeña pausa para no saturar el servidor SMTP
-                    Thread.sleep(100);
-                    
-                } catch (Exception e) {
-                    emailsFailed++;
-                    logger.error("❌ Error enviando email a {}: {}", 
-                               consent.getUser().getEmail(), e.getMessage());
-                }
-            }
-
-            logger.info("📧 Notificaciones de promoción '{}' completadas: {} enviados, {} fallidos", 
-                       event.getPromotion().getPromotionName(), emailsSent, emailsFailed);
+        // Una fila PENDING por usuario con consentimiento para EMAIL_PROMOTION
+        int enqueued = notificationFanOutService.enqueue(promotion);
+        logger.info("🔔 Promoción activada '{}': {} notificaciones encoladas",
+                   promotion.getPromotionName(), enqueued);
+    }
 
+    /**
+     * Tras confirmar la activación lanza el despacho sin esperarlo. Si falla, las filas ya
+     * confirmadas las retoma el despacho periódico.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void dispatchAfterActivation(PromotionActivatedEvent event) {
+        if (event.getPromotion() == null) {
+            return;
+        }
+        try {
+            notificationFanOutService.dispatchPending();
         } catch (Exception e) {
-            logger.error("❌ Error procesando promoción activada '{}': {}", 
+            logger.error("❌ Error lanzando el despacho de la promoción '{}': {}",
                         event.getPromotion().getPromotionName(), e.getMessage());
-            // No volver a lanzar la excepción para evitar reintentos automáticos
         }
     }
 }
@@ -1,9 +1,13 @@
 package com.petstore.backend.repository;
 
 import com.petstore.backend.entity.Category;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +18,8 @@ public interface CategoryRepository extends JpaRepository<Category, Integer> {
     
     // Verificar si existe una categoría con el nombre
     boolean existsByCategoryName(String categoryName);
+    
+    // Paginación keyset por ID (el Pageable solo limita filas, sin OFFSET ni COUNT)
+    @Query("SELECT c FROM Category c WHERE c.categoryId > :afterId ORDER BY c.categoryId")
+    List<Category> findPageAfterId(@Param("afterId") Integer afterId, Pageable pageable);
 }
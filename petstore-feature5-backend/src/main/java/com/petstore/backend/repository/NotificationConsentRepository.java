@@ -1,5 +1,6 @@
 package com.petstore.backend.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,6 +30,16 @@ public interface NotificationConsentRepository extends JpaRepository<Notificatio
            "AND nc.notificationType = :type AND nc.consentGiven = true")
     boolean hasActiveConsent(@Param("userId") Long userId, @Param("type") NotificationConsent.NotificationType type);
     
+    // Solo los IDs: carga del índice de consentimientos en memoria
+    @Query("SELECT nc.user.id FROM NotificationConsent nc WHERE nc.notificationType = :type AND nc.consentGiven = true")
+    List<Integer> findConsentingUserIds(@Param("type") NotificationConsent.NotificationType type);
+    
+    // Verificación de un lote contra la BD (el índice en memoria puede ir atrasado respecto de otros nodos)
+    @Query("SELECT nc.user.id FROM NotificationConsent nc WHERE nc.notificationType = :type " +
+           "AND nc.consentGiven = true AND nc.user.id IN :userIds")
+    List<Integer> findConsentingUserIdsIn(@Param("type") NotificationConsent.NotificationType type,
+                                          @Param("userIds") Collection<Integer> userIds);
+    
     @Query("SELECT nc FROM NotificationConsent nc JOIN FETCH nc.user WHERE nc.notificationType = :type AND nc.consentGiven = true")
     List<NotificationConsent> findByNotificationTypeAndConsentGivenTrue(@Param("type") NotificationConsent.NotificationType type);
 }
@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.petstore.backend.dto.NotificationSendTime;
 import com.petstore.backend.entity.NotificationConsent;
 import com.petstore.backend.entity.NotificationLog;
 
@@ -21,6 +22,10 @@ public interface NotificationLogRepository extends JpaRepository<NotificationLog
             @Param("type") NotificationConsent.NotificationType type,
             @Param("startTime") LocalDateTime startTime);
     
+    @Query("SELECT new com.petstore.backend.dto.NotificationSendTime(nl.user.id, nl.notificationType, nl.sentAt) " +
+           "FROM NotificationLog nl WHERE nl.sentAt >= :since AND nl.status <> 'RATE_LIMITED' ORDER BY nl.sentAt")
+    List<NotificationSendTime> findSendTimesSince(@Param("since") LocalDateTime since);
+    
     @Query("SELECT nl FROM NotificationLog nl WHERE nl.promotion.id = :promotionId " +
            "ORDER BY nl.sentAt DESC")
     List<NotificationLog> findByPromotionId(@Param("promotionId") Long promotionId);
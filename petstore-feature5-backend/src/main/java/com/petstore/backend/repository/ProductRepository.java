@@ -1,9 +1,15 @@
 package com.petstore.backend.repository;
 
 import com.petstore.backend.entity.Product;
+import com.petstore.backend.entity.Promotion;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,4 +18,37 @@ public interface ProductRepository extends JpaRepository<Product, Integer> {
     List<Product> findByPromotionPromotionId(Integer promotionId);
     List<Product> findByProductNameContainingIgnoreCase(String productName);
     List<Product> findByBasePriceBetween(Double minPrice, Double maxPrice);
+
+    // Paginación keyset por ID (el Pageable solo limita filas, sin OFFSET ni COUNT)
+    @Query("SELECT p FROM Product p WHERE p.productId > :afterId ORDER BY p.productId")
+    List<Product> findPageAfterId(@Param("afterId") Integer afterId, Pageable pageable);
+
+    // Paginación keyset por precio base (desempate por ID): primera página
+    @Query("SELECT p FROM Product p ORDER BY p.basePrice, p.productId")
+    List<Product> findFirstPageByBasePrice(Pageable pageable);
+
+    // Paginación keyset por precio base (desempate por ID): páginas siguientes
+    @Query("SELECT p FROM Product p WHERE (p.basePrice, p.productId) > (:basePrice, :afterId) " +
+           "ORDER BY p.basePrice, p.productId")
+    List<Product> findPageAfterBasePrice(@Param("basePrice") Double basePrice, @Param("afterId") Integer afterId, Pageable pageable);
+
+    // Productos de varias promociones en una sola consulta (carga por lotes de GraphQL)
+    @Query("SELECT p FROM Product p JOIN FETCH p.category WHERE p.promotion.promotionId IN :promotionIds")
+    List<Product> findByPromotionIdIn(@Param("promotionIds") Collection<Integer> promotionIds);
+
+    // Productos de varias categorías en una sola consulta (carga por lotes de GraphQL)
+    @Query("SELECT p FROM Product p JOIN FETCH p.category c WHERE c.categoryId IN :categoryIds")
+    List<Product> findByCategoryIdIn(@Param("categoryIds") Collection<Integer> categoryIds);
+
+    // Asociación masiva: [productId, promotionId] de los productos existentes (promotionId null si no tiene)
+    @Query("SELECT p.productId, pr.promotionId FROM Product p LEFT JOIN p.promotion pr WHERE p.productId IN :ids")
+    List<Object[]> findPromotionLinks(@Param("ids") Collection<Integer> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.promotion = :promotion WHERE p.productId IN :ids AND p.promotion IS NULL")
+    int assignPromotion(@Param("promotion") Promotion promotion, @Param("ids") Collection<Integer> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.promotion = NULL WHERE p.productId IN :ids AND p.promotion = :promotion")
+    int clearPromotion(@Param("promotion") Promotion promotion, @Param("ids") Collection<Integer> ids);
 }
@@ -0,0 +1,51 @@
+package com.petstore.backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.petstore.backend.entity.PromotionMetricsBucket;
+import com.petstore.backend.entity.PromotionMetricsBucket.Resolution;
+
+@Repository
+public interface PromotionMetricsBucketRepository extends JpaRepository<PromotionMetricsBucket, Long> {
+
+    /**
+     * Buckets de una promoción cuyo inicio cae en [from, to]
+     */
+    @Query("SELECT b FROM PromotionMetricsBucket b WHERE b.promotionId = :promotionId AND b.resolution = :resolution " +
+           "AND b.bucketStart >= :from AND b.bucketStart <= :to ORDER BY b.bucketStart")
+    List<PromotionMetricsBucket> findSeries(@Param("promotionId") Integer promotionId,
+                                            @Param("resolution") Resolution resolution,
+                                            @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+
+    /**
+     * Buckets de todas las promociones en [from, to) ordenados para agrupar en la resolución superior
+     */
+    @Query("SELECT b FROM PromotionMetricsBucket b WHERE b.resolution = :resolution " +
+           "AND b.bucketStart >= :from AND b.bucketStart < :to ORDER BY b.promotionId, b.bucketStart")
+    List<PromotionMetricsBucket> findForDownsampling(@Param("resolution") Resolution resolution,
+                                                     @Param("from") LocalDateTime from,
+                                                     @Param("to") LocalDateTime to);
+
+    @Query("SELECT MAX(b.bucketStart) FROM PromotionMetricsBucket b WHERE b.resolution = :resolution")
+    Optional<LocalDateTime> findLatestBucketStart(@Param("resolution") Resolution resolution);
+
+    @Query("SELECT MIN(b.bucketStart) FROM PromotionMetricsBucket b WHERE b.resolution = :resolution")
+    Optional<LocalDateTime> findEarliestBucketStart(@Param("resolution") Resolution resolution);
+
+    @Modifying
+    @Query("DELETE FROM PromotionMetricsBucket b WHERE b.resolution = :resolution AND b.bucketStart < :cutoff")
+    int deleteStartedBefore(@Param("resolution") Resolution resolution, @Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("DELETE FROM PromotionMetricsBucket b WHERE b.promotionId = :promotionId")
+    int deleteByPromotionId(@Param("promotionId") Integer promotionId);
+}
@@ -1,14 +1,17 @@
 package com.petstore.backend.repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.petstore.backend.dto.LatestProductMetrics;
 import com.petstore.backend.entity.PromotionMetrics;
 
 @Repository
@@ -25,72 +28,89 @@ public interface PromotionMetricsRepository extends JpaRepository<PromotionMetri
     Optional<PromotionMetrics> findByPromotionPromotionIdAndProductProductId(Integer promotionId, Integer productId);
     
     /**
-     * Encuentra las métricas más recientes por promoción
+     * Registra una venta en una sola sentencia, sin leer la fila: suma unidades e ingresos,
+     * descuenta el inventario (sin bajar de 0) y recalcula la variación de SKU con los valores
+     * previos de la fila. Solo actualiza si el inventario actual es al menos minCurrentInventory,
+     * lo que permite distinguir el caso sin recorte del inventario. Incrementa la versión para que
+     * las escrituras por entidad concurrentes fallen por bloqueo optimista.
      */
-    @Query("SELECT pm FROM PromotionMetrics pm WHERE pm.promotion.promotionId = :promotionId " +
-           "AND pm.snapshotDate = (SELECT MAX(pm2.snapshotDate) FROM PromotionMetrics pm2 " +
-           "WHERE pm2.promotion.promotionId = :promotionId AND pm2.product.productId = pm.product.productId)")
-    List<PromotionMetrics> findLatestMetricsByPromotionId(@Param("promotionId") Integer promotionId);
-    
-    /**
-     * Encuentra métricas por rango de fechas
-     */
-    @Query("SELECT pm FROM PromotionMetrics pm WHERE pm.promotion.promotionId = :promotionId " +
-           "AND pm.snapshotDate BETWEEN :startDate AND :endDate " +
-           "ORDER BY pm.snapshotDate DESC")
-    List<PromotionMetrics> findByPromotionIdAndDateRange(@Param("promotionId") Integer promotionId,
-                                                        @Param("startDate") LocalDateTime startDate,
-                                                        @Param("endDate") LocalDateTime endDate);
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE PromotionMetrics m SET m.unitsSold = m.unitsSold + CAST(:units AS Integer), " +
+           "m.currentInventory = GREATEST(m.currentInventory - :units, 0), " +
+           "m.revenueGenerated = COALESCE(m.revenueGenerated + :revenue, :revenue), " +
+           "m.skuVariationPercentage = CASE WHEN m.initialInventory > 0 " +
+           "THEN (m.unitsSold + CAST(:units AS Integer)) * 100.0 / m.initialInventory ELSE 0.0 END, " +
+           "m.snapshotDate = :updatedAt, m.updatedAt = :updatedAt, m.version = m.version + 1 " +
+           "WHERE m.promotion.promotionId = :promotionId AND m.product.productId = :productId " +
+           "AND m.currentInventory >= :minCurrentInventory")
+    int applySaleDelta(@Param("promotionId") Integer promotionId,
+                       @Param("productId") Integer productId,
+                       @Param("units") int units,
+                       @Param("revenue") BigDecimal revenue,
+                       @Param("minCurrentInventory") int minCurrentInventory,
+                       @Param("updatedAt") LocalDateTime updatedAt);
     
     /**
-     * Calcula el total de unidades vendidas por promoción
+     * Crea en una sola sentencia INSERT ... SELECT las métricas iniciales de los productos de la
+     * promoción que todavía no las tienen (inventario inicial y actual = SKU, 50 si no tiene).
+     * Es idempotente: los productos con métricas se omiten. Devuelve las filas creadas.
      */
-    @Query("SELECT COALESCE(SUM(pm.unitsSold), 0) FROM PromotionMetrics pm " +
-           "WHERE pm.promotion.promotionId = :promotionId " +
-           "AND pm.snapshotDate = (SELECT MAX(pm2.snapshotDate) FROM PromotionMetrics pm2 " +
-           "WHERE pm2.promotion.promotionId = :promotionId AND pm2.product.productId = pm.product.productId)")
-    Integer getTotalUnitsSoldByPromotionId(@Param("promotionId") Integer promotionId);
+    @Modifying(flushAutomatically = true)
+    @Query("INSERT INTO PromotionMetrics (promotion, product, initialInventory, currentInventory, unitsSold, " +
+           "skuVariationPercentage, revenueGenerated, snapshotDate, createdAt) " +
+           "SELECT pr, p, COALESCE(p.sku, 50), COALESCE(p.sku, 50), 0, 0.0, 0, :createdAt, :createdAt " +
+           "FROM Product p JOIN p.promotion pr WHERE pr.promotionId = :promotionId " +
+           "AND NOT EXISTS (SELECT 1 FROM PromotionMetrics m WHERE m.promotion = pr AND m.product = p)")
+    int insertMissingForPromotion(@Param("promotionId") Integer promotionId,
+                                  @Param("createdAt") LocalDateTime createdAt);
     
     /**
-     * Calcula el total de ingresos generados por promoción
+     * Inventario inicial de un producto en una promoción (no cambia tras crear la fila). Si el
+     * producto tiene varios snapshots se toma el del primero, como en el tablero.
      */
-    @Query("SELECT COALESCE(SUM(pm.revenueGenerated), 0) FROM PromotionMetrics pm " +
-           "WHERE pm.promotion.promotionId = :promotionId " +
-           "AND pm.snapshotDate = (SELECT MAX(pm2.snapshotDate) FROM PromotionMetrics pm2 " +
-           "WHERE pm2.promotion.promotionId = :promotionId AND pm2.product.productId = pm.product.productId)")
-    Double getTotalRevenueByPromotionId(@Param("promotionId") Integer promotionId);
+    @Query("SELECT m.initialInventory FROM PromotionMetrics m " +
+           "WHERE m.promotion.promotionId = :promotionId AND m.product.productId = :productId " +
+           "ORDER BY m.snapshotDate ASC, m.metricsId ASC LIMIT 1")
+    Optional<Integer> findInitialInventory(@Param("promotionId") Integer promotionId,
+                                           @Param("productId") Integer productId);
     
     /**
-     * Calcula el inventario inicial total por promoción
+     * Último snapshot por producto de una promoción en una sola consulta: funciones de ventana
+     * sobre una tabla derivada (sin subconsultas correlacionadas ni cargas EAGER por fila).
+     * Cada fila trae además el inventario inicial del primer snapshot del producto y la última
+     * actualización de toda la promoción, para calcular los totales en memoria.
      */
-    @Query("SELECT COALESCE(SUM(pm.initialInventory), 0) FROM PromotionMetrics pm " +
-           "WHERE pm.promotion.promotionId = :promotionId " +
-           "AND pm.snapshotDate = (SELECT MIN(pm2.snapshotDate) FROM PromotionMetrics pm2 " +
-           "WHERE pm2.promotion.promotionId = :promotionId AND pm2.product.productId = pm.product.productId)")
-    Integer getTotalInitialInventoryByPromotionId(@Param("promotionId") Integer promotionId);
+    @Query("SELECT new com.petstore.backend.dto.LatestProductMetrics(m.productId, m.productName, m.sku, m.basePrice, " +
+           "m.categoryId, m.categoryName, m.categoryDescription, m.discountValue, m.initialInventory, m.currentInventory, " +
+           "m.unitsSold, m.revenueGenerated, m.updatedAt, m.firstInitialInventory, m.promotionLastUpdated) " +
+           "FROM (SELECT p.productId AS productId, p.productName AS productName, p.sku AS sku, p.basePrice AS basePrice, " +
+           "c.categoryId AS categoryId, c.categoryName AS categoryName, c.description AS categoryDescription, " +
+           "pr.discountValue AS discountValue, pm.initialInventory AS initialInventory, " +
+           "pm.currentInventory AS currentInventory, pm.unitsSold AS unitsSold, pm.revenueGenerated AS revenueGenerated, " +
+           "pm.updatedAt AS updatedAt, " +
+           "ROW_NUMBER() OVER (PARTITION BY p.productId ORDER BY pm.snapshotDate DESC, pm.metricsId DESC) AS snapshotRank, " +
+           "FIRST_VALUE(pm.initialInventory) OVER (PARTITION BY p.productId ORDER BY pm.snapshotDate, pm.metricsId) AS firstInitialInventory, " +
+           "MAX(pm.updatedAt) OVER () AS promotionLastUpdated " +
+           "FROM PromotionMetrics pm JOIN pm.promotion pr JOIN pm.product p LEFT JOIN p.category c " +
+           "WHERE pr.promotionId = :promotionId) m " +
+           "WHERE m.snapshotRank = 1 ORDER BY m.productId")
+    List<LatestProductMetrics> findLatestSnapshotsByPromotionId(@Param("promotionId") Integer promotionId);
     
     /**
-     * Calcula el inventario actual total por promoción
-     */
-    @Query("SELECT COALESCE(SUM(pm.currentInventory), 0) FROM PromotionMetrics pm " +
-           "WHERE pm.promotion.promotionId = :promotionId " +
-           "AND pm.snapshotDate = (SELECT MAX(pm2.snapshotDate) FROM PromotionMetrics pm2 " +
-           "WHERE pm2.promotion.promotionId = :promotionId AND pm2.product.productId = pm.product.productId)")
-    Integer getTotalCurrentInventoryByPromotionId(@Param("promotionId") Integer promotionId);
-    
-    /**
-     * Cuenta el número de productos únicos en una promoción
+     * Encuentra métricas por rango de fechas
      */
-    @Query("SELECT COUNT(DISTINCT pm.product.productId) FROM PromotionMetrics pm " +
-           "WHERE pm.promotion.promotionId = :promotionId")
-    Integer getUniqueProductCountByPromotionId(@Param("promotionId") Integer promotionId);
+    @Query("SELECT pm FROM PromotionMetrics pm WHERE pm.promotion.promotionId = :promotionId " +
+           "AND pm.snapshotDate BETWEEN :startDate AND :endDate " +
+           "ORDER BY pm.snapshotDate DESC")
+    List<PromotionMetrics> findByPromotionIdAndDateRange(@Param("promotionId") Integer promotionId,
+                                                        @Param("startDate") LocalDateTime startDate,
+                                                        @Param("endDate") LocalDateTime endDate);
     
     /**
-     * Encuentra la última fecha de actualización de métricas para una promoción
+     * IDs de las promociones con métricas registradas (reconstrucción de los rollups)
      */
-    @Query("SELECT MAX(pm.updatedAt) FROM PromotionMetrics pm " +
-           "WHERE pm.promotion.promotionId = :promotionId")
-    LocalDateTime getLastUpdatedByPromotionId(@Param("promotionId") Integer promotionId);
+    @Query("SELECT DISTINCT pm.promotion.promotionId FROM PromotionMetrics pm ORDER BY pm.promotion.promotionId")
+    List<Integer> findDistinctPromotionIds();
     
     /**
      * Verifica si existen métricas para una promoción
@@ -0,0 +1,62 @@
+package com.petstore.backend.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.petstore.backend.entity.PromotionMetricsSnapshot;
+
+@Repository
+public interface PromotionMetricsSnapshotRepository extends JpaRepository<PromotionMetricsSnapshot, Long> {
+
+    /**
+     * Agrega un punto a la serie con los totales actuales del rollup, en una sola sentencia
+     * INSERT ... SELECT dentro de la transacción que escribió las métricas
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("INSERT INTO PromotionMetricsSnapshot (promotionId, recordedAt, totalUnitsSold, totalRevenue, " +
+           "totalInitialInventory, totalCurrentInventory) " +
+           "SELECT r.promotionId, :recordedAt, r.totalUnitsSold, r.totalRevenue, r.totalInitialInventory, " +
+           "r.totalCurrentInventory FROM PromotionPerformanceRollup r WHERE r.promotionId = :promotionId")
+    int appendFromRollup(@Param("promotionId") Integer promotionId, @Param("recordedAt") LocalDateTime recordedAt);
+
+    /**
+     * Puntos crudos de una promoción en [from, to]
+     */
+    @Query("SELECT s FROM PromotionMetricsSnapshot s WHERE s.promotionId = :promotionId " +
+           "AND s.recordedAt >= :from AND s.recordedAt <= :to ORDER BY s.recordedAt, s.id")
+    List<PromotionMetricsSnapshot> findSeries(@Param("promotionId") Integer promotionId,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to);
+
+    /**
+     * Último punto crudo de una promoción hasta un instante (periodo aún sin bucket)
+     */
+    Optional<PromotionMetricsSnapshot> findFirstByPromotionIdAndRecordedAtLessThanEqualOrderByRecordedAtDescIdDesc(
+            Integer promotionId, LocalDateTime recordedAt);
+
+    /**
+     * Puntos de todas las promociones en [from, to) ordenados para agrupar en buckets
+     */
+    @Query("SELECT s FROM PromotionMetricsSnapshot s WHERE s.recordedAt >= :from AND s.recordedAt < :to " +
+           "ORDER BY s.promotionId, s.recordedAt, s.id")
+    List<PromotionMetricsSnapshot> findForDownsampling(@Param("from") LocalDateTime from,
+                                                       @Param("to") LocalDateTime to);
+
+    @Query("SELECT MIN(s.recordedAt) FROM PromotionMetricsSnapshot s")
+    Optional<LocalDateTime> findEarliestRecordedAt();
+
+    @Modifying
+    @Query("DELETE FROM PromotionMetricsSnapshot s WHERE s.recordedAt < :cutoff")
+    int deleteRecordedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("DELETE FROM PromotionMetricsSnapshot s WHERE s.promotionId = :promotionId")
+    int deleteByPromotionId(@Param("promotionId") Integer promotionId);
+}
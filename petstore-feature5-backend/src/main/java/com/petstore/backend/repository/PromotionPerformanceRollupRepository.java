@@ -0,0 +1,36 @@
+package com.petstore.backend.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.petstore.backend.entity.PromotionPerformanceRollup;
+
+@Repository
+public interface PromotionPerformanceRollupRepository extends JpaRepository<PromotionPerformanceRollup, Integer> {
+
+    /**
+     * Suma los deltas a los totales de la promoción en una sola sentencia (sin leer la fila).
+     * Devuelve 0 si la promoción todavía no tiene fila de rollup.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE PromotionPerformanceRollup r SET r.totalProducts = r.totalProducts + :products, " +
+           "r.totalUnitsSold = r.totalUnitsSold + :unitsSold, r.totalRevenue = r.totalRevenue + :revenue, " +
+           "r.totalInitialInventory = r.totalInitialInventory + :initialInventory, " +
+           "r.totalCurrentInventory = r.totalCurrentInventory + :currentInventory, " +
+           "r.skuVariationSum = r.skuVariationSum + :skuVariation, r.lastUpdated = :updatedAt " +
+           "WHERE r.promotionId = :promotionId")
+    int applyDelta(@Param("promotionId") Integer promotionId,
+                   @Param("products") int products,
+                   @Param("unitsSold") int unitsSold,
+                   @Param("revenue") BigDecimal revenue,
+                   @Param("initialInventory") int initialInventory,
+                   @Param("currentInventory") int currentInventory,
+                   @Param("skuVariation") double skuVariation,
+                   @Param("updatedAt") LocalDateTime updatedAt);
+}
@@ -1,18 +1,31 @@
 package com.petstore.backend.repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.petstore.backend.cache.PromotionInterval;
+import com.petstore.backend.dto.PromotionDTO;
 import com.petstore.backend.entity.Promotion;
+import com.petstore.backend.entity.Status;
 
 @Repository
 public interface PromotionRepository extends JpaRepository<Promotion, Integer> {
     
+    // Proyección a PromotionDTO con estado y categoría en un solo SELECT (evita 1+N por asociaciones LAZY)
+    String PROMOTION_DTO_SELECT = "SELECT new com.petstore.backend.dto.PromotionDTO(" +
+            "p.promotionId, p.promotionName, p.description, p.discountValue, p.startDate, p.endDate, " +
+            "s.statusName, c.categoryId, c.categoryName, c.description) " +
+            "FROM Promotion p LEFT JOIN p.status s LEFT JOIN p.category c ";
+    
     // Buscar promociones activas
     @Query("SELECT p FROM Promotion p WHERE p.status.statusName = 'ACTIVE'")
     List<Promotion> findActivePromotions();
@@ -22,7 +35,7 @@ public interface PromotionRepository extends JpaRepository<Promotion, Integer> {
     List<Promotion> findExpiredPromotions();
     
     // Buscar promociones programadas
-    @Query("SELECT p FROM Promotion p WHERE p.status.statusName = 'SCHEDULE'")
+    @Query("SELECT p FROM Promotion p WHERE p.status.statusName = 'SCHEDULED'")
     List<Promotion> findScheduledPromotions();
     
     // Buscar promociones por estado específico
@@ -32,6 +45,14 @@ public interface PromotionRepository extends JpaRepository<Promotion, Integer> {
     // Buscar promociones por categoría
     List<Promotion> findByCategoryCategoryId(Integer categoryId);
     
+    // Promociones de varias categorías con su estado en una sola consulta (carga por lotes de GraphQL)
+    @Query("SELECT p FROM Promotion p JOIN FETCH p.status JOIN FETCH p.category c WHERE c.categoryId IN :categoryIds")
+    List<Promotion> findByCategoryIdIn(@Param("categoryIds") Collection<Integer> categoryIds);
+    
+    // Promociones por ID con su estado en una sola consulta (carga por lotes de GraphQL)
+    @Query("SELECT p FROM Promotion p JOIN FETCH p.status WHERE p.promotionId IN :ids")
+    List<Promotion> findWithStatusByIdIn(@Param("ids") Collection<Integer> ids);
+    
     // Buscar promociones por usuario (Marketing Admin que las creó)
     List<Promotion> findByUserUserId(Integer userId);
     
@@ -39,6 +60,101 @@ public interface PromotionRepository extends JpaRepository<Promotion, Integer> {
     @Query("SELECT p FROM Promotion p WHERE :currentDate BETWEEN p.startDate AND p.endDate")
     List<Promotion> findValidPromotions(@Param("currentDate") LocalDate currentDate);
     
+    // Todas las promociones como DTO (una sola consulta)
+    @Query(PROMOTION_DTO_SELECT + "ORDER BY p.promotionId")
+    List<PromotionDTO> findAllAsDTO();
+    
+    // Promociones de una categoría como DTO (una sola consulta)
+    @Query(PROMOTION_DTO_SELECT + "WHERE c.categoryId = :categoryId ORDER BY p.promotionId")
+    List<PromotionDTO> findAsDTOByCategoryId(@Param("categoryId") Integer categoryId);
+    
+    // Promociones por ID como DTO (una sola consulta), usado junto al índice de intervalos
+    @Query(PROMOTION_DTO_SELECT + "WHERE p.promotionId IN :ids ORDER BY p.promotionId")
+    List<PromotionDTO> findAsDTOByIdIn(@Param("ids") Collection<Integer> ids);
+    
+    // Paginación keyset por ID como DTO
+    @Query(PROMOTION_DTO_SELECT + "WHERE p.promotionId > :afterId ORDER BY p.promotionId")
+    List<PromotionDTO> findDTOPageAfterId(@Param("afterId") Integer afterId, Pageable pageable);
+    
+    // Paginación keyset por fecha de inicio como DTO: primera página
+    @Query(PROMOTION_DTO_SELECT + "ORDER BY p.startDate, p.promotionId")
+    List<PromotionDTO> findFirstDTOPageByStartDate(Pageable pageable);
+    
+    // Paginación keyset por fecha de inicio como DTO: páginas siguientes
+    @Query(PROMOTION_DTO_SELECT + "WHERE (p.startDate, p.promotionId) > (:startDate, :afterId) " +
+           "ORDER BY p.startDate, p.promotionId")
+    List<PromotionDTO> findDTOPageAfterStartDate(@Param("startDate") LocalDate startDate, @Param("afterId") Integer afterId, Pageable pageable);
+    
+    // Proyección mínima (id, fechas, categoría, estado) para el índice de intervalos en memoria
+    @Query("SELECT new com.petstore.backend.cache.PromotionInterval(p.promotionId, p.startDate, p.endDate, c.categoryId, s.statusName) " +
+           "FROM Promotion p LEFT JOIN p.category c LEFT JOIN p.status s")
+    List<PromotionInterval> findAllIntervals();
+
+    @Query("SELECT new com.petstore.backend.cache.PromotionInterval(p.promotionId, p.startDate, p.endDate, c.categoryId, s.statusName) " +
+           "FROM Promotion p LEFT JOIN p.category c LEFT JOIN p.status s WHERE p.promotionId = :id")
+    Optional<PromotionInterval> findIntervalById(@Param("id") Integer id);
+
+    @Query("SELECT new com.petstore.backend.cache.PromotionInterval(p.promotionId, p.startDate, p.endDate, c.categoryId, s.statusName) " +
+           "FROM Promotion p LEFT JOIN p.category c LEFT JOIN p.status s WHERE p.promotionId IN :ids")
+    List<PromotionInterval> findIntervalsByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // Promoción con todas sus asociaciones inicializadas (para snapshots en caché)
+    @Query("SELECT p FROM Promotion p LEFT JOIN FETCH p.status LEFT JOIN FETCH p.category " +
+           "LEFT JOIN FETCH p.user u LEFT JOIN FETCH u.role WHERE p.promotionId = :id")
+    Optional<Promotion> findDetailedById(@Param("id") Integer id);
+    
+    // Paginación keyset por ID (el Pageable solo limita filas, sin OFFSET ni COUNT)
+    @Query("SELECT p FROM Promotion p WHERE p.promotionId > :afterId ORDER BY p.promotionId")
+    List<Promotion> findPageAfterId(@Param("afterId") Integer afterId, Pageable pageable);
+    
+    // Paginación keyset por fecha de inicio (desempate por ID): primera página
+    @Query("SELECT p FROM Promotion p ORDER BY p.startDate, p.promotionId")
+    List<Promotion> findFirstPageByStartDate(Pageable pageable);
+    
+    // Paginación keyset por fecha de inicio (desempate por ID): páginas siguientes
+    @Query("SELECT p FROM Promotion p WHERE (p.startDate, p.promotionId) > (:startDate, :afterId) " +
+           "ORDER BY p.startDate, p.promotionId")
+    List<Promotion> findPageAfterStartDate(@Param("startDate") LocalDate startDate, @Param("afterId") Integer afterId, Pageable pageable);
+    
+    // Transiciones de estado por conjuntos (job nocturno): una sentencia por estado destino
+    @Query("SELECT p.promotionId FROM Promotion p WHERE p.startDate <= CURRENT_DATE " +
+           "AND p.endDate >= CURRENT_DATE AND p.status <> :active ORDER BY p.promotionId")
+    List<Integer> findIdsBecomingActive(@Param("active") Status active);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Promotion p SET p.status = :expired WHERE p.endDate < CURRENT_DATE AND p.status <> :expired")
+    int bulkMarkExpired(@Param("expired") Status expired);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Promotion p SET p.status = :scheduled WHERE p.startDate > CURRENT_DATE " +
+           "AND p.endDate >= CURRENT_DATE AND p.status <> :scheduled")
+    int bulkMarkScheduled(@Param("scheduled") Status scheduled);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Promotion p SET p.status = :active WHERE p.startDate <= CURRENT_DATE " +
+           "AND p.endDate >= CURRENT_DATE AND p.status <> :active")
+    int bulkMarkActive(@Param("active") Status active);
+    
+    // Mismas transiciones limitadas a un conjunto de promociones (fronteras de fecha alcanzadas)
+    @Query("SELECT p.promotionId FROM Promotion p WHERE p.promotionId IN :ids AND p.startDate <= CURRENT_DATE " +
+           "AND p.endDate >= CURRENT_DATE AND p.status <> :active ORDER BY p.promotionId")
+    List<Integer> findIdsBecomingActiveIn(@Param("active") Status active, @Param("ids") Collection<Integer> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Promotion p SET p.status = :expired WHERE p.promotionId IN :ids " +
+           "AND p.endDate < CURRENT_DATE AND p.status <> :expired")
+    int bulkMarkExpiredIn(@Param("expired") Status expired, @Param("ids") Collection<Integer> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Promotion p SET p.status = :scheduled WHERE p.promotionId IN :ids AND p.startDate > CURRENT_DATE " +
+           "AND p.endDate >= CURRENT_DATE AND p.status <> :scheduled")
+    int bulkMarkScheduledIn(@Param("scheduled") Status scheduled, @Param("ids") Collection<Integer> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Promotion p SET p.status = :active WHERE p.promotionId IN :ids AND p.startDate <= CURRENT_DATE " +
+           "AND p.endDate >= CURRENT_DATE AND p.status <> :active")
+    int bulkMarkActiveIn(@Param("active") Status active, @Param("ids") Collection<Integer> ids);
+    
     // Buscar promociones por rango de descuento
     @Query("SELECT p FROM Promotion p WHERE p.discountValue >= :minDiscount AND p.discountValue <= :maxDiscount")
     List<Promotion> findByDiscountRange(@Param("minDiscount") Double minDiscount, @Param("maxDiscount") Double maxDiscount);
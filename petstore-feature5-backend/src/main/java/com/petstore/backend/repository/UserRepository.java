@@ -5,8 +5,11 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.petstore.backend.dto.NotificationRecipient;
 import com.petstore.backend.entity.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -26,4 +29,9 @@ public interface UserRepository extends JpaRepository<User, Integer> {
     // Buscar usuarios por rol
     @Query("SELECT u FROM User u JOIN u.role r WHERE r.roleName = :roleName")
     Optional<User> findByRoleName(@Param("roleName") String roleName);
+    
+    // Nombre y email de un lote de destinatarios, sin cargar entidades ni roles
+    @Query("SELECT new com.petstore.backend.dto.NotificationRecipient(u.userId, u.userName, u.email) " +
+           "FROM User u WHERE u.userId IN :userIds")
+    List<NotificationRecipient> findRecipientsByIds(@Param("userIds") Collection<Integer> userIds);
 }
@@ -0,0 +1,34 @@
+package com.petstore.backend.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.petstore.backend.service.PromotionMetricsSeriesService;
+
+/**
+ * Job horario de la serie temporal de métricas: resume los periodos cerrados en buckets
+ * y después aplica la retención (nunca se purga si el resumen falló).
+ */
+@Component
+public class MetricsSeriesScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsSeriesScheduler.class);
+
+    private final PromotionMetricsSeriesService seriesService;
+
+    public MetricsSeriesScheduler(PromotionMetricsSeriesService seriesService) {
+        this.seriesService = seriesService;
+    }
+
+    @Scheduled(cron = "${app.metrics.series.downsample-cron:0 5 * * * *}")
+    public void downsampleAndPurge() {
+        try {
+            seriesService.downsample();
+            seriesService.purgeExpired();
+        } catch (Exception e) {
+            logger.warn("⚠️ No se pudo resumir la serie de métricas: {}", e.getMessage());
+        }
+    }
+}
@@ -1,62 +1,239 @@
 package com.petstore.backend.scheduler;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import com.petstore.backend.cache.PromotionInterval;
+import com.petstore.backend.dto.StatusTransitionResult;
+import com.petstore.backend.event.PromotionChangedEvent;
+import com.petstore.backend.repository.PromotionRepository;
 import com.petstore.backend.service.PromotionService;
 
 /**
- * Tareas programadas para el sistema de promociones
+ * Scheduler de estados de promociones guiado por fronteras de fecha.
+ *
+ * Mantiene una cola de prioridad con la próxima frontera de cada promoción
+ * (inicio → ACTIVE, día siguiente al fin → EXPIRED) y se despierta exactamente a las
+ * 00:00 de la frontera más cercana para actualizar solo las promociones afectadas.
+ * La cola se reconstruye desde la BD al arrancar y se mantiene con los eventos
+ * {@link PromotionChangedEvent} (crear, editar, eliminar). Las fronteras vencidas solo salen de
+ * la cola cuando la transición se confirma; si falla, se reintentan tras {@code retryDelay}.
  */
 @Component
 public class PromotionScheduler {
 
     private static final Logger logger = LoggerFactory.getLogger(PromotionScheduler.class);
 
+    private static final Comparator<Boundary> BY_DATE =
+        Comparator.comparing(Boundary::date).thenComparing(Boundary::promotionId);
+
+    private final PromotionRepository promotionRepository;
     private final PromotionService promotionService;
+    private final TaskScheduler taskScheduler;
+    private final Clock clock;
+    private final Duration retryDelay;
 
-    public PromotionScheduler(PromotionService promotionService) {
+    private final PriorityQueue<Boundary> boundaries = new PriorityQueue<>(BY_DATE);
+    private final Map<Integer, PromotionInterval> intervals = new HashMap<>(); // Vigentes; las fronteras obsoletas se descartan al salir
+    private boolean started;
+    private ScheduledFuture<?> wakeUp;
+    private LocalDate wakeUpDate;
+    private Instant retryAt; // No antes de este instante tras una transición fallida
+
+    @Autowired
+    public PromotionScheduler(PromotionRepository promotionRepository,
+                              PromotionService promotionService,
+                              TaskScheduler taskScheduler,
+                              @Value("${promotion.scheduler.retry-delay:PT1M}") Duration retryDelay) {
+        this(promotionRepository, promotionService, taskScheduler, Clock.systemDefaultZone(), retryDelay);
+    }
+
+    PromotionScheduler(PromotionRepository promotionRepository,
+                       PromotionService promotionService,
+                       TaskScheduler taskScheduler,
+                       Clock clock,
+                       Duration retryDelay) {
+        this.promotionRepository = promotionRepository;
         this.promotionService = promotionService;
+        this.taskScheduler = taskScheduler;
+        this.clock = clock;
+        this.retryDelay = retryDelay;
     }
 
     /**
-     * Actualiza automáticamente los estados de las promociones cada día a las 00:01
-     * Esto asegura que las promociones cambien de estado automáticamente sin intervención manual
+     * Al arrancar: pone al día los estados que cambiaron mientras la aplicación estaba detenida
+     * y reconstruye la cola desde la base de datos
      */
-    @Scheduled(cron = "0 1 0 * * *") // Cada día a las 00:01 AM
-    public void updatePromotionStatusesDaily() {
-        logger.info("⏰ Iniciando tarea programada: Actualización diaria de estados de promociones");
-        
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
         try {
-            int updatedCount = promotionService.updateAllPromotionStatuses();
-            
-            if (updatedCount > 0) {
-                logger.info("✅ Tarea completada: {} promociones actualizadas automáticamente", updatedCount);
-            } else {
-                logger.info("ℹ️ Tarea completada: No se requirieron actualizaciones de estado");
-            }
-            
+            StatusTransitionResult result = promotionService.transitionPromotionStatuses();
+            logger.info("⏰ Estados puestos al día al arrancar: {} promociones actualizadas", result.total());
         } catch (Exception e) {
-            logger.error("❌ Error en tarea programada de actualización de estados: {}", e.getMessage(), e);
+            logger.warn("⚠️ No se pudieron poner al día los estados al arrancar: {}", e.getMessage());
         }
+        started = true;
+        rebuild();
     }
 
     /**
-     * Actualiza los estados cada hora durante horas laborales (opcional)
-     * Comentado por defecto, se puede habilitar si se requiere mayor frecuencia
+     * Mantiene la cola sincronizada una vez confirmada la transacción que cambió la promoción
      */
-    // @Scheduled(cron = "0 0 8-18 * * MON-FRI") // Cada hora de 8 AM a 6 PM, lunes a viernes
-    public void updatePromotionStatusesHourly() {
-        logger.info("⏰ Iniciando tarea programada: Actualización horaria de estados de promociones");
-        
-        try {
-            int updatedCount = promotionService.updateAllPromotionStatuses();
-            logger.info("✅ Actualización horaria completada: {} promociones actualizadas", updatedCount);
-            
-        } catch (Exception e) {
-            logger.error("❌ Error en tarea horaria de actualización: {}", e.getMessage(), e);
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onPromotionChanged(PromotionChangedEvent event) {
+        if (!started) {
+            return; // start() construirá la cola con el estado ya confirmado en BD
+        }
+        if (event.isReloadAll()) {
+            rebuild();
+        } else if (event.isDeleted()) {
+            intervals.remove(event.getPromotionId());
+        } else {
+            track(event.getInterval());
+            compactIfNeeded();
+            scheduleNext();
         }
     }
+
+    /**
+     * Se ejecuta en la frontera programada: actualiza solo las promociones cuya frontera ya llegó.
+     * Si la transición falla, las fronteras vuelven a la cola y se reintentan tras {@code retryDelay}.
+     */
+    synchronized void onBoundary() {
+        wakeUp = null;
+        wakeUpDate = null;
+        retryAt = null;
+        LocalDate today = LocalDate.now(clock);
+
+        List<Boundary> polled = new ArrayList<>();
+        Set<Integer> due = new LinkedHashSet<>();
+        while (!boundaries.isEmpty() && !boundaries.peek().date().isAfter(today)) {
+            Boundary boundary = boundaries.poll();
+            if (isCurrent(boundary)) {
+                polled.add(boundary);
+                due.add(boundary.promotionId());
+            }
+        }
+
+        if (!due.isEmpty()) {
+            try {
+                StatusTransitionResult result = promotionService.transitionPromotionStatuses(due);
+                logger.info("⏰ Frontera {}: {} promociones revisadas, {} actualizadas", today, due.size(), result.total());
+            } catch (Exception e) {
+                logger.error("❌ Error actualizando estados en la frontera {}, se reintentará en {}: {}",
+                            today, retryDelay, e.getMessage(), e);
+                boundaries.addAll(polled);
+                retryAt = clock.instant().plus(retryDelay);
+            }
+        }
+        scheduleNext();
+    }
+
+    /**
+     * Número de fronteras pendientes en la cola (incluye obsoletas aún no descartadas)
+     */
+    synchronized int pendingBoundaries() {
+        return boundaries.size();
+    }
+
+    /**
+     * Fecha de la próxima ejecución programada (null si no hay fronteras futuras)
+     */
+    synchronized LocalDate nextWakeUp() {
+        return wakeUpDate;
+    }
+
+    private void rebuild() {
+        // Las fronteras vencidas que esperan un reintento no se reconstruyen desde la BD
+        LocalDate today = LocalDate.now(clock);
+        List<Boundary> overdue = boundaries.stream().filter(boundary -> !boundary.date().isAfter(today)).toList();
+        intervals.clear();
+        boundaries.clear();
+        for (PromotionInterval interval : promotionRepository.findAllIntervals()) {
+            track(interval);
+        }
+        boundaries.addAll(overdue);
+        logger.info("⏰ Cola de fronteras de promociones reconstruida: {} fronteras", boundaries.size());
+        scheduleNext();
+    }
+
+    private void track(PromotionInterval interval) {
+        if (interval == null || interval.promotionId() == null
+                || interval.startDate() == null || interval.endDate() == null) {
+            return;
+        }
+        intervals.put(interval.promotionId(), interval);
+        LocalDate today = LocalDate.now(clock);
+        // Solo fronteras futuras: las pasadas ya fueron aplicadas al guardar o por la puesta al día
+        if (interval.startDate().isAfter(today)) {
+            boundaries.add(new Boundary(interval.startDate(), interval.promotionId()));
+        }
+        LocalDate expiresOn = interval.endDate().plusDays(1);
+        if (expiresOn.isAfter(today)) {
+            boundaries.add(new Boundary(expiresOn, interval.promotionId()));
+        }
+    }
+
+    /**
+     * Una frontera es vigente si la promoción sigue existiendo con la misma fecha de inicio o fin
+     */
+    private boolean isCurrent(Boundary boundary) {
+        PromotionInterval interval = intervals.get(boundary.promotionId());
+        return interval != null
+            && (boundary.date().equals(interval.startDate()) || boundary.date().equals(interval.endDate().plusDays(1)));
+    }
+
+    /**
+     * Las ediciones dejan fronteras obsoletas en la cola; si superan a las vigentes se reconstruye desde memoria
+     */
+    private void compactIfNeeded() {
+        if (boundaries.size() <= 2 * intervals.size() + 64) {
+            return;
+        }
+        boundaries.removeIf(boundary -> !isCurrent(boundary));
+    }
+
+    private void scheduleNext() {
+        while (!boundaries.isEmpty() && !isCurrent(boundaries.peek())) {
+            boundaries.poll();
+        }
+        LocalDate next = boundaries.isEmpty() ? null : boundaries.peek().date();
+        if (next != null && next.equals(wakeUpDate)) {
+            return; // Ya programado para esa frontera
+        }
+        if (wakeUp != null) {
+            wakeUp.cancel(false);
+        }
+        wakeUpDate = next;
+        wakeUp = next == null ? null : taskScheduler.schedule(this::onBoundary, wakeUpInstant(next));
+    }
+
+    private Instant wakeUpInstant(LocalDate date) {
+        Instant boundary = date.atStartOfDay(clock.getZone()).toInstant();
+        return retryAt != null && retryAt.isAfter(boundary) ? retryAt : boundary;
+    }
+
+    private record Boundary(LocalDate date, Integer promotionId) {
+    }
 }
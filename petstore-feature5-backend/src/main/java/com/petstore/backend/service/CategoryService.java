@@ -3,19 +3,35 @@ package com.petstore.backend.service;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.petstore.backend.cache.CatalogVersion;
+import com.petstore.backend.cache.ReferenceDataRegistry;
+import com.petstore.backend.dto.CursorPage;
 import com.petstore.backend.entity.Category;
+import com.petstore.backend.event.CategoryChangedEvent;
 import com.petstore.backend.repository.CategoryRepository;
+import com.petstore.backend.util.KeysetCursor;
 
 @Service
 public class CategoryService {
 
+    private static final String SORT_BY_ID = "id"; // Único orden de paginación soportado
     
     private final CategoryRepository categoryRepository; // Inyección de dependencia del repositorio de categorías
+    private final ReferenceDataRegistry referenceDataRegistry; // Copia en memoria de las categorías
+    private final ApplicationEventPublisher eventPublisher; // Las promociones en caché copian su categoría
+    private final CatalogVersion catalogVersion; // Versión del catálogo para los ETag
 
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository, ReferenceDataRegistry referenceDataRegistry,
+                           ApplicationEventPublisher eventPublisher, CatalogVersion catalogVersion) {
         this.categoryRepository = categoryRepository;
+        this.referenceDataRegistry = referenceDataRegistry;
+        this.eventPublisher = eventPublisher;
+        this.catalogVersion = catalogVersion;
     }
 
 
@@ -26,6 +42,20 @@ public class CategoryService {
         return categoryRepository.findAll();
     }
 
+    /**
+     * Obtiene una página de categorías ordenadas por ID usando paginación keyset (sin OFFSET)
+     *
+     * @param after cursor devuelto por la página anterior (null para la primera)
+     * @param size tamaño de página (se limita a CursorPage.MAX_SIZE)
+     */
+    public CursorPage<Category> findPage(String after, Integer size) {
+        int pageSize = CursorPage.normalizeSize(size);
+        Integer afterId = after != null ? KeysetCursor.decode(after, SORT_BY_ID).id() : 0;
+        List<Category> rows = categoryRepository.findPageAfterId(afterId, PageRequest.ofSize(pageSize + 1));
+        return CursorPage.of(rows, pageSize, after != null,
+                category -> new KeysetCursor(SORT_BY_ID, null, category.getCategoryId()).encode());
+    }
+
     /**
      * Encuentra una categoría por ID
      */
@@ -34,17 +64,27 @@ public class CategoryService {
     }
 
     /**
-     * Guarda una categoría
+     * Guarda una categoría y actualiza el registro de datos de referencia. La caché de promociones
+     * se vacía al confirmar la transacción ({@link CategoryChangedEvent}).
      */
+    @Transactional
     public Category save(Category category) {
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        referenceDataRegistry.categorySaved(saved);
+        eventPublisher.publishEvent(new CategoryChangedEvent(this, saved.getCategoryId(), false));
+        catalogVersion.bump();
+        return saved;
     }
 
     /**
-     * Elimina una categoría por ID
+     * Elimina una categoría por ID y la quita del registro de datos de referencia
      */
+    @Transactional
     public void deleteById(Integer id) {
         categoryRepository.deleteById(id);
+        referenceDataRegistry.categoryDeleted(id);
+        eventPublisher.publishEvent(new CategoryChangedEvent(this, id, true));
+        catalogVersion.bump();
     }
 
     /**
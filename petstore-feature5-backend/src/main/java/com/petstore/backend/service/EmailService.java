@@ -1,9 +1,27 @@
 package com.petstore.backend.service;
 
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petstore.backend.dto.EmailMessage;
+import com.petstore.backend.dto.EmailSendResult;
 import com.resend.Resend;
 import com.resend.core.exception.ResendException;
 import com.resend.services.emails.model.CreateEmailOptions;
@@ -18,21 +36,36 @@ public class EmailService {
 
     private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
 
+    // Máximo de emails por petición que acepta el endpoint de lotes de Resend
+    public static final int PROVIDER_BATCH_LIMIT = 100;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
     private final Resend resend;
+    private final String apiKey;
     private final String fromEmail;
     private final String fromName;
     private final String defaultToEmail;
+    private final URI batchUri;
+    private final int batchSize;
+    private final HttpClient httpClient;
 
     public EmailService(
             @Value("${resend.api-key}") String apiKey,
             @Value("${resend.from}") String fromEmail,
             @Value("${resend.from-name}") String fromName,
-            @Value("${resend.to}") String defaultToEmail) {
+            @Value("${resend.to}") String defaultToEmail,
+            @Value("${resend.api-url:https://api.resend.com}") String apiUrl,
+            @Value("${resend.batch-size:100}") int batchSize) {
         
         this.resend = new Resend(apiKey);
+        this.apiKey = apiKey;
         this.fromEmail = fromEmail;
         this.fromName = fromName;
         this.defaultToEmail = defaultToEmail;
+        this.batchUri = URI.create(apiUrl + "/emails/batch");
+        this.batchSize = Math.max(1, Math.min(batchSize, PROVIDER_BATCH_LIMIT));
+        this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
         
         logger.info("EmailService inicializado con Resend API");
         logger.info("From: {} <{}>, Default To: {}", fromName, fromEmail, defaultToEmail);
@@ -77,6 +110,137 @@ public class EmailService {
         }
     }
 
+    /**
+     * Envía varios emails agrupándolos en peticiones de hasta {@code batchSize} mensajes al
+     * endpoint de lotes de Resend (una llamada HTTP por grupo en vez de una por email).
+     * Igual que {@link #sendEmail}, en plan gratuito todos se envían al email configurado.
+     *
+     * Resend acepta o rechaza cada petición completa: si falla, todos los mensajes de ese grupo
+     * quedan como fallidos y los demás grupos se envían igual. Los errores de red, 5xx, 429 y los
+     * de credenciales o timeout (401, 403, 408) se reintentan. Cualquier otro 4xx puede deberse a
+     * un solo mensaje, así que el grupo se parte en mitades hasta aislarlo y solo ese mensaje (o
+     * uno incompleto) queda rechazado de forma definitiva.
+     *
+     * @param messages Emails a enviar
+     * @return Un resultado por mensaje, en el mismo orden, con el ID del proveedor o el error
+     */
+    public List<EmailSendResult> sendBatch(List<EmailMessage> messages) {
+        List<EmailSendResult> results = new ArrayList<>(messages.size());
+        for (int start = 0; start < messages.size(); start += batchSize) {
+            results.addAll(sendChunk(messages.subList(start, Math.min(start + batchSize, messages.size()))));
+        }
+        return results;
+    }
+
+    private List<EmailSendResult> sendChunk(List<EmailMessage> chunk) {
+        EmailSendResult[] results = new EmailSendResult[chunk.size()];
+        List<Integer> valid = new ArrayList<>(chunk.size());
+        List<Map<String, Object>> payload = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            EmailMessage message = chunk.get(i);
+            if (isBlank(message.to()) || isBlank(message.subject()) || isBlank(message.htmlContent())) {
+                results[i] = EmailSendResult.rejected(message.to(), "Destinatario, asunto o contenido vacío");
+                continue;
+            }
+            Map<String, Object> email = new LinkedHashMap<>();
+            email.put("from", fromName + " <" + fromEmail + ">");
+            email.put("to", List.of(defaultToEmail)); // En plan gratuito de Resend, usar el email configurado
+            email.put("subject", message.subject());
+            email.put("html", message.htmlContent());
+            payload.add(email);
+            valid.add(i);
+        }
+
+        if (!valid.isEmpty()) {
+            send(chunk, valid, payload, results);
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Envía los mensajes indicados en una petición; si el proveedor rechaza la petición por su
+     * contenido, reintenta cada mitad por separado para no rechazar mensajes válidos
+     */
+    private void send(List<EmailMessage> chunk, List<Integer> indexes, List<Map<String, Object>> payload,
+                      EmailSendResult[] results) {
+        try {
+            List<String> ids = postBatch(payload);
+            for (int j = 0; j < indexes.size(); j++) {
+                int index = indexes.get(j);
+                results[index] = EmailSendResult.sent(chunk.get(index).to(), j < ids.size() ? ids.get(j) : null);
+            }
+            logger.info("✅ Lote de {} emails enviado con Resend", indexes.size());
+        } catch (ProviderResponseException e) {
+            if (e.isPermanent() && indexes.size() > 1) {
+                logger.warn("⚠️ Resend rechazó un lote de {} emails ({}), se envía por mitades",
+                           indexes.size(), e.getMessage());
+                int half = indexes.size() / 2;
+                send(chunk, indexes.subList(0, half), payload.subList(0, half), results);
+                send(chunk, indexes.subList(half, indexes.size()), payload.subList(half, payload.size()), results);
+                return;
+            }
+            logger.error("❌ Resend rechazó un lote de {} emails: {}", indexes.size(), e.getMessage());
+            indexes.forEach(index -> results[index] = e.isPermanent()
+                ? EmailSendResult.rejected(chunk.get(index).to(), e.getMessage())
+                : EmailSendResult.failed(chunk.get(index).to(), e.getMessage()));
+        } catch (IOException | RuntimeException e) {
+            logger.error("❌ Error enviando lote de {} emails con Resend: {}", indexes.size(), e.getMessage());
+            indexes.forEach(index -> results[index] = EmailSendResult.failed(chunk.get(index).to(), e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            indexes.forEach(index -> results[index] = EmailSendResult.failed(chunk.get(index).to(), "Envío interrumpido"));
+        }
+    }
+
+    /**
+     * POST /emails/batch; devuelve los IDs asignados, en el orden de los mensajes
+     */
+    private List<String> postBatch(List<Map<String, Object>> payload) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(batchUri)
+            .timeout(Duration.ofSeconds(30))
+            .header("Authorization", "Bearer " + apiKey)
+            .header("Content-Type", "application/json")
+            .header("Accept", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(payload)))
+            .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new ProviderResponseException(response.statusCode(), response.body());
+        }
+
+        List<String> ids = new ArrayList<>(payload.size());
+        for (JsonNode email : objectMapper.readTree(response.body()).path("data")) {
+            ids.add(email.path("id").asText(null));
+        }
+        return ids;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * Respuesta no 2xx del proveedor. Los 4xx indican una petición que volvería a ser rechazada
+     * igual, salvo las credenciales rechazadas (401, 403: una clave rotada o mal configurada se
+     * corrige sin tocar los mensajes), el timeout (408) y el rate limit (429).
+     */
+    private static class ProviderResponseException extends IOException {
+
+        private static final Set<Integer> RETRYABLE_CLIENT_ERRORS = Set.of(401, 403, 408, 429);
+
+        private final int statusCode;
+
+        ProviderResponseException(int statusCode, String body) {
+            super("Resend respondió " + statusCode + ": " + body);
+            this.statusCode = statusCode;
+        }
+
+        boolean isPermanent() {
+            return statusCode / 100 == 4 && !RETRYABLE_CLIENT_ERRORS.contains(statusCode);
+        }
+    }
+
     /**
      * Envía un email de prueba para verificar la configuración.
      * 
@@ -208,4 +372,5 @@ public class EmailService {
     public String getFromEmail() { return fromEmail; }
     public String getFromName() { return fromName; }
     public String getDefaultToEmail() { return defaultToEmail; }
+    public int getBatchSize() { return batchSize; }
 }
@@ -0,0 +1,183 @@
+package com.petstore.backend.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Exportación en streaming del histórico de promotion_metrics (CSV o NDJSON, opcionalmente gzip).
+ *
+ * Las filas se leen con un cursor JDBC de solo avance (fetch size acotado, dentro de una transacción
+ * de solo lectura para que PostgreSQL no cargue todo el resultado) y se escriben directamente en la
+ * salida, así que la memoria usada no depende del número de filas.
+ */
+@Service
+public class MetricsExportService {
+
+    static final String EXPORT_SQL =
+        "SELECT metrics_id, promotion_id, product_id, initial_inventory, current_inventory, units_sold, " +
+        "sku_variation_percentage, revenue_generated, snapshot_date, created_at, updated_at " +
+        "FROM promotion_metrics WHERE snapshot_date >= ? AND snapshot_date <= ?";
+
+    static final String EXPORT_ORDER = " ORDER BY promotion_id, snapshot_date, metrics_id";
+
+    private static final String[] COLUMNS = {
+        "metricsId", "promotionId", "productId", "initialInventory", "currentInventory", "unitsSold",
+        "skuVariationPercentage", "revenueGenerated", "snapshotDate", "createdAt", "updatedAt"
+    };
+
+    /**
+     * Formato de salida de la exportación
+     */
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public MetricsExportService(DataSource dataSource,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.metrics.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Escribe las métricas con snapshot en [from, to] (de una promoción, o de todas si promotionId es null).
+     * Devuelve el número de filas exportadas.
+     */
+    public long export(Integer promotionId, LocalDateTime from, LocalDateTime to, Format format,
+                       boolean gzip, OutputStream output) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(output, 8192) : output;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 16 * 1024);
+
+        StringBuilder sql = new StringBuilder(EXPORT_SQL);
+        List<Object> args = new ArrayList<>(List.of(Timestamp.valueOf(from), Timestamp.valueOf(to)));
+        if (promotionId != null) {
+            sql.append(" AND promotion_id = ?");
+            args.add(promotionId);
+        }
+        sql.append(EXPORT_ORDER);
+
+        long[] rows = {0};
+        try {
+            if (format == Format.CSV) {
+                writer.write(String.join(",", COLUMNS));
+                writer.write('\n');
+            }
+            transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.query(sql.toString(), resultSet -> {
+                    writeRow(resultSet, format, writer);
+                    rows[0]++;
+                }, args.toArray()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // El cliente cerró la conexión
+        }
+
+        writer.flush();
+        if (target instanceof GZIPOutputStream gzipOutput) {
+            gzipOutput.finish();
+        }
+        return rows[0];
+    }
+
+    private static void writeRow(ResultSet resultSet, Format format, Writer writer) throws SQLException {
+        Object[] values = {
+            resultSet.getObject("metrics_id"),
+            resultSet.getObject("promotion_id"),
+            resultSet.getObject("product_id"),
+            resultSet.getObject("initial_inventory"),
+            resultSet.getObject("current_inventory"),
+            resultSet.getObject("units_sold"),
+            resultSet.getObject("sku_variation_percentage"),
+            resultSet.getBigDecimal("revenue_generated"),
+            toLocalDateTime(resultSet.getTimestamp("snapshot_date")),
+            toLocalDateTime(resultSet.getTimestamp("created_at")),
+            toLocalDateTime(resultSet.getTimestamp("updated_at"))
+        };
+        try {
+            if (format == Format.CSV) {
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    if (values[i] != null) {
+                        writer.write(format(values[i]));
+                    }
+                }
+            } else {
+                writer.write('{');
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write('"');
+                    writer.write(COLUMNS[i]);
+                    writer.write("\":");
+                    if (values[i] == null) {
+                        writer.write("null");
+                    } else if (values[i] instanceof LocalDateTime) {
+                        writer.write('"');
+                        writer.write(format(values[i]));
+                        writer.write('"');
+                    } else {
+                        writer.write(format(values[i]));
+                    }
+                }
+                writer.write('}');
+            }
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String format(Object value) {
+        // Solo números y fechas ISO-8601: no hace falta escapar en CSV ni en JSON
+        return value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
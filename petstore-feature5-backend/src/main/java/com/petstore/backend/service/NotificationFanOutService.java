@@ -0,0 +1,187 @@
+package com.petstore.backend.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.petstore.backend.dto.NotificationDelivery;
+import com.petstore.backend.dto.NotificationFanOutProgressDTO;
+import com.petstore.backend.dto.NotificationOutboxEntry;
+import com.petstore.backend.entity.NotificationLog.NotificationStatus;
+import com.petstore.backend.entity.Promotion;
+import com.petstore.backend.util.TokenBucket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Despacho de las notificaciones de promociones encoladas en el outbox.
+ *
+ * Activar una promoción solo encola sus destinatarios ({@link NotificationOutboxService}); el
+ * envío lo hacen N workers en hilos virtuales que repiten reclamar un lote del tamaño que acepta
+ * el proveedor, entregarlo sin transacción abierta ({@link NotificationService#deliver}) y guardar
+ * el resultado, hasta vaciar la cola. Un token bucket global marca el ritmo máximo de peticiones
+ * al proveedor de email. El despacho corre periódicamente sin retener el hilo del scheduler, así
+ * que los reintentos con backoff y las filas de un worker caído se retoman solos, y el avance de
+ * las campañas se lee de la BD.
+ */
+@Service
+public class NotificationFanOutService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationFanOutService.class);
+
+    static final int RECENT_CAMPAIGNS = 20;
+
+    private final NotificationService notificationService;
+    private final NotificationOutboxService outboxService;
+    private final TokenBucket rateLimiter;
+    private final int workers;
+    private final int batchSize;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicBoolean dispatching = new AtomicBoolean();
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final Counter completedSends;
+    private final Counter failedSends;
+
+    public NotificationFanOutService(NotificationService notificationService,
+                                     NotificationOutboxService outboxService,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${notification.outbox.rate-per-second:2}") double ratePerSecond,
+                                     @Value("${notification.outbox.burst:2}") int burst,
+                                     @Value("${notification.outbox.workers:4}") int workers,
+                                     @Value("${resend.batch-size:100}") int batchSize) {
+        this.notificationService = notificationService;
+        this.outboxService = outboxService;
+        this.rateLimiter = new TokenBucket(ratePerSecond, burst);
+        this.workers = Math.max(1, workers);
+        this.batchSize = Math.max(1, batchSize);
+        this.completedSends = Counter.builder("notifications.fanout.sends").tag("result", "completed")
+            .description("Envíos de notificaciones de promociones").register(meterRegistry);
+        this.failedSends = Counter.builder("notifications.fanout.sends").tag("result", "failed")
+            .description("Envíos de notificaciones de promociones").register(meterRegistry);
+        Gauge.builder("notifications.fanout.in_flight", activeWorkers, AtomicInteger::get)
+            .description("Workers del outbox entregando un lote").register(meterRegistry);
+    }
+
+    /**
+     * Encola la promoción para todos los usuarios con consentimiento. Devuelve las filas encoladas.
+     */
+    public int enqueue(Promotion promotion) {
+        return notificationService.sendPromotionNotification(promotion);
+    }
+
+    /**
+     * Lanza el vaciado de la cola sin esperarlo, para no ocupar el hilo del scheduler mientras
+     * los workers entregan los lotes.
+     */
+    @Scheduled(fixedDelayString = "${notification.outbox.poll-interval:PT5S}")
+    public void dispatchPending() {
+        startDispatch();
+    }
+
+    /**
+     * Vacía la cola del outbox con N workers en segundo plano. Si ya hay un despacho en curso en
+     * este nodo no hace nada: sus workers recogen también las filas nuevas.
+     *
+     * @return notificaciones procesadas (incluye los fallos que volvieron a la cola) al terminar
+     *         todos los workers; 0 si ya había un despacho en curso
+     */
+    public CompletableFuture<Integer> startDispatch() {
+        if (!dispatching.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(0);
+        }
+        List<CompletableFuture<Integer>> running = new ArrayList<>(workers);
+        try {
+            for (int i = 0; i < workers; i++) {
+                running.add(CompletableFuture.supplyAsync(this::drain, executor)
+                    .exceptionally(error -> {
+                        // Las filas que tenía el worker vuelven a la cola al vencer el lease
+                        logger.error("Error en un worker del outbox de notificaciones: {}", error.getMessage(), error);
+                        return 0;
+                    }));
+            }
+        } catch (RejectedExecutionException e) {
+            logger.warn("Despacho del outbox de notificaciones rechazado: el servicio se está deteniendo");
+        }
+        return CompletableFuture.allOf(running.toArray(CompletableFuture[]::new))
+            .thenApply(done -> {
+                int processed = running.stream().mapToInt(CompletableFuture::join).sum();
+                if (processed > 0) {
+                    logger.info("Outbox de notificaciones: {} notificaciones procesadas", processed);
+                }
+                return processed;
+            })
+            .whenComplete((processed, error) -> dispatching.set(false));
+    }
+
+    /**
+     * Avance de las campañas recientes (la más nueva primero)
+     */
+    public List<NotificationFanOutProgressDTO> recentCampaigns() {
+        return outboxService.recentCampaigns(RECENT_CAMPAIGNS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private int drain() {
+        int processed = 0;
+        try {
+            processed = drainBatches();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Worker del outbox de notificaciones interrumpido");
+        }
+        return processed;
+    }
+
+    private int drainBatches() throws InterruptedException {
+        int processed = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<NotificationOutboxEntry> batch = outboxService.claim(batchSize);
+            if (batch.isEmpty()) {
+                break;
+            }
+            rateLimiter.acquire();
+            activeWorkers.incrementAndGet();
+            try {
+                List<NotificationDelivery> deliveries = deliver(batch);
+                outboxService.complete(batch, deliveries);
+                long failed = deliveries.stream().filter(d -> d.status() == NotificationStatus.FAILED).count();
+                completedSends.increment(batch.size() - failed);
+                failedSends.increment(failed);
+                processed += batch.size();
+            } finally {
+                activeWorkers.decrementAndGet();
+            }
+        }
+        return processed;
+    }
+
+    private List<NotificationDelivery> deliver(List<NotificationOutboxEntry> batch) {
+        try {
+            return notificationService.deliver(batch);
+        } catch (RuntimeException e) {
+            // Error antes de conocer el resultado de cada envío: todo el lote se reintenta
+            logger.error("Error entregando un lote de {} notificaciones, se reintentará: {}", batch.size(), e.getMessage());
+            return batch.stream()
+                .map(entry -> NotificationDelivery.failed(entry.id(), null, null, e.getMessage()))
+                .toList();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.petstore.backend.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petstore.backend.dto.NotificationDelivery;
+import com.petstore.backend.dto.NotificationFanOutProgressDTO;
+import com.petstore.backend.dto.NotificationOutboxEntry;
+import com.petstore.backend.entity.Promotion;
+
+/**
+ * Outbox de notificaciones sobre notification_logs.
+ *
+ * Activar una promoción inserta, en la misma transacción que cambia su estado y en una sola
+ * sentencia, una fila PENDING por destinatario. Los workers toman lotes con
+ * {@code FOR UPDATE SKIP LOCKED} en una transacción corta que solo adelanta
+ * {@code next_attempt_at} (lease) y suma el intento; el envío ocurre fuera de la transacción y el
+ * resultado se escribe después por lotes. Si un worker cae, sus filas vuelven a
+ * estar disponibles cuando vence el lease, así que una campaña se reanuda donde quedó y varios
+ * nodos pueden despachar la misma cola sin repartirse filas.
+ */
+@Service
+public class NotificationOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationOutboxService.class);
+
+    // Una fila PENDING por usuario con consentimiento, salvo que ya tenga una de la misma promoción
+    // (pendiente, enviada o limitada); solo un fallo definitivo permite volver a encolarla
+    static final String ENQUEUE_SQL =
+        "INSERT INTO notification_logs (user_id, promotion_id, notification_type, status, recipient, subject, " +
+        "attempts, next_attempt_at, created_at) " +
+        "SELECT nc.user_id, CAST(? AS INTEGER), 'EMAIL_PROMOTION', 'PENDING', u.email, CAST(? AS VARCHAR(255)), 0, " +
+        "CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP) " +
+        "FROM notification_consents nc JOIN users u ON u.user_id = nc.user_id " +
+        "WHERE nc.notification_type = 'EMAIL_PROMOTION' AND nc.consent_given = TRUE " +
+        "AND NOT EXISTS (SELECT 1 FROM notification_logs l WHERE l.user_id = nc.user_id " +
+        "AND l.promotion_id = ? AND l.notification_type = 'EMAIL_PROMOTION' AND l.status <> 'FAILED')";
+
+    static final String CLAIM_SQL =
+        "SELECT id, user_id, promotion_id, recipient, attempts FROM notification_logs " +
+        "WHERE status = 'PENDING' AND next_attempt_at <= ? ORDER BY next_attempt_at, id LIMIT ? " +
+        "FOR UPDATE SKIP LOCKED";
+
+    static final String LEASE_SQL =
+        "UPDATE notification_logs SET attempts = attempts + 1, next_attempt_at = ? WHERE id = ?";
+
+    static final String COMPLETE_SQL =
+        "UPDATE notification_logs SET status = ?, subject = COALESCE(?, subject), content = ?, external_id = ?, " +
+        "error_message = ?, sent_at = ?, next_attempt_at = NULL WHERE id = ?";
+
+    static final String RETRY_SQL =
+        "UPDATE notification_logs SET subject = COALESCE(?, subject), error_message = ?, next_attempt_at = ? WHERE id = ?";
+
+    static final String CAMPAIGNS_SQL =
+        "SELECT l.promotion_id, p.promotion_name, COUNT(*) AS total, " +
+        "SUM(CASE WHEN l.status IN ('SENT', 'DELIVERED', 'RATE_LIMITED') THEN 1 ELSE 0 END) AS completed, " +
+        "SUM(CASE WHEN l.status IN ('FAILED', 'BOUNCED') THEN 1 ELSE 0 END) AS failed, " +
+        "SUM(CASE WHEN l.status = 'PENDING' AND l.attempts > 0 THEN 1 ELSE 0 END) AS in_flight, " +
+        "SUM(CASE WHEN l.status = 'PENDING' AND l.attempts = 0 THEN 1 ELSE 0 END) AS pending, " +
+        "MIN(l.created_at) AS started_at, MAX(l.sent_at) AS last_sent_at " +
+        "FROM notification_logs l JOIN promotions p ON p.promotion_id = l.promotion_id " +
+        "WHERE l.created_at IS NOT NULL " +
+        "GROUP BY l.promotion_id, p.promotion_name ORDER BY MIN(l.created_at) DESC LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+
+    public NotificationOutboxService(JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${notification.outbox.max-attempts:5}") int maxAttempts,
+                                     @Value("${notification.outbox.retry-backoff:PT30S}") Duration retryBackoff,
+                                     @Value("${notification.outbox.max-backoff:PT1H}") Duration maxBackoff,
+                                     @Value("${notification.outbox.lease:PT5M}") Duration lease) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.maxBackoff = maxBackoff;
+        this.lease = lease;
+    }
+
+    /**
+     * Encola la promoción para todos los usuarios con consentimiento. Devuelve las filas creadas.
+     */
+    public int enqueue(Promotion promotion, String subject) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int enqueued = jdbcTemplate.update(ENQUEUE_SQL, promotion.getPromotionId(), subject, now, now,
+            promotion.getPromotionId());
+        logger.info("Promoción '{}' encolada para {} destinatarios", promotion.getPromotionName(), enqueued);
+        return enqueued;
+    }
+
+    /**
+     * Toma hasta {@code limit} notificaciones vencidas y las reserva durante el lease.
+     * Las filas que otro worker tiene bloqueadas se saltan.
+     */
+    public List<NotificationOutboxEntry> claim(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp leaseEnd = Timestamp.valueOf(now.plus(lease));
+        return transactionTemplate.execute(status -> {
+            List<NotificationOutboxEntry> claimed = jdbcTemplate.query(CLAIM_SQL,
+                (rs, rowNum) -> new NotificationOutboxEntry(rs.getLong("id"), rs.getInt("user_id"),
+                    rs.getInt("promotion_id"), rs.getString("recipient"), rs.getInt("attempts") + 1),
+                Timestamp.valueOf(now), limit);
+            if (!claimed.isEmpty()) {
+                jdbcTemplate.batchUpdate(LEASE_SQL, claimed, claimed.size(), (ps, entry) -> {
+                    ps.setTimestamp(1, leaseEnd);
+                    ps.setLong(2, entry.id());
+                });
+            }
+            return claimed;
+        });
+    }
+
+    /**
+     * Guarda el resultado de un lote: estados definitivos, o PENDING con backoff exponencial para
+     * los fallos reintentables que no agotaron los intentos.
+     */
+    public void complete(List<NotificationOutboxEntry> entries, List<NotificationDelivery> deliveries) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Outcome> outcomes = new ArrayList<>(deliveries.size());
+        for (int i = 0; i < deliveries.size(); i++) {
+            outcomes.add(new Outcome(entries.get(i), deliveries.get(i)));
+        }
+        List<Outcome> retries = outcomes.stream().filter(this::shouldRetry).toList();
+        List<Outcome> finals = outcomes.stream().filter(outcome -> !shouldRetry(outcome)).toList();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!finals.isEmpty()) {
+                jdbcTemplate.batchUpdate(COMPLETE_SQL, finals, finals.size(), (ps, outcome) -> {
+                    NotificationDelivery delivery = outcome.delivery();
+                    ps.setString(1, delivery.status().name());
+                    ps.setString(2, delivery.subject());
+                    ps.setString(3, delivery.content());
+                    ps.setString(4, delivery.externalId());
+                    ps.setString(5, delivery.error());
+                    ps.setTimestamp(6, Timestamp.valueOf(now));
+                    ps.setLong(7, delivery.id());
+                });
+            }
+            if (!retries.isEmpty()) {
+                jdbcTemplate.batchUpdate(RETRY_SQL, retries, retries.size(), (ps, outcome) -> {
+                    ps.setString(1, outcome.delivery().subject());
+                    ps.setString(2, outcome.delivery().error());
+                    ps.setTimestamp(3, Timestamp.valueOf(now.plus(backoff(outcome.entry().attempts()))));
+                    ps.setLong(4, outcome.delivery().id());
+                });
+            }
+        });
+    }
+
+    /**
+     * Avance de las campañas encoladas más recientes (la más nueva primero), calculado desde la BD
+     */
+    public List<NotificationFanOutProgressDTO> recentCampaigns(int limit) {
+        return jdbcTemplate.query(CAMPAIGNS_SQL, (rs, rowNum) -> {
+            int inFlight = rs.getInt("in_flight");
+            int pending = rs.getInt("pending");
+            Timestamp startedAt = rs.getTimestamp("started_at");
+            Timestamp lastSentAt = rs.getTimestamp("last_sent_at");
+            return new NotificationFanOutProgressDTO(rs.getInt("promotion_id"), rs.getString("promotion_name"),
+                rs.getInt("total"), rs.getInt("completed"), rs.getInt("failed"), inFlight, pending,
+                startedAt != null ? startedAt.toLocalDateTime() : null,
+                inFlight + pending == 0 && lastSentAt != null ? lastSentAt.toLocalDateTime() : null);
+        }, limit);
+    }
+
+    /**
+     * Espera antes del próximo intento: retry-backoff × 2^(intento - 1), hasta max-backoff
+     */
+    Duration backoff(int attempt) {
+        Duration delay = retryBackoff.multipliedBy(1L << Math.min(Math.max(attempt - 1, 0), 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private boolean shouldRetry(Outcome outcome) {
+        return outcome.delivery().retryable() && outcome.entry().attempts() < maxAttempts;
+    }
+
+    private record Outcome(NotificationOutboxEntry entry, NotificationDelivery delivery) {
+    }
+}
@@ -1,18 +1,34 @@
 package com.petstore.backend.service;
 
+import com.petstore.backend.cache.NotificationConsentIndex;
+import com.petstore.backend.cache.NotificationRateLimiter;
+import com.petstore.backend.cache.PromotionCache;
+import com.petstore.backend.dto.EmailMessage;
+import com.petstore.backend.dto.EmailSendResult;
+import com.petstore.backend.dto.NotificationDelivery;
+import com.petstore.backend.dto.NotificationOutboxEntry;
+import com.petstore.backend.dto.NotificationRecipient;
 import com.petstore.backend.entity.*;
+import com.petstore.backend.event.NotificationConsentChangedEvent;
 import com.petstore.backend.repository.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -24,10 +40,7 @@ public class NotificationService {
     private NotificationConsentRepository consentRepository;
     
     @Autowired
-    private NotificationLogRepository logRepository;
-    
-    @Autowired
-    private NotificationRateLimitRepository rateLimitRepository;
+    private NotificationRateLimiter rateLimiter;
     
     @Autowired
     private UserRepository userRepository;
@@ -35,117 +48,121 @@ public class NotificationService {
     @Autowired
     private EmailService emailService;
     
-    // Configuración desde application.properties
-    @Value("${notification.rate-limit.email.max-per-hour:10}")
-    private int emailRateLimitPerHour;
+    @Autowired
+    private NotificationOutboxService outboxService;
+    
+    @Autowired
+    private PromotionCache promotionCache;
+    
+    @Autowired
+    private NotificationConsentIndex consentIndex;
     
-    @Value("${notification.rate-limit.window-hours:1}")
-    private int rateLimitWindowHours;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     
+    // Configuración desde application.properties
     @Value("${app.frontend.url:https://fluffy-deals-hub.vercel.app}")
     private String frontendUrl;
     
     /**
-     * Envía notificación de nueva promoción a todos los usuarios con consentimiento
+     * Encola la promoción en el outbox para todos los usuarios con consentimiento. El encolado lee
+     * los consentimientos de la BD, no del índice en memoria, que puede ir atrasado en este nodo.
+     * El envío lo hacen después los workers de {@link NotificationFanOutService}.
      */
-    public void sendPromotionNotification(Promotion promotion) {
-        logger.info("Enviando notificaciones de promoción: {}", promotion.getPromotionName());
-        
-        // Obtener usuarios con consentimiento para notificaciones de promociones por email
-        List<User> emailUsers = consentRepository.findUsersWithActiveConsent(
-                NotificationConsent.NotificationType.EMAIL_PROMOTION);
-        
-        // Enviar notificaciones por email
-        for (User user : emailUsers) {
-            if (checkRateLimit(user.getUserId(), NotificationConsent.NotificationType.EMAIL_PROMOTION)) {
-                sendPromotionEmail(user, promotion);
-                updateRateLimit(user.getUserId(), NotificationConsent.NotificationType.EMAIL_PROMOTION);
-            } else {
-                logRateLimitedNotification(user, promotion, NotificationConsent.NotificationType.EMAIL_PROMOTION);
-            }
-        }
-        
-        logger.info("Notificaciones enviadas por email: {}", emailUsers.size());
+    public int sendPromotionNotification(Promotion promotion) {
+        logger.info("Encolando notificaciones de promoción '{}'", promotion.getPromotionName());
+        return outboxService.enqueue(promotion, buildPromotionSubject(promotion));
     }
     
     /**
-     * Envía notificación de promoción a un usuario específico
-     * Método optimizado para eventos automáticos
+     * Entrega un lote de notificaciones tomadas del outbox con un solo envío por lotes al proveedor.
+     * Corre sin transacción para no retener conexiones durante la llamada HTTP. El consentimiento
+     * de todo el lote se confirma con una consulta, porque el índice de este nodo no ve al instante
+     * los cambios hechos en otro; las diferencias encontradas se aplican también al índice. Solo se
+     * consultan nombre y email de los usuarios del lote, y el rate limit solo se consume en el
+     * primer intento (un reintento no es un envío nuevo). Devuelve un resultado por entrada, en orden.
      */
-    @Transactional
-    public void sendPromotionNotificationToUser(Promotion promotion, User user) {
-        logger.info("Enviando notificación de promoción '{}' a usuario: {}", 
-                   promotion.getPromotionName(), user.getEmail());
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<NotificationDelivery> deliver(List<NotificationOutboxEntry> entries) {
+        NotificationConsent.NotificationType type = NotificationConsent.NotificationType.EMAIL_PROMOTION;
+        Set<Integer> userIds = new HashSet<>();
+        Map<Integer, Optional<Promotion>> promotions = new HashMap<>();
+        for (NotificationOutboxEntry entry : entries) {
+            userIds.add(entry.userId());
+            promotions.computeIfAbsent(entry.promotionId(), promotionCache::get);
+        }
+        Map<Integer, NotificationRecipient> users = new HashMap<>();
+        userRepository.findRecipientsByIds(userIds).forEach(user -> users.put(user.userId(), user));
+        Set<Integer> consenting = confirmConsent(userIds, type);
         
-        try {
-            // Verificar que el usuario tenga consentimiento activo
-            if (!hasActiveConsent(user.getUserId(), NotificationConsent.NotificationType.EMAIL_PROMOTION)) {
-                logger.warn("Usuario {} no tiene consentimiento activo para EMAIL_PROMOTION", user.getEmail());
-                return;
+        NotificationDelivery[] deliveries = new NotificationDelivery[entries.size()];
+        List<Integer> pending = new ArrayList<>(entries.size());
+        List<EmailMessage> messages = new ArrayList<>(entries.size());
+        
+        for (int i = 0; i < entries.size(); i++) {
+            NotificationOutboxEntry entry = entries.get(i);
+            Promotion promotion = promotions.get(entry.promotionId()).orElse(null);
+            NotificationRecipient user = users.get(entry.userId());
+            if (promotion == null || user == null) {
+                deliveries[i] = NotificationDelivery.rejected(entry.id(), NotificationLog.NotificationStatus.FAILED,
+                        promotion == null ? "Promoción no encontrada" : "Usuario no encontrado");
+            } else if (!consenting.contains(entry.userId())) {
+                deliveries[i] = NotificationDelivery.rejected(entry.id(), NotificationLog.NotificationStatus.FAILED,
+                        "Sin consentimiento activo");
+            } else if (entry.isFirstAttempt() && !rateLimiter.tryAcquire(entry.userId(), type)) {
+                deliveries[i] = NotificationDelivery.rejected(entry.id(), NotificationLog.NotificationStatus.RATE_LIMITED,
+                        "Rate limit exceeded");
+            } else {
+                pending.add(i);
+                messages.add(new EmailMessage(entry.recipient(), buildPromotionSubject(promotion),
+                        buildPromotionEmailContent(user.userName(), promotion)));
             }
-            
-            // Verificar rate limit
-            if (!checkRateLimit(user.getUserId(), NotificationConsent.NotificationType.EMAIL_PROMOTION)) {
-                logRateLimitedNotification(user, promotion, NotificationConsent.NotificationType.EMAIL_PROMOTION);
-                return;
+        }
+        
+        int sent = 0;
+        List<EmailSendResult> results = messages.isEmpty() ? List.of() : emailService.sendBatch(messages);
+        for (int j = 0; j < results.size(); j++) {
+            int i = pending.get(j);
+            EmailSendResult result = results.get(j);
+            EmailMessage message = messages.get(j);
+            if (result.sent()) {
+                deliveries[i] = NotificationDelivery.sent(entries.get(i).id(), message.subject(),
+                        message.htmlContent(), result.providerId());
+                sent++;
+            } else {
+                // Los rechazos definitivos del proveedor (4xx) no vuelven a la cola
+                deliveries[i] = new NotificationDelivery(entries.get(i).id(), NotificationLog.NotificationStatus.FAILED,
+                        message.subject(), message.htmlContent(), null, result.error(), result.retryable());
             }
-            
-            // Enviar email
-            sendPromotionEmail(user, promotion);
-            updateRateLimit(user.getUserId(), NotificationConsent.NotificationType.EMAIL_PROMOTION);
-            
-            logger.info("✅ Notificación enviada exitosamente a: {}", user.getEmail());
-            
-        } catch (Exception e) {
-            logger.error("❌ Error enviando notificación a {}: {}", user.getEmail(), e.getMessage());
         }
+        
+        logger.info("Lote de {} notificaciones del outbox entregado: {} enviadas, {} fallidas, {} descartadas",
+                   entries.size(), sent, results.size() - sent, entries.size() - results.size());
+        return List.of(deliveries);
     }
     
     /**
-     * Envía email de promoción a un usuario específico
+     * Usuarios del lote con consentimiento activo según la BD. El índice en memoria se corrige con
+     * los consentimientos dados o revocados en otros nodos desde su última recarga.
      */
-    private void sendPromotionEmail(User user, Promotion promotion) {
-        try {
-            String subject = "🎉 Nueva Promoción Disponible: " + promotion.getPromotionName();
-            String content = buildPromotionEmailContent(user, promotion);
-            
-            NotificationLog log = new NotificationLog();
-            log.setUser(user);
-            log.setPromotion(promotion);
-            log.setNotificationType(NotificationConsent.NotificationType.EMAIL_PROMOTION);
-            log.setRecipient(user.getEmail());
-            log.setSubject(subject);
-            log.setContent(content);
-            log.setSentAt(LocalDateTime.now());
-            log.setStatus(NotificationLog.NotificationStatus.PENDING);
-            
-            // Intentar enviar email usando Resend
-            boolean sent = emailService.sendEmail(user.getEmail(), subject, content);
-            
-            if (sent) {
-                log.setStatus(NotificationLog.NotificationStatus.SENT);
-                logger.info("Email enviado exitosamente a: {}", user.getEmail());
-            } else {
-                log.setStatus(NotificationLog.NotificationStatus.FAILED);
-                log.setErrorMessage("Error al enviar email");
-                logger.error("Error enviando email a: {}", user.getEmail());
+    private Set<Integer> confirmConsent(Set<Integer> userIds, NotificationConsent.NotificationType type) {
+        if (userIds.isEmpty()) {
+            return Set.of();
+        }
+        Set<Integer> consenting = new HashSet<>(consentRepository.findConsentingUserIdsIn(type, userIds));
+        for (Integer userId : userIds) {
+            boolean consentGiven = consenting.contains(userId);
+            if (consentIndex.hasConsent(userId, type) != consentGiven) {
+                logger.info("Consentimiento de {} cambiado en otro nodo ({}), se actualiza el índice",
+                           userId, consentGiven ? "dado" : "revocado");
+                consentIndex.update(userId, type, consentGiven);
             }
-            
-            logRepository.save(log);
-            
-        } catch (Exception e) {
-            logger.error("Error enviando email promocional a {}: {}", user.getEmail(), e.getMessage());
-            
-            NotificationLog log = new NotificationLog();
-            log.setUser(user);
-            log.setPromotion(promotion);
-            log.setNotificationType(NotificationConsent.NotificationType.EMAIL_PROMOTION);
-            log.setRecipient(user.getEmail());
-            log.setStatus(NotificationLog.NotificationStatus.FAILED);
-            log.setErrorMessage(e.getMessage());
-            log.setSentAt(LocalDateTime.now());
-            logRepository.save(log);
         }
+        return consenting;
+    }
+    
+    private String buildPromotionSubject(Promotion promotion) {
+        return "🎉 Nueva Promoción Disponible: " + promotion.getPromotionName();
     }
     
     /**
@@ -166,7 +183,7 @@ public class NotificationService {
     /**
      * Construye el contenido HTML del email promocional
      */
-    private String buildPromotionEmailContent(User user, Promotion promotion) {
+    private String buildPromotionEmailContent(String userName, Promotion promotion) {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
         
         return String.format("""
@@ -230,7 +247,7 @@ public class NotificationService {
             </body>
             </html>
             """,
-            user.getUserName(),
+            userName,
             promotion.getPromotionName(),
             formatDiscountValue(promotion.getDiscountValue()),
             promotion.getStartDate().format(formatter),
@@ -239,80 +256,6 @@ public class NotificationService {
         );
     }
     
-    /**
-     * Verifica si el usuario ha alcanzado el límite de notificaciones
-     */
-    private boolean checkRateLimit(Integer userId, NotificationConsent.NotificationType type) {
-        LocalDateTime windowStart = LocalDateTime.now().minusHours(rateLimitWindowHours);
-        
-        Long count = logRepository.countNotificationsSentSince(Long.valueOf(userId), type, windowStart);
-        int maxAllowed = getMaxNotificationsPerWindow(type);
-        
-        return count < maxAllowed;
-    }
-    
-    private int getMaxNotificationsPerWindow(NotificationConsent.NotificationType type) {
-        return switch (type) {
-            case EMAIL_PROMOTION, EMAIL_GENERAL -> emailRateLimitPerHour;
-        };
-    }
-    
-    /**
-     * Actualiza el contador de rate limiting
-     */
-    private void updateRateLimit(Integer userId, NotificationConsent.NotificationType type) {
-        Optional<NotificationRateLimit> existing = rateLimitRepository
-                .findByUserIdAndNotificationType(Long.valueOf(userId), type);
-        
-        NotificationRateLimit rateLimit;
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime windowStart = now.minusHours(rateLimitWindowHours);
-        
-        if (existing.isPresent()) {
-            rateLimit = existing.get();
-            
-            // Si la ventana de tiempo ha expirado, reiniciar contador
-            if (rateLimit.getTimeWindowStart().isBefore(windowStart)) {
-                rateLimit.setTimeWindowStart(now);
-                rateLimit.setNotificationCount(1);
-                rateLimit.setLastReset(now);
-            } else {
-                rateLimit.setNotificationCount(rateLimit.getNotificationCount() + 1);
-            }
-        } else {
-            // Crear nuevo registro de rate limit
-            User user = userRepository.findById(userId).orElse(null);
-            rateLimit = new NotificationRateLimit();
-            rateLimit.setUser(user);
-            rateLimit.setNotificationType(type);
-            rateLimit.setNotificationCount(1);
-            rateLimit.setTimeWindowStart(now);
-            rateLimit.setLastReset(now);
-        }
-        
-        rateLimitRepository.save(rateLimit);
-    }
-    
-    /**
-     * Registra notificación bloqueada por rate limiting
-     */
-    private void logRateLimitedNotification(User user, Promotion promotion, 
-                                          NotificationConsent.NotificationType type) {
-        NotificationLog log = new NotificationLog();
-        log.setUser(user);
-        log.setPromotion(promotion);
-        log.setNotificationType(type);
-        log.setRecipient(user.getEmail());
-        log.setStatus(NotificationLog.NotificationStatus.RATE_LIMITED);
-        log.setErrorMessage("Rate limit exceeded");
-        log.setSentAt(LocalDateTime.now());
-        
-        logRepository.save(log);
-        
-        logger.warn("Notificación bloqueada por rate limit para usuario: {} - tipo: {}", 
-                   user.getUserId(), type);
-    }
-    
     /**
      * Gestiona el consentimiento de notificaciones
      */
@@ -339,16 +282,17 @@ public class NotificationService {
         notificationConsent.setUserAgent(userAgent);
         
         consentRepository.save(notificationConsent);
+        eventPublisher.publishEvent(new NotificationConsentChangedEvent(this, userId, type, consent));
         
         logger.info("Consentimiento actualizado - Usuario: {}, Tipo: {}, Consentimiento: {}", 
                    userId, type, consent);
     }
     
     /**
-     * Verifica si el usuario tiene consentimiento activo
+     * Verifica si el usuario tiene consentimiento activo (índice en memoria, sin consulta)
      */
     public boolean hasActiveConsent(Integer userId, NotificationConsent.NotificationType type) {
-        return consentRepository.hasActiveConsent(Long.valueOf(userId), type);
+        return consentIndex.hasConsent(userId, type);
     }
     
     /**
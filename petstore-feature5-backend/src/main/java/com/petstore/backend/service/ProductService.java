@@ -4,20 +4,30 @@ package com.petstore.backend.service;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.petstore.backend.cache.CatalogVersion;
+import com.petstore.backend.dto.CursorPage;
 import com.petstore.backend.entity.Product;
 import com.petstore.backend.repository.ProductRepository;
+import com.petstore.backend.util.KeysetCursor;
 
 @Service
 @Transactional
 public class ProductService {
 
+    public static final String SORT_BY_ID = "id"; // Orden de paginación por ID
+    public static final String SORT_BY_BASE_PRICE = "basePrice"; // Orden de paginación por precio base
+
     private final ProductRepository productRepository; // Inyección de dependencia del repositorio de productos
+    private final CatalogVersion catalogVersion; // Versión del catálogo para los ETag
 
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, CatalogVersion catalogVersion) {
         this.productRepository = productRepository;
+        this.catalogVersion = catalogVersion;
     }
 
     /**
@@ -27,6 +37,47 @@ public class ProductService {
         return productRepository.findAll();
     }
 
+    /**
+     * Obtiene una página de productos usando paginación keyset (sin OFFSET)
+     *
+     * @param after cursor devuelto por la página anterior (null para la primera)
+     * @param size tamaño de página (se limita a CursorPage.MAX_SIZE)
+     * @param sortBy "id" (por defecto) o "basePrice"
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Product> findPage(String after, Integer size, String sortBy) {
+        int pageSize = CursorPage.normalizeSize(size);
+        Pageable limit = PageRequest.ofSize(pageSize + 1); // Una fila extra para saber si hay más
+        String sort = sortBy != null ? sortBy : SORT_BY_ID;
+
+        List<Product> rows;
+        if (SORT_BY_ID.equals(sort)) {
+            Integer afterId = after != null ? KeysetCursor.decode(after, sort).id() : 0;
+            rows = productRepository.findPageAfterId(afterId, limit);
+            return CursorPage.of(rows, pageSize, after != null,
+                    product -> new KeysetCursor(sort, null, product.getProductId()).encode());
+        }
+        if (SORT_BY_BASE_PRICE.equals(sort)) {
+            if (after == null) {
+                rows = productRepository.findFirstPageByBasePrice(limit);
+            } else {
+                KeysetCursor cursor = KeysetCursor.decode(after, sort);
+                rows = productRepository.findPageAfterBasePrice(parsePrice(cursor.key()), cursor.id(), limit);
+            }
+            return CursorPage.of(rows, pageSize, after != null,
+                    product -> new KeysetCursor(sort, String.valueOf(product.getBasePrice()), product.getProductId()).encode());
+        }
+        throw new IllegalArgumentException("Orden de paginación no soportado: " + sortBy);
+    }
+
+    private static Double parsePrice(String value) {
+        try {
+            return Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+
     /**
      * Encuentra productos por ID de categoría
      */
@@ -45,7 +96,9 @@ public class ProductService {
      * Guarda un producto (crear o actualizar)
      */
     public Product save(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        catalogVersion.bump();
+        return saved;
     }
 
     /**
@@ -53,6 +106,7 @@ public class ProductService {
      */
     public void deleteById(Integer id) {
         productRepository.deleteById(id);
+        catalogVersion.bump();
     }
 
     /**
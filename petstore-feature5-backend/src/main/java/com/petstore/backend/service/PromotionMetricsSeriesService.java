@@ -0,0 +1,244 @@
+package com.petstore.backend.service;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.petstore.backend.dto.MetricsPointDTO;
+import com.petstore.backend.dto.MetricsSeriesDTO;
+import com.petstore.backend.entity.PromotionMetricsBucket;
+import com.petstore.backend.entity.PromotionMetricsBucket.Resolution;
+import com.petstore.backend.entity.PromotionMetricsSnapshot;
+import com.petstore.backend.repository.PromotionMetricsBucketRepository;
+import com.petstore.backend.repository.PromotionMetricsSnapshotRepository;
+
+/**
+ * Serie temporal de métricas de promociones.
+ *
+ * Cada escritura de métricas agrega un punto crudo con los totales del rollup. El job de
+ * downsampling resume los puntos en buckets horarios y los horarios en diarios (valores de
+ * cierre del periodo); los puntos crudos y los buckets horarios se purgan por retención, así
+ * que el almacenamiento queda acotado. Las consultas por rango leen la resolución más fina
+ * que cubre el rango sin devolver demasiados puntos.
+ */
+@Service
+@Transactional(readOnly = true)
+public class PromotionMetricsSeriesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PromotionMetricsSeriesService.class);
+
+    static final String RAW = "RAW";
+    // Rangos máximos por resolución (~50 puntos horarios o ~60 diarios como mínimo por gráfico)
+    static final Duration RAW_MAX_SPAN = Duration.ofDays(2);
+    static final Duration HOURLY_MAX_SPAN = Duration.ofDays(60);
+
+    private final PromotionMetricsSnapshotRepository snapshotRepository;
+    private final PromotionMetricsBucketRepository bucketRepository;
+    private final Duration rawRetention;
+    private final Duration hourlyRetention;
+    private final Clock clock;
+
+    @Autowired
+    public PromotionMetricsSeriesService(PromotionMetricsSnapshotRepository snapshotRepository,
+                                         PromotionMetricsBucketRepository bucketRepository,
+                                         @Value("${app.metrics.series.raw-retention:P7D}") Duration rawRetention,
+                                         @Value("${app.metrics.series.hourly-retention:P90D}") Duration hourlyRetention) {
+        this(snapshotRepository, bucketRepository, rawRetention, hourlyRetention, Clock.systemDefaultZone());
+    }
+
+    PromotionMetricsSeriesService(PromotionMetricsSnapshotRepository snapshotRepository,
+                                  PromotionMetricsBucketRepository bucketRepository,
+                                  Duration rawRetention,
+                                  Duration hourlyRetention,
+                                  Clock clock) {
+        this.snapshotRepository = snapshotRepository;
+        this.bucketRepository = bucketRepository;
+        this.rawRetention = rawRetention;
+        this.hourlyRetention = hourlyRetention;
+        this.clock = clock;
+    }
+
+    /**
+     * Agrega un punto crudo con los totales actuales del rollup de la promoción
+     * (se ejecuta en la transacción que escribió las métricas)
+     */
+    @Transactional
+    public void record(Integer promotionId) {
+        snapshotRepository.appendFromRollup(promotionId, LocalDateTime.now(clock));
+    }
+
+    /**
+     * Serie de una promoción en [from, to]. Rangos cortos y recientes se leen crudos, los
+     * medianos por hora y los largos por día. En resoluciones agregadas se agrega al final el
+     * último punto crudo del periodo todavía abierto (aún sin bucket).
+     */
+    public MetricsSeriesDTO getSeries(Integer promotionId, LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("El rango es inválido: 'from' debe ser anterior a 'to'");
+        }
+
+        String resolution = resolutionFor(from, to);
+        List<MetricsPointDTO> points = new ArrayList<>();
+        if (RAW.equals(resolution)) {
+            for (PromotionMetricsSnapshot snapshot : snapshotRepository.findSeries(promotionId, from, to)) {
+                points.add(toPoint(snapshot));
+            }
+        } else {
+            Resolution bucketResolution = Resolution.valueOf(resolution);
+            LocalDateTime firstBucket = truncate(from, bucketResolution);
+            for (PromotionMetricsBucket bucket : bucketRepository.findSeries(promotionId, bucketResolution, firstBucket, to)) {
+                points.add(toPoint(bucket));
+            }
+
+            LocalDateTime covered = points.isEmpty()
+                ? firstBucket
+                : next(points.get(points.size() - 1).timestamp(), bucketResolution);
+            snapshotRepository.findFirstByPromotionIdAndRecordedAtLessThanEqualOrderByRecordedAtDescIdDesc(promotionId, to)
+                .filter(latest -> !latest.getRecordedAt().isBefore(covered))
+                .ifPresent(latest -> points.add(toPoint(latest)));
+        }
+
+        return new MetricsSeriesDTO(promotionId, resolution, from, to, points);
+    }
+
+    /**
+     * Resolución para un rango: la más fina cuyo rango máximo y retención lo cubren
+     */
+    String resolutionFor(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        Duration span = Duration.between(from, to);
+        if (span.compareTo(RAW_MAX_SPAN) <= 0 && !from.isBefore(now.minus(rawRetention))) {
+            return RAW;
+        }
+        if (span.compareTo(HOURLY_MAX_SPAN) <= 0 && !from.isBefore(now.minus(hourlyRetention))) {
+            return Resolution.HOURLY.name();
+        }
+        return Resolution.DAILY.name();
+    }
+
+    /**
+     * Resume los periodos cerrados desde la última ejecución: puntos crudos en buckets horarios
+     * y buckets horarios en diarios. Devuelve el número de buckets creados.
+     */
+    @Transactional
+    public int downsample() {
+        LocalDateTime now = LocalDateTime.now(clock);
+
+        LocalDateTime currentHour = truncate(now, Resolution.HOURLY);
+        Optional<LocalDateTime> hourlyFrom = bucketRepository.findLatestBucketStart(Resolution.HOURLY)
+            .map(latest -> next(latest, Resolution.HOURLY))
+            .or(() -> snapshotRepository.findEarliestRecordedAt().map(earliest -> truncate(earliest, Resolution.HOURLY)));
+        int hourly = 0;
+        if (hourlyFrom.isPresent() && hourlyFrom.get().isBefore(currentHour)) {
+            List<PromotionMetricsBucket> buckets = new ArrayList<>();
+            for (PromotionMetricsSnapshot snapshot : snapshotRepository.findForDownsampling(hourlyFrom.get(), currentHour)) {
+                accumulate(buckets, Resolution.HOURLY, snapshot.getPromotionId(), snapshot.getRecordedAt(),
+                    snapshot.getTotalUnitsSold(), snapshot.getTotalRevenue(), snapshot.getTotalInitialInventory(),
+                    snapshot.getTotalCurrentInventory(), 1);
+            }
+            bucketRepository.saveAll(buckets);
+            hourly = buckets.size();
+        }
+
+        LocalDateTime today = truncate(now, Resolution.DAILY);
+        Optional<LocalDateTime> dailyFrom = bucketRepository.findLatestBucketStart(Resolution.DAILY)
+            .map(latest -> next(latest, Resolution.DAILY))
+            .or(() -> bucketRepository.findEarliestBucketStart(Resolution.HOURLY).map(earliest -> truncate(earliest, Resolution.DAILY)));
+        int daily = 0;
+        if (dailyFrom.isPresent() && dailyFrom.get().isBefore(today)) {
+            List<PromotionMetricsBucket> buckets = new ArrayList<>();
+            for (PromotionMetricsBucket hour : bucketRepository.findForDownsampling(Resolution.HOURLY, dailyFrom.get(), today)) {
+                accumulate(buckets, Resolution.DAILY, hour.getPromotionId(), hour.getBucketStart(),
+                    hour.getTotalUnitsSold(), hour.getTotalRevenue(), hour.getTotalInitialInventory(),
+                    hour.getTotalCurrentInventory(), hour.getSamples());
+            }
+            bucketRepository.saveAll(buckets);
+            daily = buckets.size();
+        }
+
+        if (hourly + daily > 0) {
+            logger.info("Serie de métricas resumida: {} buckets horarios, {} diarios", hourly, daily);
+        }
+        return hourly + daily;
+    }
+
+    /**
+     * Elimina los puntos crudos y buckets horarios fuera de su retención (los diarios se conservan).
+     * Debe ejecutarse después de {@link #downsample()} para no perder periodos sin resumir.
+     */
+    @Transactional
+    public int purgeExpired() {
+        LocalDateTime now = LocalDateTime.now(clock);
+        int raw = snapshotRepository.deleteRecordedBefore(now.minus(rawRetention));
+        int hourly = bucketRepository.deleteStartedBefore(Resolution.HOURLY, now.minus(hourlyRetention));
+        if (raw + hourly > 0) {
+            logger.info("Retención de la serie de métricas: {} puntos crudos y {} buckets horarios eliminados", raw, hourly);
+        }
+        return raw + hourly;
+    }
+
+    /**
+     * Elimina toda la serie de una promoción
+     */
+    @Transactional
+    public void deleteSeries(Integer promotionId) {
+        snapshotRepository.deleteByPromotionId(promotionId);
+        bucketRepository.deleteByPromotionId(promotionId);
+    }
+
+    // Métodos privados de utilidad
+
+    /**
+     * Agrega un punto ordenado por promoción y tiempo al bucket de su periodo (el último punto
+     * del periodo queda como valor de cierre)
+     */
+    private static void accumulate(List<PromotionMetricsBucket> buckets, Resolution resolution, Integer promotionId,
+                                   LocalDateTime time, Integer unitsSold, BigDecimal revenue, Integer initialInventory,
+                                   Integer currentInventory, Integer samples) {
+        LocalDateTime start = truncate(time, resolution);
+        PromotionMetricsBucket bucket = buckets.isEmpty() ? null : buckets.get(buckets.size() - 1);
+        if (bucket == null || !bucket.getPromotionId().equals(promotionId) || !bucket.getBucketStart().equals(start)) {
+            bucket = new PromotionMetricsBucket();
+            bucket.setPromotionId(promotionId);
+            bucket.setResolution(resolution);
+            bucket.setBucketStart(start);
+            bucket.setSamples(0);
+            buckets.add(bucket);
+        }
+        bucket.setTotalUnitsSold(unitsSold);
+        bucket.setTotalRevenue(revenue);
+        bucket.setTotalInitialInventory(initialInventory);
+        bucket.setTotalCurrentInventory(currentInventory);
+        bucket.setSamples(bucket.getSamples() + samples);
+    }
+
+    private static LocalDateTime truncate(LocalDateTime time, Resolution resolution) {
+        return time.truncatedTo(resolution == Resolution.HOURLY ? ChronoUnit.HOURS : ChronoUnit.DAYS);
+    }
+
+    private static LocalDateTime next(LocalDateTime bucketStart, Resolution resolution) {
+        return resolution == Resolution.HOURLY ? bucketStart.plusHours(1) : bucketStart.plusDays(1);
+    }
+
+    private static MetricsPointDTO toPoint(PromotionMetricsSnapshot snapshot) {
+        return MetricsPointDTO.of(snapshot.getRecordedAt(), snapshot.getTotalUnitsSold(), snapshot.getTotalRevenue(),
+            snapshot.getTotalInitialInventory(), snapshot.getTotalCurrentInventory(), 1);
+    }
+
+    private static MetricsPointDTO toPoint(PromotionMetricsBucket bucket) {
+        return MetricsPointDTO.of(bucket.getBucketStart(), bucket.getTotalUnitsSold(), bucket.getTotalRevenue(),
+            bucket.getTotalInitialInventory(), bucket.getTotalCurrentInventory(), bucket.getSamples());
+    }
+}
@@ -6,62 +6,84 @@ import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import com.petstore.backend.cache.PromotionCache;
 import com.petstore.backend.dto.CategoryDTO;
+import com.petstore.backend.dto.LatestProductMetrics;
+import com.petstore.backend.dto.MetricsSeriesDTO;
 import com.petstore.backend.dto.ProductMetricsDTO;
 import com.petstore.backend.dto.PromotionPerformanceDTO;
 import com.petstore.backend.entity.Product;
 import com.petstore.backend.entity.Promotion;
 import com.petstore.backend.entity.PromotionMetrics;
+import com.petstore.backend.entity.PromotionPerformanceRollup;
+import com.petstore.backend.event.PromotionChangedEvent;
+import com.petstore.backend.event.PromotionMetricsChangedEvent;
 import com.petstore.backend.repository.ProductRepository;
 import com.petstore.backend.repository.PromotionMetricsRepository;
+import com.petstore.backend.repository.PromotionPerformanceRollupRepository;
 import com.petstore.backend.repository.PromotionRepository;
+import com.petstore.backend.util.Money;
 
 @Service
 @Transactional(readOnly = true)
 public class PromotionMetricsService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PromotionMetricsService.class);
+
     private final PromotionMetricsRepository promotionMetricsRepository;
     private final PromotionRepository promotionRepository;
     private final ProductRepository productRepository;
+    private final PromotionCache promotionCache;
+    private final PromotionPerformanceRollupRepository rollupRepository;
+    private final PromotionMetricsSeriesService seriesService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public PromotionMetricsService(PromotionMetricsRepository promotionMetricsRepository,
                                  PromotionRepository promotionRepository,
-                                 ProductRepository productRepository) {
+                                 ProductRepository productRepository,
+                                 PromotionCache promotionCache,
+                                 PromotionPerformanceRollupRepository rollupRepository,
+                                 PromotionMetricsSeriesService seriesService,
+                                 ApplicationEventPublisher eventPublisher) {
         this.promotionMetricsRepository = promotionMetricsRepository;
         this.promotionRepository = promotionRepository;
         this.productRepository = productRepository;
+        this.promotionCache = promotionCache;
+        this.rollupRepository = rollupRepository;
+        this.seriesService = seriesService;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
-     * Obtiene métricas de rendimiento completas de una promoción
+     * Obtiene métricas de rendimiento completas de una promoción.
+     * La promoción sale de la caché y los totales del rollup por clave primaria; el detalle por
+     * producto no se incluye (productMetrics queda en null) y se pide aparte con
+     * {@link #getProductMetricsByPromotionId(Integer)} solo cuando se necesita.
      */
     public Optional<PromotionPerformanceDTO> getPromotionPerformance(Integer promotionId) {
-        Optional<Promotion> promotionOpt = promotionRepository.findById(promotionId);
+        Optional<Promotion> promotionOpt = promotionCache.get(promotionId);
         if (promotionOpt.isEmpty()) {
             return Optional.empty();
         }
 
         Promotion promotion = promotionOpt.get();
-        
-        // Verificar si existen métricas para esta promoción
-        if (!promotionMetricsRepository.existsByPromotionPromotionId(promotionId)) {
+        Optional<PromotionPerformanceRollup> rollupOpt = rollupRepository.findById(promotionId);
+        if (rollupOpt.isEmpty() || valueOrZero(rollupOpt.get().getTotalProducts()) == 0) {
             // Si no hay métricas, crear un DTO vacío con información básica
             return Optional.of(createEmptyPerformanceDTO(promotion));
         }
 
-        // Obtener métricas agregadas
-        Integer totalUnitsSold = promotionMetricsRepository.getTotalUnitsSoldByPromotionId(promotionId);
-        Double totalRevenue = promotionMetricsRepository.getTotalRevenueByPromotionId(promotionId);
-        Integer totalInitialInventory = promotionMetricsRepository.getTotalInitialInventoryByPromotionId(promotionId);
-        Integer totalCurrentInventory = promotionMetricsRepository.getTotalCurrentInventoryByPromotionId(promotionId);
-        Integer totalProducts = promotionMetricsRepository.getUniqueProductCountByPromotionId(promotionId);
-        LocalDateTime lastUpdated = promotionMetricsRepository.getLastUpdatedByPromotionId(promotionId);
-
-        // Obtener métricas detalladas por producto
-        List<ProductMetricsDTO> productMetrics = getProductMetricsByPromotionId(promotionId);
+        PromotionPerformanceRollup rollup = rollupOpt.get();
 
         // Determinar si la promoción está activa
         LocalDateTime now = LocalDateTime.now();
@@ -76,29 +98,58 @@ public class PromotionMetricsService {
             promotion.getStartDate().atStartOfDay(),
             promotion.getEndDate().atTime(23, 59, 59),
             isActive,
-            totalProducts,
-            totalUnitsSold != null ? totalUnitsSold : 0,
-            totalRevenue != null ? BigDecimal.valueOf(totalRevenue) : BigDecimal.ZERO,
-            totalInitialInventory != null ? totalInitialInventory : 0,
-            totalCurrentInventory != null ? totalCurrentInventory : 0,
-            lastUpdated,
-            productMetrics
+            rollup.getTotalProducts(),
+            rollup.getTotalUnitsSold(),
+            rollup.getTotalRevenue(),
+            rollup.getTotalInitialInventory(),
+            rollup.getTotalCurrentInventory(),
+            rollup.getLastUpdated(),
+            null
         );
+        performanceDTO.setAverageSkuVariationPercentage(rollup.getAverageSkuVariationPercentage());
 
         return Optional.of(performanceDTO);
     }
 
     /**
-     * Obtiene métricas detalladas por producto para una promoción
+     * Obtiene métricas detalladas por producto para una promoción (último snapshot de cada producto)
      */
     public List<ProductMetricsDTO> getProductMetricsByPromotionId(Integer promotionId) {
-        List<PromotionMetrics> latestMetrics = promotionMetricsRepository.findLatestMetricsByPromotionId(promotionId);
-        
-        return latestMetrics.stream()
+        return promotionMetricsRepository.findLatestSnapshotsByPromotionId(promotionId).stream()
                 .map(this::convertToProductMetricsDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Serie temporal de métricas de una promoción en [from, to] (vacío si la promoción no existe)
+     */
+    public Optional<MetricsSeriesDTO> getMetricsSeries(Integer promotionId, LocalDateTime from, LocalDateTime to) {
+        if (promotionCache.get(promotionId).isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(seriesService.getSeries(promotionId, from, to));
+    }
+
+    private static int valueOrZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private static double valueOrZero(Double value) {
+        return value != null ? value : 0.0;
+    }
+
+    private static BigDecimal valueOrZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    /**
+     * Variación de SKU del último snapshot (misma fórmula que PromotionMetrics)
+     */
+    private static double skuVariationPercentage(LatestProductMetrics row) {
+        int initial = valueOrZero(row.initialInventory());
+        return initial > 0 ? ((double) valueOrZero(row.unitsSold()) / initial) * 100 : 0.0;
+    }
+
     /**
      * Crea o actualiza métricas para un producto en una promoción
      */
@@ -120,8 +171,12 @@ public class PromotionMetricsService {
 
         PromotionMetrics metrics;
         if (existingMetrics.isPresent()) {
-            // Actualizar métricas existentes
+            // Actualizar métricas existentes (guardando los valores previos para el delta del rollup)
             metrics = existingMetrics.get();
+            int previousUnitsSold = valueOrZero(metrics.getUnitsSold());
+            int previousCurrentInventory = valueOrZero(metrics.getCurrentInventory());
+            BigDecimal previousRevenue = valueOrZero(metrics.getRevenueGenerated());
+            double previousSkuVariation = valueOrZero(metrics.getSkuVariationPercentage());
             metrics.setCurrentInventory(currentInventory);
             metrics.setUnitsSold(unitsSold);
             metrics.setRevenueGenerated(revenueGenerated);
@@ -133,82 +188,193 @@ public class PromotionMetricsService {
                 metrics.setSkuVariationPercentage(0.0);
             }
             metrics.preUpdate();
+            metrics = promotionMetricsRepository.save(metrics);
+
+            applyRollupDelta(promotionId, 0,
+                valueOrZero(metrics.getUnitsSold()) - previousUnitsSold,
+                valueOrZero(metrics.getRevenueGenerated()).subtract(previousRevenue),
+                0,
+                valueOrZero(metrics.getCurrentInventory()) - previousCurrentInventory,
+                valueOrZero(metrics.getSkuVariationPercentage()) - previousSkuVariation);
         } else {
             // Crear nuevas métricas
-            metrics = new PromotionMetrics(
+            metrics = promotionMetricsRepository.save(new PromotionMetrics(
                 promotionOpt.get(),
                 productOpt.get(),
                 initialInventory,
                 currentInventory,
                 unitsSold,
                 revenueGenerated
-            );
+            ));
+
+            applyRollupDelta(promotionId, 1,
+                valueOrZero(metrics.getUnitsSold()),
+                valueOrZero(metrics.getRevenueGenerated()),
+                valueOrZero(metrics.getInitialInventory()),
+                valueOrZero(metrics.getCurrentInventory()),
+                valueOrZero(metrics.getSkuVariationPercentage()));
         }
 
-        return promotionMetricsRepository.save(metrics);
+        // Punto de la serie temporal con los totales ya actualizados
+        seriesService.record(promotionId);
+        eventPublisher.publishEvent(new PromotionMetricsChangedEvent(this, promotionId));
+        return metrics;
+    }
+
+    /**
+     * Suma los deltas al rollup de la promoción dentro de la transacción actual. Si la promoción
+     * aún no tiene fila (primera métrica o rollup perdido) se reconstruye desde promotion_metrics,
+     * que ya incluye la métrica recién guardada. También lo usa la ingesta de ventas por lotes
+     * ({@link SalesIngestionService}) con los deltas agregados de cada volcado.
+     */
+    void applyRollupDelta(Integer promotionId, int products, int unitsSold, BigDecimal revenue,
+                                  int initialInventory, int currentInventory, double skuVariation) {
+        int updated = rollupRepository.applyDelta(promotionId, products, unitsSold, revenue,
+                initialInventory, currentInventory, skuVariation, LocalDateTime.now());
+        if (updated == 0) {
+            rebuildRollup(promotionId);
+        }
     }
 
     /**
-     * Inicializa métricas para todos los productos de una promoción
+     * Reconstruye desde cero el rollup de una promoción a partir del último snapshot de cada
+     * producto. Elimina la fila si la promoción ya no tiene métricas.
      */
     @Transactional
-    public void initializeMetricsForPromotion(Integer promotionId) {
-        List<Product> products = productRepository.findByPromotionPromotionId(promotionId);
-        
-        for (Product product : products) {
-            // Verificar si ya existen métricas para este producto
-            Optional<PromotionMetrics> existing = 
-                promotionMetricsRepository.findByPromotionPromotionIdAndProductProductId(promotionId, product.getProductId());
-            
-            if (existing.isEmpty()) {
-                // Obtener el stock real del inventario usando el SKU del producto
-                Integer initialStock = getInitialStockForProduct(product);
-                
-                // Crear métricas iniciales con stock real
-                saveOrUpdateMetrics(promotionId, product.getProductId(), initialStock, initialStock, 0, BigDecimal.ZERO);
+    public Optional<PromotionPerformanceRollup> rebuildRollup(Integer promotionId) {
+        List<LatestProductMetrics> latest = promotionMetricsRepository.findLatestSnapshotsByPromotionId(promotionId);
+        Optional<PromotionPerformanceRollup> existing = rollupRepository.findById(promotionId);
+        if (latest.isEmpty()) {
+            existing.ifPresent(rollupRepository::delete);
+            return Optional.empty();
+        }
+
+        int totalUnitsSold = 0;
+        long totalRevenueCents = 0L;
+        int totalInitialInventory = 0;
+        int totalCurrentInventory = 0;
+        double skuVariationSum = 0.0;
+        for (LatestProductMetrics row : latest) {
+            totalUnitsSold += valueOrZero(row.unitsSold());
+            totalRevenueCents += Money.toCents(row.revenueGenerated());
+            totalInitialInventory += valueOrZero(row.firstInitialInventory());
+            totalCurrentInventory += valueOrZero(row.currentInventory());
+            skuVariationSum += skuVariationPercentage(row);
+        }
+
+        PromotionPerformanceRollup rollup = existing.orElseGet(() -> new PromotionPerformanceRollup(promotionId));
+        rollup.setTotalProducts(latest.size());
+        rollup.setTotalUnitsSold(totalUnitsSold);
+        rollup.setTotalRevenue(Money.toBigDecimal(totalRevenueCents));
+        rollup.setTotalInitialInventory(totalInitialInventory);
+        rollup.setTotalCurrentInventory(totalCurrentInventory);
+        rollup.setSkuVariationSum(skuVariationSum);
+        LocalDateTime lastUpdated = latest.get(0).promotionLastUpdated(); // Igual en todas las filas
+        rollup.setLastUpdated(lastUpdated != null ? lastUpdated : LocalDateTime.now());
+        return Optional.of(rollupRepository.save(rollup));
+    }
+
+    /**
+     * Reconstruye todos los rollups (comando de reparación): recalcula las promociones con
+     * métricas y elimina las filas huérfanas. Devuelve el número de rollups reconstruidos.
+     */
+    @Transactional
+    public int rebuildAllRollups() {
+        List<Integer> promotionIds = promotionMetricsRepository.findDistinctPromotionIds();
+        List<PromotionPerformanceRollup> orphans = rollupRepository.findAll().stream()
+                .filter(rollup -> !promotionIds.contains(rollup.getPromotionId()))
+                .toList();
+        rollupRepository.deleteAll(orphans);
+
+        int rebuilt = 0;
+        for (Integer promotionId : promotionIds) {
+            if (rebuildRollup(promotionId).isPresent()) {
+                rebuilt++;
             }
         }
+        logger.info("Rollups de rendimiento reconstruidos: {} (huérfanos eliminados: {})", rebuilt, orphans.size());
+        return rebuilt;
     }
-    
+
+    /**
+     * Rellena los rollups al arrancar si la tabla está vacía pero ya hay métricas (primer
+     * despliegue del modelo de lectura sobre datos existentes).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillRollupsOnStartup() {
+        if (rollupRepository.count() == 0 && promotionMetricsRepository.count() > 0) {
+            rebuildAllRollups();
+        }
+    }
+
     /**
-     * Obtiene el stock inicial de un producto (el SKU ES el stock)
+     * Una promoción eliminada pierde sus métricas: se descartan también su rollup y su serie
      */
-    private Integer getInitialStockForProduct(Product product) {
-        // El SKU es el stock disponible
-        return product.getSku() != null ? product.getSku() : 50;
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onPromotionChanged(PromotionChangedEvent event) {
+        if (event.isDeleted()) {
+            rollupRepository.findById(event.getPromotionId()).ifPresent(rollupRepository::delete);
+            seriesService.deleteSeries(event.getPromotionId());
+        }
     }
 
     /**
-     * Simula la actualización de métricas (para testing/demo)
+     * Inicializa métricas para todos los productos de una promoción que aún no las tienen.
+     * Las filas se crean con un solo INSERT ... SELECT y el rollup se reconstruye una vez.
+     * Devuelve el número de filas creadas (0 si ya estaban inicializadas).
+     */
+    @Transactional
+    public int initializeMetricsForPromotion(Integer promotionId) {
+        int created = promotionMetricsRepository.insertMissingForPromotion(promotionId, LocalDateTime.now());
+        if (created > 0) {
+            rebuildRollup(promotionId);
+            seriesService.record(promotionId);
+            eventPublisher.publishEvent(new PromotionMetricsChangedEvent(this, promotionId));
+        }
+        logger.info("Métricas inicializadas para la promoción {}: {} productos nuevos", promotionId, created);
+        return created;
+    }
+    
+    /**
+     * Simula la actualización de métricas (para testing/demo).
+     * La venta se aplica con un UPDATE atómico sobre la fila (sin leer y reescribir la entidad),
+     * así que las actualizaciones concurrentes del mismo producto no pierden incrementos.
      */
     @Transactional
     public void simulateMetricsUpdate(Integer promotionId, Integer productId, Integer unitsSoldIncrement) {
-        Optional<PromotionMetrics> metricsOpt = 
-            promotionMetricsRepository.findByPromotionPromotionIdAndProductProductId(promotionId, productId);
-        
-        if (metricsOpt.isPresent()) {
-            PromotionMetrics metrics = metricsOpt.get();
-            int newUnitsSold = metrics.getUnitsSold() + unitsSoldIncrement;
-            int newCurrentInventory = Math.max(0, metrics.getCurrentInventory() - unitsSoldIncrement);
-            
-            // Calcular nuevos ingresos (precio base * unidades adicionales * descuento)
-            Optional<Product> productOpt = productRepository.findById(productId);
-            BigDecimal additionalRevenue = BigDecimal.ZERO;
-            if (productOpt.isPresent()) {
-                Product product = productOpt.get();
-                Optional<Promotion> promotionOpt = promotionRepository.findById(promotionId);
-                if (promotionOpt.isPresent()) {
-                    double discountMultiplier = (100.0 - promotionOpt.get().getDiscountValue()) / 100.0;
-                    double discountedPrice = product.getBasePrice() * discountMultiplier;
-                    additionalRevenue = BigDecimal.valueOf(discountedPrice * unitsSoldIncrement);
-                }
+        int units = unitsSoldIncrement != null ? unitsSoldIncrement : 0; // Sin incremento: solo refresca la fila
+
+        // Calcular nuevos ingresos en centavos (precio con descuento redondeado al centavo * unidades)
+        long additionalRevenueCents = 0L;
+        Optional<Product> productOpt = productRepository.findById(productId);
+        if (productOpt.isPresent()) {
+            Optional<Promotion> promotionOpt = promotionCache.get(promotionId);
+            if (promotionOpt.isPresent()) {
+                long unitPriceCents = Money.discountedCents(Money.toCents(productOpt.get().getBasePrice()),
+                    promotionOpt.get().getDiscountValue());
+                additionalRevenueCents = Money.revenueCents(unitPriceCents, units);
             }
-            
-            BigDecimal newRevenue = metrics.getRevenueGenerated().add(additionalRevenue);
-            
-            saveOrUpdateMetrics(promotionId, productId, metrics.getInitialInventory(), 
-                              newCurrentInventory, newUnitsSold, newRevenue);
         }
+        BigDecimal additionalRevenue = Money.toBigDecimal(additionalRevenueCents);
+
+        LocalDateTime now = LocalDateTime.now();
+        if (promotionMetricsRepository.applySaleDelta(promotionId, productId, units, additionalRevenue, units, now) > 0) {
+            // Inventario suficiente: los deltas del rollup son exactos
+            int initialInventory = promotionMetricsRepository.findInitialInventory(promotionId, productId).orElse(0);
+            double skuVariationDelta = initialInventory > 0 ? ((double) units / initialInventory) * 100 : 0.0;
+            applyRollupDelta(promotionId, 0, units, additionalRevenue, 0, -units, skuVariationDelta);
+        } else if (promotionMetricsRepository.applySaleDelta(promotionId, productId, units, additionalRevenue, 0, now) > 0) {
+            // El inventario quedó en 0 (se descontó menos que las unidades): totales desde promotion_metrics
+            rebuildRollup(promotionId);
+        } else {
+            return; // Sin métricas para el producto en la promoción
+        }
+
+        // Punto de la serie temporal con los totales ya actualizados
+        seriesService.record(promotionId);
+        eventPublisher.publishEvent(new PromotionMetricsChangedEvent(this, promotionId));
     }
 
     /**
@@ -224,6 +390,9 @@ public class PromotionMetricsService {
     @Transactional
     public void deleteMetricsForPromotion(Integer promotionId) {
         promotionMetricsRepository.deleteByPromotionPromotionId(promotionId);
+        rollupRepository.findById(promotionId).ifPresent(rollupRepository::delete);
+        seriesService.deleteSeries(promotionId);
+        eventPublisher.publishEvent(new PromotionMetricsChangedEvent(this, promotionId));
     }
 
     // Métodos privados de utilidad
@@ -251,34 +420,32 @@ public class PromotionMetricsService {
         );
     }
 
-    private ProductMetricsDTO convertToProductMetricsDTO(PromotionMetrics metrics) {
-        Product product = metrics.getProduct();
-        
-        // Calcular precio con descuento
-        double discountMultiplier = (100.0 - metrics.getPromotion().getDiscountValue()) / 100.0;
-        BigDecimal discountedPrice = BigDecimal.valueOf(product.getBasePrice() * discountMultiplier);
+    private ProductMetricsDTO convertToProductMetricsDTO(LatestProductMetrics row) {
+        // Calcular precio con descuento (en centavos, redondeado igual que los ingresos)
+        long basePriceCents = Money.toCents(row.basePrice());
+        long discountedPriceCents = Money.discountedCents(basePriceCents, row.discountValue());
         
         // Convertir categoría
         CategoryDTO categoryDTO = null;
-        if (product.getCategory() != null) {
+        if (row.categoryId() != null) {
             categoryDTO = new CategoryDTO();
-            categoryDTO.setCategoryId(product.getCategory().getCategoryId());
-            categoryDTO.setCategoryName(product.getCategory().getCategoryName());
-            categoryDTO.setDescription(product.getCategory().getDescription());
+            categoryDTO.setCategoryId(row.categoryId());
+            categoryDTO.setCategoryName(row.categoryName());
+            categoryDTO.setDescription(row.categoryDescription());
         }
 
         return new ProductMetricsDTO(
-            product.getProductId(),
-            product.getProductName(),
-            String.valueOf(product.getSku()),
-            BigDecimal.valueOf(product.getBasePrice()),
-            discountedPrice,
-            metrics.getInitialInventory(),
-            metrics.getCurrentInventory(),
-            metrics.getUnitsSold(),
-            metrics.getRevenueGenerated(),
+            row.productId(),
+            row.productName(),
+            String.valueOf(row.sku()),
+            Money.toBigDecimal(basePriceCents),
+            Money.toBigDecimal(discountedPriceCents),
+            row.initialInventory(),
+            row.currentInventory(),
+            row.unitsSold(),
+            row.revenueGenerated(),
             categoryDTO,
-            metrics.getUpdatedAt()
+            row.updatedAt()
         );
     }
 }
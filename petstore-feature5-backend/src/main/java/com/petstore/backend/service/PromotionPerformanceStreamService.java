@@ -0,0 +1,271 @@
+package com.petstore.backend.service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.petstore.backend.dto.PromotionPerformanceDTO;
+import com.petstore.backend.dto.PromotionPerformanceUpdateDTO;
+import com.petstore.backend.event.PromotionChangedEvent;
+import com.petstore.backend.event.PromotionMetricsChangedEvent;
+
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Rendimiento de promociones en vivo para la suscripción GraphQL y el endpoint SSE.
+ *
+ * Cada promoción observada tiene un canal que guarda el último estado (rollup por clave primaria).
+ * Los eventos de métricas lo recargan tras el commit solo si hay suscriptores, así que sin
+ * suscriptores o sin escrituras no se hace ningún trabajo. La recarga corre en su propio hilo
+ * (no en el de la escritura) y se agrupa: mientras hay una pendiente, los eventos nuevos de la
+ * misma promoción no agregan otra. Las consultas nunca se hacen bajo el lock del mapa de canales.
+ * Cada suscriptor recibe primero el
+ * estado completo y después, como mucho un mensaje por intervalo, solo los campos que cambiaron
+ * respecto a lo último que se le envió.
+ */
+@Service
+public class PromotionPerformanceStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PromotionPerformanceStreamService.class);
+
+    private final PromotionMetricsService promotionMetricsService;
+    private final Duration throttle;
+    private final Executor refreshExecutor;
+
+    // Canales por promoción; altas y bajas de suscriptores bajo el lock del mapa
+    private final Map<Integer, Channel> channels = new HashMap<>();
+    // Cambios recibidos: un canal nuevo cuyo estado inicial pudo perder uno se recarga
+    private final AtomicLong changes = new AtomicLong();
+
+    @Autowired
+    public PromotionPerformanceStreamService(PromotionMetricsService promotionMetricsService,
+                                             @Value("${app.metrics.stream.throttle:PT1S}") Duration throttle) {
+        this(promotionMetricsService, throttle, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    PromotionPerformanceStreamService(PromotionMetricsService promotionMetricsService,
+                                      Duration throttle,
+                                      Executor refreshExecutor) {
+        this.promotionMetricsService = promotionMetricsService;
+        this.throttle = throttle;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /**
+     * Cambios del rendimiento de una promoción. Termina con error si la promoción no existe
+     * y se completa si la promoción se elimina.
+     */
+    public Flux<PromotionPerformanceUpdateDTO> updates(Integer promotionId) {
+        return Flux.defer(() -> {
+            Channel channel = acquire(promotionId);
+            if (channel == null) {
+                return Flux.error(new IllegalArgumentException("Promoción no encontrada: " + promotionId));
+            }
+
+            // El canal repite su último estado al suscribirse; el diff descarta el duplicado
+            AtomicReference<PromotionPerformanceDTO> sent = new AtomicReference<>();
+            return Flux.concat(Mono.justOrEmpty(channel.latest), channel.sink.asFlux().sample(throttle))
+                .map(current -> diff(sent.getAndSet(current), current))
+                .filter(update -> !update.changedFields().isEmpty())
+                .doFinally(signal -> release(promotionId, channel));
+        });
+    }
+
+    /**
+     * Número de promociones con al menos un suscriptor
+     */
+    public int activeChannels() {
+        synchronized (channels) {
+            return channels.size();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refreshExecutor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * Recarga el estado de la promoción cuyas métricas cambiaron, si alguien la observa
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMetricsChanged(PromotionMetricsChangedEvent event) {
+        refresh(event.getPromotionId());
+    }
+
+    /**
+     * Cierra el canal de una promoción eliminada o recarga el estado (vigencia, fechas)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromotionChanged(PromotionChangedEvent event) {
+        if (event.isReloadAll()) {
+            List<Integer> promotionIds;
+            synchronized (channels) {
+                promotionIds = new ArrayList<>(channels.keySet());
+            }
+            promotionIds.forEach(this::refresh);
+        } else if (event.isDeleted()) {
+            Channel channel;
+            synchronized (channels) {
+                channel = channels.remove(event.getPromotionId());
+            }
+            if (channel != null) {
+                synchronized (channel) {
+                    channel.sink.tryEmitComplete();
+                }
+            }
+        } else {
+            refresh(event.getPromotionId());
+        }
+    }
+
+    private void refresh(Integer promotionId) {
+        changes.incrementAndGet();
+        Channel channel;
+        synchronized (channels) {
+            channel = channels.get(promotionId);
+        }
+        if (channel == null) {
+            return; // Nadie la observa
+        }
+        if (!channel.refreshQueued.compareAndSet(false, true)) {
+            return; // Ya hay una recarga pendiente: leerá también este cambio
+        }
+        try {
+            refreshExecutor.execute(() -> reload(promotionId, channel));
+        } catch (RuntimeException e) {
+            channel.refreshQueued.set(false);
+            logger.warn("No se pudo programar la recarga del rendimiento en vivo de la promoción {}: {}", promotionId, e.getMessage());
+        }
+    }
+
+    private void reload(Integer promotionId, Channel channel) {
+        channel.refreshQueued.set(false); // Un cambio posterior a este punto programa otra recarga
+        // Cargar y emitir bajo el lock del canal (no el del mapa): los estados salen en orden y sin emisiones concurrentes
+        synchronized (channel) {
+            try {
+                promotionMetricsService.getPromotionPerformance(promotionId).ifPresent(channel::publish);
+            } catch (RuntimeException e) {
+                logger.warn("No se pudo recargar el rendimiento en vivo de la promoción {}: {}", promotionId, e.getMessage());
+            }
+        }
+    }
+
+    private Channel acquire(Integer promotionId) {
+        synchronized (channels) {
+            Channel channel = channels.get(promotionId);
+            if (channel != null) {
+                channel.subscribers++;
+                return channel;
+            }
+        }
+
+        // Primer suscriptor: el estado inicial se consulta fuera del lock
+        long changesBefore = changes.get();
+        Optional<PromotionPerformanceDTO> initial = promotionMetricsService.getPromotionPerformance(promotionId);
+        if (initial.isEmpty()) {
+            return null;
+        }
+        Channel channel;
+        boolean created = false;
+        synchronized (channels) {
+            channel = channels.get(promotionId);
+            if (channel == null) {
+                channel = new Channel();
+                channel.publish(initial.get());
+                channels.put(promotionId, channel);
+                created = true;
+            }
+            channel.subscribers++;
+        }
+        if (created && changes.get() != changesBefore) {
+            refresh(promotionId); // Un cambio confirmado durante la consulta no vio el canal
+        }
+        return channel;
+    }
+
+    private void release(Integer promotionId, Channel channel) {
+        synchronized (channels) {
+            channel.subscribers--;
+            if (channel.subscribers == 0 && channels.get(promotionId) == channel) {
+                channels.remove(promotionId);
+            }
+        }
+    }
+
+    /**
+     * Campos de {@code current} distintos de {@code previous} (todos si no hay anterior)
+     */
+    static PromotionPerformanceUpdateDTO diff(PromotionPerformanceDTO previous, PromotionPerformanceDTO current) {
+        List<String> changed = new ArrayList<>();
+        return new PromotionPerformanceUpdateDTO(
+            current.getPromotionId(),
+            changed,
+            field(previous, current, PromotionPerformanceDTO::getIsActive, "isActive", changed),
+            field(previous, current, PromotionPerformanceDTO::getTotalProducts, "totalProducts", changed),
+            field(previous, current, PromotionPerformanceDTO::getTotalUnitsSold, "totalUnitsSold", changed),
+            field(previous, current, PromotionPerformanceDTO::getTotalRevenue, "totalRevenue", changed),
+            field(previous, current, PromotionPerformanceDTO::getTotalInitialInventory, "totalInitialInventory", changed),
+            field(previous, current, PromotionPerformanceDTO::getTotalCurrentInventory, "totalCurrentInventory", changed),
+            field(previous, current, PromotionPerformanceDTO::getTotalInventoryDifference, "totalInventoryDifference", changed),
+            field(previous, current, PromotionPerformanceDTO::getInventoryReductionPercentage, "inventoryReductionPercentage", changed),
+            field(previous, current, PromotionPerformanceDTO::getAverageSkuVariationPercentage, "averageSkuVariationPercentage", changed),
+            field(previous, current, PromotionPerformanceDTO::getLastUpdated, "lastUpdated", changed));
+    }
+
+    private static <T> T field(PromotionPerformanceDTO previous, PromotionPerformanceDTO current,
+                               Function<PromotionPerformanceDTO, T> getter, String name, List<String> changed) {
+        T value = getter.apply(current);
+        if (previous != null && sameValue(getter.apply(previous), value)) {
+            return null;
+        }
+        changed.add(name);
+        return value;
+    }
+
+    private static boolean sameValue(Object previous, Object current) {
+        if (previous instanceof BigDecimal before && current instanceof BigDecimal after) {
+            return before.compareTo(after) == 0; // 10.0 y 10.00 son el mismo importe
+        }
+        return Objects.equals(previous, current);
+    }
+
+    /**
+     * Último estado de una promoción y su difusión a los suscriptores
+     */
+    private static final class Channel {
+        private final Sinks.Many<PromotionPerformanceDTO> sink = Sinks.many().replay().latest();
+        private final AtomicBoolean refreshQueued = new AtomicBoolean();
+        private volatile PromotionPerformanceDTO latest;
+        private int subscribers; // Protegido por el lock de channels
+
+        void publish(PromotionPerformanceDTO performance) {
+            latest = performance;
+            sink.tryEmitNext(performance);
+        }
+    }
+}
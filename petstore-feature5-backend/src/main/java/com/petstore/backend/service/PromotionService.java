@@ -1,68 +1,98 @@
 package com.petstore.backend.service;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.petstore.backend.dto.CategoryDTO;
+import com.petstore.backend.cache.CatalogVersion;
+import com.petstore.backend.cache.PromotionCache;
+import com.petstore.backend.cache.PromotionInterval;
+import com.petstore.backend.cache.PromotionIntervalIndex;
+import com.petstore.backend.cache.ReferenceDataRegistry;
+import com.petstore.backend.dto.CursorPage;
 import com.petstore.backend.dto.PromotionDTO;
+import com.petstore.backend.dto.ProductAssociationResult;
+import com.petstore.backend.dto.ProductAssociationResult.Outcome;
 import com.petstore.backend.dto.PromotionDeletedDTO;
+import com.petstore.backend.dto.StatusTransitionResult;
 import com.petstore.backend.entity.Category;
 import com.petstore.backend.entity.Promotion;
 import com.petstore.backend.entity.PromotionDeleted;
 import com.petstore.backend.entity.Status;
 import com.petstore.backend.entity.User;
 import com.petstore.backend.event.PromotionActivatedEvent;
-import com.petstore.backend.repository.CategoryRepository;
+import com.petstore.backend.event.PromotionChangedEvent;
 import com.petstore.backend.repository.NotificationLogRepository;
 import com.petstore.backend.repository.ProductRepository;
 import com.petstore.backend.repository.PromotionDeletedRepository;
 import com.petstore.backend.repository.PromotionMetricsRepository;
 import com.petstore.backend.repository.PromotionRepository;
-import com.petstore.backend.repository.StatusRepository;
 import com.petstore.backend.repository.UserRepository;
+import com.petstore.backend.util.KeysetCursor;
 
 @Service
 public class PromotionService {
 
     private static final Logger logger = LoggerFactory.getLogger(PromotionService.class);
 
+    public static final String SORT_BY_ID = "id"; // Orden de paginación por ID
+    public static final String SORT_BY_START_DATE = "startDate"; // Orden de paginación por fecha de inicio
+
+    static final int ASSOCIATION_CHUNK_SIZE = 1000; // IDs por UPDATE de asociación masiva
+    static final int VALIDATION_CHUNK_SIZE = 10_000; // IDs por consulta de validación (límite de parámetros del driver: 32767)
+
     private final PromotionRepository promotionRepository; // Inyección de dependencia del repositorio de promociones
-    private final StatusRepository statusRepository; // Inyección de dependencia del repositorio de estados
     private final UserRepository userRepository; // Inyección de dependencia del repositorio de usuarios
-    private final CategoryRepository categoryRepository; // Inyección de dependencia del repositorio de categorías
     private final PromotionDeletedRepository promotionDeletedRepository; // Inyección de dependencia del repositorio de promociones eliminadas
     private final ProductRepository productRepository; // Inyección de dependencia del repositorio de productos
     private final PromotionMetricsRepository promotionMetricsRepository; // Inyección de dependencia del repositorio de métricas de promociones
     private final NotificationLogRepository notificationLogRepository; // Inyección de dependencia del repositorio de logs de notificaciones
+    private final PromotionIntervalIndex promotionIntervalIndex; // Índice en memoria de fechas de vigencia
+    private final ReferenceDataRegistry referenceDataRegistry; // Estados y categorías en memoria
+    private final PromotionCache promotionCache; // Caché de promociones por ID
+    private final CatalogVersion catalogVersion; // Versión del catálogo para los ETag
     private final ApplicationEventPublisher eventPublisher; // Para publicar eventos de promoción
 
     public PromotionService(PromotionRepository promotionRepository,
-                            StatusRepository statusRepository,
                             UserRepository userRepository,
-                            CategoryRepository categoryRepository,
                             PromotionDeletedRepository promotionDeletedRepository,
                             ProductRepository productRepository,
                             PromotionMetricsRepository promotionMetricsRepository,
                             NotificationLogRepository notificationLogRepository,
+                            PromotionIntervalIndex promotionIntervalIndex,
+                            ReferenceDataRegistry referenceDataRegistry,
+                            PromotionCache promotionCache,
+                            CatalogVersion catalogVersion,
                             ApplicationEventPublisher eventPublisher) {
         this.promotionRepository = promotionRepository;
-        this.statusRepository = statusRepository;
         this.userRepository = userRepository;
-        this.categoryRepository = categoryRepository;
         this.promotionDeletedRepository = promotionDeletedRepository;
         this.productRepository = productRepository;
         this.promotionMetricsRepository = promotionMetricsRepository;
         this.notificationLogRepository = notificationLogRepository;
+        this.promotionIntervalIndex = promotionIntervalIndex;
+        this.referenceDataRegistry = referenceDataRegistry;
+        this.promotionCache = promotionCache;
+        this.catalogVersion = catalogVersion;
         this.eventPublisher = eventPublisher;
     }
 
@@ -70,97 +100,113 @@ public class PromotionService {
      * Obtiene todas las promociones activas y vigentes
      */
     public List<PromotionDTO> getAllActivePromotions() {
-        LocalDate today = LocalDate.now();
-        
-        // Buscar promociones activas
-        List<Promotion> activePromotions = promotionRepository.findActivePromotions();
-        
-        // Filtrar las que están vigentes (fecha actual entre start y end)
-        return activePromotions.stream()
-                .filter(promotion -> !today.isBefore(promotion.getStartDate()) && !today.isAfter(promotion.getEndDate()))
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        // Proyección directa a DTO: una sola consulta, sin cargas LAZY por fila
+        return findDTOsById(findActivePromotionIdsToday());
     }
 
     /**
      * Obtiene todas las promociones (activas e inactivas) para administración
      */
     public List<PromotionDTO> getAllPromotions() {
-        List<Promotion> allPromotions = promotionRepository.findAll();
-        
-        return allPromotions.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return promotionRepository.findAllAsDTO();
     }
 
     /**
-     * Obtiene promociones por categoría
+     * Obtiene una página de promociones usando paginación keyset (sin OFFSET)
+     *
+     * @param after cursor devuelto por la página anterior (null para la primera)
+     * @param size tamaño de página (se limita a CursorPage.MAX_SIZE)
+     * @param sortBy "id" (por defecto) o "startDate"
      */
-    public List<PromotionDTO> getPromotionsByCategory(Integer categoryId) {
-        List<Promotion> promotions = promotionRepository.findByCategoryCategoryId(categoryId);
-        
-        return promotions.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public CursorPage<PromotionDTO> getPromotionsPage(String after, Integer size, String sortBy) {
+        return keysetPage(after, size, sortBy, new KeysetQueries<>() {
+            public List<PromotionDTO> afterId(Integer afterId, Pageable limit) {
+                return promotionRepository.findDTOPageAfterId(afterId, limit);
+            }
+            public List<PromotionDTO> firstByStartDate(Pageable limit) {
+                return promotionRepository.findFirstDTOPageByStartDate(limit);
+            }
+            public List<PromotionDTO> afterStartDate(LocalDate startDate, Integer afterId, Pageable limit) {
+                return promotionRepository.findDTOPageAfterStartDate(startDate, afterId, limit);
+            }
+        }, PromotionDTO::getPromotionId, PromotionDTO::getStartDate);
     }
 
     /**
-     * Obtiene promociones vigentes para la fecha actual
+     * Obtiene una página de entidades Promotion usando paginación keyset (para GraphQL)
      */
-    public List<PromotionDTO> getValidPromotions() {
-        LocalDate today = LocalDate.now();
-        List<Promotion> promotions = promotionRepository.findValidPromotions(today);
-        
-        return promotions.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public CursorPage<Promotion> getPromotionsPageEntities(String after, Integer size, String sortBy) {
+        return keysetPage(after, size, sortBy, new KeysetQueries<>() {
+            public List<Promotion> afterId(Integer afterId, Pageable limit) {
+                return promotionRepository.findPageAfterId(afterId, limit);
+            }
+            public List<Promotion> firstByStartDate(Pageable limit) {
+                return promotionRepository.findFirstPageByStartDate(limit);
+            }
+            public List<Promotion> afterStartDate(LocalDate startDate, Integer afterId, Pageable limit) {
+                return promotionRepository.findPageAfterStartDate(startDate, afterId, limit);
+            }
+        }, Promotion::getPromotionId, Promotion::getStartDate);
     }
 
     /**
-     * Convierte una entidad Promotion a PromotionDTO
+     * Consultas keyset de un tipo de fila (entidad o DTO)
      */
-    private PromotionDTO convertToDTO(Promotion promotion) {
-        PromotionDTO dto = new PromotionDTO();
-        
-        dto.setPromotionId(promotion.getPromotionId());
-        dto.setPromotionName(promotion.getPromotionName());
-        dto.setDescription(promotion.getDescription());
-        
-        // Convertir discount value de Double a BigDecimal
-        if (promotion.getDiscountValue() != null) {
-            dto.setDiscountPercentage(BigDecimal.valueOf(promotion.getDiscountValue()));
-        }
-        
-        // Asignar fechas directamente (LocalDate a LocalDate)
-        if (promotion.getStartDate() != null) {
-            dto.setStartDate(promotion.getStartDate());
-        }
-        if (promotion.getEndDate() != null) {
-            dto.setEndDate(promotion.getEndDate());
+    private interface KeysetQueries<T> {
+        List<T> afterId(Integer afterId, Pageable limit);
+        List<T> firstByStartDate(Pageable limit);
+        List<T> afterStartDate(LocalDate startDate, Integer afterId, Pageable limit);
+    }
+
+    private <T> CursorPage<T> keysetPage(String after, Integer size, String sortBy, KeysetQueries<T> queries,
+                                         Function<T, Integer> idOf, Function<T, LocalDate> startDateOf) {
+        int pageSize = CursorPage.normalizeSize(size);
+        Pageable limit = PageRequest.ofSize(pageSize + 1); // Una fila extra para saber si hay más
+        String sort = sortBy != null ? sortBy : SORT_BY_ID;
+
+        if (SORT_BY_ID.equals(sort)) {
+            Integer afterId = after != null ? KeysetCursor.decode(after, sort).id() : 0;
+            return CursorPage.of(queries.afterId(afterId, limit), pageSize, after != null,
+                    row -> new KeysetCursor(sort, null, idOf.apply(row)).encode());
         }
-        
-        // Nota: Las entidades Promotion no tienen createdAt/updatedAt en el esquema actual
-        // Esto se puede agregar más adelante si es necesario
-        
-        // Convertir status
-        if (promotion.getStatus() != null) {
-            dto.setStatus(promotion.getStatus().getStatusName());
+        if (SORT_BY_START_DATE.equals(sort)) {
+            List<T> rows;
+            if (after == null) {
+                rows = queries.firstByStartDate(limit);
+            } else {
+                KeysetCursor cursor = KeysetCursor.decode(after, sort);
+                rows = queries.afterStartDate(parseDate(cursor.key()), cursor.id(), limit);
+            }
+            return CursorPage.of(rows, pageSize, after != null,
+                    row -> new KeysetCursor(sort, startDateOf.apply(row).toString(), idOf.apply(row)).encode());
         }
-        
-        // Convertir category si existe
-        if (promotion.getCategory() != null) {
-            CategoryDTO categoryDTO = new CategoryDTO();
-            categoryDTO.setCategoryId(promotion.getCategory().getCategoryId());
-            categoryDTO.setCategoryName(promotion.getCategory().getCategoryName());
-            categoryDTO.setDescription(promotion.getCategory().getDescription());
-            dto.setCategory(categoryDTO);
+        throw new IllegalArgumentException("Orden de paginación no soportado: " + sortBy);
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
         }
-        
-        // Nota: La entidad Promotion actual no tiene relación directa con Product
-        // Solo tiene relación con Category, que puede contener productos
-        dto.setProduct(null);
-        
-        return dto;
+    }
+
+    /**
+     * Obtiene promociones por categoría
+     */
+    public List<PromotionDTO> getPromotionsByCategory(Integer categoryId) {
+        return promotionRepository.findAsDTOByCategoryId(categoryId);
+    }
+
+    /**
+     * Obtiene promociones vigentes para la fecha actual
+     */
+    public List<PromotionDTO> getValidPromotions() {
+        // El índice de intervalos resuelve la vigencia sin consultar toda la tabla
+        List<Integer> validIds = promotionIntervalIndex.findValidOn(LocalDate.now()).stream()
+                .map(PromotionInterval::promotionId)
+                .toList();
+        return findDTOsById(validIds);
     }
 
     // === MÉTODOS PARA GRAPHQL que retornan entidades directamente ===
@@ -169,15 +215,39 @@ public class PromotionService {
      * Obtiene todas las promociones activas como entidades para GraphQL
      */
     public List<Promotion> getAllActivePromotionsEntities() {
-        LocalDate today = LocalDate.now();
-        
-        // Buscar promociones activas
-        List<Promotion> activePromotions = promotionRepository.findActivePromotions();
-        
-        // Filtrar las que están vigentes (fecha actual entre start y end)
-        return activePromotions.stream()
-                .filter(promotion -> !today.isBefore(promotion.getStartDate()) && !today.isAfter(promotion.getEndDate()))
-                .collect(Collectors.toList());
+        return findAllByIdInOrder(findActivePromotionIdsToday());
+    }
+
+    /**
+     * Resuelve en memoria las promociones ACTIVE vigentes hoy (IDs ordenados)
+     */
+    private List<Integer> findActivePromotionIdsToday() {
+        return promotionIntervalIndex.findValidOn(LocalDate.now()).stream()
+                .filter(PromotionInterval::isActive)
+                .map(PromotionInterval::promotionId)
+                .toList();
+    }
+
+    /**
+     * Proyecta promociones por ID a DTO en una sola consulta (lista vacía sin consultar si no hay IDs)
+     */
+    private List<PromotionDTO> findDTOsById(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return promotionRepository.findAsDTOByIdIn(ids);
+    }
+
+    /**
+     * Carga promociones por ID (una sola consulta por clave primaria) ordenadas por ID
+     */
+    private List<Promotion> findAllByIdInOrder(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Promotion> promotions = new ArrayList<>(promotionRepository.findAllById(ids));
+        promotions.sort(Comparator.comparing(Promotion::getPromotionId));
+        return promotions;
     }
 
     /**
@@ -209,10 +279,20 @@ public class PromotionService {
     }
 
     /**
-     * Obtiene una promoción por ID como entidad para GraphQL
+     * Obtiene las promociones de varias categorías en una sola consulta (carga por lotes de GraphQL)
+     */
+    public List<Promotion> getPromotionsByCategoriesEntities(Collection<Integer> categoryIds) {
+        if (categoryIds.isEmpty()) {
+            return List.of();
+        }
+        return promotionRepository.findByCategoryIdIn(categoryIds);
+    }
+
+    /**
+     * Obtiene una promoción por ID como entidad para GraphQL (desprendida, servida desde la caché)
      */
     public Promotion getPromotionByIdEntity(Integer id) {
-        return promotionRepository.findById(id).orElse(null);
+        return promotionCache.get(id).orElse(null);
     }
 
     // === MÉTODOS CRUD PARA MUTACIONES ===
@@ -222,68 +302,122 @@ public class PromotionService {
      * 
      * @param startDate Fecha de inicio de la promoción
      * @param endDate Fecha de fin de la promoción
-     * @return ID del estado apropiado (1=ACTIVE, 2=EXPIRED, 3=SCHEDULED)
+     * @return estado apropiado (ACTIVE, EXPIRED o SCHEDULED), resuelto por nombre igual que
+     *         {@link #transitionPromotionStatuses()}
      */
-    private Integer calculatePromotionStatus(LocalDate startDate, LocalDate endDate) {
+    private Status calculatePromotionStatus(LocalDate startDate, LocalDate endDate) {
         LocalDate today = LocalDate.now();
         
-        // Si la fecha de fin ya pasó -> EXPIRED (2)
+        // Si la fecha de fin ya pasó -> EXPIRED
         if (endDate != null && today.isAfter(endDate)) {
             logger.info("🕐 Promoción marcada como EXPIRED: fecha fin {} es anterior a hoy {}", endDate, today);
-            return 2; // EXPIRED
+            return referenceDataRegistry.requireStatus("EXPIRED");
         }
         
-        // Si la fecha de inicio es posterior a hoy -> SCHEDULED (3)
+        // Si la fecha de inicio es posterior a hoy -> SCHEDULED
         if (startDate != null && today.isBefore(startDate)) {
             logger.info("📅 Promoción marcada como SCHEDULED: fecha inicio {} es posterior a hoy {}", startDate, today);
-            return 3; // SCHEDULED
+            return referenceDataRegistry.requireStatus("SCHEDULED");
         }
         
-        // Si estamos entre fecha inicio y fin (inclusive) -> ACTIVE (1)
+        // Si estamos entre fecha inicio y fin (inclusive) -> ACTIVE
         logger.info("✅ Promoción marcada como ACTIVE: hoy {} está entre {} y {}", today, startDate, endDate);
-        return 1; // ACTIVE
+        return referenceDataRegistry.requireStatus("ACTIVE");
     }
 
     /**
      * Actualiza automáticamente los estados de todas las promociones basado en las fechas actuales
      * Se puede llamar periódicamente o manualmente desde administración
+     *
+     * @return número total de promociones cuyo estado cambió
      */
     @Transactional
     public int updateAllPromotionStatuses() {
+        return transitionPromotionStatuses().total();
+    }
+
+    /**
+     * Modo masivo: tres UPDATE por conjuntos (EXPIRED, SCHEDULED, ACTIVE) evaluados contra
+     * CURRENT_DATE, más una consulta previa de los IDs que pasarán a ACTIVE. El costo es
+     * constante en sentencias sin importar cuántas promociones existan.
+     * PromotionActivatedEvent se dispara solo para las promociones recién activadas.
+     */
+    @Transactional
+    public StatusTransitionResult transitionPromotionStatuses() {
         logger.info("🔄 Iniciando actualización automática de estados de promociones...");
-        
-        List<Promotion> allPromotions = promotionRepository.findAll();
-        int updatedCount = 0;
-        
-        for (Promotion promotion : allPromotions) {
-            Integer currentStatusId = promotion.getStatus() != null ? promotion.getStatus().getStatusId() : null;
-            Integer calculatedStatusId = calculatePromotionStatus(promotion.getStartDate(), promotion.getEndDate());
-            
-            // Solo actualizar si el estado cambió
-            if (currentStatusId == null || !currentStatusId.equals(calculatedStatusId)) {
-                Status newStatus = statusRepository.findById(calculatedStatusId).orElse(null);
-                if (newStatus != null) {
-                    String oldStatusName = currentStatusId != null ? promotion.getStatus().getStatusName() : "NULL";
-                    promotion.setStatus(newStatus);
-                    promotionRepository.save(promotion);
-                    
-                    logger.info("🔄 Promoción '{}' actualizada: {} -> {}", 
-                               promotion.getPromotionName(), oldStatusName, newStatus.getStatusName());
-                    
-                    // Si cambió a ACTIVE, disparar evento de notificación
-                    if (calculatedStatusId == 1 && (currentStatusId == null || !currentStatusId.equals(1))) {
-                        logger.info("🚨 Promoción '{}' cambió automáticamente a ACTIVE - Disparando evento", 
-                                   promotion.getPromotionName());
-                        eventPublisher.publishEvent(new PromotionActivatedEvent(this, promotion));
-                    }
-                    
-                    updatedCount++;
-                }
+        return applyStatusTransitions(null,
+            promotionRepository::findIdsBecomingActive,
+            promotionRepository::bulkMarkExpired,
+            promotionRepository::bulkMarkScheduled,
+            promotionRepository::bulkMarkActive);
+    }
+
+    /**
+     * Igual que {@link #transitionPromotionStatuses()} pero solo para las promociones indicadas
+     * (usado por el scheduler cuando se alcanza una frontera de fecha)
+     */
+    @Transactional
+    public StatusTransitionResult transitionPromotionStatuses(Collection<Integer> promotionIds) {
+        if (promotionIds.isEmpty()) {
+            return new StatusTransitionResult(0, 0, List.of());
+        }
+        logger.info("🔄 Actualizando estados de {} promociones en frontera de fecha", promotionIds.size());
+        return applyStatusTransitions(promotionIds,
+            active -> promotionRepository.findIdsBecomingActiveIn(active, promotionIds),
+            expired -> promotionRepository.bulkMarkExpiredIn(expired, promotionIds),
+            scheduled -> promotionRepository.bulkMarkScheduledIn(scheduled, promotionIds),
+            active -> promotionRepository.bulkMarkActiveIn(active, promotionIds));
+    }
+
+    /**
+     * @param scope promociones revisadas, o null para todas (los cachés se recargan completos)
+     */
+    private StatusTransitionResult applyStatusTransitions(Collection<Integer> scope,
+                                                         Function<Status, List<Integer>> findBecomingActive,
+                                                         Function<Status, Integer> markExpired,
+                                                         Function<Status, Integer> markScheduled,
+                                                         Function<Status, Integer> markActive) {
+        Status active = referenceDataRegistry.requireStatus("ACTIVE");
+        Status expired = referenceDataRegistry.requireStatus("EXPIRED");
+        Status scheduled = referenceDataRegistry.requireStatus("SCHEDULED");
+
+        // Leer antes de actualizar: después del UPDATE ya no se distinguen las recién activadas
+        List<Integer> activatedIds = findBecomingActive.apply(active);
+
+        int expiredCount = markExpired.apply(expired);
+        int scheduledCount = markScheduled.apply(scheduled);
+        int activatedCount = markActive.apply(active);
+        if (activatedCount != activatedIds.size()) {
+            logger.warn("⚠️ Se activaron {} promociones pero se esperaban {}", activatedCount, activatedIds.size());
+        }
+
+        StatusTransitionResult result = new StatusTransitionResult(expiredCount, scheduledCount, activatedIds);
+        if (result.total() > 0) {
+            publishStatusChanges(scope);
+        }
+
+        if (!activatedIds.isEmpty()) {
+            for (Promotion promotion : promotionRepository.findWithStatusByIdIn(activatedIds)) {
+                logger.info("🚨 Promoción '{}' cambió automáticamente a ACTIVE - Disparando evento",
+                           promotion.getPromotionName());
+                eventPublisher.publishEvent(new PromotionActivatedEvent(this, promotion));
             }
         }
-        
-        logger.info("✅ Actualización automática completada: {} promociones actualizadas", updatedCount);
-        return updatedCount;
+
+        logger.info("✅ Actualización automática completada: {} EXPIRED, {} SCHEDULED, {} ACTIVE",
+                   expiredCount, scheduledCount, activatedIds.size());
+        return result;
+    }
+
+    private void publishStatusChanges(Collection<Integer> scope) {
+        if (scope == null) {
+            eventPublisher.publishEvent(PromotionChangedEvent.reloadAll(this));
+            return;
+        }
+        // Transición acotada: cada caché actualiza solo estas promociones en vez de recargarse completo
+        for (PromotionInterval interval : promotionRepository.findIntervalsByIdIn(scope)) {
+            eventPublisher.publishEvent(PromotionChangedEvent.upserted(this, interval));
+        }
     }
 
     /**
@@ -308,19 +442,16 @@ public class PromotionService {
         }
         
         // 🤖 CÁLCULO AUTOMÁTICO DEL ESTADO basado en fechas (si no se proporciona statusId)
-        Integer finalStatusId = statusId;
         if (statusId == null && startDate != null) {
-            finalStatusId = calculatePromotionStatus(startDate, endDate);
-            logger.info("🤖 Estado calculado automáticamente para '{}': statusId={}", promotionName, finalStatusId);
+            Status status = calculatePromotionStatus(startDate, endDate);
+            logger.info("🤖 Estado calculado automáticamente para '{}': {}", promotionName, status.getStatusName());
+            promotion.setStatus(status);
         } else if (statusId != null) {
             logger.info("📝 Usando estado manual para '{}': statusId={}", promotionName, statusId);
+            promotion.setStatus(referenceDataRegistry.findStatus(statusId).orElse(null));
         }
         
         // Buscar y asignar entidades relacionadas
-        if (finalStatusId != null) {
-            Status status = statusRepository.findById(finalStatusId).orElse(null);
-            promotion.setStatus(status);
-        }
         
         if (userId != null) {
             User user = userRepository.findById(userId).orElse(null);
@@ -328,18 +459,19 @@ public class PromotionService {
         }
         
         if (categoryId != null) {
-            Category category = categoryRepository.findById(categoryId).orElse(null);
+            Category category = referenceDataRegistry.findCategory(categoryId).orElse(null);
             promotion.setCategory(category);
         }
         
         // Guardar la promoción
         Promotion savedPromotion = promotionRepository.save(promotion);
+        eventPublisher.publishEvent(PromotionChangedEvent.upserted(this, PromotionInterval.from(savedPromotion)));
         
         // 🔔 VERIFICAR SI SE CREA CON ESTADO ACTIVE Y DISPARAR EVENTO
-        if (finalStatusId != null && savedPromotion.getStatus() != null) {
+        if (savedPromotion.getStatus() != null) {
             String statusName = savedPromotion.getStatus().getStatusName();
             logger.info("🔍 Promoción '{}' creada con statusId={}, statusName='{}'", 
-                       savedPromotion.getPromotionName(), finalStatusId, statusName);
+                       savedPromotion.getPromotionName(), savedPromotion.getStatus().getStatusId(), statusName);
             
             if (statusName.equalsIgnoreCase("ACTIVE")) {
                 logger.info("🚨 Nueva promoción '{}' creada con estado ACTIVE - Disparando evento de notificación", 
@@ -349,8 +481,8 @@ public class PromotionService {
                 eventPublisher.publishEvent(new PromotionActivatedEvent(this, savedPromotion));
             }
         } else {
-            logger.warn("⚠️ Promoción '{}' creada pero sin estado definido: statusId={}, status={}", 
-                       savedPromotion.getPromotionName(), finalStatusId, savedPromotion.getStatus());
+            logger.warn("⚠️ Promoción '{}' creada pero sin estado definido: statusId={}", 
+                       savedPromotion.getPromotionName(), statusId);
         }
         
         return savedPromotion;
@@ -398,20 +530,18 @@ public class PromotionService {
         }
         
         // 🤖 RECALCULAR ESTADO AUTOMÁTICAMENTE si las fechas cambiaron y no se proporciona statusId manual
-        Integer finalStatusId = statusId;
-        if (statusId == null && datesChanged) {
-            finalStatusId = calculatePromotionStatus(promotion.getStartDate(), promotion.getEndDate());
-            logger.info("🤖 Estado recalculado automáticamente para '{}' debido a cambio de fechas: statusId={}", 
-                       promotion.getPromotionName(), finalStatusId);
-        }
-        
-        // Actualizar entidades relacionadas
         String newStatusName = null;
-        if (finalStatusId != null) {
-            Status status = statusRepository.findById(finalStatusId).orElse(null);
+        if (statusId == null && datesChanged) {
+            Status status = calculatePromotionStatus(promotion.getStartDate(), promotion.getEndDate());
+            logger.info("🤖 Estado recalculado automáticamente para '{}' debido a cambio de fechas: {}", 
+                       promotion.getPromotionName(), status.getStatusName());
+            promotion.setStatus(status);
+            newStatusName = status.getStatusName();
+        } else if (statusId != null) {
+            Status status = referenceDataRegistry.findStatus(statusId).orElse(null);
             promotion.setStatus(status);
             newStatusName = status != null ? status.getStatusName() : null;
-        } else if (statusId == null && !datesChanged) {
+        } else {
             // Mantener el estado actual si no hay cambios de fechas ni statusId manual
             newStatusName = previousStatusName;
         }
@@ -422,12 +552,13 @@ public class PromotionService {
         }
         
         if (categoryId != null) {
-            Category category = categoryRepository.findById(categoryId).orElse(null);
+            Category category = referenceDataRegistry.findCategory(categoryId).orElse(null);
             promotion.setCategory(category);
         }
         
         // Guardar la promoción
         Promotion savedPromotion = promotionRepository.save(promotion);
+        eventPublisher.publishEvent(PromotionChangedEvent.upserted(this, PromotionInterval.from(savedPromotion)));
         
         // 🔔 DETECTAR CAMBIO A ESTADO ACTIVE Y DISPARAR EVENTO
         boolean wasNotActive = previousStatusName == null || !previousStatusName.equalsIgnoreCase("ACTIVE");
@@ -503,7 +634,8 @@ public class PromotionService {
             restoredPromotion.setCategory(deletedPromotion.getCategory());
             
             // Guardar promoción restaurada
-            promotionRepository.save(restoredPromotion);
+            Promotion savedPromotion = promotionRepository.save(restoredPromotion);
+            eventPublisher.publishEvent(PromotionChangedEvent.upserted(this, PromotionInterval.from(savedPromotion)));
             
             // Eliminar de papelera
             promotionDeletedRepository.delete(deletedPromotion);
@@ -530,6 +662,11 @@ public class PromotionService {
             // 2. Llamar a la función de BD que hace automáticamente el proceso de restauración
             promotionRepository.restorePromotionUsingFunction(promotionId);
             
+            // 3. La función de BD inserta la fila por su cuenta: se lee su intervalo para invalidar solo esa promoción
+            eventPublisher.publishEvent(promotionRepository.findIntervalById(promotionId)
+                .map(interval -> PromotionChangedEvent.upserted(this, interval))
+                .orElseGet(() -> PromotionChangedEvent.reloadAll(this)));
+            
             return true;
             
         } catch (Exception e) {
@@ -620,6 +757,7 @@ public class PromotionService {
             //    - trg_promotions_deleted_guard: Impide duplicados en promotions_deleted
             Promotion promotion = promotionOpt.get();
             promotionRepository.delete(promotion);
+            eventPublisher.publishEvent(PromotionChangedEvent.deleted(this, promotionId));
             
             logger.info("Promoción {} eliminada exitosamente", promotionId);
             return true;
@@ -660,7 +798,8 @@ public class PromotionService {
     }
 
     /**
-     * Asocia productos a una promoción
+     * Asocia productos a una promoción.
+     * 
      * @param promotionId ID de la promoción
      * @param productIds Lista de IDs de productos a asociar
      * @return true si se asociaron correctamente, false en caso contrario
@@ -668,23 +807,11 @@ public class PromotionService {
     @Transactional
     public boolean associateProductsToPromotion(Integer promotionId, List<Integer> productIds) {
         try {
-            // Verificar que la promoción existe
-            Optional<Promotion> promotionOpt = promotionRepository.findById(promotionId);
-            if (!promotionOpt.isPresent()) {
+            Optional<ProductAssociationResult> result = associateProducts(promotionId, productIds);
+            if (result.isEmpty()) {
                 logger.warn("Promotion with ID {} not found for product association", promotionId);
                 return false;
             }
-
-            Promotion promotion = promotionOpt.get();
-            
-            // Asociar productos a la promoción
-            for (Integer productId : productIds) {
-                productRepository.findById(productId).ifPresent(product -> {
-                    product.setPromotion(promotion);
-                    productRepository.save(product);
-                });
-            }
-            
             logger.info("Successfully associated products {} to promotion {}", productIds, promotionId);
             return true;
             
@@ -704,24 +831,11 @@ public class PromotionService {
     @Transactional
     public boolean removeProductsFromPromotion(Integer promotionId, List<Integer> productIds) {
         try {
-            // Verificar que la promoción existe
-            Optional<Promotion> promotionOpt = promotionRepository.findById(promotionId);
-            if (!promotionOpt.isPresent()) {
+            Optional<ProductAssociationResult> result = removeProducts(promotionId, productIds);
+            if (result.isEmpty()) {
                 logger.warn("Promotion with ID {} not found for product removal", promotionId);
                 return false;
             }
-            
-            // Remover productos de la promoción
-            for (Integer productId : productIds) {
-                productRepository.findById(productId).ifPresent(product -> {
-                    if (product.getPromotion() != null 
-                        && product.getPromotion().getPromotionId().equals(promotionId)) {
-                        product.setPromotion(null);
-                        productRepository.save(product);
-                    }
-                });
-            }
-            
             logger.info("Successfully removed products {} from promotion {}", 
                        productIds, promotionId);
             return true;
@@ -732,4 +846,112 @@ public class PromotionService {
             return false;
         }
     }
+
+    // === ASOCIACIÓN MASIVA PRODUCTO-PROMOCIÓN ===
+
+    /**
+     * Asocia productos a una promoción con sentencias por conjuntos: una consulta valida todos los IDs
+     * y UPDATE por bloques de {@value #ASSOCIATION_CHUNK_SIZE} asignan los productos libres.
+     * Los productos que ya pertenecen a otra promoción no se modifican.
+     *
+     * @return resultado por producto, o vacío si la promoción no existe
+     */
+    @Transactional
+    public Optional<ProductAssociationResult> associateProducts(Integer promotionId, Collection<Integer> productIds) {
+        if (!promotionRepository.existsById(promotionId)) {
+            return Optional.empty();
+        }
+        Map<Integer, Integer> currentLinks = findPromotionLinks(productIds);
+        Map<Integer, Outcome> outcomes = new LinkedHashMap<>();
+        List<Integer> toAssign = new ArrayList<>();
+        for (Integer productId : productIds) {
+            if (productId == null || outcomes.containsKey(productId)) {
+                continue;
+            }
+            if (!currentLinks.containsKey(productId)) {
+                outcomes.put(productId, Outcome.MISSING);
+            } else if (currentLinks.get(productId) == null) {
+                outcomes.put(productId, Outcome.ASSOCIATED);
+                toAssign.add(productId);
+            } else if (currentLinks.get(productId).equals(promotionId)) {
+                outcomes.put(productId, Outcome.ALREADY_ASSOCIATED);
+            } else {
+                outcomes.put(productId, Outcome.IN_OTHER_PROMOTION);
+            }
+        }
+
+        Promotion promotion = promotionRepository.getReferenceById(promotionId);
+        int updated = 0;
+        for (List<Integer> chunk : chunks(toAssign, ASSOCIATION_CHUNK_SIZE)) {
+            updated += productRepository.assignPromotion(promotion, chunk);
+        }
+        if (updated != toAssign.size()) {
+            logger.warn("Asociación a la promoción {}: {} productos actualizados de {} esperados", promotionId, updated, toAssign.size());
+        }
+        if (updated > 0) {
+            catalogVersion.bump();
+        }
+        return Optional.of(new ProductAssociationResult(promotionId, outcomes));
+    }
+
+    /**
+     * Quita productos de una promoción con sentencias por conjuntos (ver {@link #associateProducts}).
+     * Los productos que no pertenecen a esta promoción no se modifican.
+     *
+     * @return resultado por producto, o vacío si la promoción no existe
+     */
+    @Transactional
+    public Optional<ProductAssociationResult> removeProducts(Integer promotionId, Collection<Integer> productIds) {
+        if (!promotionRepository.existsById(promotionId)) {
+            return Optional.empty();
+        }
+        Map<Integer, Integer> currentLinks = findPromotionLinks(productIds);
+        Map<Integer, Outcome> outcomes = new LinkedHashMap<>();
+        List<Integer> toRemove = new ArrayList<>();
+        for (Integer productId : productIds) {
+            if (productId == null || outcomes.containsKey(productId)) {
+                continue;
+            }
+            if (!currentLinks.containsKey(productId)) {
+                outcomes.put(productId, Outcome.MISSING);
+            } else if (promotionId.equals(currentLinks.get(productId))) {
+                outcomes.put(productId, Outcome.REMOVED);
+                toRemove.add(productId);
+            } else {
+                outcomes.put(productId, Outcome.NOT_IN_PROMOTION);
+            }
+        }
+
+        Promotion promotion = promotionRepository.getReferenceById(promotionId);
+        int updated = 0;
+        for (List<Integer> chunk : chunks(toRemove, ASSOCIATION_CHUNK_SIZE)) {
+            updated += productRepository.clearPromotion(promotion, chunk);
+        }
+        if (updated > 0) {
+            catalogVersion.bump();
+        }
+        return Optional.of(new ProductAssociationResult(promotionId, outcomes));
+    }
+
+    /**
+     * Promoción actual de cada producto existente (valor null si no tiene)
+     */
+    private Map<Integer, Integer> findPromotionLinks(Collection<Integer> productIds) {
+        Map<Integer, Integer> links = new HashMap<>();
+        List<Integer> distinctIds = productIds.stream().filter(Objects::nonNull).distinct().toList();
+        for (List<Integer> chunk : chunks(distinctIds, VALIDATION_CHUNK_SIZE)) {
+            for (Object[] row : productRepository.findPromotionLinks(chunk)) {
+                links.put((Integer) row[0], (Integer) row[1]);
+            }
+        }
+        return links;
+    }
+
+    private static List<List<Integer>> chunks(List<Integer> ids, int size) {
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += size) {
+            chunks.add(ids.subList(from, Math.min(from + size, ids.size())));
+        }
+        return chunks;
+    }
 }
@@ -0,0 +1,466 @@
+package com.petstore.backend.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petstore.backend.dto.SalesEventDTO;
+import com.petstore.backend.dto.SalesIngestionResult;
+import com.petstore.backend.event.PromotionMetricsChangedEvent;
+import com.petstore.backend.util.Money;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Ingesta de ventas de alto volumen.
+ *
+ * Los eventos se acumulan en memoria por (promoción, producto) con {@link LongAdder}
+ * (contadores con celdas repartidas entre hilos), así que aceptar un lote no toca la BD.
+ * Un job de intervalo corto vacía el acumulador y escribe cada clave una sola vez con
+ * sentencias JDBC por lotes: inserta la fila de métricas que falte y suma los deltas. Después
+ * suma al rollup de cada promoción tocada los deltas agregados y agrega un punto a su serie.
+ *
+ * Las claves cuyo producto no pertenece a la promoción (o que no existen) no se escriben y se
+ * cuentan como descartadas. Una clave cuyas unidades desbordarían la columna entera se aparta
+ * (se registra con sus valores y se cuenta) en lugar de volver a la cola en cada volcado.
+ *
+ * Si la BD no está disponible (error transitorio) todo el volcado vuelve al acumulador. Cualquier
+ * otro error se aísla: se reintenta cada promoción en su propia transacción y, si vuelve a fallar,
+ * cada clave por separado; las claves que siguen fallando se apartan igual que un desborde, así
+ * una clave envenenada no bloquea los volcados siguientes.
+ */
+@Service
+public class SalesIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesIngestionService.class);
+
+    // Crea la fila de métricas de las claves nuevas (inventario inicial = SKU, igual que initializeMetricsForPromotion)
+    static final String INSERT_MISSING_SQL =
+        "INSERT INTO promotion_metrics (promotion_id, product_id, initial_inventory, current_inventory, units_sold, " +
+        "sku_variation_percentage, revenue_generated, snapshot_date, created_at, version) " +
+        "SELECT pr.promotion_id, p.product_id, COALESCE(p.sku, 50), COALESCE(p.sku, 50), 0, 0, 0, ?, ?, 0 " +
+        "FROM promotions pr, products p WHERE pr.promotion_id = ? AND p.product_id = ? " +
+        "AND p.promotion_id = pr.promotion_id AND NOT EXISTS (SELECT 1 FROM promotion_metrics m WHERE m.promotion_id = pr.promotion_id " +
+        "AND m.product_id = p.product_id)";
+
+    // Suma los deltas en una sola sentencia por clave (los SET usan los valores previos de la fila)
+    static final String APPLY_DELTA_SQL =
+        "UPDATE promotion_metrics SET units_sold = units_sold + ?, " +
+        "current_inventory = GREATEST(current_inventory - ?, 0), " +
+        "revenue_generated = COALESCE(revenue_generated, 0) + ?, " +
+        "sku_variation_percentage = CASE WHEN initial_inventory > 0 " +
+        "THEN (units_sold + ?) * 100.0 / initial_inventory ELSE 0 END, " +
+        "snapshot_date = ?, updated_at = ?, version = version + 1 " +
+        "WHERE promotion_id = ? AND product_id = ?";
+
+    // Estado de las filas de una promoción antes de sumar los deltas (se bloquean hasta el commit)
+    static final String SELECT_ROWS_SQL =
+        "SELECT product_id, initial_inventory, current_inventory, units_sold FROM promotion_metrics " +
+        "WHERE promotion_id = ? AND product_id IN (%s) FOR UPDATE";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PromotionMetricsService promotionMetricsService;
+    private final PromotionMetricsSeriesService seriesService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int maxBatchSize;
+    private final int jdbcBatchSize;
+    private final Counter acceptedEvents;
+    private final Counter rejectedEvents;
+    private final Counter droppedEvents;
+    private final Counter deadLetteredEvents;
+
+    // Los lotes escriben con el lock compartido; el volcado cambia el mapa con el exclusivo
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final Lock flushLock = new ReentrantLock();
+    private volatile Map<SalesKey, SalesAccumulator> pending = new ConcurrentHashMap<>();
+
+    public SalesIngestionService(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 PromotionMetricsService promotionMetricsService,
+                                 PromotionMetricsSeriesService seriesService,
+                                 ApplicationEventPublisher eventPublisher,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.sales.ingest.max-batch-size:10000}") int maxBatchSize,
+                                 @Value("${app.sales.ingest.jdbc-batch-size:500}") int jdbcBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.promotionMetricsService = promotionMetricsService;
+        this.seriesService = seriesService;
+        this.eventPublisher = eventPublisher;
+        this.maxBatchSize = maxBatchSize;
+        this.jdbcBatchSize = jdbcBatchSize;
+        this.acceptedEvents = Counter.builder("sales.ingest.events").tag("result", "accepted")
+            .description("Eventos de venta recibidos por la ingesta por lotes").register(meterRegistry);
+        this.rejectedEvents = Counter.builder("sales.ingest.events").tag("result", "rejected")
+            .description("Eventos de venta recibidos por la ingesta por lotes").register(meterRegistry);
+        this.droppedEvents = Counter.builder("sales.ingest.events").tag("result", "dropped")
+            .description("Eventos aceptados descartados al volcar: el producto no pertenece a la promoción")
+            .register(meterRegistry);
+        this.deadLetteredEvents = Counter.builder("sales.ingest.events").tag("result", "dead_lettered")
+            .description("Eventos aceptados apartados al volcar: las unidades desbordarían la fila de métricas " +
+                "o la clave no se pudo escribir")
+            .register(meterRegistry);
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Acumula un lote de ventas en memoria. Los eventos inválidos se descartan y se cuentan; la
+     * pertenencia del producto a la promoción se verifica al volcar (métrica {@code dropped}).
+     */
+    public SalesIngestionResult ingest(List<SalesEventDTO> events) {
+        if (events.size() > maxBatchSize) {
+            throw new IllegalArgumentException("El lote supera el máximo de " + maxBatchSize + " eventos");
+        }
+
+        int accepted = 0;
+        int rejected = 0;
+        Lock lock = swapLock.readLock();
+        lock.lock();
+        try {
+            Map<SalesKey, SalesAccumulator> target = pending;
+            for (SalesEventDTO event : events) {
+                if (!isValid(event)) {
+                    rejected++;
+                    continue;
+                }
+                long revenueCents = Money.revenueCents(Money.toCents(event.unitPrice()), event.units());
+                target.computeIfAbsent(new SalesKey(event.promotionId(), event.productId()), key -> new SalesAccumulator())
+                    .add(1, event.units(), revenueCents);
+                accepted++;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        acceptedEvents.increment(accepted);
+        rejectedEvents.increment(rejected);
+        return new SalesIngestionResult(accepted, rejected);
+    }
+
+    /**
+     * Vuelca a la BD las ventas acumuladas. Si la BD no está disponible, los deltas vuelven al
+     * acumulador para el próximo intento; ante otro error se reintenta por promoción y por clave.
+     * Devuelve el número de claves escritas (sin las descartadas ni las apartadas).
+     */
+    @Scheduled(fixedDelayString = "${app.sales.ingest.flush-interval:PT1S}")
+    public int flush() {
+        flushLock.lock();
+        try {
+            List<SalesDelta> deltas = drain();
+            if (deltas.isEmpty()) {
+                return 0;
+            }
+            try {
+                return writeInTransaction(deltas);
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    logger.error("Error volcando {} claves de ventas, se reintentará: {}", deltas.size(), e.getMessage(), e);
+                    requeue(deltas);
+                    return 0;
+                }
+                logger.warn("Error volcando {} claves de ventas, se reintenta por promoción: {}", deltas.size(), e.getMessage());
+                return writeIsolated(deltas);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Reintenta cada promoción en su propia transacción y, si falla, cada una de sus claves. Lo que
+     * falla por un error transitorio vuelve al acumulador; una clave que falla sola se aparta.
+     */
+    private int writeIsolated(List<SalesDelta> deltas) {
+        Map<Integer, List<SalesDelta>> byPromotion = new TreeMap<>();
+        deltas.forEach(delta -> byPromotion.computeIfAbsent(delta.promotionId(), id -> new ArrayList<>()).add(delta));
+
+        int written = 0;
+        for (List<SalesDelta> promotionDeltas : byPromotion.values()) {
+            try {
+                written += writeInTransaction(promotionDeltas);
+                continue;
+            } catch (RuntimeException e) {
+                if (isTransient(e) || promotionDeltas.size() == 1) {
+                    written += handleKeyFailure(promotionDeltas.get(0), promotionDeltas, e);
+                    continue;
+                }
+            }
+            for (SalesDelta delta : promotionDeltas) {
+                try {
+                    written += writeInTransaction(List.of(delta));
+                } catch (RuntimeException e) {
+                    handleKeyFailure(delta, List.of(delta), e);
+                }
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Devuelve al acumulador los deltas si el error es transitorio; si no, aparta la clave que falló
+     */
+    private int handleKeyFailure(SalesDelta delta, List<SalesDelta> failed, RuntimeException e) {
+        if (isTransient(e)) {
+            logger.error("Error volcando {} claves de ventas de la promoción {}, se reintentará: {}",
+                failed.size(), delta.promotionId(), e.getMessage());
+            requeue(failed);
+            return 0;
+        }
+        logger.error("Ventas apartadas: la fila de métricas de promoción {} producto {} no se pudo escribir " +
+            "({} unidades, {} centavos, {} eventos): {}", delta.promotionId(), delta.productId(),
+            delta.units(), delta.revenueCents(), delta.events(), e.getMessage(), e);
+        deadLetteredEvents.increment(delta.events());
+        return 0;
+    }
+
+    private int writeInTransaction(List<SalesDelta> deltas) {
+        Integer written = transactionTemplate.execute(status -> write(deltas));
+        return written != null ? written : 0;
+    }
+
+    /**
+     * Errores de conexión, bloqueo o transacción: el mismo volcado puede funcionar más tarde
+     */
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException || e instanceof RecoverableDataAccessException
+            || e instanceof DataAccessResourceFailureException || e instanceof TransactionException;
+    }
+
+    /**
+     * Vuelca lo pendiente al detener la aplicación
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Número de claves (promoción, producto) pendientes de volcar
+     */
+    public int pendingKeys() {
+        return pending.size();
+    }
+
+    private List<SalesDelta> drain() {
+        Map<SalesKey, SalesAccumulator> drained;
+        Lock lock = swapLock.writeLock();
+        lock.lock();
+        try {
+            drained = pending;
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            lock.unlock();
+        }
+
+        List<SalesDelta> deltas = new ArrayList<>(drained.size());
+        drained.forEach((key, accumulator) -> deltas.add(
+            new SalesDelta(key.promotionId(), key.productId(), accumulator.events.sum(),
+                accumulator.units.sum(), accumulator.revenueCents.sum())));
+        return deltas;
+    }
+
+    private void requeue(List<SalesDelta> deltas) {
+        Lock lock = swapLock.readLock();
+        lock.lock();
+        try {
+            Map<SalesKey, SalesAccumulator> target = pending;
+            for (SalesDelta delta : deltas) {
+                target.computeIfAbsent(new SalesKey(delta.promotionId(), delta.productId()), key -> new SalesAccumulator())
+                    .add(delta.events(), delta.units(), delta.revenueCents());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int write(List<SalesDelta> deltas) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Map<Integer, List<SalesDelta>> byPromotion = new TreeMap<>();
+        deltas.forEach(delta -> byPromotion.computeIfAbsent(delta.promotionId(), id -> new ArrayList<>()).add(delta));
+
+        // Filas ya existentes; las que falten se crean solo si el producto pertenece a la promoción
+        Map<SalesKey, MetricsRow> before = loadRows(byPromotion);
+        List<SalesDelta> missing = deltas.stream().filter(delta -> !before.containsKey(delta.key())).toList();
+        Map<SalesKey, MetricsRow> created = Collections.emptyMap();
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_MISSING_SQL, missing, jdbcBatchSize, (ps, delta) -> {
+                ps.setTimestamp(1, now);
+                ps.setTimestamp(2, now);
+                ps.setInt(3, delta.promotionId());
+                ps.setInt(4, delta.productId());
+            });
+            Map<Integer, List<SalesDelta>> missingByPromotion = new TreeMap<>();
+            missing.forEach(delta -> missingByPromotion.computeIfAbsent(delta.promotionId(), id -> new ArrayList<>()).add(delta));
+            created = loadRows(missingByPromotion);
+        }
+
+        List<SalesDelta> writable = new ArrayList<>(deltas.size());
+        Map<Integer, RollupDelta> rollupDeltas = new TreeMap<>();
+        for (SalesDelta delta : deltas) {
+            MetricsRow row = before.get(delta.key());
+            boolean isNew = row == null;
+            if (isNew) {
+                row = created.get(delta.key());
+            }
+            if (row == null) {
+                logger.warn("Ventas descartadas: el producto {} no pertenece a la promoción {} ({} eventos)",
+                    delta.productId(), delta.promotionId(), delta.events());
+                droppedEvents.increment(delta.events());
+                continue;
+            }
+            if (row.unitsSold() + delta.units() > Integer.MAX_VALUE) {
+                logger.error("Ventas apartadas: las unidades desbordan la fila de métricas de promoción {} producto {} " +
+                    "(vendidas {}, delta {} unidades, {} centavos, {} eventos)", delta.promotionId(), delta.productId(),
+                    row.unitsSold(), delta.units(), delta.revenueCents(), delta.events());
+                deadLetteredEvents.increment(delta.events());
+                continue;
+            }
+            writable.add(delta);
+            rollupDeltas.computeIfAbsent(delta.promotionId(), id -> new RollupDelta()).add(row, isNew, delta);
+        }
+
+        if (!writable.isEmpty()) {
+            jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, writable, jdbcBatchSize, (ps, delta) -> {
+                ps.setInt(1, (int) delta.units());
+                ps.setInt(2, (int) delta.units());
+                ps.setBigDecimal(3, Money.toBigDecimal(delta.revenueCents()));
+                ps.setInt(4, (int) delta.units());
+                ps.setTimestamp(5, now);
+                ps.setTimestamp(6, now);
+                ps.setInt(7, delta.promotionId());
+                ps.setInt(8, delta.productId());
+            });
+        }
+
+        // Un UPDATE de deltas agregados por promoción tocada, en la misma transacción
+        rollupDeltas.forEach((promotionId, rollup) -> {
+            if (rollup.fitsInInt()) {
+                promotionMetricsService.applyRollupDelta(promotionId, (int) rollup.products, (int) rollup.unitsSold,
+                    Money.toBigDecimal(rollup.revenueCents), (int) rollup.initialInventory,
+                    (int) rollup.currentInventory, rollup.skuVariation);
+            } else {
+                promotionMetricsService.rebuildRollup(promotionId);
+            }
+            seriesService.record(promotionId);
+            eventPublisher.publishEvent(new PromotionMetricsChangedEvent(this, promotionId));
+        });
+        return writable.size();
+    }
+
+    /**
+     * Lee y bloquea las filas de métricas de las claves indicadas (una consulta por promoción y
+     * bloque de productos)
+     */
+    private Map<SalesKey, MetricsRow> loadRows(Map<Integer, List<SalesDelta>> byPromotion) {
+        Map<SalesKey, MetricsRow> rows = new HashMap<>();
+        byPromotion.forEach((promotionId, promotionDeltas) -> {
+            for (int from = 0; from < promotionDeltas.size(); from += jdbcBatchSize) {
+                List<SalesDelta> chunk = promotionDeltas.subList(from, Math.min(from + jdbcBatchSize, promotionDeltas.size()));
+                String sql = String.format(SELECT_ROWS_SQL, String.join(",", Collections.nCopies(chunk.size(), "?")));
+                jdbcTemplate.query(sql, ps -> {
+                    ps.setInt(1, promotionId);
+                    for (int i = 0; i < chunk.size(); i++) {
+                        ps.setInt(i + 2, chunk.get(i).productId());
+                    }
+                }, (rs, rowNum) -> new MetricsRow(rs.getInt("product_id"), rs.getInt("initial_inventory"),
+                    rs.getInt("current_inventory"), rs.getInt("units_sold")))
+                    .forEach(row -> rows.put(new SalesKey(promotionId, row.productId()), row));
+            }
+        });
+        return rows;
+    }
+
+    private static boolean isValid(SalesEventDTO event) {
+        return event != null && event.promotionId() != null && event.productId() != null
+            && event.units() != null && event.units() > 0
+            && event.unitPrice() != null && event.unitPrice().signum() >= 0;
+    }
+
+    private record SalesKey(Integer promotionId, Integer productId) {
+    }
+
+    private record SalesDelta(Integer promotionId, Integer productId, long events, long units, long revenueCents) {
+        SalesKey key() {
+            return new SalesKey(promotionId, productId);
+        }
+    }
+
+    record MetricsRow(Integer productId, int initialInventory, int currentInventory, int unitsSold) {
+    }
+
+    /**
+     * Deltas del rollup de una promoción: los mismos cambios que APPLY_DELTA_SQL hace en cada fila
+     */
+    private static final class RollupDelta {
+        private long products;
+        private long unitsSold;
+        private long revenueCents;
+        private long initialInventory;
+        private long currentInventory;
+        private double skuVariation;
+
+        void add(MetricsRow row, boolean isNew, SalesDelta delta) {
+            long inventoryAfter = Math.max(row.currentInventory() - delta.units(), 0);
+            if (isNew) {
+                products++;
+                initialInventory += row.initialInventory();
+                currentInventory += inventoryAfter;
+            } else {
+                currentInventory += inventoryAfter - row.currentInventory();
+            }
+            unitsSold += delta.units();
+            revenueCents += delta.revenueCents();
+            if (row.initialInventory() > 0) {
+                skuVariation += (double) delta.units() * 100 / row.initialInventory();
+            }
+        }
+
+        boolean fitsInInt() {
+            return unitsSold <= Integer.MAX_VALUE && initialInventory <= Integer.MAX_VALUE
+                && Math.abs(currentInventory) <= Integer.MAX_VALUE;
+        }
+    }
+
+    private static final class SalesAccumulator {
+        private final LongAdder events = new LongAdder();
+        private final LongAdder units = new LongAdder();
+        private final LongAdder revenueCents = new LongAdder();
+
+        void add(long eventCount, long unitsSold, long cents) {
+            events.add(eventCount);
+            units.add(unitsSold);
+            revenueCents.add(cents);
+        }
+    }
+}
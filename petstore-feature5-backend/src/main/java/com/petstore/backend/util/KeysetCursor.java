@@ -0,0 +1,43 @@
+package com.petstore.backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor opaco para paginación keyset: codifica el criterio de orden, el valor de la clave
+ * de orden de la última fila devuelta y su ID (desempate), en Base64 URL-safe.
+ *
+ * Formato interno: {@code sort|key|id}. El cliente nunca debe interpretarlo.
+ */
+public record KeysetCursor(String sort, String key, Integer id) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = sort + SEPARATOR + (key != null ? key : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor y verifica que corresponda al criterio de orden solicitado
+     *
+     * @throws IllegalArgumentException si el cursor está mal formado o es de otro orden
+     */
+    public static KeysetCursor decode(String cursor, String expectedSort) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+        String[] parts = raw.split("\\|", -1);
+        if (parts.length != 3 || !parts[0].equals(expectedSort)) {
+            throw new IllegalArgumentException("Cursor inválido para el orden '" + expectedSort + "'");
+        }
+        try {
+            return new KeysetCursor(parts[0], parts[1], Integer.valueOf(parts[2]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.petstore.backend.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Aritmética de importes en centavos ({@code long}) para los caminos de agregación e ingesta.
+ *
+ * Los precios y descuentos del catálogo son {@code Double} y las columnas de ingresos
+ * {@code NUMERIC(?, 2)}; dentro del pipeline de métricas los importes viajan como centavos
+ * enteros (sumas exactas y sin asignar objetos) y solo se pasan a {@link BigDecimal} al
+ * escribir en la BD o devolverlos por la API.
+ */
+public final class Money {
+
+    private static final int SCALE = 2;
+    private static final long BASIS_POINTS = 10_000L; // 100 % expresado en centésimas de punto
+
+    private Money() {
+    }
+
+    /**
+     * Centavos de un importe en {@code double} (redondeo al centavo más cercano)
+     */
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    /**
+     * Centavos de un importe decimal (redondeo HALF_UP); null cuenta como 0
+     *
+     * @throws ArithmeticException si el importe no cabe en un {@code long}
+     */
+    public static long toCents(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Importe decimal con escala 2 (solo en el borde: BD y API)
+     */
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * Precio unitario con descuento, redondeado al centavo (HALF_UP).
+     * El porcentaje se lleva a centésimas de punto para operar solo con enteros.
+     */
+    public static long discountedCents(long priceCents, double discountPercentage) {
+        long keptBasisPoints = BASIS_POINTS - Math.round(discountPercentage * 100);
+        if (keptBasisPoints <= 0) {
+            return 0L;
+        }
+        long scaled = Math.multiplyExact(priceCents, keptBasisPoints);
+        return Math.floorDiv(scaled + BASIS_POINTS / 2, BASIS_POINTS);
+    }
+
+    /**
+     * Ingresos de {@code units} unidades a un precio unitario en centavos
+     *
+     * @throws ArithmeticException si el resultado desborda un {@code long}
+     */
+    public static long revenueCents(long unitPriceCents, long units) {
+        return Math.multiplyExact(unitPriceCents, units);
+    }
+}
@@ -0,0 +1,313 @@
+package com.petstore.backend.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.IntConsumer;
+
+/**
+ * Conjunto inmutable de IDs de usuario (enteros no negativos) comprimido al estilo Roaring.
+ *
+ * Los IDs se agrupan por sus 16 bits altos; cada grupo guarda los 16 bits bajos en un arreglo
+ * ordenado de {@code char} si tiene hasta 4096 valores (2 bytes por ID) o en un bitmap de 8 KB si
+ * tiene más. Con IDs secuenciales un millón de usuarios ocupa unos 128 KB. {@link #with} y
+ * {@link #without} devuelven un conjunto nuevo que comparte todos los grupos salvo el modificado,
+ * así que el bitmap se puede publicar en una variable volatile y leer sin locks.
+ */
+public final class UserIdBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1024; // 65536 bits
+
+    private static final UserIdBitmap EMPTY = new UserIdBitmap(new char[0], new Container[0], 0);
+
+    private final char[] keys; // 16 bits altos de cada grupo, ordenados
+    private final Container[] containers;
+    private final int cardinality;
+
+    private UserIdBitmap(char[] keys, Container[] containers, int cardinality) {
+        this.keys = keys;
+        this.containers = containers;
+        this.cardinality = cardinality;
+    }
+
+    public static UserIdBitmap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Construye el conjunto con los IDs indicados (en cualquier orden, con o sin repetidos)
+     */
+    public static UserIdBitmap of(Collection<Integer> ids) {
+        int[] sorted = ids.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        if (sorted.length > 0 && sorted[0] < 0) {
+            throw new IllegalArgumentException("Los IDs de usuario no pueden ser negativos: " + sorted[0]);
+        }
+        char[] keys = new char[sorted.length];
+        Container[] containers = new Container[sorted.length];
+        int groups = 0;
+        for (int start = 0; start < sorted.length; ) {
+            char key = high(sorted[start]);
+            int end = start;
+            while (end < sorted.length && high(sorted[end]) == key) {
+                end++;
+            }
+            keys[groups] = key;
+            containers[groups] = Container.of(sorted, start, end);
+            groups++;
+            start = end;
+        }
+        return new UserIdBitmap(Arrays.copyOf(keys, groups), Arrays.copyOf(containers, groups), sorted.length);
+    }
+
+    public boolean contains(int id) {
+        if (id < 0) {
+            return false;
+        }
+        int index = Arrays.binarySearch(keys, high(id));
+        return index >= 0 && containers[index].contains(low(id));
+    }
+
+    /**
+     * Conjunto con el ID agregado (el mismo si ya estaba)
+     */
+    public UserIdBitmap with(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Los IDs de usuario no pueden ser negativos: " + id);
+        }
+        int index = Arrays.binarySearch(keys, high(id));
+        if (index >= 0) {
+            Container updated = containers[index].add(low(id));
+            if (updated == containers[index]) {
+                return this;
+            }
+            Container[] copy = containers.clone();
+            copy[index] = updated;
+            return new UserIdBitmap(keys, copy, cardinality + 1);
+        }
+        int insertAt = -index - 1;
+        char[] newKeys = new char[keys.length + 1];
+        Container[] newContainers = new Container[containers.length + 1];
+        System.arraycopy(keys, 0, newKeys, 0, insertAt);
+        System.arraycopy(containers, 0, newContainers, 0, insertAt);
+        newKeys[insertAt] = high(id);
+        newContainers[insertAt] = new ArrayContainer(new char[] {low(id)});
+        System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+        System.arraycopy(containers, insertAt, newContainers, insertAt + 1, containers.length - insertAt);
+        return new UserIdBitmap(newKeys, newContainers, cardinality + 1);
+    }
+
+    /**
+     * Conjunto sin el ID (el mismo si no estaba)
+     */
+    public UserIdBitmap without(int id) {
+        int index = id < 0 ? -1 : Arrays.binarySearch(keys, high(id));
+        if (index < 0 || !containers[index].contains(low(id))) {
+            return this;
+        }
+        Container updated = containers[index].remove(low(id));
+        if (updated != null) {
+            Container[] copy = containers.clone();
+            copy[index] = updated;
+            return new UserIdBitmap(keys, copy, cardinality - 1);
+        }
+        // El grupo quedó vacío
+        char[] newKeys = new char[keys.length - 1];
+        Container[] newContainers = new Container[containers.length - 1];
+        System.arraycopy(keys, 0, newKeys, 0, index);
+        System.arraycopy(containers, 0, newContainers, 0, index);
+        System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+        System.arraycopy(containers, index + 1, newContainers, index, containers.length - index - 1);
+        return new UserIdBitmap(newKeys, newContainers, cardinality - 1);
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    /**
+     * Recorre los IDs en orden ascendente
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    /**
+     * Bytes aproximados que ocupan los grupos (para métricas)
+     */
+    public long sizeInBytes() {
+        long bytes = keys.length * 2L;
+        for (Container container : containers) {
+            bytes += container.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private static char high(int id) {
+        return (char) (id >>> 16);
+    }
+
+    private static char low(int id) {
+        return (char) id;
+    }
+
+    /**
+     * Grupo de hasta 65536 IDs con los mismos 16 bits altos. Inmutable: los cambios devuelven otro.
+     */
+    private sealed interface Container permits ArrayContainer, BitmapContainer {
+
+        boolean contains(char value);
+
+        Container add(char value);
+
+        /**
+         * @return el grupo sin el valor, o null si quedó vacío
+         */
+        Container remove(char value);
+
+        void forEach(int base, IntConsumer action);
+
+        long sizeInBytes();
+
+        static Container of(int[] sorted, int start, int end) {
+            if (end - start <= ARRAY_MAX) {
+                char[] values = new char[end - start];
+                for (int i = start; i < end; i++) {
+                    values[i - start] = low(sorted[i]);
+                }
+                return new ArrayContainer(values);
+            }
+            long[] words = new long[BITMAP_WORDS];
+            for (int i = start; i < end; i++) {
+                char value = low(sorted[i]);
+                words[value >>> 6] |= 1L << value;
+            }
+            return new BitmapContainer(words, end - start);
+        }
+    }
+
+    private record ArrayContainer(char[] values) implements Container {
+
+        @Override
+        public boolean contains(char value) {
+            return Arrays.binarySearch(values, value) >= 0;
+        }
+
+        @Override
+        public Container add(char value) {
+            int index = Arrays.binarySearch(values, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (values.length == ARRAY_MAX) {
+                return toBitmap().add(value);
+            }
+            int insertAt = -index - 1;
+            char[] copy = new char[values.length + 1];
+            System.arraycopy(values, 0, copy, 0, insertAt);
+            copy[insertAt] = value;
+            System.arraycopy(values, insertAt, copy, insertAt + 1, values.length - insertAt);
+            return new ArrayContainer(copy);
+        }
+
+        @Override
+        public Container remove(char value) {
+            int index = Arrays.binarySearch(values, value);
+            if (index < 0) {
+                return this;
+            }
+            if (values.length == 1) {
+                return null;
+            }
+            char[] copy = new char[values.length - 1];
+            System.arraycopy(values, 0, copy, 0, index);
+            System.arraycopy(values, index + 1, copy, index, values.length - index - 1);
+            return new ArrayContainer(copy);
+        }
+
+        @Override
+        public void forEach(int base, IntConsumer action) {
+            for (char value : values) {
+                action.accept(base | value);
+            }
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return values.length * 2L;
+        }
+
+        private BitmapContainer toBitmap() {
+            long[] words = new long[BITMAP_WORDS];
+            for (char value : values) {
+                words[value >>> 6] |= 1L << value;
+            }
+            return new BitmapContainer(words, values.length);
+        }
+    }
+
+    private record BitmapContainer(long[] words, int cardinality) implements Container {
+
+        @Override
+        public boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        public Container add(char value) {
+            if (contains(value)) {
+                return this;
+            }
+            long[] copy = words.clone();
+            copy[value >>> 6] |= 1L << value;
+            return new BitmapContainer(copy, cardinality + 1);
+        }
+
+        @Override
+        public Container remove(char value) {
+            if (!contains(value)) {
+                return this;
+            }
+            if (cardinality - 1 <= ARRAY_MAX) {
+                // Vuelve a arreglo ordenado: con pocos valores ocupa menos que el bitmap
+                char[] values = new char[cardinality - 1];
+                int i = 0;
+                for (int word = 0; word < BITMAP_WORDS; word++) {
+                    long bits = words[word];
+                    while (bits != 0) {
+                        char current = (char) ((word << 6) | Long.numberOfTrailingZeros(bits));
+                        if (current != value) {
+                            values[i++] = current;
+                        }
+                        bits &= bits - 1;
+                    }
+                }
+                return new ArrayContainer(values);
+            }
+            long[] copy = words.clone();
+            copy[value >>> 6] &= ~(1L << value);
+            return new BitmapContainer(copy, cardinality - 1);
+        }
+
+        @Override
+        public void forEach(int base, IntConsumer action) {
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                long bits = words[word];
+                while (bits != 0) {
+                    action.accept(base | (word << 6) | Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                }
+            }
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return BITMAP_WORDS * 8L;
+        }
+    }
+}
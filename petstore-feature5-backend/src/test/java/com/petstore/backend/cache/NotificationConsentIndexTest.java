@@ -0,0 +1,82 @@
+package com.petstore.backend.cache;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.petstore.backend.entity.NotificationConsent.NotificationType;
+import com.petstore.backend.event.NotificationConsentChangedEvent;
+import com.petstore.backend.repository.NotificationConsentRepository;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationConsentIndexTest {
+
+    @Mock
+    private NotificationConsentRepository consentRepository;
+
+    private NotificationConsentIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new NotificationConsentIndex(consentRepository);
+    }
+
+    @Test
+    void hasConsent_ShouldLoadOnceAndAnswerFromMemory() {
+        when(consentRepository.findConsentingUserIds(NotificationType.EMAIL_PROMOTION)).thenReturn(List.of(1, 3));
+        when(consentRepository.findConsentingUserIds(NotificationType.EMAIL_GENERAL)).thenReturn(List.of(2));
+
+        assertTrue(index.hasConsent(1, NotificationType.EMAIL_PROMOTION));
+        assertFalse(index.hasConsent(2, NotificationType.EMAIL_PROMOTION));
+        assertTrue(index.hasConsent(2, NotificationType.EMAIL_GENERAL));
+        assertFalse(index.hasConsent(null, NotificationType.EMAIL_PROMOTION));
+        assertEquals(2, index.count(NotificationType.EMAIL_PROMOTION));
+
+        verify(consentRepository, times(1)).findConsentingUserIds(NotificationType.EMAIL_PROMOTION);
+    }
+
+    @Test
+    void onConsentChanged_ShouldUpdateOnlyTheUsersBit() {
+        when(consentRepository.findConsentingUserIds(any())).thenReturn(List.of(1));
+        index.warmUp();
+
+        index.onConsentChanged(new NotificationConsentChangedEvent(this, 5, NotificationType.EMAIL_PROMOTION, true));
+        index.onConsentChanged(new NotificationConsentChangedEvent(this, 1, NotificationType.EMAIL_PROMOTION, false));
+
+        assertTrue(index.hasConsent(5, NotificationType.EMAIL_PROMOTION));
+        assertFalse(index.hasConsent(1, NotificationType.EMAIL_PROMOTION));
+        assertTrue(index.hasConsent(1, NotificationType.EMAIL_GENERAL)); // Otro tipo, sin cambios
+        assertEquals(1, index.count(NotificationType.EMAIL_PROMOTION));
+    }
+
+    @Test
+    void update_BeforeTheFirstLoadShouldBeIgnored() {
+        index.update(5, NotificationType.EMAIL_PROMOTION, true);
+
+        verify(consentRepository, never()).findConsentingUserIds(any());
+    }
+
+    @Test
+    void reload_ShouldReplaceTheSnapshot() {
+        when(consentRepository.findConsentingUserIds(any())).thenReturn(List.of(1), List.of(), List.of(2), List.of());
+        index.warmUp();
+        assertTrue(index.hasConsent(1, NotificationType.EMAIL_PROMOTION));
+
+        index.reload(); // Cambios hechos desde otro nodo
+
+        assertFalse(index.hasConsent(1, NotificationType.EMAIL_PROMOTION));
+        assertTrue(index.hasConsent(2, NotificationType.EMAIL_PROMOTION));
+    }
+}
@@ -0,0 +1,196 @@
+package com.petstore.backend.cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.petstore.backend.dto.NotificationSendTime;
+import com.petstore.backend.entity.NotificationConsent.NotificationType;
+import com.petstore.backend.repository.NotificationLogRepository;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationRateLimiterTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 10, 14, 0);
+
+    @Mock
+    private NotificationLogRepository logRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private MutableClock clock;
+    private NotificationRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(NOW.toInstant(ZoneOffset.UTC));
+        rateLimiter = new NotificationRateLimiter(logRepository, jdbcTemplate, 3, Duration.ofHours(1), clock);
+    }
+
+    @Test
+    void tryAcquire_ShouldAllowUpToTheLimitPerWindow() {
+        assertTrue(rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION));
+        clock.advance(Duration.ofMinutes(10));
+        assertTrue(rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION));
+        assertTrue(rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION));
+
+        assertFalse(rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION));
+        assertTrue(rateLimiter.tryAcquire(1, NotificationType.EMAIL_GENERAL)); // Cada tipo tiene su cupo
+        assertTrue(rateLimiter.tryAcquire(2, NotificationType.EMAIL_PROMOTION));
+        assertEquals(3, rateLimiter.sentInWindow(1, NotificationType.EMAIL_PROMOTION));
+    }
+
+    @Test
+    void tryAcquire_ShouldFreeQuotaAsSendsLeaveTheWindow() {
+        rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION);
+        clock.advance(Duration.ofMinutes(30));
+        rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION);
+        rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION);
+
+        clock.advance(Duration.ofMinutes(31)); // El primer envío sale de la ventana; los otros dos siguen
+
+        assertTrue(rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION));
+        assertFalse(rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION));
+    }
+
+    @Test
+    void tryAcquire_ConcurrentSendsShouldNeverExceedTheLimit() throws InterruptedException {
+        AtomicInteger acquired = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 64; i++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    if (rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION)) {
+                        acquired.incrementAndGet();
+                    }
+                });
+            }
+            start.countDown();
+        }
+
+        assertEquals(3, acquired.get());
+    }
+
+    @Test
+    void warmUp_ShouldRebuildWindowsFromNotificationLogs() {
+        when(logRepository.findSendTimesSince(NOW.minusHours(1))).thenReturn(List.of(
+                new NotificationSendTime(1, NotificationType.EMAIL_PROMOTION, NOW.minusMinutes(50)),
+                new NotificationSendTime(1, NotificationType.EMAIL_PROMOTION, NOW.minusMinutes(20)),
+                new NotificationSendTime(1, NotificationType.EMAIL_PROMOTION, NOW.minusMinutes(5))));
+
+        rateLimiter.warmUp();
+
+        assertEquals(3, rateLimiter.sentInWindow(1, NotificationType.EMAIL_PROMOTION));
+        assertFalse(rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION));
+        clock.advance(Duration.ofMinutes(11));
+        assertTrue(rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkpoint_ShouldUpdateChangedKeysAndInsertMissingRows() {
+        when(jdbcTemplate.batchUpdate(eq(NotificationRateLimiter.UPDATE_SQL), any(Collection.class), anyInt(), any()))
+                .thenReturn(new int[][] {{1, 0}});
+        rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION);
+        rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION);
+        rateLimiter.tryAcquire(2, NotificationType.EMAIL_PROMOTION);
+
+        assertEquals(2, rateLimiter.checkpoint());
+
+        ArgumentCaptor<Collection<Object>> inserted = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(eq(NotificationRateLimiter.INSERT_SQL), inserted.capture(), anyInt(), any());
+        assertEquals(1, inserted.getValue().size());
+        assertEquals(0, rateLimiter.checkpoint()); // Sin cambios desde el último checkpoint
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkpoint_FailedWriteShouldBeRetried() {
+        when(jdbcTemplate.batchUpdate(eq(NotificationRateLimiter.UPDATE_SQL), any(Collection.class), anyInt(), any()))
+                .thenThrow(new DataAccessResourceFailureException("BD caída"))
+                .thenReturn(new int[][] {{1}});
+        rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION);
+
+        assertEquals(0, rateLimiter.checkpoint());
+        assertEquals(1, rateLimiter.checkpoint());
+        verify(jdbcTemplate, never()).batchUpdate(eq(NotificationRateLimiter.INSERT_SQL), any(Collection.class), anyInt(), any());
+    }
+
+    @Test
+    void checkpoint_ShouldDropWindowsWithoutRecentSends() {
+        when(jdbcTemplate.batchUpdate(eq(NotificationRateLimiter.UPDATE_SQL), any(Collection.class), anyInt(), any()))
+                .thenReturn(new int[][] {{1}});
+        rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION);
+        rateLimiter.checkpoint();
+        assertEquals(1, rateLimiter.size());
+
+        clock.advance(Duration.ofMinutes(61));
+        rateLimiter.checkpoint();
+
+        assertEquals(0, rateLimiter.size());
+        assertTrue(rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION));
+    }
+
+    /**
+     * Reloj que el test puede adelantar
+     */
+    private static final class MutableClock extends Clock {
+        private volatile Instant instant;
+
+        MutableClock(Instant start) {
+            this.instant = start;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
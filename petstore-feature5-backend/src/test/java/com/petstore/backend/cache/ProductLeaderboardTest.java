@@ -0,0 +1,147 @@
+package com.petstore.backend.cache;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.petstore.backend.cache.ProductLeaderboard.Ranking;
+import com.petstore.backend.dto.LatestProductMetrics;
+import com.petstore.backend.dto.ProductLeaderboardEntryDTO;
+import com.petstore.backend.event.PromotionChangedEvent;
+import com.petstore.backend.event.PromotionMetricsChangedEvent;
+import com.petstore.backend.repository.PromotionMetricsRepository;
+import com.petstore.backend.repository.PromotionRepository;
+
+@ExtendWith(MockitoExtension.class)
+class ProductLeaderboardTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 10);
+
+    @Mock
+    private PromotionRepository promotionRepository;
+
+    @Mock
+    private PromotionMetricsRepository promotionMetricsRepository;
+
+    private ProductLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        leaderboard = new ProductLeaderboard(promotionRepository, promotionMetricsRepository, clock);
+    }
+
+    @Test
+    void top_ShouldSumProductsAcrossActivePromotionsOnly() {
+        when(promotionRepository.findAllIntervals()).thenReturn(List.of(
+                active(1), active(2),
+                new PromotionInterval(3, TODAY.minusDays(1), TODAY.plusDays(1), 1, "EXPIRED"),
+                new PromotionInterval(4, TODAY.plusDays(1), TODAY.plusDays(5), 1, "ACTIVE")));
+        when(promotionMetricsRepository.findLatestSnapshotsByPromotionId(1)).thenReturn(List.of(
+                row(10, 1, 5, "100.00"), row(11, 2, 8, "40.00")));
+        when(promotionMetricsRepository.findLatestSnapshotsByPromotionId(2)).thenReturn(List.of(
+                row(10, 1, 4, "80.00"), row(12, 1, 7, "10.00")));
+
+        List<ProductLeaderboardEntryDTO> byUnits = leaderboard.top(Ranking.UNITS, 10, null);
+
+        assertEquals(List.of(10, 11, 12), productIds(byUnits));
+        assertEquals(9, byUnits.get(0).unitsSold());
+        assertEquals(2, byUnits.get(0).promotions());
+        assertEquals(List.of(10, 11), productIds(leaderboard.top(Ranking.REVENUE, 2, null)));
+        assertEquals(List.of(10, 12), productIds(leaderboard.top(Ranking.REVENUE, 10, 1)));
+        assertTrue(leaderboard.top(Ranking.UNITS, 10, 99).isEmpty());
+        verify(promotionMetricsRepository, never()).findLatestSnapshotsByPromotionId(3);
+        verify(promotionMetricsRepository, never()).findLatestSnapshotsByPromotionId(4);
+    }
+
+    @Test
+    void onMetricsChanged_ShouldReorderOnlyTheChangedPromotion() {
+        when(promotionRepository.findAllIntervals()).thenReturn(List.of(active(1), active(2)));
+        when(promotionMetricsRepository.findLatestSnapshotsByPromotionId(1)).thenReturn(
+                List.of(row(10, 1, 5, "50.00"), row(11, 1, 3, "30.00")),
+                List.of(row(10, 1, 5, "50.00"), row(11, 1, 9, "90.00")));
+        when(promotionMetricsRepository.findLatestSnapshotsByPromotionId(2)).thenReturn(List.of(row(11, 1, 1, "10.00")));
+        assertEquals(List.of(10, 11), productIds(leaderboard.top(Ranking.UNITS, 10, null)));
+
+        leaderboard.onMetricsChanged(new PromotionMetricsChangedEvent(this, 1));
+
+        List<ProductLeaderboardEntryDTO> top = leaderboard.top(Ranking.UNITS, 10, null);
+        assertEquals(List.of(11, 10), productIds(top));
+        assertEquals(10, top.get(0).unitsSold());
+        assertEquals(0, new BigDecimal("100.00").compareTo(top.get(0).revenue()));
+        verify(promotionMetricsRepository, times(1)).findLatestSnapshotsByPromotionId(2);
+        verify(promotionRepository, times(1)).findAllIntervals();
+    }
+
+    @Test
+    void onPromotionChanged_ShouldAddAndRemovePromotions() {
+        when(promotionRepository.findAllIntervals()).thenReturn(List.of(active(1)));
+        when(promotionMetricsRepository.findLatestSnapshotsByPromotionId(1)).thenReturn(List.of(row(10, 1, 5, "50.00")));
+        when(promotionMetricsRepository.findLatestSnapshotsByPromotionId(2)).thenReturn(List.of(row(10, 1, 2, "20.00")));
+        assertEquals(5, leaderboard.top(Ranking.UNITS, 1, null).get(0).unitsSold());
+
+        leaderboard.onPromotionChanged(PromotionChangedEvent.upserted(this, active(2)));
+        assertEquals(7, leaderboard.top(Ranking.UNITS, 1, null).get(0).unitsSold());
+
+        leaderboard.onPromotionChanged(PromotionChangedEvent.upserted(this,
+                new PromotionInterval(1, TODAY.minusDays(10), TODAY.minusDays(1), 1, "EXPIRED")));
+        assertEquals(2, leaderboard.top(Ranking.UNITS, 1, null).get(0).unitsSold());
+
+        leaderboard.onPromotionChanged(PromotionChangedEvent.deleted(this, 2));
+        assertEquals(0, leaderboard.size());
+    }
+
+    @Test
+    void events_BeforeFirstQueryShouldNotLoad() {
+        leaderboard.onMetricsChanged(new PromotionMetricsChangedEvent(this, 1));
+        leaderboard.onPromotionChanged(PromotionChangedEvent.upserted(this, active(1)));
+
+        verify(promotionRepository, never()).findAllIntervals();
+        verify(promotionMetricsRepository, never()).findLatestSnapshotsByPromotionId(any());
+    }
+
+    @Test
+    void top_ShouldClampLimit() {
+        List<PromotionInterval> intervals = List.of(active(1));
+        List<LatestProductMetrics> rows = new ArrayList<>();
+        for (int productId = 1; productId <= 150; productId++) {
+            rows.add(row(productId, 1, productId, "1.00"));
+        }
+        when(promotionRepository.findAllIntervals()).thenReturn(intervals);
+        when(promotionMetricsRepository.findLatestSnapshotsByPromotionId(1)).thenReturn(rows);
+
+        List<ProductLeaderboardEntryDTO> top = leaderboard.top(Ranking.UNITS, 500, null);
+        assertEquals(ProductLeaderboard.MAX_LIMIT, top.size());
+        assertEquals(150, top.get(0).productId());
+        assertEquals(1, leaderboard.top(Ranking.UNITS, 0, null).size());
+    }
+
+    private static PromotionInterval active(int promotionId) {
+        return new PromotionInterval(promotionId, TODAY.minusDays(2), TODAY.plusDays(2), 1, "ACTIVE");
+    }
+
+    private static LatestProductMetrics row(int productId, int categoryId, int unitsSold, String revenue) {
+        return new LatestProductMetrics(productId, "Producto " + productId, 100, 10.0, categoryId, "Categoría " + categoryId,
+                null, 10.0, 100, 100 - unitsSold, unitsSold, new BigDecimal(revenue), null, 100, null);
+    }
+
+    private static List<Integer> productIds(List<ProductLeaderboardEntryDTO> entries) {
+        return entries.stream().map(ProductLeaderboardEntryDTO::productId).toList();
+    }
+}
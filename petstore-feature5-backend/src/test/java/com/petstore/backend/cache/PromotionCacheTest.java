@@ -0,0 +1,175 @@
+package com.petstore.backend.cache;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.petstore.backend.entity.Category;
+import com.petstore.backend.entity.Promotion;
+import com.petstore.backend.entity.Role;
+import com.petstore.backend.entity.Status;
+import com.petstore.backend.entity.User;
+import com.petstore.backend.event.CategoryChangedEvent;
+import com.petstore.backend.event.PromotionChangedEvent;
+import com.petstore.backend.repository.PromotionRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class PromotionCacheTest {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    @Mock
+    private PromotionRepository promotionRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicLong nanoTime;
+    private PromotionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        nanoTime = new AtomicLong();
+        cache = new PromotionCache(promotionRepository, meterRegistry, 2, TTL, nanoTime::get);
+    }
+
+    @Test
+    void get_ShouldReadThroughOnceAndServeDetachedCopies() {
+        when(promotionRepository.findDetailedById(1)).thenReturn(Optional.of(promotion(1)));
+
+        Promotion first = cache.get(1).orElseThrow();
+        first.setPromotionName("Modificada por el llamador");
+        Promotion second = cache.get(1).orElseThrow();
+
+        assertNotSame(first, second);
+        assertEquals("Promo 1", second.getPromotionName());
+        assertEquals("ACTIVE", second.getStatus().getStatusName());
+        assertEquals("Perros", second.getCategory().getCategoryName());
+        assertEquals("admin", second.getUser().getUserName());
+        assertNull(second.getUser().getPassword());
+        verify(promotionRepository, times(1)).findDetailedById(1);
+        assertEquals(1.0, counter("cache.gets", "result", "hit"));
+        assertEquals(1.0, counter("cache.gets", "result", "miss"));
+    }
+
+    @Test
+    void get_WhenMissingShouldNotCacheAbsence() {
+        when(promotionRepository.findDetailedById(9)).thenReturn(Optional.empty());
+
+        assertTrue(cache.get(9).isEmpty());
+        assertTrue(cache.get(9).isEmpty());
+
+        verify(promotionRepository, times(2)).findDetailedById(9);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_AfterTtlShouldReload() {
+        when(promotionRepository.findDetailedById(1)).thenReturn(Optional.of(promotion(1)));
+        cache.get(1);
+
+        nanoTime.addAndGet(TTL.toNanos());
+        cache.get(1);
+
+        verify(promotionRepository, times(2)).findDetailedById(1);
+        assertEquals(1.0, counter("cache.evictions", "cause", "expired"));
+    }
+
+    @Test
+    void get_OverMaxSizeShouldEvictLeastRecentlyUsed() {
+        when(promotionRepository.findDetailedById(1)).thenReturn(Optional.of(promotion(1)));
+        when(promotionRepository.findDetailedById(2)).thenReturn(Optional.of(promotion(2)));
+        when(promotionRepository.findDetailedById(3)).thenReturn(Optional.of(promotion(3)));
+
+        cache.get(1);
+        cache.get(2);
+        cache.get(1); // 2 pasa a ser la menos usada
+        cache.get(3);
+        cache.get(1);
+        cache.get(2);
+
+        assertEquals(2, cache.size());
+        verify(promotionRepository, times(1)).findDetailedById(1);
+        verify(promotionRepository, times(2)).findDetailedById(2);
+        assertEquals(2.0, counter("cache.evictions", "cause", "size"));
+        assertEquals(2.0, meterRegistry.get("cache.size").gauge().value());
+    }
+
+    @Test
+    void onPromotionChanged_ShouldInvalidateOnlyChangedPromotion() {
+        when(promotionRepository.findDetailedById(1)).thenReturn(Optional.of(promotion(1)));
+        when(promotionRepository.findDetailedById(2)).thenReturn(Optional.of(promotion(2)));
+        cache.get(1);
+        cache.get(2);
+
+        cache.onPromotionChanged(PromotionChangedEvent.upserted(this,
+            new PromotionInterval(1, LocalDate.now(), LocalDate.now().plusDays(3), 1, "ACTIVE")));
+        cache.get(1);
+        cache.get(2);
+
+        verify(promotionRepository, times(2)).findDetailedById(1);
+        verify(promotionRepository, times(1)).findDetailedById(2);
+
+        cache.onPromotionChanged(PromotionChangedEvent.deleted(this, 2));
+        assertEquals(1, cache.size());
+
+        cache.onPromotionChanged(PromotionChangedEvent.reloadAll(this));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void onCategoryChanged_ShouldInvalidateEveryPromotion() {
+        when(promotionRepository.findDetailedById(1)).thenReturn(Optional.of(promotion(1)));
+        cache.get(1);
+
+        cache.onCategoryChanged(new CategoryChangedEvent(this, 1, false));
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_WhenInvalidatedDuringLoadShouldNotStoreStaleSnapshot() {
+        when(promotionRepository.findDetailedById(1)).thenAnswer(invocation -> {
+            cache.invalidate(1); // Una escritura confirma mientras se carga
+            return Optional.of(promotion(1));
+        });
+
+        assertTrue(cache.get(1).isPresent());
+        assertEquals(0, cache.size());
+    }
+
+    private double counter(String name, String tagKey, String tagValue) {
+        return meterRegistry.get(name).tag("cache", "promotions").tag(tagKey, tagValue).counter().count();
+    }
+
+    private static Promotion promotion(int id) {
+        Status active = new Status("ACTIVE");
+        active.setStatusId(1);
+        Category dogs = new Category("Perros", "Productos para perros");
+        dogs.setCategoryId(1);
+        User admin = new User("admin", "admin@petstore.com", "secreto", new Role("Marketing Admin"));
+        admin.setUserId(1);
+
+        Promotion promotion = new Promotion("Promo " + id, "Descripción", LocalDate.now(),
+            LocalDate.now().plusDays(10), 15.0, active);
+        promotion.setPromotionId(id);
+        promotion.setUser(admin);
+        promotion.setCategory(dogs);
+        return promotion;
+    }
+}
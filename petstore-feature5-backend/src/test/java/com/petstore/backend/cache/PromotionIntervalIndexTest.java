@@ -0,0 +1,186 @@
+package com.petstore.backend.cache;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.petstore.backend.event.PromotionChangedEvent;
+import com.petstore.backend.repository.PromotionRepository;
+
+@ExtendWith(MockitoExtension.class)
+class PromotionIntervalIndexTest {
+
+    private static final LocalDate BASE = LocalDate.of(2025, 1, 1);
+
+    @Mock
+    private PromotionRepository promotionRepository;
+
+    private PromotionIntervalIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PromotionIntervalIndex(promotionRepository);
+    }
+
+    @Test
+    void findValidOn_ShouldMatchBruteForceOnRandomIntervals() {
+        List<PromotionInterval> intervals = randomIntervals(500, 42L);
+        when(promotionRepository.findAllIntervals()).thenReturn(intervals);
+
+        for (int day = -5; day < 400; day += 3) {
+            LocalDate date = BASE.plusDays(day);
+            assertEquals(ids(bruteForceOn(intervals, date, null)), ids(index.findValidOn(date)), "date " + date);
+            assertEquals(ids(bruteForceOn(intervals, date, 2)), ids(index.findValidOn(date, 2)), "date " + date);
+        }
+        verify(promotionRepository, times(1)).findAllIntervals();
+    }
+
+    @Test
+    void findValidBetween_ShouldMatchBruteForceOnRandomIntervals() {
+        List<PromotionInterval> intervals = randomIntervals(300, 7L);
+        when(promotionRepository.findAllIntervals()).thenReturn(intervals);
+
+        Random random = new Random(99L);
+        for (int i = 0; i < 200; i++) {
+            LocalDate from = BASE.plusDays(random.nextInt(380) - 10L);
+            LocalDate to = from.plusDays(random.nextInt(40));
+            List<PromotionInterval> expected = intervals.stream()
+                .filter(interval -> !interval.endDate().isBefore(from) && !interval.startDate().isAfter(to))
+                .toList();
+            assertEquals(ids(expected), ids(index.findValidBetween(from, to)));
+        }
+    }
+
+    @Test
+    void findValidBetween_ShouldReturnEmptyForInvertedRange() {
+        assertTrue(index.findValidBetween(BASE.plusDays(5), BASE).isEmpty());
+    }
+
+    @Test
+    void findValidOn_ShouldReturnEmptyForUnknownCategory() {
+        when(promotionRepository.findAllIntervals()).thenReturn(randomIntervals(20, 1L));
+
+        assertTrue(index.findValidOn(BASE.plusDays(10), 999).isEmpty());
+    }
+
+    @Test
+    void upsert_ShouldMoveIntervalBetweenCategoriesAndDates() {
+        PromotionInterval original = interval(1, 0, 10, 1, "ACTIVE");
+        when(promotionRepository.findAllIntervals()).thenReturn(List.of(original));
+        assertEquals(List.of(1), ids(index.findValidOn(BASE.plusDays(5), 1)));
+
+        index.upsert(interval(1, 20, 30, 2, "ACTIVE"));
+
+        assertTrue(index.findValidOn(BASE.plusDays(5)).isEmpty());
+        assertTrue(index.findValidOn(BASE.plusDays(25), 1).isEmpty());
+        assertEquals(List.of(1), ids(index.findValidOn(BASE.plusDays(25), 2)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void upsertAndRemove_ShouldMatchBruteForceAcrossPatchesAndRebuilds() {
+        List<PromotionInterval> initial = randomIntervals(200, 11L);
+        when(promotionRepository.findAllIntervals()).thenReturn(initial);
+        Map<Integer, PromotionInterval> expected = new HashMap<>();
+        initial.forEach(interval -> expected.put(interval.promotionId(), interval));
+        index.findValidOn(BASE);
+
+        // Más escrituras que el umbral de parches: se mezclan árboles parcheados y reconstruidos
+        Random random = new Random(5L);
+        for (int i = 0; i < 300; i++) {
+            int id = 1 + random.nextInt(260);
+            if (random.nextInt(4) == 0) {
+                index.remove(id);
+                expected.remove(id);
+            } else {
+                int start = random.nextInt(365);
+                PromotionInterval interval = interval(id, start, start + random.nextInt(30), 1 + random.nextInt(4), "ACTIVE");
+                index.upsert(interval);
+                expected.put(id, interval);
+            }
+            LocalDate date = BASE.plusDays(random.nextInt(380));
+            List<PromotionInterval> current = new ArrayList<>(expected.values());
+            assertEquals(ids(bruteForceOn(current, date, null)), ids(index.findValidOn(date)), "write " + i);
+            assertEquals(ids(bruteForceOn(current, date, 3)), ids(index.findValidOn(date, 3)), "write " + i);
+        }
+        assertEquals(expected.size(), index.size());
+        verify(promotionRepository, times(1)).findAllIntervals();
+    }
+
+    @Test
+    void onPromotionChanged_ShouldApplyUpsertsAndDeletes() {
+        when(promotionRepository.findAllIntervals()).thenReturn(List.of(interval(1, 0, 10, 1, "ACTIVE")));
+        index.findValidOn(BASE);
+
+        index.onPromotionChanged(PromotionChangedEvent.upserted(this, interval(2, 0, 10, 1, "SCHEDULED")));
+        assertEquals(List.of(1, 2), ids(index.findValidOn(BASE.plusDays(3))));
+
+        index.onPromotionChanged(PromotionChangedEvent.deleted(this, 1));
+        assertEquals(List.of(2), ids(index.findValidOn(BASE.plusDays(3))));
+    }
+
+    @Test
+    void onPromotionChanged_ReloadAllShouldRefreshFromRepository() {
+        when(promotionRepository.findAllIntervals())
+            .thenReturn(List.of(interval(1, 0, 10, 1, "ACTIVE")))
+            .thenReturn(List.of(interval(1, 0, 10, 1, "ACTIVE"), interval(5, 0, 10, 1, "ACTIVE")));
+        index.findValidOn(BASE);
+
+        index.onPromotionChanged(PromotionChangedEvent.reloadAll(this));
+
+        assertEquals(List.of(1, 5), ids(index.findValidOn(BASE)));
+    }
+
+    @Test
+    void upsert_BeforeFirstLoadShouldBeIgnoredUntilLoad() {
+        index.upsert(interval(1, 0, 10, 1, "ACTIVE"));
+        when(promotionRepository.findAllIntervals()).thenReturn(List.of());
+
+        assertTrue(index.findValidOn(BASE).isEmpty());
+    }
+
+    private static List<PromotionInterval> bruteForceOn(List<PromotionInterval> intervals, LocalDate date, Integer categoryId) {
+        return intervals.stream()
+            .filter(interval -> interval.isValidOn(date))
+            .filter(interval -> categoryId == null || Objects.equals(categoryId, interval.categoryId()))
+            .toList();
+    }
+
+    private static List<Integer> ids(List<PromotionInterval> intervals) {
+        return intervals.stream()
+            .sorted(Comparator.comparing(PromotionInterval::promotionId))
+            .map(PromotionInterval::promotionId)
+            .toList();
+    }
+
+    private static List<PromotionInterval> randomIntervals(int count, long seed) {
+        Random random = new Random(seed);
+        List<PromotionInterval> intervals = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            int start = random.nextInt(365);
+            int length = random.nextInt(30);
+            intervals.add(interval(i, start, start + length, 1 + random.nextInt(4), "ACTIVE"));
+        }
+        return intervals;
+    }
+
+    private static PromotionInterval interval(int id, int startOffset, int endOffset, Integer categoryId, String status) {
+        return new PromotionInterval(id, BASE.plusDays(startOffset), BASE.plusDays(endOffset), categoryId, status);
+    }
+}
@@ -0,0 +1,156 @@
+package com.petstore.backend.cache;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.petstore.backend.entity.Category;
+import com.petstore.backend.entity.Role;
+import com.petstore.backend.entity.Status;
+import com.petstore.backend.repository.CategoryRepository;
+import com.petstore.backend.repository.RoleRepository;
+import com.petstore.backend.repository.StatusRepository;
+
+@ExtendWith(MockitoExtension.class)
+class ReferenceDataRegistryTest {
+
+    @Mock
+    private StatusRepository statusRepository;
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    private ReferenceDataRegistry registry;
+
+    private Status active;
+    private Role admin;
+    private Category dogs;
+
+    @BeforeEach
+    void setUp() {
+        registry = new ReferenceDataRegistry(statusRepository, roleRepository, categoryRepository, List.of("ACTIVE"));
+
+        active = new Status("ACTIVE");
+        active.setStatusId(1);
+        admin = new Role("Marketing Admin");
+        admin.setRoleId(1);
+        dogs = new Category("Perros", "Productos para perros");
+        dogs.setCategoryId(1);
+    }
+
+    @Test
+    void lookups_ShouldBeServedFromSingleLoad() {
+        stubLoad(List.of(dogs));
+
+        assertSame(active, registry.findStatus(1).orElseThrow());
+        assertSame(active, registry.findStatus("ACTIVE").orElseThrow());
+        assertSame(active, registry.requireStatus("ACTIVE"));
+        assertSame(admin, registry.findRole(1).orElseThrow());
+        assertSame(admin, registry.findRole("Marketing Admin").orElseThrow());
+        assertSame(dogs, registry.findCategory(1).orElseThrow());
+        assertSame(dogs, registry.findCategory("Perros").orElseThrow());
+
+        verify(statusRepository, times(1)).findAll();
+        verify(roleRepository, times(1)).findAll();
+        verify(categoryRepository, times(1)).findAll();
+        verify(statusRepository, never()).findById(1);
+        verify(categoryRepository, never()).findById(1);
+    }
+
+    @Test
+    void findStatus_WhenMissing_ShouldFallBackToRepositoryWithoutCaching() {
+        stubLoad(List.of());
+        Status scheduled = new Status("SCHEDULED");
+        scheduled.setStatusId(3);
+        when(statusRepository.findById(3)).thenReturn(Optional.of(scheduled));
+
+        assertSame(scheduled, registry.findStatus(3).orElseThrow());
+        assertSame(scheduled, registry.findStatus(3).orElseThrow());
+
+        verify(statusRepository, times(2)).findById(3);
+    }
+
+    @Test
+    void requireStatus_WhenUnknown_ShouldThrow() {
+        stubLoad(List.of());
+        when(statusRepository.findByStatusName("EXPIRED")).thenReturn(Optional.empty());
+
+        assertThrows(IllegalStateException.class, () -> registry.requireStatus("EXPIRED"));
+    }
+
+    @Test
+    void preload_WhenRequiredStatusIsMissing_ShouldFailFast() {
+        registry = new ReferenceDataRegistry(statusRepository, roleRepository, categoryRepository,
+            List.of("ACTIVE", "SCHEDULED"));
+        stubLoad(List.of());
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, registry::preload);
+        assertTrue(error.getMessage().contains("SCHEDULED"));
+    }
+
+    @Test
+    void categorySavedAndDeleted_ShouldSwapSnapshot() {
+        stubLoad(List.of(dogs));
+        registry.preload();
+
+        Category renamed = new Category("Perros y cachorros", "Productos para perros");
+        renamed.setCategoryId(1);
+        Category cats = new Category("Gatos", "Productos para gatos");
+        cats.setCategoryId(2);
+        registry.categorySaved(renamed);
+        registry.categorySaved(cats);
+
+        assertSame(renamed, registry.findCategory(1).orElseThrow());
+        assertSame(renamed, registry.findCategory("Perros y cachorros").orElseThrow());
+        assertEquals(List.of(renamed, cats), registry.categories());
+        assertSame(active, registry.findStatus(1).orElseThrow()); // Estados y roles se conservan
+
+        registry.categoryDeleted(2);
+        when(categoryRepository.findById(2)).thenReturn(Optional.empty());
+
+        assertTrue(registry.findCategory(2).isEmpty());
+        assertEquals(List.of(renamed), registry.categories());
+        verify(categoryRepository, times(1)).findAll();
+    }
+
+    @Test
+    void categorySaved_BeforeFirstLoadShouldBeIgnoredUntilLoad() {
+        registry.categorySaved(dogs);
+        stubLoad(List.of());
+
+        assertTrue(registry.categories().isEmpty());
+    }
+
+    @Test
+    void reload_ShouldReplaceAllTables() {
+        stubLoad(List.of(dogs));
+        registry.preload();
+        when(categoryRepository.findAll()).thenReturn(List.of());
+
+        registry.reload();
+
+        assertTrue(registry.categories().isEmpty());
+    }
+
+    private void stubLoad(List<Category> categories) {
+        when(statusRepository.findAll()).thenReturn(List.of(active));
+        when(roleRepository.findAll()).thenReturn(List.of(admin));
+        when(categoryRepository.findAll()).thenReturn(categories);
+    }
+}
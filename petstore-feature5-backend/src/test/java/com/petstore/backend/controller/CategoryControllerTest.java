@@ -30,6 +30,22 @@ class CategoryControllerTest {
                 .andExpect(content().contentType("application/json"));
     }
 
+    @Test
+    void testGetAllCategories_WithCurrentEtag_ShouldReturnNotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/categories"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/categories").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/categories").header("If-None-Match", "\"otra-version\""))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void testGetCategoryById_ValidId() throws Exception {
         // Crear una categoría primero
@@ -152,4 +168,18 @@ class CategoryControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType("application/json"));
     }
+
+    @Test
+    void testGetCategoriesPage() throws Exception {
+        mockMvc.perform(get("/api/categories/page").param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items").isArray())
+                .andExpect(jsonPath("$.hasNextPage", is(false)));
+    }
+
+    @Test
+    void testGetCategoriesPage_InvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/categories/page").param("after", "***"))
+                .andExpect(status().isBadRequest());
+    }
 }
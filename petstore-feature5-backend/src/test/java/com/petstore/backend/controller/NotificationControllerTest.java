@@ -4,6 +4,8 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
@@ -19,9 +21,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import com.petstore.backend.controller.NotificationController.ConsentRequest;
+import com.petstore.backend.dto.NotificationFanOutProgressDTO;
 import com.petstore.backend.entity.NotificationConsent;
 import com.petstore.backend.entity.NotificationConsent.NotificationType;
 import com.petstore.backend.entity.User;
+import com.petstore.backend.service.NotificationFanOutService;
 import com.petstore.backend.service.NotificationService;
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -32,6 +36,9 @@ class NotificationControllerTest {
     @Mock
     private NotificationService notificationService;
 
+    @Mock
+    private NotificationFanOutService notificationFanOutService;
+
     @Mock
     private HttpServletRequest request;
 
@@ -158,6 +165,23 @@ class NotificationControllerTest {
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
+    @Test
+    @DisplayName("Should return fan-out progress of recent campaigns")
+    void shouldReturnFanOutProgress() {
+        // Given
+        NotificationFanOutProgressDTO progress = new NotificationFanOutProgressDTO(1, "Promo", 100, 60, 2, 8, 30,
+            LocalDateTime.now(), null);
+        when(notificationFanOutService.recentCampaigns()).thenReturn(List.of(progress));
+
+        // When
+        ResponseEntity<List<NotificationFanOutProgressDTO>> response = notificationController.getFanOutProgress();
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(progress), response.getBody());
+        assertFalse(response.getBody().get(0).isFinished());
+    }
+
     @Test
     @DisplayName("Should require authentication")
     void shouldRequireAuthentication() {
@@ -1,8 +1,14 @@
 package com.petstore.backend.controller;
 
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -13,6 +19,14 @@ import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.jayway.jsonpath.JsonPath;
+import com.petstore.backend.cache.CatalogVersion;
+import com.petstore.backend.entity.Category;
+import com.petstore.backend.entity.Product;
+import com.petstore.backend.repository.CategoryRepository;
+import com.petstore.backend.event.PromotionChangedEvent;
+import com.petstore.backend.repository.ProductRepository;
+
 /**
  * Integration tests for ProductController endpoints.
  */
@@ -25,6 +39,30 @@ class ProductControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Test
+    void testGetAllProducts_EtagShouldFollowCatalogVersion() throws Exception {
+        String etag = mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/api/products").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        catalogVersion.onPromotionChanged(PromotionChangedEvent.reloadAll(this)); // Escritura en esta transacción
+
+        mockMvc.perform(get("/api/products").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
     @Test
     void testGetAllProducts() throws Exception {
         mockMvc.perform(get("/api/products"))
@@ -89,4 +127,55 @@ class ProductControllerTest {
         mockMvc.perform(get("/api/products/search"))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void testGetProductsPage_ByBasePrice_ShouldWalkAllProductsWithoutGapsOrDuplicates() throws Exception {
+        // Precios repetidos para verificar el desempate por ID entre páginas
+        Category category = new Category();
+        category.setCategoryName("Keyset Category");
+        category = categoryRepository.save(category);
+        double[] prices = {30.0, 10.0, 20.0, 10.0, 30.0};
+        List<Integer> expected = new ArrayList<>();
+        List<Product> saved = new ArrayList<>();
+        for (int i = 0; i < prices.length; i++) {
+            Product product = new Product();
+            product.setProductName("Keyset product " + i);
+            product.setBasePrice(prices[i]);
+            product.setSku(900000 + i);
+            product.setCategory(category);
+            saved.add(productRepository.save(product));
+        }
+        saved.stream()
+                .sorted(Comparator.comparing(Product::getBasePrice).thenComparing(Product::getProductId))
+                .forEach(product -> expected.add(product.getProductId()));
+
+        List<Integer> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            var request = get("/api/products/page").param("size", "2").param("sortBy", "basePrice");
+            if (cursor != null) {
+                request.param("after", cursor);
+            }
+            String body = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            List<Integer> ids = JsonPath.read(body, "$.items[*].productId");
+            walked.addAll(ids);
+            cursor = JsonPath.read(body, "$.nextCursor");
+        } while (cursor != null);
+
+        assertEquals(expected, walked);
+    }
+
+    @Test
+    void testGetProductsPage_InvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/products/page").param("after", "no-es-un-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetProductsPage_UnknownSort() throws Exception {
+        mockMvc.perform(get("/api/products/page").param("sortBy", "sku"))
+                .andExpect(status().isBadRequest());
+    }
 }
\ No newline at end of file
@@ -35,6 +35,36 @@ class PromotionControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON));
     }
 
+    @Test
+    void testGetAllActivePromotions_WithCurrentEtag_ShouldReturnNotModified() throws Exception {
+        // GET /api/promotions con If-None-Match: 304 sin cuerpo, revalidable por el navegador
+        String etag = mockMvc.perform(get("/api/promotions"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/promotions").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void testGetPromotionsPage() throws Exception {
+        // GET /api/promotions/page
+        mockMvc.perform(get("/api/promotions/page").param("size", "10").param("sortBy", "startDate"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.items").isArray())
+                .andExpect(jsonPath("$.hasNextPage").value(false));
+    }
+
+    @Test
+    void testGetPromotionsPage_InvalidSort() throws Exception {
+        // GET /api/promotions/page con un orden no soportado
+        mockMvc.perform(get("/api/promotions/page").param("sortBy", "discount"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testGetAllPromotions() throws Exception {
         // GET /api/promotions/all
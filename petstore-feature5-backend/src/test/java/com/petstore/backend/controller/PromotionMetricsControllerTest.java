@@ -7,10 +7,15 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -19,17 +24,28 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petstore.backend.cache.ProductLeaderboard;
 import com.petstore.backend.dto.CategoryDTO;
+import com.petstore.backend.dto.MetricsPointDTO;
+import com.petstore.backend.dto.MetricsSeriesDTO;
+import com.petstore.backend.dto.ProductLeaderboardEntryDTO;
 import com.petstore.backend.dto.ProductMetricsDTO;
 import com.petstore.backend.dto.PromotionPerformanceDTO;
+import com.petstore.backend.dto.SalesEventDTO;
+import com.petstore.backend.dto.SalesIngestionResult;
 import com.petstore.backend.service.PromotionMetricsService;
+import com.petstore.backend.service.SalesIngestionService;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -43,6 +59,12 @@ class PromotionMetricsControllerTest {
     @MockBean
     private PromotionMetricsService promotionMetricsService;
 
+    @MockBean
+    private SalesIngestionService salesIngestionService;
+
+    @MockBean
+    private ProductLeaderboard productLeaderboard;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -90,12 +112,14 @@ class PromotionMetricsControllerTest {
     }
 
     @Test
-    @DisplayName("GET /api/promotions/metrics/{promotionId} - Should return promotion metrics")
+    @DisplayName("GET /api/promotions/metrics/{promotionId} - Should return promotion metrics with product detail by default")
     void testGetPromotionMetrics_Success() throws Exception {
         // Given
         Integer promotionId = 1;
         when(promotionMetricsService.getPromotionPerformance(promotionId))
                 .thenReturn(Optional.of(testPerformanceDTO));
+        when(promotionMetricsService.getProductMetricsByPromotionId(promotionId))
+                .thenReturn(List.of(testProductMetricsDTO));
 
         // When & Then
         mockMvc.perform(get("/api/promotions/metrics/{promotionId}", promotionId)
@@ -108,7 +132,86 @@ class PromotionMetricsControllerTest {
                 .andExpect(jsonPath("$.totalRevenue").value(487.31))
                 .andExpect(jsonPath("$.totalInitialInventory").value(100))
                 .andExpect(jsonPath("$.totalCurrentInventory").value(75))
-                .andExpect(jsonPath("$.isActive").value(true));
+                .andExpect(jsonPath("$.isActive").value(true))
+                .andExpect(jsonPath("$.productMetrics.length()").value(1))
+                .andExpect(jsonPath("$.productMetrics[0].productName").value("Collar Premium"));
+    }
+
+    @Test
+    @DisplayName("GET /api/promotions/metrics/{promotionId}?includeProducts=false - Should return only the totals")
+    void testGetPromotionMetrics_WithoutProducts() throws Exception {
+        // Given
+        Integer promotionId = 1;
+        when(promotionMetricsService.getPromotionPerformance(promotionId))
+                .thenReturn(Optional.of(testPerformanceDTO));
+
+        // When & Then
+        mockMvc.perform(get("/api/promotions/metrics/{promotionId}", promotionId)
+                .param("includeProducts", "false")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalUnitsSold").value(25))
+                .andExpect(jsonPath("$.productMetrics").isEmpty());
+
+        verify(promotionMetricsService, never()).getProductMetricsByPromotionId(promotionId);
+    }
+
+    @Test
+    @DisplayName("GET /api/promotions/metrics/{promotionId}/series - Should return the metrics series")
+    void testGetMetricsSeries_Success() throws Exception {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2025, 6, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 6, 5, 0, 0);
+        MetricsSeriesDTO series = new MetricsSeriesDTO(1, "HOURLY", from, to,
+                List.of(MetricsPointDTO.of(from, 10, BigDecimal.valueOf(100), 50, 40, 3)));
+        when(promotionMetricsService.getMetricsSeries(1, from, to)).thenReturn(Optional.of(series));
+
+        // When & Then
+        mockMvc.perform(get("/api/promotions/metrics/{promotionId}/series", 1)
+                .param("from", "2025-06-01T00:00:00")
+                .param("to", "2025-06-05T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.resolution").value("HOURLY"))
+                .andExpect(jsonPath("$.points[0].totalUnitsSold").value(10))
+                .andExpect(jsonPath("$.points[0].sellThroughPercentage").value(20.0));
+    }
+
+    @Test
+    @DisplayName("GET /api/promotions/metrics/{promotionId}/series - Should return 404 when promotion not found")
+    void testGetMetricsSeries_NotFound() throws Exception {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2025, 6, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 6, 2, 0, 0);
+        when(promotionMetricsService.getMetricsSeries(999, from, to)).thenReturn(Optional.empty());
+
+        // When & Then
+        mockMvc.perform(get("/api/promotions/metrics/{promotionId}/series", 999)
+                .param("from", "2025-06-01T00:00:00")
+                .param("to", "2025-06-02T00:00:00"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("GET /api/promotions/metrics/{promotionId}/series - Should return 400 for an inverted range")
+    void testGetMetricsSeries_InvalidRange() throws Exception {
+        mockMvc.perform(get("/api/promotions/metrics/{promotionId}/series", 1)
+                .param("from", "2025-06-05T00:00:00")
+                .param("to", "2025-06-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("POST /api/promotions/metrics/rollup/rebuild - Should rebuild performance rollups")
+    void testRebuildRollups_Success() throws Exception {
+        // Given
+        when(promotionMetricsService.rebuildAllRollups()).thenReturn(3);
+
+        // When & Then
+        mockMvc.perform(post("/api/promotions/metrics/rollup/rebuild")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.rebuiltPromotions").value(3));
     }
 
     @Test
@@ -218,7 +321,7 @@ class PromotionMetricsControllerTest {
     void testInitializeMetrics_Success() throws Exception {
         // Given
         Integer promotionId = 1;
-        doNothing().when(promotionMetricsService).initializeMetricsForPromotion(promotionId);
+        when(promotionMetricsService.initializeMetricsForPromotion(promotionId)).thenReturn(3);
 
         // When & Then
         mockMvc.perform(post("/api/promotions/metrics/{promotionId}/initialize", promotionId)
@@ -227,6 +330,7 @@ class PromotionMetricsControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.promotionId").value(1))
+                .andExpect(jsonPath("$.created").value(3))
                 .andExpect(jsonPath("$.message").value("Métricas inicializadas exitosamente"));
     }
 
@@ -283,4 +387,133 @@ class PromotionMetricsControllerTest {
                 .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isInternalServerError());
     }
+
+    @Test
+    @DisplayName("POST /api/promotions/metrics/sales/batch - Should accept batch")
+    void testIngestSales_Accepted() throws Exception {
+        // Given
+        List<SalesEventDTO> events = List.of(
+            new SalesEventDTO(1, 1, 2, BigDecimal.valueOf(19.49)),
+            new SalesEventDTO(1, 2, 0, BigDecimal.valueOf(5.00)));
+        when(salesIngestionService.getMaxBatchSize()).thenReturn(10000);
+        when(salesIngestionService.ingest(anyList())).thenReturn(new SalesIngestionResult(1, 1));
+
+        // When & Then
+        mockMvc.perform(post("/api/promotions/metrics/sales/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(events)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.rejected").value(1));
+    }
+
+    @Test
+    @DisplayName("POST /api/promotions/metrics/sales/batch - Should return 400 for empty batch")
+    void testIngestSales_EmptyBatch() throws Exception {
+        mockMvc.perform(post("/api/promotions/metrics/sales/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false));
+
+        verify(salesIngestionService, never()).ingest(anyList());
+    }
+
+    @Test
+    @DisplayName("POST /api/promotions/metrics/sales/batch - Should return 413 for oversized batch")
+    void testIngestSales_TooLarge() throws Exception {
+        // Given
+        List<SalesEventDTO> events = List.of(
+            new SalesEventDTO(1, 1, 1, BigDecimal.ONE),
+            new SalesEventDTO(1, 2, 1, BigDecimal.ONE));
+        when(salesIngestionService.getMaxBatchSize()).thenReturn(1);
+
+        // When & Then
+        mockMvc.perform(post("/api/promotions/metrics/sales/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(events)))
+                .andExpect(status().isPayloadTooLarge())
+                .andExpect(jsonPath("$.success").value(false));
+
+        verify(salesIngestionService, never()).ingest(anyList());
+    }
+
+    @Test
+    @DisplayName("GET /api/promotions/metrics/leaderboard - Should return top products")
+    void testGetProductLeaderboard_Success() throws Exception {
+        // Given
+        when(productLeaderboard.top(ProductLeaderboard.Ranking.REVENUE, 5, 1)).thenReturn(List.of(
+            new ProductLeaderboardEntryDTO(1, "Collar Premium", 1, "Accesorios", 25, BigDecimal.valueOf(487.31), 2)));
+
+        // When & Then
+        mockMvc.perform(get("/api/promotions/metrics/leaderboard")
+                .param("by", "revenue")
+                .param("limit", "5")
+                .param("categoryId", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].productId").value(1))
+                .andExpect(jsonPath("$[0].unitsSold").value(25))
+                .andExpect(jsonPath("$[0].promotions").value(2));
+    }
+
+    @Test
+    @DisplayName("GET /api/promotions/metrics/leaderboard - Should return 400 for unknown ranking")
+    void testGetProductLeaderboard_BadRanking() throws Exception {
+        mockMvc.perform(get("/api/promotions/metrics/leaderboard").param("by", "popularity"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/promotions/metrics/{promotionId}/export - Should stream CSV attachment")
+    void testExportPromotionMetrics_Csv() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/promotions/metrics/{promotionId}/export", 1)
+                .param("from", "2030-01-01T00:00:00")
+                .param("to", "2030-01-02T00:00:00"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"promotion-metrics-1.csv\""))
+                .andExpect(content().string(startsWith("metricsId,promotionId,productId,")));
+    }
+
+    @Test
+    @DisplayName("GET /api/promotions/metrics/export - Should return 400 for unknown format or inverted range")
+    void testExportAllMetrics_BadRequest() throws Exception {
+        mockMvc.perform(get("/api/promotions/metrics/export").param("format", "xlsx"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/promotions/metrics/export")
+                .param("from", "2030-01-02T00:00:00")
+                .param("to", "2030-01-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/promotions/metrics/{promotionId}/stream - Should push full state as first SSE event")
+    void testStreamPromotionPerformance_InitialEvent() throws Exception {
+        when(promotionMetricsService.getPromotionPerformance(4242)).thenReturn(Optional.of(testPerformanceDTO));
+
+        MvcResult result = mockMvc.perform(get("/api/promotions/metrics/{promotionId}/stream", 4242)
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = result.getResponse().getContentAsString();
+        result.getRequest().getAsyncContext().complete(); // Cierra la conexión y cancela la suscripción
+        assertTrue(body.contains("event:performance"));
+        assertTrue(body.contains("\"changedFields\""));
+        assertTrue(body.contains("\"totalUnitsSold\""));
+    }
+
+    @Test
+    @DisplayName("GET /api/promotions/metrics/{promotionId}/stream - Should return 404 for unknown promotion")
+    void testStreamPromotionPerformance_NotFound() throws Exception {
+        when(promotionMetricsService.getPromotionPerformance(999)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/promotions/metrics/{promotionId}/stream", 999)
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isNotFound());
+    }
 }
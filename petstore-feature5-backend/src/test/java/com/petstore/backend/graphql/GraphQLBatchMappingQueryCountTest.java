@@ -0,0 +1,121 @@
+package com.petstore.backend.graphql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.graphql.test.tester.GraphQlTester;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.petstore.backend.entity.Category;
+import com.petstore.backend.entity.Product;
+import com.petstore.backend.entity.Promotion;
+import com.petstore.backend.entity.Status;
+import com.petstore.backend.repository.CategoryRepository;
+import com.petstore.backend.repository.ProductRepository;
+import com.petstore.backend.repository.PromotionRepository;
+import com.petstore.backend.repository.StatusRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Pruebas de regresión de conteo de consultas para los campos anidados del esquema:
+ * con @BatchMapping el número de sentencias depende de la profundidad de la consulta,
+ * no de la cantidad de padres.
+ */
+@SpringBootTest
+@AutoConfigureGraphQlTester
+@ActiveProfiles("test")
+@Transactional
+class GraphQLBatchMappingQueryCountTest {
+
+    private static final String NESTED_QUERY = """
+            { categories {
+                categoryId
+                promotions { promotionId }
+                products { productId promotion { promotionId products { productId } } } } }
+            """;
+
+    @Autowired
+    private GraphQlTester graphQlTester;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+
+    @Autowired
+    private StatusRepository statusRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void nestedFields_ShouldUseConstantNumberOfStatements() {
+        Status active = statusRepository.findByStatusName("ACTIVE")
+                .orElseGet(() -> statusRepository.save(new Status("ACTIVE")));
+
+        createCategories(active, 2);
+        long fewParents = countStatements();
+
+        createCategories(active, 8);
+        long manyParents = countStatements();
+
+        // categorías + promociones + productos + Product.promotion + Promotion.products
+        assertEquals(5, fewParents, "Sentencias SQL con pocas categorías");
+        assertEquals(fewParents, manyParents, "Sentencias SQL con muchas categorías");
+    }
+
+    private long countStatements() {
+        entityManager.flush();
+        entityManager.clear(); // Sin entidades en caché: cualquier carga LAZY iría a la BD
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        graphQlTester.document(NESTED_QUERY).execute().errors().verify();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void createCategories(Status status, int count) {
+        for (int i = 0; i < count; i++) {
+            Category category = new Category();
+            category.setCategoryName("Batch category " + count + "-" + i);
+            category.setDescription("Descripción " + i);
+            category = categoryRepository.save(category);
+
+            Promotion promotion = new Promotion();
+            promotion.setPromotionName("Batch promotion " + count + "-" + i);
+            promotion.setDescription("Descripción " + i);
+            promotion.setStartDate(LocalDate.now().minusDays(1));
+            promotion.setEndDate(LocalDate.now().plusDays(10));
+            promotion.setDiscountValue(5.0);
+            promotion.setStatus(status);
+            promotion.setCategory(category);
+            promotion = promotionRepository.save(promotion);
+
+            for (int j = 0; j < 2; j++) {
+                Product product = new Product();
+                product.setProductName("Batch product " + count + "-" + i + "-" + j);
+                product.setBasePrice(10.0 + j);
+                product.setSku(1000 * (i + 1) + j + count * 100);
+                product.setCategory(category);
+                product.setPromotion(promotion);
+                productRepository.save(product);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.petstore.backend.graphql;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.tester.AutoConfigureGraphQlTester;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.graphql.test.tester.GraphQlTester;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Pruebas de integración de las conexiones paginadas (Relay) del esquema GraphQL
+ */
+@SpringBootTest
+@AutoConfigureGraphQlTester
+@ActiveProfiles("test")
+class GraphQLConnectionIntegrationTest {
+
+    @Autowired
+    private GraphQlTester graphQlTester;
+
+    @Test
+    void productsConnection_ShouldReturnRelayShape() {
+        graphQlTester.document("""
+                { productsConnection(first: 5, sortBy: BASE_PRICE) {
+                    edges { cursor node { productId productName } }
+                    pageInfo { hasNextPage hasPreviousPage startCursor endCursor } } }
+                """)
+            .execute()
+            .path("productsConnection.edges").entityList(Object.class).hasSize(0)
+            .path("productsConnection.pageInfo.hasNextPage").entity(Boolean.class).isEqualTo(false)
+            .path("productsConnection.pageInfo.hasPreviousPage").entity(Boolean.class).isEqualTo(false);
+    }
+
+    @Test
+    void promotionsConnection_WithInvalidCursor_ShouldReturnError() {
+        graphQlTester.document("{ promotionsConnection(first: 5, after: \"***\") { edges { cursor } } }")
+            .execute()
+            .errors()
+            .expect(error -> error.getMessage() != null);
+    }
+
+    @Test
+    void categoriesConnection_ShouldReturnPageInfo() {
+        graphQlTester.document("{ categoriesConnection(first: 2) { pageInfo { hasNextPage endCursor } } }")
+            .execute()
+            .path("categoriesConnection.pageInfo.hasNextPage").entity(Boolean.class).isEqualTo(false);
+    }
+}
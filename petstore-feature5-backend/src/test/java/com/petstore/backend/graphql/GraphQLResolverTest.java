@@ -1,13 +1,17 @@
 package com.petstore.backend.graphql;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,13 +21,24 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.Mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.MockitoAnnotations;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import com.petstore.backend.cache.ProductLeaderboard;
+import com.petstore.backend.dto.CursorConnection;
+import com.petstore.backend.dto.CursorPage;
 import com.petstore.backend.dto.LoginResponse;
+import com.petstore.backend.dto.ProductLeaderboardEntryDTO;
+import com.petstore.backend.dto.MetricsSeriesDTO;
+import com.petstore.backend.dto.ProductAssociationResult;
+import com.petstore.backend.dto.ProductMetricsDTO;
+import com.petstore.backend.dto.PromotionPerformanceDTO;
+import com.petstore.backend.dto.PromotionPerformanceUpdateDTO;
 import com.petstore.backend.entity.Category;
 import com.petstore.backend.entity.Product;
 import com.petstore.backend.entity.Promotion;
@@ -38,10 +53,15 @@ import com.petstore.backend.repository.ProductRepository;
 import com.petstore.backend.repository.PromotionRepository;
 import com.petstore.backend.repository.UserRepository;
 import com.petstore.backend.service.AuthService;
+import com.petstore.backend.service.CategoryService;
 import com.petstore.backend.service.NotificationService;
+import com.petstore.backend.service.ProductService;
 import com.petstore.backend.service.PromotionMetricsService;
+import com.petstore.backend.service.PromotionPerformanceStreamService;
 import com.petstore.backend.service.PromotionService;
 
+import reactor.core.publisher.Flux;
+
 class GraphQLResolverTest {
 
     @Mock
@@ -56,6 +76,12 @@ class GraphQLResolverTest {
     @Mock
     private NotificationService notificationService;
 
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private CategoryService categoryService;
+
     @Mock
     private UserRepository userRepository;
 
@@ -74,6 +100,12 @@ class GraphQLResolverTest {
     @Mock
     private NotificationLogRepository notificationLogRepository;
 
+    @Mock
+    private ProductLeaderboard productLeaderboard;
+
+    @Mock
+    private PromotionPerformanceStreamService performanceStreamService;
+
     @Mock
     private SecurityContext securityContext;
 
@@ -94,12 +126,16 @@ class GraphQLResolverTest {
                 promotionMetricsService,
                 authService,
                 notificationService,
+                productService,
+                categoryService,
                 userRepository,
                 categoryRepository,
                 productRepository,
                 promotionRepository,
                 notificationConsentRepository,
-                notificationLogRepository
+                notificationLogRepository,
+                productLeaderboard,
+                performanceStreamService
         );
 
         // Setup test entities
@@ -243,7 +279,7 @@ class GraphQLResolverTest {
     @Test
     void promotion_ShouldReturnSinglePromotion() {
         // Given
-        when(promotionRepository.findById(1)).thenReturn(Optional.of(testPromotion));
+        when(promotionService.getPromotionByIdEntity(1)).thenReturn(testPromotion);
 
         // When
         Promotion result = graphQLResolver.promotion(1);
@@ -256,7 +292,7 @@ class GraphQLResolverTest {
     @Test
     void promotion_WhenNotFound_ShouldReturnNull() {
         // Given
-        when(promotionRepository.findById(999)).thenReturn(Optional.empty());
+        when(promotionService.getPromotionByIdEntity(999)).thenReturn(null);
 
         // When
         Promotion result = graphQLResolver.promotion(999);
@@ -308,6 +344,48 @@ class GraphQLResolverTest {
         assertEquals("Smartphone", result.get(0).getProductName());
     }
 
+    @Test
+    void productsConnection_ShouldMapPageToEdgesAndPageInfo() {
+        // Given
+        CursorPage<Product> page = new CursorPage<>(List.of(testProduct), List.of("c1"), true, false);
+        when(productService.findPage(null, 1, ProductService.SORT_BY_BASE_PRICE)).thenReturn(page);
+
+        // When
+        CursorConnection<Product> result = graphQLResolver.productsConnection(1, null, "BASE_PRICE");
+
+        // Then
+        assertEquals(1, result.getEdges().size());
+        assertEquals("c1", result.getEdges().get(0).cursor());
+        assertEquals("Smartphone", result.getEdges().get(0).node().getProductName());
+        assertTrue(result.getPageInfo().hasNextPage());
+        assertFalse(result.getPageInfo().hasPreviousPage());
+        assertEquals("c1", result.getPageInfo().endCursor());
+    }
+
+    @Test
+    void promotionsConnection_WithInvalidCursor_ShouldThrowGraphQLException() {
+        // Given
+        when(promotionService.getPromotionsPageEntities("bad", 10, PromotionService.SORT_BY_ID))
+            .thenThrow(new IllegalArgumentException("Cursor inválido"));
+
+        // When & Then
+        assertThrows(GraphQLException.class, () -> graphQLResolver.promotionsConnection(10, "bad", "ID"));
+    }
+
+    @Test
+    void categoriesConnection_ShouldReturnEmptyConnection() {
+        // Given
+        when(categoryService.findPage(null, null)).thenReturn(new CursorPage<>(List.of(), List.of(), false, false));
+
+        // When
+        CursorConnection<Category> result = graphQLResolver.categoriesConnection(null, null);
+
+        // Then
+        assertTrue(result.getEdges().isEmpty());
+        assertFalse(result.getPageInfo().hasNextPage());
+        assertEquals(null, result.getPageInfo().startCursor());
+    }
+
     @Test
     void product_ShouldReturnSingleProduct() {
         // Given
@@ -910,85 +988,86 @@ class GraphQLResolverTest {
     @Test
     void promotionProducts_ShouldReturnProductsForPromotion() {
         // Given
+        testProduct.setPromotion(testPromotion);
         List<Product> products = Arrays.asList(testProduct);
-        when(productRepository.findByPromotionPromotionId(1)).thenReturn(products);
+        when(productRepository.findByPromotionIdIn(List.of(1))).thenReturn(products);
 
         // When
-        List<Product> result = graphQLResolver.promotionProducts(testPromotion);
+        Map<Promotion, List<Product>> result = graphQLResolver.promotionProducts(List.of(testPromotion));
 
         // Then
         assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals("Smartphone", result.get(0).getProductName());
+        assertEquals(1, result.get(testPromotion).size());
+        assertEquals("Smartphone", result.get(testPromotion).get(0).getProductName());
     }
 
     @Test
     void promotionProducts_WhenException_ShouldReturnEmptyList() {
         // Given
-        when(productRepository.findByPromotionPromotionId(anyInt())).thenThrow(new RuntimeException("Database error"));
+        when(productRepository.findByPromotionIdIn(any())).thenThrow(new RuntimeException("Database error"));
 
         // When
-        List<Product> result = graphQLResolver.promotionProducts(testPromotion);
+        Map<Promotion, List<Product>> result = graphQLResolver.promotionProducts(List.of(testPromotion));
 
         // Then
         assertNotNull(result);
-        assertTrue(result.isEmpty());
+        assertTrue(result.get(testPromotion).isEmpty());
     }
 
     @Test
     void categoryPromotions_ShouldReturnPromotionsForCategory() {
         // Given
         List<Promotion> promotions = Arrays.asList(testPromotion);
-        when(promotionService.getPromotionsByCategoryEntities(1)).thenReturn(promotions);
+        when(promotionService.getPromotionsByCategoriesEntities(List.of(1))).thenReturn(promotions);
 
         // When
-        List<Promotion> result = graphQLResolver.categoryPromotions(testCategory);
+        Map<Category, List<Promotion>> result = graphQLResolver.categoryPromotions(List.of(testCategory));
 
         // Then
         assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals("Summer Sale", result.get(0).getPromotionName());
+        assertEquals(1, result.get(testCategory).size());
+        assertEquals("Summer Sale", result.get(testCategory).get(0).getPromotionName());
     }
 
     @Test
     void categoryPromotions_WhenException_ShouldReturnEmptyList() {
         // Given
-        when(promotionService.getPromotionsByCategoryEntities(1)).thenThrow(new RuntimeException("Database error"));
+        when(promotionService.getPromotionsByCategoriesEntities(List.of(1))).thenThrow(new RuntimeException("Database error"));
 
         // When
-        List<Promotion> result = graphQLResolver.categoryPromotions(testCategory);
+        Map<Category, List<Promotion>> result = graphQLResolver.categoryPromotions(List.of(testCategory));
 
         // Then
         assertNotNull(result);
-        assertTrue(result.isEmpty());
+        assertTrue(result.get(testCategory).isEmpty());
     }
 
     @Test
     void categoryProducts_ShouldReturnProductsForCategory() {
         // Given
         List<Product> products = Arrays.asList(testProduct);
-        when(productRepository.findByCategoryCategoryId(1)).thenReturn(products);
+        when(productRepository.findByCategoryIdIn(List.of(1))).thenReturn(products);
 
         // When
-        List<Product> result = graphQLResolver.categoryProducts(testCategory);
+        Map<Category, List<Product>> result = graphQLResolver.categoryProducts(List.of(testCategory));
 
         // Then
         assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals("Smartphone", result.get(0).getProductName());
+        assertEquals(1, result.get(testCategory).size());
+        assertEquals("Smartphone", result.get(testCategory).get(0).getProductName());
     }
 
     @Test
     void categoryProducts_WhenException_ShouldReturnEmptyList() {
         // Given
-        when(productRepository.findByCategoryCategoryId(1)).thenThrow(new RuntimeException("Database error"));
+        when(productRepository.findByCategoryIdIn(List.of(1))).thenThrow(new RuntimeException("Database error"));
 
         // When
-        List<Product> result = graphQLResolver.categoryProducts(testCategory);
+        Map<Category, List<Product>> result = graphQLResolver.categoryProducts(List.of(testCategory));
 
         // Then
         assertNotNull(result);
-        assertTrue(result.isEmpty());
+        assertTrue(result.get(testCategory).isEmpty());
     }
 
     @Test
@@ -1022,7 +1101,7 @@ class GraphQLResolverTest {
         // Given
         setupAuthenticatedUser();
         when(userRepository.findByEmail("admin@petstore.com")).thenReturn(Optional.of(testUser));
-        when(promotionService.associateProductsToPromotion(1, Arrays.asList(1, 2))).thenReturn(true);
+        when(promotionService.associateProducts(1, Arrays.asList(1, 2))).thenReturn(Optional.of(associationResult(ProductAssociationResult.Outcome.ASSOCIATED)));
         when(promotionRepository.findById(1)).thenReturn(Optional.of(testPromotion));
 
         // When
@@ -1049,7 +1128,7 @@ class GraphQLResolverTest {
         // Given
         setupAuthenticatedUser();
         when(userRepository.findByEmail("admin@petstore.com")).thenReturn(Optional.of(testUser));
-        when(promotionService.associateProductsToPromotion(1, Arrays.asList(1, 2))).thenReturn(false);
+        when(promotionService.associateProducts(1, Arrays.asList(1, 2))).thenReturn(Optional.empty());
 
         // When & Then
         assertThrows(GraphQLException.class, () -> {
@@ -1062,7 +1141,7 @@ class GraphQLResolverTest {
         // Given
         setupAuthenticatedUser();
         when(userRepository.findByEmail("admin@petstore.com")).thenReturn(Optional.of(testUser));
-        when(promotionService.associateProductsToPromotion(1, Arrays.asList(1, 2))).thenReturn(true);
+        when(promotionService.associateProducts(1, Arrays.asList(1, 2))).thenReturn(Optional.of(associationResult(ProductAssociationResult.Outcome.ASSOCIATED)));
         when(promotionRepository.findById(1)).thenReturn(Optional.empty());
 
         // When & Then
@@ -1076,7 +1155,7 @@ class GraphQLResolverTest {
         // Given
         setupAuthenticatedUser();
         when(userRepository.findByEmail("admin@petstore.com")).thenReturn(Optional.of(testUser));
-        when(promotionService.removeProductsFromPromotion(1, Arrays.asList(1, 2))).thenReturn(true);
+        when(promotionService.removeProducts(1, Arrays.asList(1, 2))).thenReturn(Optional.of(associationResult(ProductAssociationResult.Outcome.REMOVED)));
         when(promotionRepository.findById(1)).thenReturn(Optional.of(testPromotion));
 
         // When
@@ -1103,7 +1182,7 @@ class GraphQLResolverTest {
         // Given
         setupAuthenticatedUser();
         when(userRepository.findByEmail("admin@petstore.com")).thenReturn(Optional.of(testUser));
-        when(promotionService.removeProductsFromPromotion(1, Arrays.asList(1, 2))).thenReturn(false);
+        when(promotionService.removeProducts(1, Arrays.asList(1, 2))).thenReturn(Optional.empty());
 
         // When & Then
         assertThrows(GraphQLException.class, () -> {
@@ -1209,16 +1288,103 @@ class GraphQLResolverTest {
         Product product1 = new Product();
         product1.setProductId(1);
         product1.setProductName("Product 1");
+        product1.setPromotion(testPromotion);
+        Promotion withoutProducts = new Promotion();
+        withoutProducts.setPromotionId(2);
         
-        when(productRepository.findByPromotionPromotionId(1))
+        when(productRepository.findByPromotionIdIn(List.of(1, 2)))
                 .thenReturn(Arrays.asList(product1));
 
         // When
-        List<Product> result = graphQLResolver.promotionProducts(testPromotion);
+        Map<Promotion, List<Product>> result = graphQLResolver.promotionProducts(List.of(testPromotion, withoutProducts));
 
         // Then
         assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals("Product 1", result.get(0).getProductName());
+        assertEquals(1, result.get(testPromotion).size());
+        assertEquals("Product 1", result.get(testPromotion).get(0).getProductName());
+        assertTrue(result.get(withoutProducts).isEmpty());
+    }
+
+    @Test
+    void productPromotion_ShouldLoadPromotionsOfAllProductsInOneQuery() {
+        // Given
+        Product withPromotion = new Product();
+        withPromotion.setProductId(10);
+        withPromotion.setPromotion(testPromotion);
+        Product withoutPromotion = new Product();
+        withoutPromotion.setProductId(11);
+        when(promotionRepository.findWithStatusByIdIn(List.of(1))).thenReturn(List.of(testPromotion));
+
+        // When
+        Map<Product, Promotion> result = graphQLResolver.productPromotion(List.of(withPromotion, withoutPromotion));
+
+        // Then
+        assertEquals(testPromotion, result.get(withPromotion));
+        assertFalse(result.containsKey(withoutPromotion));
+        verify(promotionRepository, times(1)).findWithStatusByIdIn(any());
+    }
+
+    @Test
+    void promotionMetricsSeries_ShouldParseIsoRange() {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2025, 6, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 6, 1, 12, 0);
+        MetricsSeriesDTO series = new MetricsSeriesDTO(1, "RAW", from, to, List.of());
+        when(promotionMetricsService.getMetricsSeries(1, from, to)).thenReturn(Optional.of(series));
+
+        // When & Then
+        assertEquals(series, graphQLResolver.promotionMetricsSeries("1", "2025-06-01T00:00:00", "2025-06-01T12:00:00"));
+        assertNull(graphQLResolver.promotionMetricsSeries("1", "ayer", "hoy"));
+    }
+
+    @Test
+    void productLeaderboard_ShouldParseArgumentsAndDefaults() {
+        // Given
+        List<ProductLeaderboardEntryDTO> top = List.of(new ProductLeaderboardEntryDTO(
+                1, "Collar Premium", 2, "Accesorios", 30, BigDecimal.valueOf(450), 2));
+        when(productLeaderboard.top(ProductLeaderboard.Ranking.REVENUE, 5, 2)).thenReturn(top);
+        when(productLeaderboard.top(ProductLeaderboard.Ranking.UNITS, ProductLeaderboard.DEFAULT_LIMIT, null))
+                .thenReturn(List.of());
+
+        // When & Then
+        assertEquals(top, graphQLResolver.productLeaderboard("revenue", 5, "2"));
+        assertTrue(graphQLResolver.productLeaderboard(null, null, null).isEmpty());
+        assertTrue(graphQLResolver.productLeaderboard("popularidad", 5, null).isEmpty());
+    }
+
+    @Test
+    void promotionPerformanceUpdated_ShouldStreamUpdatesAndMapErrors() {
+        // Given
+        PromotionPerformanceUpdateDTO update = new PromotionPerformanceUpdateDTO(1, List.of("totalUnitsSold"),
+                null, null, 12, null, null, null, null, null, null, null);
+        when(performanceStreamService.updates(1)).thenReturn(Flux.just(update));
+        when(performanceStreamService.updates(99)).thenReturn(Flux.error(new IllegalArgumentException("Promoción no encontrada: 99")));
+
+        // When & Then
+        assertEquals(List.of(update), graphQLResolver.promotionPerformanceUpdated("1").collectList().block());
+        Flux<PromotionPerformanceUpdateDTO> missing = graphQLResolver.promotionPerformanceUpdated("99");
+        assertThrows(GraphQLException.class, missing::blockFirst);
+        Flux<PromotionPerformanceUpdateDTO> invalid = graphQLResolver.promotionPerformanceUpdated("abc");
+        assertThrows(GraphQLException.class, invalid::blockFirst);
+    }
+
+    @Test
+    void promotionPerformanceProductMetrics_ShouldLoadOnlyWhenNotPresent() {
+        // Given
+        PromotionPerformanceDTO fromRollup = new PromotionPerformanceDTO();
+        fromRollup.setPromotionId(1);
+        PromotionPerformanceDTO withProducts = new PromotionPerformanceDTO();
+        withProducts.setPromotionId(2);
+        withProducts.setProductMetrics(List.of());
+        when(promotionMetricsService.getProductMetricsByPromotionId(1)).thenReturn(List.of(new ProductMetricsDTO()));
+
+        // When & Then
+        assertEquals(1, graphQLResolver.promotionPerformanceProductMetrics(fromRollup).size());
+        assertTrue(graphQLResolver.promotionPerformanceProductMetrics(withProducts).isEmpty());
+        verify(promotionMetricsService, times(1)).getProductMetricsByPromotionId(any());
+    }
+
+    private static ProductAssociationResult associationResult(ProductAssociationResult.Outcome outcome) {
+        return new ProductAssociationResult(1, Map.of(1, outcome, 2, outcome));
     }
 }
@@ -1,49 +1,35 @@
 package com.petstore.backend.listener;
 
-import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
-
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import com.petstore.backend.entity.NotificationConsent;
-import com.petstore.backend.entity.NotificationConsent.NotificationType;
 import com.petstore.backend.entity.Promotion;
 import com.petstore.backend.entity.Status;
-import com.petstore.backend.entity.User;
 import com.petstore.backend.event.PromotionActivatedEvent;
-import com.petstore.backend.repository.NotificationConsentRepository;
-import com.petstore.backend.service.NotificationService;
+import com.petstore.backend.service.NotificationFanOutService;
 
 @ExtendWith(MockitoExtension.class)
 class PromotionActivatedListenerTest {
 
     @Mock
-    private NotificationService notificationService;
-
-    @Mock
-    private NotificationConsentRepository notificationConsentRepository;
+    private NotificationFanOutService notificationFanOutService;
 
-    @InjectMocks
     private PromotionActivatedListener listener;
 
     private Promotion promotion;
-    private User user1, user2;
-    private NotificationConsent consent1, consent2;
     private PromotionActivatedEvent event;
 
     @BeforeEach
     void setUp() {
+        listener = new PromotionActivatedListener(notificationFanOutService);
+
         // Setup promotion
         promotion = new Promotion();
         promotion.setPromotionId(1);
@@ -55,145 +41,65 @@ class PromotionActivatedListenerTest {
         status.setStatusName("ACTIVE");
         promotion.setStatus(status);
 
-        // Setup users
-        user1 = new User();
-        user1.setUserId(1);
-        user1.setEmail("user1@test.com");
-        user1.setUserName("User 1");
-
-        user2 = new User();
-        user2.setUserId(2);
-        user2.setEmail("user2@test.com");
-        user2.setUserName("User 2");
-
-        // Setup consents
-        consent1 = new NotificationConsent();
-        consent1.setId(1L);
-        consent1.setUser(user1);
-        consent1.setNotificationType(NotificationType.EMAIL_PROMOTION);
-        consent1.setConsentGiven(true);
-
-        consent2 = new NotificationConsent();
-        consent2.setId(2L);
-        consent2.setUser(user2);
-        consent2.setNotificationType(NotificationType.EMAIL_PROMOTION);
-        consent2.setConsentGiven(true);
-
         event = new PromotionActivatedEvent(this, promotion);
     }
 
     @Test
-    @DisplayName("Should send notifications to all users with consent")
-    void shouldSendNotificationsToUsersWithConsent() throws Exception {
+    @DisplayName("Should enqueue the promotion without dispatching before commit")
+    void shouldEnqueueBeforeCommit() {
         // Given
-        List<NotificationConsent> consents = Arrays.asList(consent1, consent2);
-        when(notificationConsentRepository.findByNotificationTypeAndConsentGivenTrue(NotificationType.EMAIL_PROMOTION))
-            .thenReturn(consents);
+        when(notificationFanOutService.enqueue(promotion)).thenReturn(2);
 
         // When
         listener.handlePromotionActivated(event);
 
-        // Wait a bit for async processing
-        Thread.sleep(100);
-
-        // Then
-        verify(notificationConsentRepository).findByNotificationTypeAndConsentGivenTrue(NotificationType.EMAIL_PROMOTION);
-        verify(notificationService, times(2)).sendPromotionNotificationToUser(eq(promotion), any(User.class));
-        verify(notificationService).sendPromotionNotificationToUser(promotion, user1);
-        verify(notificationService).sendPromotionNotificationToUser(promotion, user2);
+        // Then - el despacho espera a que la activación se confirme
+        verify(notificationFanOutService).enqueue(promotion);
+        verify(notificationFanOutService, never()).dispatchPending();
     }
 
     @Test
-    @DisplayName("Should handle empty consent list")
-    void shouldHandleEmptyConsentList() throws Exception {
+    @DisplayName("Should propagate enqueue exception so the activation rolls back")
+    void shouldPropagateEnqueueException() {
         // Given
-        when(notificationConsentRepository.findByNotificationTypeAndConsentGivenTrue(NotificationType.EMAIL_PROMOTION))
-            .thenReturn(Collections.emptyList());
-
-        // When
-        listener.handlePromotionActivated(event);
+        when(notificationFanOutService.enqueue(promotion)).thenThrow(new RuntimeException("Database error"));
 
-        // Wait a bit for async processing
-        Thread.sleep(100);
-
-        // Then
-        verify(notificationConsentRepository).findByNotificationTypeAndConsentGivenTrue(NotificationType.EMAIL_PROMOTION);
-        verify(notificationService, never()).sendPromotionNotificationToUser(any(), any());
+        // When & Then - la activación y el outbox se confirman juntos o no se confirman
+        assertThrows(RuntimeException.class, () -> listener.handlePromotionActivated(event));
     }
 
     @Test
-    @DisplayName("Should handle notification service exception")
-    void shouldHandleNotificationServiceException() throws Exception {
-        // Given
-        List<NotificationConsent> consents = Arrays.asList(consent1);
-        when(notificationConsentRepository.findByNotificationTypeAndConsentGivenTrue(NotificationType.EMAIL_PROMOTION))
-            .thenReturn(consents);
-        doThrow(new RuntimeException("Email service error"))
-            .when(notificationService).sendPromotionNotificationToUser(promotion, user1);
-
-        // When & Then - Should not throw exception
-        assertDoesNotThrow(() -> listener.handlePromotionActivated(event));
-
-        // Wait a bit for async processing
-        Thread.sleep(100);
+    @DisplayName("Should dispatch the outbox after commit")
+    void shouldDispatchAfterCommit() {
+        // When
+        listener.dispatchAfterActivation(event);
 
-        verify(notificationService).sendPromotionNotificationToUser(promotion, user1);
+        // Then
+        verify(notificationFanOutService).dispatchPending();
+        verify(notificationFanOutService, never()).enqueue(any());
     }
 
     @Test
-    @DisplayName("Should handle repository exception")
-    void shouldHandleRepositoryException() throws Exception {
-        // Given
-        when(notificationConsentRepository.findByNotificationTypeAndConsentGivenTrue(NotificationType.EMAIL_PROMOTION))
-            .thenThrow(new RuntimeException("Database error"));
+    @DisplayName("Should handle dispatch exception")
+    void shouldHandleDispatchException() {
+        // Given - las filas ya encoladas las retoma el despacho periódico
+        doThrow(new RuntimeException("Executor error")).when(notificationFanOutService).dispatchPending();
 
         // When & Then - Should not throw exception
-        assertDoesNotThrow(() -> listener.handlePromotionActivated(event));
-
-        // Wait a bit for async processing
-        Thread.sleep(100);
-
-        verify(notificationService, never()).sendPromotionNotificationToUser(any(), any());
-    }
-
-    @Test
-    @DisplayName("Should handle single user notification failure")
-    void shouldHandleSingleUserNotificationFailure() throws Exception {
-        // Given
-        List<NotificationConsent> consents = Arrays.asList(consent1, consent2);
-        when(notificationConsentRepository.findByNotificationTypeAndConsentGivenTrue(NotificationType.EMAIL_PROMOTION))
-            .thenReturn(consents);
-        
-        // First user fails, second succeeds
-        doThrow(new RuntimeException("Email failed for user1"))
-            .when(notificationService).sendPromotionNotificationToUser(promotion, user1);
-        doNothing().when(notificationService).sendPromotionNotificationToUser(promotion, user2);
-
-        // When
-        assertDoesNotThrow(() -> listener.handlePromotionActivated(event));
-
-        // Wait a bit for async processing
-        Thread.sleep(100);
-
-        // Then - Both should be attempted
-        verify(notificationService).sendPromotionNotificationToUser(promotion, user1);
-        verify(notificationService).sendPromotionNotificationToUser(promotion, user2);
+        assertDoesNotThrow(() -> listener.dispatchAfterActivation(event));
     }
 
     @Test
     @DisplayName("Should handle null promotion in event")
-    void shouldHandleNullPromotionInEvent() throws Exception {
+    void shouldHandleNullPromotionInEvent() {
         // Given
         PromotionActivatedEvent nullEvent = new PromotionActivatedEvent(this, null);
 
         // When & Then - Should not throw exception
         assertDoesNotThrow(() -> listener.handlePromotionActivated(nullEvent));
+        assertDoesNotThrow(() -> listener.dispatchAfterActivation(nullEvent));
 
-        // Wait a bit for async processing
-        Thread.sleep(100);
-
-        // Should not call repository or service
-        verify(notificationConsentRepository, never()).findByNotificationTypeAndConsentGivenTrue(any());
-        verify(notificationService, never()).sendPromotionNotificationToUser(any(), any());
+        // Should not enqueue nor dispatch
+        verifyNoInteractions(notificationFanOutService);
     }
 }
@@ -139,6 +139,22 @@ class NotificationConsentRepositoryTest {
         assertTrue(users.stream().anyMatch(user -> user.getUserId().equals(anotherUser.getUserId())));
     }
 
+    @Test
+    @DisplayName("Should find only the IDs of consenting users")
+    void shouldFindConsentingUserIds() {
+        // Given
+        entityManager.persist(createConsent(testUser, NotificationType.EMAIL_PROMOTION, true));
+        entityManager.persist(createConsent(anotherUser, NotificationType.EMAIL_PROMOTION, false));
+        entityManager.persist(createConsent(anotherUser, NotificationType.EMAIL_GENERAL, true));
+        entityManager.flush();
+
+        // When
+        List<Integer> userIds = notificationConsentRepository.findConsentingUserIds(NotificationType.EMAIL_PROMOTION);
+
+        // Then
+        assertEquals(List.of(testUser.getUserId()), userIds);
+    }
+
     @Test
     @DisplayName("Should check if user has active consent")
     void shouldCheckIfUserHasActiveConsent() {
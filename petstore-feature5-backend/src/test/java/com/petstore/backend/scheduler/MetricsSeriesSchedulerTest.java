@@ -0,0 +1,42 @@
+package com.petstore.backend.scheduler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.petstore.backend.service.PromotionMetricsSeriesService;
+
+@ExtendWith(MockitoExtension.class)
+class MetricsSeriesSchedulerTest {
+
+    @Mock
+    private PromotionMetricsSeriesService seriesService;
+
+    @InjectMocks
+    private MetricsSeriesScheduler scheduler;
+
+    @Test
+    void downsampleAndPurge_ShouldPurgeAfterDownsampling() {
+        scheduler.downsampleAndPurge();
+
+        InOrder order = inOrder(seriesService);
+        order.verify(seriesService).downsample();
+        order.verify(seriesService).purgeExpired();
+    }
+
+    @Test
+    void downsampleAndPurge_ShouldNotPurgeWhenDownsamplingFails() {
+        when(seriesService.downsample()).thenThrow(new IllegalStateException("BD no disponible"));
+
+        scheduler.downsampleAndPurge();
+
+        verify(seriesService, never()).purgeExpired();
+    }
+}
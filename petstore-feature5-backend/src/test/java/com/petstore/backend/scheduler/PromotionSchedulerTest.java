@@ -0,0 +1,225 @@
+package com.petstore.backend.scheduler;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.TaskScheduler;
+
+import com.petstore.backend.cache.PromotionInterval;
+import com.petstore.backend.dto.StatusTransitionResult;
+import com.petstore.backend.event.PromotionChangedEvent;
+import com.petstore.backend.repository.PromotionRepository;
+import com.petstore.backend.service.PromotionService;
+
+@ExtendWith(MockitoExtension.class)
+class PromotionSchedulerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 1);
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(1);
+
+    @Mock
+    private PromotionRepository promotionRepository;
+
+    @Mock
+    private PromotionService promotionService;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    @Mock
+    private ScheduledFuture<Object> future;
+
+    private MutableClock clock;
+    private PromotionScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(TODAY);
+        scheduler = new PromotionScheduler(promotionRepository, promotionService, taskScheduler, clock, RETRY_DELAY);
+    }
+
+    @Test
+    void start_ShouldCatchUpAndScheduleAtNearestBoundary() {
+        when(promotionService.transitionPromotionStatuses()).thenReturn(new StatusTransitionResult(1, 0, List.of()));
+        when(promotionRepository.findAllIntervals()).thenReturn(List.of(
+            interval(1, -3, 10),   // expira el día 11
+            interval(2, 4, 20),    // se activa el día 4
+            interval(3, -10, -2))); // ya expirada: sin fronteras
+        doReturn(future).when(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+
+        scheduler.start();
+
+        assertEquals(TODAY.plusDays(4), scheduler.nextWakeUp());
+        assertEquals(3, scheduler.pendingBoundaries());
+        verify(taskScheduler).schedule(any(Runnable.class), eq(midnight(4)));
+    }
+
+    @Test
+    void start_WhenCatchUpFails_ShouldStillBuildQueue() {
+        when(promotionService.transitionPromotionStatuses()).thenThrow(new IllegalStateException("Estado no configurado"));
+        when(promotionRepository.findAllIntervals()).thenReturn(List.of(interval(1, 2, 5)));
+        doReturn(future).when(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+
+        scheduler.start();
+
+        assertEquals(TODAY.plusDays(2), scheduler.nextWakeUp());
+    }
+
+    @Test
+    void onBoundary_ShouldTransitionOnlyDuePromotionsAndScheduleNext() {
+        startWith(interval(1, 2, 5), interval(2, 2, 30), interval(3, 8, 9));
+
+        clock.setDate(TODAY.plusDays(2));
+        scheduler.onBoundary();
+
+        verify(promotionService).transitionPromotionStatuses(Set.of(1, 2));
+        assertEquals(TODAY.plusDays(6), scheduler.nextWakeUp());
+    }
+
+    @Test
+    void onBoundary_WhenTransitionFails_ShouldKeepDueBoundariesAndRetry() {
+        startWith(interval(1, 2, 5), interval(2, 8, 9));
+        when(promotionService.transitionPromotionStatuses(Set.of(1)))
+            .thenThrow(new IllegalStateException("BD no disponible"))
+            .thenReturn(new StatusTransitionResult(0, 0, List.of(1)));
+
+        clock.setDate(TODAY.plusDays(2));
+        scheduler.onBoundary();
+
+        // La frontera sigue en la cola y se reintenta tras el retraso, no a medianoche
+        assertEquals(TODAY.plusDays(2), scheduler.nextWakeUp());
+        verify(taskScheduler).schedule(any(Runnable.class), eq(midnight(2).plus(RETRY_DELAY)));
+
+        scheduler.onBoundary();
+
+        verify(promotionService, times(2)).transitionPromotionStatuses(Set.of(1));
+        assertEquals(TODAY.plusDays(6), scheduler.nextWakeUp());
+    }
+
+    @Test
+    void onPromotionChanged_ReloadAllShouldKeepBoundariesWaitingForRetry() {
+        startWith(interval(1, 2, 5));
+        when(promotionService.transitionPromotionStatuses(Set.of(1))).thenThrow(new IllegalStateException("BD no disponible"));
+        clock.setDate(TODAY.plusDays(2));
+        scheduler.onBoundary();
+
+        scheduler.onPromotionChanged(PromotionChangedEvent.reloadAll(this));
+
+        assertEquals(TODAY.plusDays(2), scheduler.nextWakeUp());
+    }
+
+    @Test
+    void onPromotionChanged_WithEarlierBoundaryShouldReschedule() {
+        startWith(interval(1, 10, 20));
+
+        scheduler.onPromotionChanged(PromotionChangedEvent.upserted(this, interval(2, 3, 4)));
+
+        assertEquals(TODAY.plusDays(3), scheduler.nextWakeUp());
+        verify(future).cancel(false);
+    }
+
+    @Test
+    void onPromotionChanged_EditedOrDeletedPromotionsShouldNotFireStaleBoundaries() {
+        startWith(interval(1, 2, 20), interval(2, 3, 20));
+
+        scheduler.onPromotionChanged(PromotionChangedEvent.upserted(this, interval(1, 7, 20))); // inicio movido
+        scheduler.onPromotionChanged(PromotionChangedEvent.deleted(this, 2));
+
+        clock.setDate(TODAY.plusDays(3));
+        scheduler.onBoundary();
+        verify(promotionService, never()).transitionPromotionStatuses(any(Set.class));
+
+        clock.setDate(TODAY.plusDays(7));
+        scheduler.onBoundary();
+        verify(promotionService, times(1)).transitionPromotionStatuses(Set.of(1));
+    }
+
+    @Test
+    void onPromotionChanged_BeforeStartShouldBeIgnored() {
+        scheduler.onPromotionChanged(PromotionChangedEvent.upserted(this, interval(1, 2, 5)));
+
+        assertEquals(0, scheduler.pendingBoundaries());
+        assertNull(scheduler.nextWakeUp());
+    }
+
+    @Test
+    void onPromotionChanged_ReloadAllShouldRebuildFromRepository() {
+        startWith(interval(1, 2, 5));
+        when(promotionRepository.findAllIntervals()).thenReturn(List.of(interval(1, 2, 5), interval(4, 1, 3)));
+
+        scheduler.onPromotionChanged(PromotionChangedEvent.reloadAll(this));
+
+        assertEquals(TODAY.plusDays(1), scheduler.nextWakeUp());
+        verify(promotionRepository, times(2)).findAllIntervals();
+    }
+
+    private void startWith(PromotionInterval... intervals) {
+        when(promotionService.transitionPromotionStatuses()).thenReturn(new StatusTransitionResult(0, 0, List.of()));
+        lenient().when(promotionService.transitionPromotionStatuses(any(Set.class)))
+            .thenReturn(new StatusTransitionResult(0, 0, List.of()));
+        when(promotionRepository.findAllIntervals()).thenReturn(List.of(intervals));
+        doReturn(future).when(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+        scheduler.start();
+    }
+
+    private static PromotionInterval interval(int id, int startOffset, int endOffset) {
+        return new PromotionInterval(id, TODAY.plusDays(startOffset), TODAY.plusDays(endOffset), 1, "ACTIVE");
+    }
+
+    private static Instant midnight(int offset) {
+        return TODAY.plusDays(offset).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    /**
+     * Reloj de prueba que permite avanzar la fecha
+     */
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(LocalDate date) {
+            setDate(date);
+        }
+
+        void setDate(LocalDate date) {
+            this.instant = date.atStartOfDay(ZoneOffset.UTC).toInstant();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -1,19 +1,28 @@
 package com.petstore.backend.service;
 
+import com.petstore.backend.cache.CatalogVersion;
+import com.petstore.backend.cache.ReferenceDataRegistry;
+import com.petstore.backend.dto.CursorPage;
 import com.petstore.backend.entity.Category;
+import com.petstore.backend.event.CategoryChangedEvent;
 import com.petstore.backend.repository.CategoryRepository;
+import com.petstore.backend.util.KeysetCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -22,6 +31,15 @@ class CategoryServiceTest {
     @Mock
     private CategoryRepository categoryRepository;
 
+    @Mock
+    private ReferenceDataRegistry referenceDataRegistry;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private CatalogVersion catalogVersion;
+
     @InjectMocks
     private CategoryService categoryService;
 
@@ -114,6 +132,12 @@ class CategoryServiceTest {
         assertEquals("Books", result.getCategoryName());
         assertEquals(2, result.getCategoryId());
         verify(categoryRepository).save(newCategory);
+        verify(referenceDataRegistry).categorySaved(savedCategory);
+        ArgumentCaptor<CategoryChangedEvent> event = ArgumentCaptor.forClass(CategoryChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(2, event.getValue().getCategoryId());
+        assertFalse(event.getValue().isDeleted());
+        verify(catalogVersion).bump();
     }
 
     @Test
@@ -126,6 +150,12 @@ class CategoryServiceTest {
 
         // Then
         verify(categoryRepository).deleteById(categoryId);
+        verify(referenceDataRegistry).categoryDeleted(categoryId);
+        ArgumentCaptor<CategoryChangedEvent> event = ArgumentCaptor.forClass(CategoryChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(categoryId, event.getValue().getCategoryId());
+        assertTrue(event.getValue().isDeleted());
+        verify(catalogVersion).bump();
     }
 
     @Test
@@ -194,4 +224,28 @@ class CategoryServiceTest {
         assertEquals(category2, result.get(1));
         verify(categoryRepository).findAll();
     }
+
+    @Test
+    void findPage_WithCursor_ShouldSeekAfterCursorId() {
+        // Given
+        String after = new KeysetCursor("id", null, 1).encode();
+        Category next = new Category();
+        next.setCategoryId(2);
+        when(categoryRepository.findPageAfterId(eq(1), any())).thenReturn(Arrays.asList(next));
+
+        // When
+        CursorPage<Category> page = categoryService.findPage(after, 5);
+
+        // Then
+        assertEquals(1, page.getSize());
+        assertFalse(page.isHasNextPage());
+        assertTrue(page.isHasPreviousPage());
+        verify(categoryRepository, never()).findAll();
+    }
+
+    @Test
+    void findPage_WithMalformedCursor_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> categoryService.findPage("%%%", 5));
+        verifyNoInteractions(categoryRepository);
+    }
 }
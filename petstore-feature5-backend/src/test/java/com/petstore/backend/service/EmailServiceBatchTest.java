@@ -0,0 +1,126 @@
+package com.petstore.backend.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.petstore.backend.dto.EmailMessage;
+import com.petstore.backend.dto.EmailSendResult;
+
+/**
+ * Envío por lotes contra un proveedor local ({@link ResendStubServer}), sin red
+ */
+class EmailServiceBatchTest {
+
+    private ResendStubServer provider;
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        provider = new ResendStubServer();
+        emailService = new EmailService("re_test_key", "test@resend.dev", "Test Sender", "default@test.com",
+                provider.baseUrl(), EmailService.PROVIDER_BATCH_LIMIT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.close();
+    }
+
+    @Test
+    void sendBatch_ShouldGroupMessagesUpToTheProviderLimit() {
+        List<EmailSendResult> results = emailService.sendBatch(messages(250));
+
+        assertEquals(3, provider.requests()); // 100 + 100 + 50
+        assertEquals(250, provider.emails());
+        assertEquals(250, results.size());
+        assertTrue(results.stream().allMatch(EmailSendResult::sent));
+        assertEquals("user0@test.com", results.get(0).to());
+        assertEquals("stub-1-0", results.get(0).providerId());
+        assertEquals("stub-3-49", results.get(249).providerId());
+        assertEquals("Bearer re_test_key", provider.authorizations().get(0));
+    }
+
+    @Test
+    void sendBatch_FailedRequestShouldOnlyFailItsOwnMessages() {
+        provider.failRequests(request -> request == 2);
+
+        List<EmailSendResult> results = emailService.sendBatch(messages(250));
+
+        assertEquals(150, results.stream().filter(EmailSendResult::sent).count());
+        assertFalse(results.get(100).sent());
+        assertTrue(results.get(100).error().contains("500"));
+        assertTrue(results.get(100).retryable());
+        assertFalse(results.get(199).sent());
+        assertTrue(results.get(200).sent());
+    }
+
+    @Test
+    void sendBatch_ClientErrorShouldBePermanentExceptAuthTimeoutAndRateLimit() {
+        provider.failRequests(request -> true, 404);
+        EmailSendResult rejected = emailService.sendBatch(messages(1)).get(0);
+
+        assertFalse(rejected.sent());
+        assertFalse(rejected.retryable());
+        assertTrue(rejected.error().contains("404"));
+        for (int status : new int[] {401, 403, 408, 429}) {
+            provider.failRequests(request -> true, status);
+            List<EmailSendResult> results = emailService.sendBatch(messages(3));
+            assertTrue(results.stream().noneMatch(EmailSendResult::sent), "Estado " + status);
+            assertTrue(results.stream().allMatch(EmailSendResult::retryable), "Estado " + status);
+        }
+    }
+
+    @Test
+    void sendBatch_RejectedMessageShouldNotRejectTheRestOfItsGroup() {
+        provider.rejectSubjects(subject -> subject.equals("Promo 37"));
+
+        List<EmailSendResult> results = emailService.sendBatch(messages(100));
+
+        assertEquals(99, results.stream().filter(EmailSendResult::sent).count());
+        assertFalse(results.get(37).sent());
+        assertFalse(results.get(37).retryable());
+        assertTrue(results.get(37).error().contains("422"));
+        assertEquals(99, provider.emails());
+    }
+
+    @Test
+    void sendBatch_InvalidMessagesShouldFailWithoutBeingSent() {
+        List<EmailSendResult> results = emailService.sendBatch(List.of(
+                new EmailMessage("ok@test.com", "Asunto", "<p>Hola</p>"),
+                new EmailMessage("sin-asunto@test.com", "", "<p>Hola</p>"),
+                new EmailMessage(null, "Asunto", "<p>Hola</p>")));
+
+        assertEquals(1, provider.emails());
+        assertTrue(results.get(0).sent());
+        assertFalse(results.get(1).sent());
+        assertFalse(results.get(1).retryable());
+        assertFalse(results.get(2).sent());
+        assertNull(results.get(2).providerId());
+    }
+
+    @Test
+    void sendBatch_UnreachableProviderShouldFailEveryMessage() {
+        provider.close();
+
+        List<EmailSendResult> results = emailService.sendBatch(messages(3));
+
+        assertEquals(3, results.size());
+        assertTrue(results.stream().noneMatch(EmailSendResult::sent));
+        assertTrue(results.stream().allMatch(EmailSendResult::retryable));
+    }
+
+    private static List<EmailMessage> messages(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new EmailMessage("user" + i + "@test.com", "Promo " + i, "<p>Hola " + i + "</p>"))
+                .toList();
+    }
+}
@@ -30,7 +30,9 @@ class EmailServiceTest {
             "invalid-test-api-key",
             "test@resend.dev", 
             "Test Sender",
-            "default@test.com"
+            "default@test.com",
+            "https://api.resend.com",
+            EmailService.PROVIDER_BATCH_LIMIT
         );
     }
 
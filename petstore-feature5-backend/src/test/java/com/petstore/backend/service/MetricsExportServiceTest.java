@@ -0,0 +1,146 @@
+package com.petstore.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.petstore.backend.entity.Category;
+import com.petstore.backend.entity.Product;
+import com.petstore.backend.entity.Promotion;
+import com.petstore.backend.entity.PromotionMetrics;
+import com.petstore.backend.entity.Status;
+import com.petstore.backend.repository.CategoryRepository;
+import com.petstore.backend.repository.ProductRepository;
+import com.petstore.backend.repository.PromotionMetricsRepository;
+import com.petstore.backend.repository.PromotionRepository;
+import com.petstore.backend.repository.StatusRepository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Exportación de métricas contra H2: filtros por promoción y rango, formatos y gzip.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class MetricsExportServiceTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 3, 1, 12, 0);
+
+    @Autowired
+    private MetricsExportService metricsExportService;
+
+    @Autowired
+    private PromotionMetricsRepository promotionMetricsRepository;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private StatusRepository statusRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Promotion first;
+    private Promotion second;
+
+    @BeforeEach
+    void setUp() {
+        Status active = statusRepository.findByStatusName("ACTIVE")
+                .orElseGet(() -> statusRepository.save(new Status("ACTIVE")));
+        Category category = categoryRepository.save(new Category("Export category", "Descripción"));
+        first = savePromotion("Export promotion A", active, category);
+        second = savePromotion("Export promotion B", active, category);
+        Product product = new Product();
+        product.setProductName("Export product");
+        product.setBasePrice(10.0);
+        product.setSku(100);
+        product.setCategory(category);
+        product = productRepository.save(product);
+
+        saveMetrics(first, product, 5, "50.00", BASE.minusDays(1));
+        saveMetrics(first, product, 8, "80.00", BASE);
+        saveMetrics(second, product, 2, null, BASE.plusHours(1));
+        saveMetrics(first, product, 9, "90.00", BASE.plusDays(5)); // Fuera del rango
+        entityManager.flush();
+    }
+
+    @Test
+    void export_CsvShouldStreamRowsInRangeOrderedByPromotion() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long rows = metricsExportService.export(null, BASE.minusDays(2), BASE.plusDays(1),
+                MetricsExportService.Format.CSV, false, output);
+
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(3, rows);
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(0).startsWith("metricsId,promotionId,productId,"));
+        assertTrue(lines.get(1).contains(",5,") && lines.get(1).contains(",50.00,"));
+        assertTrue(lines.get(3).startsWith(lines.get(3).split(",")[0] + "," + second.getPromotionId() + ","));
+        assertTrue(lines.get(3).contains(",,")); // Ingresos nulos quedan vacíos
+    }
+
+    @Test
+    void export_NdjsonWithGzipShouldFilterByPromotion() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long rows = metricsExportService.export(first.getPromotionId(), BASE.minusDays(2), BASE.plusDays(1),
+                MetricsExportService.Format.NDJSON, true, output);
+
+        String content;
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))) {
+            content = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        List<String> lines = content.lines().toList();
+        assertEquals(2, rows);
+        assertEquals(2, lines.size());
+        JsonNode last = objectMapper.readTree(lines.get(1));
+        assertEquals(first.getPromotionId(), last.get("promotionId").asInt());
+        assertEquals(8, last.get("unitsSold").asInt());
+        assertEquals(0, new BigDecimal("80.00").compareTo(last.get("revenueGenerated").decimalValue()));
+        assertEquals(BASE, LocalDateTime.parse(last.get("snapshotDate").asText()));
+    }
+
+    private Promotion savePromotion(String name, Status status, Category category) {
+        Promotion promotion = new Promotion(name, "Descripción", LocalDate.now().minusDays(1),
+                LocalDate.now().plusDays(10), 10.0, status);
+        promotion.setCategory(category);
+        return promotionRepository.save(promotion);
+    }
+
+    private void saveMetrics(Promotion promotion, Product product, int unitsSold, String revenue, LocalDateTime snapshotDate) {
+        PromotionMetrics metrics = new PromotionMetrics(promotion, product, 100, 100 - unitsSold, unitsSold,
+                revenue != null ? new BigDecimal(revenue) : null);
+        metrics.setSnapshotDate(snapshotDate);
+        promotionMetricsRepository.save(metrics);
+    }
+}
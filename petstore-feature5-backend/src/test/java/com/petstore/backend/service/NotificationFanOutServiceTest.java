@@ -0,0 +1,205 @@
+package com.petstore.backend.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.petstore.backend.dto.NotificationDelivery;
+import com.petstore.backend.dto.NotificationFanOutProgressDTO;
+import com.petstore.backend.dto.NotificationOutboxEntry;
+import com.petstore.backend.entity.NotificationLog.NotificationStatus;
+import com.petstore.backend.entity.Promotion;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationFanOutServiceTest {
+
+    private static final int WORKERS = 4;
+    private static final int BATCH_SIZE = 10;
+
+    @Mock
+    private NotificationService notificationService;
+
+    @Mock
+    private NotificationOutboxService outboxService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationFanOutService fanOutService;
+
+    // Cola simulada del outbox: cada claim toma hasta BATCH_SIZE entradas
+    private final Deque<NotificationOutboxEntry> queue = new ArrayDeque<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        fanOutService = new NotificationFanOutService(notificationService, outboxService, meterRegistry,
+            10_000, 10_000, WORKERS, BATCH_SIZE);
+        lenient().when(outboxService.claim(anyInt())).thenAnswer(invocation -> {
+            int limit = invocation.getArgument(0);
+            List<NotificationOutboxEntry> batch = new ArrayList<>();
+            synchronized (queue) {
+                while (batch.size() < limit && !queue.isEmpty()) {
+                    batch.add(queue.poll());
+                }
+            }
+            return batch;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        fanOutService.shutdown();
+    }
+
+    @Test
+    void dispatchPending_ShouldDrainTheQueueInBatches() throws Exception {
+        enqueue(45);
+        List<Long> delivered = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            List<NotificationOutboxEntry> batch = invocation.getArgument(0);
+            batch.forEach(entry -> delivered.add(entry.id()));
+            return sentAll(batch);
+        }).when(notificationService).deliver(anyList());
+
+        assertEquals(45, fanOutService.startDispatch().get(5, TimeUnit.SECONDS));
+
+        verify(notificationService, times(5)).deliver(anyList());
+        verify(outboxService, times(5)).complete(anyList(), anyList());
+        assertEquals(45, delivered.size());
+        assertEquals(45, new HashSet<>(delivered).size());
+        assertEquals(45.0, meterRegistry.get("notifications.fanout.sends").tag("result", "completed").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void dispatchPending_DeliveryErrorShouldSendTheWholeBatchBackForRetry() throws Exception {
+        enqueue(3);
+        when(notificationService.deliver(anyList())).thenThrow(new RuntimeException("Proveedor caído"));
+
+        assertEquals(3, fanOutService.startDispatch().get(5, TimeUnit.SECONDS));
+
+        ArgumentCaptor<List<NotificationDelivery>> deliveries = ArgumentCaptor.forClass(List.class);
+        verify(outboxService).complete(anyList(), deliveries.capture());
+        assertEquals(3, deliveries.getValue().size());
+        deliveries.getValue().forEach(delivery -> {
+            assertEquals(NotificationStatus.FAILED, delivery.status());
+            assertTrue(delivery.retryable());
+            assertNull(delivery.subject());
+        });
+        assertEquals(3.0, meterRegistry.get("notifications.fanout.sends").tag("result", "failed").counter().count());
+    }
+
+    @Test
+    void dispatchPending_ShouldRunBatchesOnBoundedWorkers() throws Exception {
+        enqueue(200);
+        AtomicInteger current = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        doAnswer(invocation -> {
+            peak.accumulateAndGet(current.incrementAndGet(), Math::max);
+            Thread.sleep(10);
+            current.decrementAndGet();
+            return sentAll(invocation.getArgument(0));
+        }).when(notificationService).deliver(anyList());
+
+        assertEquals(200, fanOutService.startDispatch().get(5, TimeUnit.SECONDS));
+
+        assertTrue(peak.get() <= WORKERS, "Pico de lotes simultáneos: " + peak.get());
+        assertTrue(peak.get() > 1, "Los lotes deberían solaparse");
+    }
+
+    @Test
+    void dispatchPending_ShouldSkipWhileAnotherDispatchIsRunning() throws Exception {
+        enqueue(1);
+        CountDownLatch delivering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            delivering.countDown();
+            release.await();
+            return sentAll(invocation.getArgument(0));
+        }).when(notificationService).deliver(anyList());
+
+        CompletableFuture<Integer> first = fanOutService.startDispatch();
+        assertTrue(delivering.await(5, TimeUnit.SECONDS));
+
+        assertEquals(0, fanOutService.startDispatch().get(5, TimeUnit.SECONDS));
+        release.countDown();
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void dispatchPending_ShouldReturnWithoutWaitingForTheWorkers() throws Exception {
+        enqueue(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch delivered = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            delivered.countDown();
+            return sentAll(invocation.getArgument(0));
+        }).when(notificationService).deliver(anyList());
+
+        fanOutService.dispatchPending(); // El hilo del scheduler vuelve con el lote aún en curso
+
+        assertEquals(1, delivered.getCount());
+        release.countDown();
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void dispatchPending_WithEmptyQueueShouldNotDeliver() throws Exception {
+        assertEquals(0, fanOutService.startDispatch().get(5, TimeUnit.SECONDS));
+
+        verify(notificationService, never()).deliver(anyList());
+        verify(outboxService, never()).complete(anyList(), anyList());
+    }
+
+    @Test
+    void enqueueAndRecentCampaigns_ShouldDelegate() {
+        Promotion promotion = new Promotion();
+        promotion.setPromotionId(1);
+        NotificationFanOutProgressDTO progress = new NotificationFanOutProgressDTO(1, "Promo 1", 10, 10, 0, 0, 0, null, null);
+        when(notificationService.sendPromotionNotification(promotion)).thenReturn(10);
+        when(outboxService.recentCampaigns(NotificationFanOutService.RECENT_CAMPAIGNS)).thenReturn(List.of(progress));
+
+        assertEquals(10, fanOutService.enqueue(promotion));
+        assertEquals(List.of(progress), fanOutService.recentCampaigns());
+    }
+
+    private void enqueue(int count) {
+        LongStream.rangeClosed(1, count).forEach(id ->
+            queue.add(new NotificationOutboxEntry(id, (int) id, 1, "user" + id + "@test.com", 1)));
+    }
+
+    private static List<NotificationDelivery> sentAll(List<NotificationOutboxEntry> batch) {
+        return batch.stream()
+            .map(entry -> NotificationDelivery.sent(entry.id(), "Asunto", "Contenido", "re_" + entry.id()))
+            .toList();
+    }
+}
@@ -0,0 +1,198 @@
+package com.petstore.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.petstore.backend.dto.NotificationDelivery;
+import com.petstore.backend.dto.NotificationFanOutProgressDTO;
+import com.petstore.backend.dto.NotificationOutboxEntry;
+import com.petstore.backend.entity.NotificationConsent;
+import com.petstore.backend.entity.NotificationConsent.NotificationType;
+import com.petstore.backend.entity.NotificationLog.NotificationStatus;
+import com.petstore.backend.entity.Promotion;
+import com.petstore.backend.entity.Role;
+import com.petstore.backend.entity.Status;
+import com.petstore.backend.entity.User;
+import com.petstore.backend.repository.NotificationConsentRepository;
+import com.petstore.backend.repository.PromotionRepository;
+import com.petstore.backend.repository.RoleRepository;
+import com.petstore.backend.repository.StatusRepository;
+import com.petstore.backend.repository.UserRepository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Prueba del outbox de notificaciones contra H2: encolado en una sola sentencia, reclamo con
+ * {@code FOR UPDATE SKIP LOCKED} y lease, y cierre de los lotes con reintentos.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class NotificationOutboxServiceIntegrationTest {
+
+    @Autowired
+    private NotificationOutboxService outboxService;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+
+    @Autowired
+    private StatusRepository statusRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private NotificationConsentRepository consentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Promotion promotion;
+
+    @BeforeEach
+    void setUp() {
+        Status active = statusRepository.findByStatusName("ACTIVE")
+                .orElseGet(() -> statusRepository.save(new Status("ACTIVE")));
+        promotion = promotionRepository.save(new Promotion("Outbox promotion", "Descripción",
+                LocalDate.now(), LocalDate.now().plusDays(10), 15.0, active));
+
+        Role role = roleRepository.save(new Role("Outbox role"));
+        saveUserWithConsent("outbox1@test.com", role, true);
+        saveUserWithConsent("outbox2@test.com", role, true);
+        saveUserWithConsent("outbox3@test.com", role, false);
+        entityManager.flush();
+    }
+
+    @Test
+    void enqueue_ShouldQueueEachConsentingUserOnce() {
+        assertEquals(2, outboxService.enqueue(promotion, "Asunto"));
+        assertEquals(0, outboxService.enqueue(promotion, "Asunto")); // Ya tienen una fila pendiente
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT recipient, status, attempts FROM notification_logs WHERE promotion_id = ? ORDER BY recipient",
+                promotion.getPromotionId());
+        assertEquals(2, rows.size());
+        assertEquals("outbox1@test.com", rows.get(0).get("recipient"));
+        assertEquals("PENDING", rows.get(0).get("status"));
+        assertEquals(0, ((Number) rows.get(0).get("attempts")).intValue());
+    }
+
+    @Test
+    void enqueue_ShouldOnlyRequeueRecipientsWhoseNotificationFailed() {
+        outboxService.enqueue(promotion, "Asunto");
+        List<NotificationOutboxEntry> claimed = outboxService.claim(10);
+        outboxService.complete(claimed, List.of(
+                NotificationDelivery.sent(claimed.get(0).id(), "Asunto", "<p>Hola</p>", "re_1"),
+                NotificationDelivery.rejected(claimed.get(1).id(), NotificationStatus.FAILED, "Resend respondió 422")));
+
+        // Una reactivación no reenvía lo ya enviado; solo vuelve a encolar el fallo definitivo
+        assertEquals(1, outboxService.enqueue(promotion, "Asunto"));
+        assertEquals(0, outboxService.enqueue(promotion, "Asunto"));
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM notification_logs WHERE promotion_id = ?", Integer.class, promotion.getPromotionId()));
+    }
+
+    @Test
+    void claim_ShouldLeaseRowsUntilTheLeaseExpires() {
+        outboxService.enqueue(promotion, "Asunto");
+
+        List<NotificationOutboxEntry> claimed = outboxService.claim(10);
+
+        assertEquals(2, claimed.size());
+        assertTrue(claimed.stream().allMatch(NotificationOutboxEntry::isFirstAttempt));
+        assertTrue(outboxService.claim(10).isEmpty()); // Reservadas por el lease
+        LocalDateTime leaseEnd = jdbcTemplate.queryForObject(
+                "SELECT MIN(next_attempt_at) FROM notification_logs WHERE promotion_id = ?",
+                LocalDateTime.class, promotion.getPromotionId());
+        assertTrue(leaseEnd.isAfter(LocalDateTime.now().plusMinutes(4)));
+    }
+
+    @Test
+    void complete_ShouldFinishSentRowsAndRetryFailuresWithBackoff() {
+        outboxService.enqueue(promotion, "Asunto");
+        List<NotificationOutboxEntry> claimed = outboxService.claim(10);
+
+        outboxService.complete(claimed, List.of(
+                NotificationDelivery.sent(claimed.get(0).id(), "Asunto", "<p>Hola</p>", "re_1"),
+                NotificationDelivery.failed(claimed.get(1).id(), "Asunto", "<p>Hola</p>", "Resend respondió 500")));
+
+        Map<String, Object> sent = row(claimed.get(0).id());
+        assertEquals("SENT", sent.get("status"));
+        assertEquals("re_1", sent.get("external_id"));
+        assertNull(sent.get("next_attempt_at"));
+        Map<String, Object> retry = row(claimed.get(1).id());
+        assertEquals("PENDING", retry.get("status"));
+        assertEquals("Resend respondió 500", retry.get("error_message"));
+        assertTrue(outboxService.claim(10).isEmpty()); // Espera el backoff antes de reintentar
+
+        NotificationFanOutProgressDTO progress = outboxService.recentCampaigns(5).get(0);
+        assertEquals(promotion.getPromotionId(), progress.promotionId());
+        assertEquals(2, progress.total());
+        assertEquals(1, progress.completed());
+        assertEquals(1, progress.inFlight());
+        assertEquals(0, progress.pending());
+        assertFalse(progress.isFinished());
+    }
+
+    @Test
+    void complete_ShouldFailRowsThatExhaustedTheirAttempts() {
+        outboxService.enqueue(promotion, "Asunto");
+        List<NotificationOutboxEntry> claimed = outboxService.claim(10);
+        List<NotificationOutboxEntry> lastAttempt = claimed.stream()
+                .map(entry -> new NotificationOutboxEntry(entry.id(), entry.userId(), entry.promotionId(), entry.recipient(), 5))
+                .toList();
+
+        outboxService.complete(lastAttempt, lastAttempt.stream()
+                .map(entry -> NotificationDelivery.failed(entry.id(), null, null, "Timeout"))
+                .toList());
+
+        assertEquals("FAILED", row(claimed.get(0).id()).get("status"));
+        NotificationFanOutProgressDTO progress = outboxService.recentCampaigns(5).get(0);
+        assertEquals(2, progress.failed());
+        assertTrue(progress.isFinished());
+    }
+
+    @Test
+    void backoff_ShouldGrowExponentiallyUpToTheCap() {
+        assertEquals(30, outboxService.backoff(1).toSeconds());
+        assertEquals(60, outboxService.backoff(2).toSeconds());
+        assertEquals(240, outboxService.backoff(4).toSeconds());
+        assertEquals(3600, outboxService.backoff(30).toSeconds());
+    }
+
+    private Map<String, Object> row(long id) {
+        return jdbcTemplate.queryForMap("SELECT * FROM notification_logs WHERE id = ?", id);
+    }
+
+    private void saveUserWithConsent(String email, Role role, boolean consentGiven) {
+        User user = userRepository.save(new User(email, email, "secret", role));
+        NotificationConsent consent = new NotificationConsent();
+        consent.setUser(user);
+        consent.setNotificationType(NotificationType.EMAIL_PROMOTION);
+        consent.setConsentGiven(consentGiven);
+        consent.setConsentDate(LocalDateTime.now());
+        consentRepository.save(consent);
+    }
+}
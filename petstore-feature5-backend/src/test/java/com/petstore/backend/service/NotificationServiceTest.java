@@ -1,40 +1,50 @@
 package com.petstore.backend.service;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import static org.mockito.Mockito.never;
-import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import com.petstore.backend.cache.NotificationConsentIndex;
+import com.petstore.backend.cache.NotificationRateLimiter;
+import com.petstore.backend.cache.PromotionCache;
+import com.petstore.backend.dto.EmailMessage;
+import com.petstore.backend.dto.EmailSendResult;
+import com.petstore.backend.dto.NotificationDelivery;
+import com.petstore.backend.dto.NotificationOutboxEntry;
+import com.petstore.backend.dto.NotificationRecipient;
 import com.petstore.backend.entity.NotificationConsent;
 import com.petstore.backend.entity.NotificationConsent.NotificationType;
 import com.petstore.backend.entity.NotificationLog;
-import com.petstore.backend.entity.NotificationRateLimit;
 import com.petstore.backend.entity.Promotion;
 import com.petstore.backend.entity.Status;
 import com.petstore.backend.entity.User;
+import com.petstore.backend.event.NotificationConsentChangedEvent;
 import com.petstore.backend.repository.NotificationConsentRepository;
-import com.petstore.backend.repository.NotificationLogRepository;
-import com.petstore.backend.repository.NotificationRateLimitRepository;
 import com.petstore.backend.repository.UserRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,10 +54,7 @@ class NotificationServiceTest {
     private NotificationConsentRepository consentRepository;
 
     @Mock
-    private NotificationLogRepository logRepository;
-
-    @Mock
-    private NotificationRateLimitRepository rateLimitRepository;
+    private NotificationRateLimiter rateLimiter;
 
     @Mock
     private UserRepository userRepository;
@@ -55,6 +62,18 @@ class NotificationServiceTest {
     @Mock
     private EmailService emailService;
 
+    @Mock
+    private NotificationOutboxService outboxService;
+
+    @Mock
+    private PromotionCache promotionCache;
+
+    @Mock
+    private NotificationConsentIndex consentIndex;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private NotificationService notificationService;
 
@@ -91,97 +110,199 @@ class NotificationServiceTest {
         consent.setNotificationType(NotificationType.EMAIL_PROMOTION);
         consent.setConsentGiven(true);
         
-        // Configurar valores de rate limit usando ReflectionTestUtils
-        ReflectionTestUtils.setField(notificationService, "emailRateLimitPerHour", 10);
-        ReflectionTestUtils.setField(notificationService, "rateLimitWindowHours", 1);
+        // Configurar la URL del frontend usando ReflectionTestUtils
         ReflectionTestUtils.setField(notificationService, "frontendUrl", "https://test-frontend.com");
     }
 
     @Test
-    @DisplayName("Should send promotion notification to user successfully")
-    void shouldSendPromotionNotificationToUserSuccessfully() {
+    @DisplayName("Should deliver a single outbox entry through the batch endpoint")
+    void shouldDeliverSingleEntry() {
         // Given
-        when(consentRepository.hasActiveConsent(eq(1L), eq(NotificationType.EMAIL_PROMOTION)))
-            .thenReturn(true);
-        when(logRepository.countNotificationsSentSince(eq(1L), eq(NotificationType.EMAIL_PROMOTION), any(LocalDateTime.class)))
-            .thenReturn(0L); // No previous notifications
-        when(emailService.sendEmail(anyString(), anyString(), anyString()))
-            .thenReturn(true);
+        givenSingleRecipient();
+        when(consentIndex.hasConsent(1, NotificationType.EMAIL_PROMOTION)).thenReturn(true);
+        givenConsentConfirmedInDatabase();
+        when(rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION)).thenReturn(true);
+        when(emailService.sendBatch(anyList()))
+            .thenReturn(List.of(EmailSendResult.sent("test@example.com", "id-1")));
 
         // When
-        notificationService.sendPromotionNotificationToUser(promotion, user);
+        List<NotificationDelivery> deliveries = notificationService.deliver(List.of(entry(1)));
 
         // Then
-        verify(consentRepository).hasActiveConsent(eq(1L), eq(NotificationType.EMAIL_PROMOTION));
-        verify(emailService).sendEmail(eq("test@example.com"), anyString(), anyString());
-        verify(logRepository).save(any(NotificationLog.class));
-        verify(rateLimitRepository).save(any(NotificationRateLimit.class));
+        assertEquals(NotificationLog.NotificationStatus.SENT, deliveries.get(0).status());
+        assertEquals("🎉 Nueva Promoción Disponible: Test Promotion", deliveries.get(0).subject());
+        verify(emailService).sendBatch(argThat(messages ->
+            messages.size() == 1 && messages.get(0).to().equals("test@example.com")));
     }
 
     @Test
-    @DisplayName("Should not send notification when user has no consent")
+    @DisplayName("Should not send when the user has no consent")
     void shouldNotSendNotificationWhenUserHasNoConsent() {
         // Given
-        when(consentRepository.hasActiveConsent(eq(1L), eq(NotificationType.EMAIL_PROMOTION)))
-            .thenReturn(false);
+        givenSingleRecipient();
+        when(consentIndex.hasConsent(1, NotificationType.EMAIL_PROMOTION)).thenReturn(false);
+        when(consentRepository.findConsentingUserIdsIn(eq(NotificationType.EMAIL_PROMOTION), any()))
+            .thenReturn(List.of());
 
         // When
-        notificationService.sendPromotionNotificationToUser(promotion, user);
+        List<NotificationDelivery> deliveries = notificationService.deliver(List.of(entry(1)));
 
         // Then
-        verify(consentRepository).hasActiveConsent(eq(1L), eq(NotificationType.EMAIL_PROMOTION));
-        verify(emailService, never()).sendEmail(anyString(), anyString(), anyString());
-        verify(logRepository, never()).save(any());
+        assertEquals(NotificationLog.NotificationStatus.FAILED, deliveries.get(0).status());
+        assertFalse(deliveries.get(0).retryable());
+        verify(consentIndex, never()).update(anyInt(), any(), anyBoolean());
+        verify(rateLimiter, never()).tryAcquire(anyInt(), any());
+        verify(emailService, never()).sendBatch(anyList());
+    }
+
+    @Test
+    @DisplayName("Should deliver to users whose consent was granted on another node")
+    void shouldDeliverConsentGrantedOnAnotherNode() {
+        // Given - el índice de este nodo aún no vio el consentimiento nuevo
+        givenSingleRecipient();
+        when(consentIndex.hasConsent(1, NotificationType.EMAIL_PROMOTION)).thenReturn(false);
+        givenConsentConfirmedInDatabase();
+        when(rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION)).thenReturn(true);
+        when(emailService.sendBatch(anyList()))
+            .thenReturn(List.of(EmailSendResult.sent("test@example.com", "id-1")));
+
+        // When
+        List<NotificationDelivery> deliveries = notificationService.deliver(List.of(entry(1)));
+
+        // Then - se envía y el índice queda al día
+        assertEquals(NotificationLog.NotificationStatus.SENT, deliveries.get(0).status());
+        verify(consentIndex).update(1, NotificationType.EMAIL_PROMOTION, true);
     }
 
     @Test
-    @DisplayName("Should handle email service failure")
-    void shouldHandleEmailServiceFailure() {
+    @DisplayName("Should skip users whose consent was revoked on another node")
+    void shouldSkipConsentRevokedOnAnotherNode() {
+        // Given - el índice de este nodo aún no vio la revocación
+        givenSingleRecipient();
+        when(consentIndex.hasConsent(1, NotificationType.EMAIL_PROMOTION)).thenReturn(true);
+        when(consentRepository.findConsentingUserIdsIn(eq(NotificationType.EMAIL_PROMOTION), any()))
+            .thenReturn(List.of());
+
+        // When
+        List<NotificationDelivery> deliveries = notificationService.deliver(List.of(entry(1)));
+
+        // Then - se descarta sin enviar y el índice queda al día
+        assertEquals(NotificationLog.NotificationStatus.FAILED, deliveries.get(0).status());
+        assertFalse(deliveries.get(0).retryable());
+        verify(consentIndex).update(1, NotificationType.EMAIL_PROMOTION, false);
+        verify(rateLimiter, never()).tryAcquire(anyInt(), any());
+        verify(emailService, never()).sendBatch(anyList());
+    }
+
+    @Test
+    @DisplayName("Should not retry messages the provider rejected permanently")
+    void shouldNotRetryPermanentProviderRejection() {
         // Given
-        when(consentRepository.hasActiveConsent(eq(1L), eq(NotificationType.EMAIL_PROMOTION)))
-            .thenReturn(true);
-        when(logRepository.countNotificationsSentSince(eq(1L), eq(NotificationType.EMAIL_PROMOTION), any(LocalDateTime.class)))
-            .thenReturn(0L);
-        when(emailService.sendEmail(anyString(), anyString(), anyString()))
-            .thenReturn(false);
+        givenSingleRecipient();
+        when(consentIndex.hasConsent(1, NotificationType.EMAIL_PROMOTION)).thenReturn(true);
+        givenConsentConfirmedInDatabase();
+        when(rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION)).thenReturn(true);
+        when(emailService.sendBatch(anyList()))
+            .thenReturn(List.of(EmailSendResult.rejected("test@example.com", "Resend respondió 422")));
 
         // When
-        notificationService.sendPromotionNotificationToUser(promotion, user);
+        List<NotificationDelivery> deliveries = notificationService.deliver(List.of(entry(1)));
 
-        // Then
-        verify(emailService).sendEmail(eq("test@example.com"), anyString(), anyString());
-        verify(logRepository).save(any(NotificationLog.class));
-        verify(rateLimitRepository).save(any(NotificationRateLimit.class));
+        // Then - el rechazo queda como fallo definitivo, con el contenido para el log
+        assertEquals(NotificationLog.NotificationStatus.FAILED, deliveries.get(0).status());
+        assertFalse(deliveries.get(0).retryable());
+        assertEquals("Resend respondió 422", deliveries.get(0).error());
+        assertTrue(deliveries.get(0).content().contains("Test Promotion"));
     }
 
     @Test
-    @DisplayName("Should send notifications to multiple users")
-    void shouldSendNotificationsToMultipleUsers() {
+    @DisplayName("Should enqueue promotion notifications in the outbox")
+    void shouldEnqueuePromotionNotifications() {
         // Given
-        User user1 = new User();
-        user1.setUserId(1);
-        user1.setEmail("user1@test.com");
-
-        User user2 = new User();
-        user2.setUserId(2);
-        user2.setEmail("user2@test.com");
-
-        List<User> users = Arrays.asList(user1, user2);
-        when(consentRepository.findUsersWithActiveConsent(NotificationType.EMAIL_PROMOTION))
-            .thenReturn(users);
-        when(logRepository.countNotificationsSentSince(anyLong(), eq(NotificationType.EMAIL_PROMOTION), any(LocalDateTime.class)))
-            .thenReturn(0L);
-        when(emailService.sendEmail(anyString(), anyString(), anyString()))
-            .thenReturn(true);
+        when(outboxService.enqueue(eq(promotion), anyString())).thenReturn(2);
 
         // When
-        notificationService.sendPromotionNotification(promotion);
+        int enqueued = notificationService.sendPromotionNotification(promotion);
+
+        // Then - el envío queda para los workers del outbox
+        assertEquals(2, enqueued);
+        verify(outboxService).enqueue(promotion, "🎉 Nueva Promoción Disponible: Test Promotion");
+        verify(emailService, never()).sendBatch(anyList());
+    }
+
+    @Test
+    @DisplayName("Should enqueue from the database even if the local index is empty")
+    void shouldEnqueueRegardlessOfTheLocalIndex() {
+        // Given - el índice de este nodo puede no haber visto aún los consentimientos
+        when(outboxService.enqueue(eq(promotion), anyString())).thenReturn(3);
+
+        // When
+        int enqueued = notificationService.sendPromotionNotification(promotion);
+
+        // Then - el encolado lo decide la BD
+        assertEquals(3, enqueued);
+        verify(consentIndex, never()).count(any());
+    }
+
+    @Test
+    @DisplayName("Should deliver an outbox batch skipping users without consent or quota")
+    void shouldDeliverBatchSkippingUsersWithoutConsentOrQuota() {
+        // Given
+        List<NotificationOutboxEntry> entries = List.of(
+            new NotificationOutboxEntry(11, 1, 1, "test@example.com", 1),
+            new NotificationOutboxEntry(12, 2, 1, "user2@test.com", 1),
+            new NotificationOutboxEntry(13, 3, 1, "user3@test.com", 1),
+            new NotificationOutboxEntry(14, 4, 1, "user4@test.com", 2)); // Reintento: no consume cupo
+
+        when(promotionCache.get(1)).thenReturn(Optional.of(promotion));
+        when(userRepository.findRecipientsByIds(any())).thenReturn(List.of(
+            new NotificationRecipient(1, "Test User", "test@example.com"),
+            new NotificationRecipient(2, "User 2", "user2@test.com"),
+            new NotificationRecipient(3, "User 3", "user3@test.com"),
+            new NotificationRecipient(4, "User 4", "user4@test.com")));
+        when(consentIndex.hasConsent(anyInt(), eq(NotificationType.EMAIL_PROMOTION)))
+            .thenAnswer(invocation -> (Integer) invocation.getArgument(0) != 2);
+        when(consentRepository.findConsentingUserIdsIn(eq(NotificationType.EMAIL_PROMOTION), any()))
+            .thenReturn(List.of(1, 3, 4)); // El usuario 2 retiró el consentimiento
+        when(rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION)).thenReturn(true);
+        when(rateLimiter.tryAcquire(3, NotificationType.EMAIL_PROMOTION)).thenReturn(false);
+        when(emailService.sendBatch(anyList())).thenReturn(List.of(
+            EmailSendResult.sent("test@example.com", "id-1"),
+            EmailSendResult.failed("user4@test.com", "Resend respondió 500")));
+
+        // When
+        List<NotificationDelivery> deliveries = notificationService.deliver(entries);
+
+        // Then - un resultado por entrada, en orden, y una sola llamada al proveedor
+        assertEquals(4, deliveries.size());
+        assertEquals(NotificationLog.NotificationStatus.SENT, deliveries.get(0).status());
+        assertEquals("id-1", deliveries.get(0).externalId());
+        assertEquals(NotificationLog.NotificationStatus.FAILED, deliveries.get(1).status());
+        assertFalse(deliveries.get(1).retryable());
+        assertEquals(NotificationLog.NotificationStatus.RATE_LIMITED, deliveries.get(2).status());
+        assertEquals(NotificationLog.NotificationStatus.FAILED, deliveries.get(3).status());
+        assertTrue(deliveries.get(3).retryable());
+        assertEquals("Resend respondió 500", deliveries.get(3).error());
+        verify(emailService).sendBatch(argThat(messages -> messages.size() == 2));
+        verify(rateLimiter, never()).tryAcquire(4, NotificationType.EMAIL_PROMOTION);
+    }
+
+    @Test
+    @DisplayName("Should reject outbox entries whose promotion no longer exists")
+    void shouldRejectEntriesWithoutPromotion() {
+        // Given
+        when(promotionCache.get(9)).thenReturn(Optional.empty());
+        when(userRepository.findRecipientsByIds(any()))
+            .thenReturn(List.of(new NotificationRecipient(1, "Test User", "test@example.com")));
+
+        // When
+        List<NotificationDelivery> deliveries = notificationService.deliver(
+            List.of(new NotificationOutboxEntry(21, 1, 9, "test@example.com", 1)));
 
         // Then
-        verify(consentRepository).findUsersWithActiveConsent(NotificationType.EMAIL_PROMOTION);
-        verify(emailService, times(2)).sendEmail(anyString(), anyString(), anyString());
-        verify(logRepository, times(2)).save(any(NotificationLog.class));
-        verify(rateLimitRepository, times(2)).save(any(NotificationRateLimit.class));
+        assertEquals(NotificationLog.NotificationStatus.FAILED, deliveries.get(0).status());
+        assertFalse(deliveries.get(0).retryable());
+        verify(emailService, never()).sendBatch(anyList());
     }
 
     @Test
@@ -201,6 +322,10 @@ class NotificationServiceTest {
         // Then
         verify(consentRepository).findByUserIdAndNotificationType(1L, NotificationType.EMAIL_PROMOTION);
         verify(consentRepository).save(any(NotificationConsent.class));
+        ArgumentCaptor<NotificationConsentChangedEvent> event = ArgumentCaptor.forClass(NotificationConsentChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(1, event.getValue().getUserId());
+        assertTrue(event.getValue().isConsentGiven());
     }
 
     @Test
@@ -229,7 +354,7 @@ class NotificationServiceTest {
     @DisplayName("Should check if user has active consent")
     void shouldCheckIfUserHasActiveConsent() {
         // Given
-        when(consentRepository.hasActiveConsent(1L, NotificationType.EMAIL_PROMOTION))
+        when(consentIndex.hasConsent(1, NotificationType.EMAIL_PROMOTION))
             .thenReturn(true);
 
         // When
@@ -237,7 +362,7 @@ class NotificationServiceTest {
 
         // Then
         assertTrue(hasConsent);
-        verify(consentRepository).hasActiveConsent(1L, NotificationType.EMAIL_PROMOTION);
+        verify(consentIndex).hasConsent(1, NotificationType.EMAIL_PROMOTION);
     }
 
     @Test
@@ -245,21 +370,9 @@ class NotificationServiceTest {
     void shouldFormatDiscountValueCorrectlyForInteger() {
         // Given - promotion with integer discount
         promotion.setDiscountValue(25.0);
-        when(consentRepository.hasActiveConsent(eq(1L), eq(NotificationType.EMAIL_PROMOTION)))
-            .thenReturn(true);
-        when(logRepository.countNotificationsSentSince(eq(1L), eq(NotificationType.EMAIL_PROMOTION), any(LocalDateTime.class)))
-            .thenReturn(0L);
-        when(emailService.sendEmail(anyString(), anyString(), anyString()))
-            .thenReturn(true);
-
-        // When
-        notificationService.sendPromotionNotificationToUser(promotion, user);
 
-        // Then
-        verify(emailService).sendEmail(anyString(), anyString(), argThat(content -> 
-            content.contains("¡25% DE DESCUENTO!")
-        ));
-        verify(rateLimitRepository).save(any(NotificationRateLimit.class));
+        // When & Then
+        assertTrue(deliveredContent().contains("¡25% DE DESCUENTO!"));
     }
 
     @Test
@@ -267,21 +380,12 @@ class NotificationServiceTest {
     void shouldFormatDiscountValueCorrectlyForDecimal() {
         // Given - promotion with decimal discount
         promotion.setDiscountValue(1.5);
-        when(consentRepository.hasActiveConsent(eq(1L), eq(NotificationType.EMAIL_PROMOTION)))
-            .thenReturn(true);
-        when(logRepository.countNotificationsSentSince(eq(1L), eq(NotificationType.EMAIL_PROMOTION), any(LocalDateTime.class)))
-            .thenReturn(0L);
-        when(emailService.sendEmail(anyString(), anyString(), anyString()))
-            .thenReturn(true);
 
         // When
-        notificationService.sendPromotionNotificationToUser(promotion, user);
+        String content = deliveredContent();
 
         // Then - Acepta tanto formato español (1,5%) como formato inglés (1.5%)
-        verify(emailService).sendEmail(anyString(), anyString(), argThat(content -> 
-            content.contains("¡1,5% DE DESCUENTO!") || content.contains("¡1.5% DE DESCUENTO!")
-        ));
-        verify(rateLimitRepository).save(any(NotificationRateLimit.class));
+        assertTrue(content.contains("¡1,5% DE DESCUENTO!") || content.contains("¡1.5% DE DESCUENTO!"));
     }
 
     @Test
@@ -289,40 +393,57 @@ class NotificationServiceTest {
     void shouldHandleNullDiscountValue() {
         // Given
         promotion.setDiscountValue(null);
-        when(consentRepository.hasActiveConsent(eq(1L), eq(NotificationType.EMAIL_PROMOTION)))
-            .thenReturn(true);
-        when(logRepository.countNotificationsSentSince(eq(1L), eq(NotificationType.EMAIL_PROMOTION), any(LocalDateTime.class)))
-            .thenReturn(0L);
-        when(emailService.sendEmail(anyString(), anyString(), anyString()))
-            .thenReturn(true);
 
-        // When
-        notificationService.sendPromotionNotificationToUser(promotion, user);
-
-        // Then
-        verify(emailService).sendEmail(anyString(), anyString(), argThat(content -> 
-            content.contains("¡0% DE DESCUENTO!")
-        ));
-        verify(rateLimitRepository).save(any(NotificationRateLimit.class));
+        // When & Then
+        assertTrue(deliveredContent().contains("¡0% DE DESCUENTO!"));
     }
 
     @Test
     @DisplayName("Should respect rate limiting")
     void shouldRespectRateLimiting() {
         // Given
-        when(consentRepository.hasActiveConsent(eq(1L), eq(NotificationType.EMAIL_PROMOTION)))
-            .thenReturn(true);
-        when(logRepository.countNotificationsSentSince(eq(1L), eq(NotificationType.EMAIL_PROMOTION), any(LocalDateTime.class)))
-            .thenReturn(15L); // Limit exceeded (limit is 10 per hour)
+        givenSingleRecipient();
+        when(consentIndex.hasConsent(1, NotificationType.EMAIL_PROMOTION)).thenReturn(true);
+        givenConsentConfirmedInDatabase();
+        when(rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION)).thenReturn(false); // Limit exceeded
 
         // When
-        notificationService.sendPromotionNotificationToUser(promotion, user);
+        List<NotificationDelivery> deliveries = notificationService.deliver(List.of(entry(1)));
 
-        // Then
-        verify(consentRepository).hasActiveConsent(eq(1L), eq(NotificationType.EMAIL_PROMOTION));
-        verify(logRepository).countNotificationsSentSince(eq(1L), eq(NotificationType.EMAIL_PROMOTION), any(LocalDateTime.class));
-        // Should not send email due to rate limiting
-        verify(emailService, never()).sendEmail(anyString(), anyString(), anyString());
-        verify(logRepository).save(any(NotificationLog.class));
+        // Then - Should not send email due to rate limiting
+        assertEquals(NotificationLog.NotificationStatus.RATE_LIMITED, deliveries.get(0).status());
+        assertFalse(deliveries.get(0).retryable());
+        verify(emailService, never()).sendBatch(anyList());
+    }
+
+    private static NotificationOutboxEntry entry(int attempts) {
+        return new NotificationOutboxEntry(31, 1, 1, "test@example.com", attempts);
+    }
+
+    private void givenConsentConfirmedInDatabase() {
+        when(consentRepository.findConsentingUserIdsIn(eq(NotificationType.EMAIL_PROMOTION), any()))
+            .thenAnswer(invocation -> List.copyOf(invocation.<Collection<Integer>>getArgument(1)));
+    }
+
+    private void givenSingleRecipient() {
+        when(promotionCache.get(1)).thenReturn(Optional.of(promotion));
+        when(userRepository.findRecipientsByIds(any()))
+            .thenReturn(List.of(new NotificationRecipient(1, "Test User", "test@example.com")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private String deliveredContent() {
+        givenSingleRecipient();
+        when(consentIndex.hasConsent(1, NotificationType.EMAIL_PROMOTION)).thenReturn(true);
+        givenConsentConfirmedInDatabase();
+        when(rateLimiter.tryAcquire(1, NotificationType.EMAIL_PROMOTION)).thenReturn(true);
+        when(emailService.sendBatch(anyList()))
+            .thenReturn(List.of(EmailSendResult.sent("test@example.com", "id-1")));
+
+        notificationService.deliver(List.of(entry(1)));
+
+        ArgumentCaptor<List<EmailMessage>> messages = ArgumentCaptor.forClass(List.class);
+        verify(emailService).sendBatch(messages.capture());
+        return messages.getValue().get(0).htmlContent();
     }
 }
@@ -1,8 +1,11 @@
 package com.petstore.backend.service;
 
+import com.petstore.backend.cache.CatalogVersion;
+import com.petstore.backend.dto.CursorPage;
 import com.petstore.backend.entity.Category;
 import com.petstore.backend.entity.Product;
 import com.petstore.backend.repository.ProductRepository;
+import com.petstore.backend.util.KeysetCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -24,6 +27,9 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private CatalogVersion catalogVersion;
+
     @InjectMocks
     private ProductService productService;
 
@@ -118,6 +124,7 @@ class ProductServiceTest {
         assertNotNull(result);
         assertEquals(mockProduct, result);
         verify(productRepository).save(mockProduct);
+        verify(catalogVersion).bump();
     }
 
     @Test
@@ -130,6 +137,7 @@ class ProductServiceTest {
 
         // Then
         verify(productRepository).deleteById(productId);
+        verify(catalogVersion).bump();
     }
 
     @Test
@@ -259,4 +267,59 @@ class ProductServiceTest {
         assertEquals(1, result.size());
         verify(productRepository).findByBasePriceBetween(price, price);
     }
+
+    @Test
+    void findPage_FirstPage_ShouldRequestOneExtraRowAndExposeNextCursor() {
+        // Given
+        Product second = new Product();
+        second.setProductId(2);
+        second.setBasePrice(120.0);
+        Product third = new Product();
+        third.setProductId(3);
+        third.setBasePrice(150.0);
+        when(productRepository.findPageAfterId(eq(0), argThat(pageable -> pageable.getPageSize() == 3)))
+            .thenReturn(Arrays.asList(mockProduct, second, third));
+
+        // When
+        CursorPage<Product> page = productService.findPage(null, 2, ProductService.SORT_BY_ID);
+
+        // Then
+        assertEquals(2, page.getSize());
+        assertTrue(page.isHasNextPage());
+        assertFalse(page.isHasPreviousPage());
+        assertEquals(2, KeysetCursor.decode(page.getNextCursor(), ProductService.SORT_BY_ID).id());
+    }
+
+    @Test
+    void findPage_ByBasePrice_ShouldSeekFromCursorKey() {
+        // Given
+        String after = new KeysetCursor(ProductService.SORT_BY_BASE_PRICE, "99.99", 1).encode();
+        when(productRepository.findPageAfterBasePrice(eq(99.99), eq(1), any())).thenReturn(Arrays.asList());
+
+        // When
+        CursorPage<Product> page = productService.findPage(after, 10, ProductService.SORT_BY_BASE_PRICE);
+
+        // Then
+        assertTrue(page.getItems().isEmpty());
+        assertFalse(page.isHasNextPage());
+        assertTrue(page.isHasPreviousPage());
+        assertNull(page.getNextCursor());
+        verify(productRepository, never()).findFirstPageByBasePrice(any());
+    }
+
+    @Test
+    void findPage_WithCursorFromAnotherSort_ShouldThrowIllegalArgumentException() {
+        // Given
+        String after = new KeysetCursor(ProductService.SORT_BY_ID, null, 5).encode();
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+            () -> productService.findPage(after, 10, ProductService.SORT_BY_BASE_PRICE));
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void findPage_WithUnknownSort_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> productService.findPage(null, 10, "sku"));
+    }
 }
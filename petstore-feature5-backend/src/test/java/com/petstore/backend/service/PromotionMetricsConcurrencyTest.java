@@ -0,0 +1,203 @@
+package com.petstore.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.petstore.backend.entity.Category;
+import com.petstore.backend.entity.Product;
+import com.petstore.backend.entity.Promotion;
+import com.petstore.backend.entity.PromotionMetrics;
+import com.petstore.backend.entity.PromotionPerformanceRollup;
+import com.petstore.backend.entity.Status;
+import com.petstore.backend.repository.CategoryRepository;
+import com.petstore.backend.repository.ProductRepository;
+import com.petstore.backend.repository.PromotionMetricsRepository;
+import com.petstore.backend.repository.PromotionMetricsSnapshotRepository;
+import com.petstore.backend.repository.PromotionPerformanceRollupRepository;
+import com.petstore.backend.repository.PromotionRepository;
+import com.petstore.backend.repository.StatusRepository;
+
+/**
+ * Actualizaciones concurrentes de métricas contra H2 (sin transacción de prueba: cada hilo
+ * confirma su propia transacción, así que los datos se limpian al final).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PromotionMetricsConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int UPDATES_PER_THREAD = 25;
+
+    @Autowired
+    private PromotionMetricsService promotionMetricsService;
+
+    @Autowired
+    private PromotionMetricsRepository promotionMetricsRepository;
+
+    @Autowired
+    private PromotionPerformanceRollupRepository rollupRepository;
+
+    @Autowired
+    private PromotionMetricsSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private StatusRepository statusRepository;
+
+    private Category category;
+    private Promotion promotion;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        Status active = statusRepository.findByStatusName("ACTIVE")
+                .orElseGet(() -> statusRepository.save(new Status("ACTIVE")));
+        category = categoryRepository.save(new Category("Concurrency category", "Descripción"));
+        promotion = new Promotion("Concurrency promotion", "Descripción", LocalDate.now().minusDays(1),
+                LocalDate.now().plusDays(10), 0.0, active);
+        promotion.setCategory(category);
+        promotion = promotionRepository.save(promotion);
+
+        product = new Product();
+        product.setProductName("Concurrency product");
+        product.setBasePrice(2.0);
+        product.setSku(1000);
+        product.setCategory(category);
+        product.setPromotion(promotion);
+        product = productRepository.save(product);
+
+        promotionMetricsService.saveOrUpdateMetrics(promotion.getPromotionId(), product.getProductId(),
+                1000, 1000, 0, BigDecimal.ZERO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Integer promotionId = promotion.getPromotionId();
+        snapshotRepository.deleteAll(snapshotRepository.findAll().stream()
+                .filter(snapshot -> promotionId.equals(snapshot.getPromotionId())).toList());
+        rollupRepository.deleteById(promotionId);
+        promotionMetricsRepository.deleteAll(promotionMetricsRepository.findByPromotionPromotionId(promotionId));
+        productRepository.delete(product);
+        promotionRepository.delete(promotion);
+        categoryRepository.delete(category);
+    }
+
+    @Test
+    void simulateMetricsUpdate_ShouldNotLoseIncrementsUnderContention() throws Exception {
+        Integer promotionId = promotion.getPromotionId();
+        Integer productId = product.getProductId();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < UPDATES_PER_THREAD; j++) {
+                        promotionMetricsService.simulateMetricsUpdate(promotionId, productId, 1);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(); // Propaga cualquier error de los hilos
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int expected = THREADS * UPDATES_PER_THREAD;
+        PromotionMetrics metrics = promotionMetricsRepository
+                .findByPromotionPromotionIdAndProductProductId(promotionId, productId).orElseThrow();
+        assertEquals(expected, metrics.getUnitsSold());
+        assertEquals(1000 - expected, metrics.getCurrentInventory());
+        assertEquals(0, new BigDecimal(expected * 2).compareTo(metrics.getRevenueGenerated()));
+        assertEquals(expected * 100.0 / 1000, metrics.getSkuVariationPercentage(), 1e-9);
+        assertEquals(expected, metrics.getVersion());
+
+        PromotionPerformanceRollup rollup = rollupRepository.findById(promotionId).orElseThrow();
+        assertEquals(expected, rollup.getTotalUnitsSold());
+        assertEquals(1000 - expected, rollup.getTotalCurrentInventory());
+        assertEquals(0, new BigDecimal(expected * 2).compareTo(rollup.getTotalRevenue()));
+    }
+
+    @Test
+    void saveOrUpdateMetrics_WithStaleEntityShouldFailOptimistically() {
+        Integer promotionId = promotion.getPromotionId();
+        Integer productId = product.getProductId();
+        PromotionMetrics stale = promotionMetricsRepository
+                .findByPromotionPromotionIdAndProductProductId(promotionId, productId).orElseThrow();
+
+        promotionMetricsService.simulateMetricsUpdate(promotionId, productId, 3);
+
+        stale.setUnitsSold(1);
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> promotionMetricsRepository.save(stale));
+        assertEquals(3, promotionMetricsRepository
+                .findByPromotionPromotionIdAndProductProductId(promotionId, productId).orElseThrow().getUnitsSold());
+    }
+
+    @Test
+    void simulateMetricsUpdate_ShouldClampInventoryAndRebuildRollup() {
+        Integer promotionId = promotion.getPromotionId();
+        Integer productId = product.getProductId();
+
+        promotionMetricsService.simulateMetricsUpdate(promotionId, productId, 1200);
+
+        PromotionMetrics metrics = promotionMetricsRepository
+                .findByPromotionPromotionIdAndProductProductId(promotionId, productId).orElseThrow();
+        assertEquals(1200, metrics.getUnitsSold());
+        assertEquals(0, metrics.getCurrentInventory());
+        PromotionPerformanceRollup rollup = rollupRepository.findById(promotionId).orElseThrow();
+        assertEquals(1200, rollup.getTotalUnitsSold());
+        assertEquals(0, rollup.getTotalCurrentInventory());
+    }
+
+    @Test
+    void simulateMetricsUpdate_ShouldKeepExactCentTotalsInRowAndRollup() {
+        Integer promotionId = promotion.getPromotionId();
+        Integer productId = product.getProductId();
+        promotion.setDiscountValue(25.0);
+        promotionRepository.save(promotion);
+        product.setBasePrice(25.99);
+        productRepository.save(product);
+
+        for (int i = 0; i < 7; i++) {
+            promotionMetricsService.simulateMetricsUpdate(promotionId, productId, 3);
+        }
+
+        // 19.4925 por unidad se redondea a 19.49 una sola vez; 21 unidades = 409.29 exactos
+        BigDecimal expected = new BigDecimal("409.29");
+        PromotionMetrics metrics = promotionMetricsRepository
+                .findByPromotionPromotionIdAndProductProductId(promotionId, productId).orElseThrow();
+        assertEquals(0, expected.compareTo(metrics.getRevenueGenerated()));
+        PromotionPerformanceRollup rollup = rollupRepository.findById(promotionId).orElseThrow();
+        assertEquals(0, expected.compareTo(rollup.getTotalRevenue()));
+        assertEquals(0, expected.compareTo(promotionMetricsService.rebuildRollup(promotionId).orElseThrow().getTotalRevenue()));
+    }
+}
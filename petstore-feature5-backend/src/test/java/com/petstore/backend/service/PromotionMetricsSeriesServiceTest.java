@@ -0,0 +1,199 @@
+package com.petstore.backend.service;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.petstore.backend.dto.MetricsPointDTO;
+import com.petstore.backend.dto.MetricsSeriesDTO;
+import com.petstore.backend.entity.PromotionMetricsBucket;
+import com.petstore.backend.entity.PromotionMetricsBucket.Resolution;
+import com.petstore.backend.entity.PromotionMetricsSnapshot;
+import com.petstore.backend.repository.PromotionMetricsBucketRepository;
+import com.petstore.backend.repository.PromotionMetricsSnapshotRepository;
+
+@ExtendWith(MockitoExtension.class)
+class PromotionMetricsSeriesServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 10, 14, 20);
+
+    @Mock
+    private PromotionMetricsSnapshotRepository snapshotRepository;
+
+    @Mock
+    private PromotionMetricsBucketRepository bucketRepository;
+
+    private PromotionMetricsSeriesService seriesService;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        seriesService = new PromotionMetricsSeriesService(snapshotRepository, bucketRepository,
+                Duration.ofDays(7), Duration.ofDays(90), clock);
+    }
+
+    @Test
+    void record_ShouldAppendCurrentRollupTotals() {
+        seriesService.record(1);
+
+        verify(snapshotRepository).appendFromRollup(1, NOW);
+    }
+
+    @Test
+    void resolutionFor_ShouldPickFinestResolutionCoveringTheRange() {
+        assertEquals("RAW", seriesService.resolutionFor(NOW.minusHours(12), NOW));
+        assertEquals("HOURLY", seriesService.resolutionFor(NOW.minusDays(3), NOW));
+        assertEquals("HOURLY", seriesService.resolutionFor(NOW.minusDays(9), NOW.minusDays(8))); // Crudos ya purgados
+        assertEquals("DAILY", seriesService.resolutionFor(NOW.minusDays(61), NOW));
+        assertEquals("DAILY", seriesService.resolutionFor(NOW.minusDays(120), NOW.minusDays(119)));
+    }
+
+    @Test
+    void getSeries_ShouldRejectInvertedRange() {
+        assertThrows(IllegalArgumentException.class, () -> seriesService.getSeries(1, NOW, NOW.minusHours(1)));
+    }
+
+    @Test
+    void getSeries_ShouldReadRawPointsForShortRanges() {
+        when(snapshotRepository.findSeries(1, NOW.minusHours(6), NOW))
+                .thenReturn(List.of(snapshot(1, NOW.minusHours(2), 10, 100), snapshot(1, NOW.minusHours(1), 25, 100)));
+
+        MetricsSeriesDTO series = seriesService.getSeries(1, NOW.minusHours(6), NOW);
+
+        assertEquals("RAW", series.resolution());
+        assertEquals(2, series.points().size());
+        assertEquals(25.0, series.points().get(1).sellThroughPercentage());
+        verify(bucketRepository, never()).findSeries(any(), any(), any(), any());
+    }
+
+    @Test
+    void getSeries_ShouldAppendOpenPeriodToHourlyBuckets() {
+        LocalDateTime from = NOW.minusDays(3);
+        LocalDateTime lastClosedHour = NOW.withMinute(0).minusHours(1);
+        when(bucketRepository.findSeries(1, Resolution.HOURLY, from.withMinute(0), NOW))
+                .thenReturn(List.of(bucket(1, Resolution.HOURLY, lastClosedHour, 30, 4)));
+        when(snapshotRepository.findFirstByPromotionIdAndRecordedAtLessThanEqualOrderByRecordedAtDescIdDesc(1, NOW))
+                .thenReturn(Optional.of(snapshot(1, NOW.minusMinutes(5), 32, 100)));
+
+        MetricsSeriesDTO series = seriesService.getSeries(1, from, NOW);
+
+        assertEquals("HOURLY", series.resolution());
+        List<MetricsPointDTO> points = series.points();
+        assertEquals(2, points.size());
+        assertEquals(lastClosedHour, points.get(0).timestamp());
+        assertEquals(4, points.get(0).samples());
+        assertEquals(32, points.get(1).totalUnitsSold()); // Hora en curso, todavía sin bucket
+    }
+
+    @Test
+    void getSeries_ShouldNotRepeatPointAlreadyInABucket() {
+        LocalDateTime from = NOW.minusDays(3);
+        LocalDateTime lastClosedHour = NOW.withMinute(0).minusHours(1);
+        when(bucketRepository.findSeries(1, Resolution.HOURLY, from.withMinute(0), NOW))
+                .thenReturn(List.of(bucket(1, Resolution.HOURLY, lastClosedHour, 30, 4)));
+        when(snapshotRepository.findFirstByPromotionIdAndRecordedAtLessThanEqualOrderByRecordedAtDescIdDesc(1, NOW))
+                .thenReturn(Optional.of(snapshot(1, lastClosedHour.plusMinutes(50), 30, 100)));
+
+        assertEquals(1, seriesService.getSeries(1, from, NOW).points().size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void downsample_ShouldCloseHoursAndDaysSinceLastRun() {
+        LocalDateTime lastHourly = NOW.withMinute(0).minusHours(3); // 11:00
+        when(bucketRepository.findLatestBucketStart(Resolution.HOURLY)).thenReturn(Optional.of(lastHourly));
+        LocalDateTime twelve = lastHourly.plusHours(1);
+        when(snapshotRepository.findForDownsampling(twelve, NOW.withMinute(0))).thenReturn(List.of(
+                snapshot(1, twelve.plusMinutes(10), 5, 100),
+                snapshot(1, twelve.plusMinutes(40), 8, 100),
+                snapshot(1, twelve.plusMinutes(70), 9, 100),
+                snapshot(2, twelve.plusMinutes(15), 1, 20)));
+
+        LocalDateTime yesterday = NOW.toLocalDate().minusDays(1).atStartOfDay();
+        when(bucketRepository.findLatestBucketStart(Resolution.DAILY)).thenReturn(Optional.of(yesterday.minusDays(1)));
+        when(bucketRepository.findForDownsampling(Resolution.HOURLY, yesterday, NOW.toLocalDate().atStartOfDay()))
+                .thenReturn(List.of(bucket(1, Resolution.HOURLY, yesterday.plusHours(9), 3, 2),
+                                    bucket(1, Resolution.HOURLY, yesterday.plusHours(17), 4, 3)));
+
+        int created = seriesService.downsample();
+
+        assertEquals(4, created);
+        ArgumentCaptor<List<PromotionMetricsBucket>> captor = ArgumentCaptor.forClass(List.class);
+        verify(bucketRepository, times(2)).saveAll(captor.capture());
+        List<PromotionMetricsBucket> hourly = captor.getAllValues().get(0);
+        assertEquals(3, hourly.size());
+        assertEquals(twelve, hourly.get(0).getBucketStart());
+        assertEquals(8, hourly.get(0).getTotalUnitsSold()); // Valor de cierre de las 12:00
+        assertEquals(2, hourly.get(0).getSamples());
+        assertEquals(2, hourly.get(2).getPromotionId());
+
+        List<PromotionMetricsBucket> daily = captor.getAllValues().get(1);
+        assertEquals(1, daily.size());
+        assertEquals(Resolution.DAILY, daily.get(0).getResolution());
+        assertEquals(yesterday, daily.get(0).getBucketStart());
+        assertEquals(4, daily.get(0).getTotalUnitsSold());
+        assertEquals(5, daily.get(0).getSamples());
+    }
+
+    @Test
+    void downsample_WithoutDataShouldDoNothing() {
+        when(bucketRepository.findLatestBucketStart(any())).thenReturn(Optional.empty());
+        when(snapshotRepository.findEarliestRecordedAt()).thenReturn(Optional.empty());
+        when(bucketRepository.findEarliestBucketStart(Resolution.HOURLY)).thenReturn(Optional.empty());
+
+        assertEquals(0, seriesService.downsample());
+        verify(bucketRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void purgeExpired_ShouldApplyRetentionPerResolution() {
+        when(snapshotRepository.deleteRecordedBefore(NOW.minusDays(7))).thenReturn(12);
+        when(bucketRepository.deleteStartedBefore(Resolution.HOURLY, NOW.minusDays(90))).thenReturn(3);
+
+        assertEquals(15, seriesService.purgeExpired());
+        verify(bucketRepository, never()).deleteStartedBefore(Resolution.DAILY, NOW.minusDays(90));
+    }
+
+    private static PromotionMetricsSnapshot snapshot(int promotionId, LocalDateTime recordedAt, int unitsSold, int initial) {
+        PromotionMetricsSnapshot snapshot = new PromotionMetricsSnapshot();
+        snapshot.setPromotionId(promotionId);
+        snapshot.setRecordedAt(recordedAt);
+        snapshot.setTotalUnitsSold(unitsSold);
+        snapshot.setTotalRevenue(BigDecimal.valueOf(unitsSold * 10L));
+        snapshot.setTotalInitialInventory(initial);
+        snapshot.setTotalCurrentInventory(initial - unitsSold);
+        return snapshot;
+    }
+
+    private static PromotionMetricsBucket bucket(int promotionId, Resolution resolution, LocalDateTime start,
+                                                 int unitsSold, int samples) {
+        PromotionMetricsBucket bucket = new PromotionMetricsBucket();
+        bucket.setPromotionId(promotionId);
+        bucket.setResolution(resolution);
+        bucket.setBucketStart(start);
+        bucket.setTotalUnitsSold(unitsSold);
+        bucket.setTotalRevenue(BigDecimal.valueOf(unitsSold * 10L));
+        bucket.setTotalInitialInventory(100);
+        bucket.setTotalCurrentInventory(100 - unitsSold);
+        bucket.setSamples(samples);
+        return bucket;
+    }
+}
@@ -0,0 +1,225 @@
+package com.petstore.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.petstore.backend.dto.ProductMetricsDTO;
+import com.petstore.backend.dto.PromotionPerformanceDTO;
+import com.petstore.backend.entity.Category;
+import com.petstore.backend.entity.Product;
+import com.petstore.backend.entity.Promotion;
+import com.petstore.backend.entity.PromotionMetrics;
+import com.petstore.backend.entity.PromotionMetricsSnapshot;
+import com.petstore.backend.entity.PromotionPerformanceRollup;
+import com.petstore.backend.entity.Status;
+import com.petstore.backend.repository.CategoryRepository;
+import com.petstore.backend.repository.ProductRepository;
+import com.petstore.backend.repository.PromotionMetricsRepository;
+import com.petstore.backend.repository.PromotionMetricsSnapshotRepository;
+import com.petstore.backend.repository.PromotionPerformanceRollupRepository;
+import com.petstore.backend.repository.PromotionRepository;
+import com.petstore.backend.repository.StatusRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Pruebas de regresión de conteo de consultas del tablero de métricas: el último snapshot
+ * por producto sale de una única sentencia SQL y los totales del rollup por clave primaria.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class PromotionMetricsServiceQueryCountTest {
+
+    @Autowired
+    private PromotionMetricsService promotionMetricsService;
+
+    @Autowired
+    private PromotionMetricsRepository promotionMetricsRepository;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+
+    @Autowired
+    private PromotionPerformanceRollupRepository rollupRepository;
+
+    @Autowired
+    private PromotionMetricsSnapshotRepository snapshotRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private StatusRepository statusRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Promotion promotion;
+    private Product first;
+    private Product second;
+
+    @BeforeEach
+    void setUp() {
+        Status active = statusRepository.findByStatusName("ACTIVE")
+                .orElseGet(() -> statusRepository.save(new Status("ACTIVE")));
+        Category category = categoryRepository.save(new Category("Metrics category", "Descripción"));
+
+        promotion = new Promotion("Metrics promotion", "Descripción", LocalDate.now().minusDays(1),
+                LocalDate.now().plusDays(10), 20.0, active);
+        promotion.setCategory(category);
+        promotion = promotionRepository.save(promotion);
+
+        LocalDateTime now = LocalDateTime.now();
+        first = saveProduct("Metrics product A", 9001, category);
+        second = saveProduct("Metrics product B", 9002, category);
+        Product third = saveProduct("Metrics product C", 9003, category);
+
+        // Dos snapshots del primer producto: los totales usan el último, el inventario inicial el primero
+        saveMetrics(first, 120, 115, 5, "50.00", now.minusDays(2));
+        saveMetrics(first, 100, 80, 20, "200.00", now.minusHours(1));
+        saveMetrics(second, 50, 40, 10, "100.00", now.minusHours(3));
+        saveMetrics(third, 30, 30, 0, "0.00", now.minusHours(2));
+        promotionMetricsService.rebuildRollup(promotion.getPromotionId());
+
+        entityManager.flush();
+        entityManager.clear(); // Sin entidades en caché: cualquier carga EAGER o LAZY iría a la BD
+    }
+
+    @Test
+    void getProductMetricsByPromotionId_ShouldUseSingleStatement() {
+        List<ProductMetricsDTO> metrics = countStatements(1,
+                () -> promotionMetricsService.getProductMetricsByPromotionId(promotion.getPromotionId()));
+
+        assertEquals(3, metrics.size());
+        assertEquals(20, metrics.get(0).getUnitsSold()); // Último snapshot del primer producto
+        assertEquals(new BigDecimal("40.00"), metrics.get(0).getDiscountedPrice().setScale(2));
+    }
+
+    @Test
+    void getPromotionPerformance_ShouldReadTotalsByPrimaryKey() {
+        // Promoción (caché fría dentro de la transacción de prueba) + fila del rollup
+        PromotionPerformanceDTO performance = countStatements(2,
+                () -> promotionMetricsService.getPromotionPerformance(promotion.getPromotionId()).orElseThrow());
+
+        assertEquals(3, performance.getTotalProducts());
+        assertEquals(30, performance.getTotalUnitsSold());
+        assertEquals(0, new BigDecimal("300.00").compareTo(performance.getTotalRevenue()));
+        assertEquals(200, performance.getTotalInitialInventory());
+        assertEquals(150, performance.getTotalCurrentInventory());
+        assertNull(performance.getProductMetrics());
+    }
+
+    @Test
+    void saveOrUpdateMetrics_DeltasShouldMatchRebuild() {
+        Integer promotionId = promotion.getPromotionId();
+        promotionMetricsService.simulateMetricsUpdate(promotionId, second.getProductId(), 4);
+        Product fourth = saveProduct("Metrics product D", 9004, second.getCategory());
+        promotionMetricsService.saveOrUpdateMetrics(promotionId, fourth.getProductId(), 60, 55, 5, new BigDecimal("200.00"));
+        entityManager.flush();
+        entityManager.clear();
+
+        PromotionPerformanceRollup incremental = rollupRepository.findById(promotionId).orElseThrow();
+        assertEquals(4, incremental.getTotalProducts());
+        assertEquals(39, incremental.getTotalUnitsSold());
+        assertEquals(260, incremental.getTotalInitialInventory());
+        assertEquals(201, incremental.getTotalCurrentInventory());
+        int units = incremental.getTotalUnitsSold();
+        BigDecimal revenue = incremental.getTotalRevenue();
+        double skuVariationSum = incremental.getSkuVariationSum();
+
+        PromotionPerformanceRollup rebuilt = promotionMetricsService.rebuildRollup(promotionId).orElseThrow();
+        assertEquals(units, rebuilt.getTotalUnitsSold());
+        assertEquals(0, revenue.compareTo(rebuilt.getTotalRevenue()));
+        assertEquals(skuVariationSum, rebuilt.getSkuVariationSum(), 1e-9);
+
+        // Cada escritura agregó un punto a la serie con los totales del rollup en ese momento
+        List<PromotionMetricsSnapshot> series = snapshotRepository.findSeries(promotionId,
+                LocalDateTime.now().minusMinutes(5), LocalDateTime.now().plusMinutes(5));
+        assertEquals(2, series.size());
+        assertEquals(34, series.get(0).getTotalUnitsSold());
+        assertEquals(39, series.get(1).getTotalUnitsSold());
+    }
+
+    @Test
+    void simulateMetricsUpdate_ShouldUseTheFirstSnapshotInventoryWhenAProductHasSeveral() {
+        Integer promotionId = promotion.getPromotionId();
+
+        // El primer producto tiene dos filas: el inventario inicial sale de la primera (120)
+        assertEquals(120, promotionMetricsRepository.findInitialInventory(promotionId, first.getProductId()).orElseThrow());
+        promotionMetricsService.simulateMetricsUpdate(promotionId, first.getProductId(), 6);
+        entityManager.flush();
+        entityManager.clear();
+
+        PromotionPerformanceRollup rollup = rollupRepository.findById(promotionId).orElseThrow();
+        assertEquals(36, rollup.getTotalUnitsSold());
+    }
+
+    @Test
+    void initializeMetricsForPromotion_ShouldNotDependOnProductCount() {
+        Integer promotionId = promotion.getPromotionId();
+        for (int i = 0; i < 40; i++) {
+            saveProduct("Bulk product " + i, 100 + i, second.getCategory());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // INSERT ... SELECT + reconstrucción del rollup + punto de la serie, sin importar los 40 productos
+        int created = countStatements(5, () -> promotionMetricsService.initializeMetricsForPromotion(promotionId));
+        assertEquals(40, created);
+        assertEquals(0, countStatements(1, () -> promotionMetricsService.initializeMetricsForPromotion(promotionId)));
+
+        entityManager.clear();
+        PromotionPerformanceRollup rollup = rollupRepository.findById(promotionId).orElseThrow();
+        assertEquals(43, rollup.getTotalProducts());
+        assertEquals(200 + 40 * 100 + 780, rollup.getTotalInitialInventory()); // SKU como stock inicial
+    }
+
+    private Product saveProduct(String name, int sku, Category category) {
+        Product product = new Product();
+        product.setProductName(name);
+        product.setBasePrice(50.0);
+        product.setSku(sku);
+        product.setCategory(category);
+        product.setPromotion(promotion);
+        return productRepository.save(product);
+    }
+
+    private void saveMetrics(Product product, int initial, int current, int unitsSold, String revenue,
+                             LocalDateTime snapshotDate) {
+        PromotionMetrics metrics = new PromotionMetrics(promotion, product, initial, current, unitsSold, new BigDecimal(revenue));
+        metrics.setSnapshotDate(snapshotDate);
+        metrics.setUpdatedAt(snapshotDate);
+        promotionMetricsRepository.save(metrics);
+    }
+
+    private <T> T countStatements(long expected, Supplier<T> call) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        T result = call.get();
+        assertEquals(expected, statistics.getPrepareStatementCount(), "Sentencias SQL ejecutadas");
+        return result;
+    }
+}
@@ -9,6 +9,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,22 +17,34 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import com.petstore.backend.cache.PromotionCache;
+import com.petstore.backend.dto.LatestProductMetrics;
+import com.petstore.backend.dto.MetricsSeriesDTO;
 import com.petstore.backend.dto.ProductMetricsDTO;
 import com.petstore.backend.dto.PromotionPerformanceDTO;
 import com.petstore.backend.entity.Category;
 import com.petstore.backend.entity.Product;
 import com.petstore.backend.entity.Promotion;
 import com.petstore.backend.entity.PromotionMetrics;
+import com.petstore.backend.entity.PromotionPerformanceRollup;
 import com.petstore.backend.entity.Status;
+import com.petstore.backend.event.PromotionChangedEvent;
+import com.petstore.backend.event.PromotionMetricsChangedEvent;
 import com.petstore.backend.repository.ProductRepository;
 import com.petstore.backend.repository.PromotionMetricsRepository;
+import com.petstore.backend.repository.PromotionPerformanceRollupRepository;
 import com.petstore.backend.repository.PromotionRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -47,6 +60,18 @@ class PromotionMetricsServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private PromotionCache promotionCache;
+
+    @Mock
+    private PromotionPerformanceRollupRepository rollupRepository;
+
+    @Mock
+    private PromotionMetricsSeriesService seriesService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private PromotionMetricsService promotionMetricsService;
 
@@ -96,20 +121,21 @@ class PromotionMetricsServiceTest {
     }
 
     @Test
-    @DisplayName("Should get promotion performance successfully")
+    @DisplayName("Should get promotion performance from the rollup")
     void testGetPromotionPerformance_Success() {
         // Given
         Integer promotionId = 1;
-        when(promotionRepository.findById(promotionId)).thenReturn(Optional.of(testPromotion));
-        when(promotionMetricsRepository.existsByPromotionPromotionId(promotionId)).thenReturn(true);
-        when(promotionMetricsRepository.getTotalUnitsSoldByPromotionId(promotionId)).thenReturn(25);
-        when(promotionMetricsRepository.getTotalRevenueByPromotionId(promotionId)).thenReturn(487.31);
-        when(promotionMetricsRepository.getTotalInitialInventoryByPromotionId(promotionId)).thenReturn(100);
-        when(promotionMetricsRepository.getTotalCurrentInventoryByPromotionId(promotionId)).thenReturn(75);
-        when(promotionMetricsRepository.getUniqueProductCountByPromotionId(promotionId)).thenReturn(1);
-        when(promotionMetricsRepository.getLastUpdatedByPromotionId(promotionId)).thenReturn(LocalDateTime.now());
-        when(promotionMetricsRepository.findLatestMetricsByPromotionId(promotionId))
-                .thenReturn(Arrays.asList(testMetrics));
+        when(promotionCache.get(promotionId)).thenReturn(Optional.of(testPromotion));
+        LocalDateTime lastUpdated = LocalDateTime.now();
+        PromotionPerformanceRollup rollup = new PromotionPerformanceRollup(promotionId);
+        rollup.setTotalProducts(2);
+        rollup.setTotalUnitsSold(35);
+        rollup.setTotalRevenue(new BigDecimal("587.31"));
+        rollup.setTotalInitialInventory(150);
+        rollup.setTotalCurrentInventory(105);
+        rollup.setSkuVariationSum(50.0);
+        rollup.setLastUpdated(lastUpdated);
+        when(rollupRepository.findById(promotionId)).thenReturn(Optional.of(rollup));
 
         // When
         Optional<PromotionPerformanceDTO> result = promotionMetricsService.getPromotionPerformance(promotionId);
@@ -119,12 +145,17 @@ class PromotionMetricsServiceTest {
         PromotionPerformanceDTO performance = result.get();
         assertEquals(promotionId, performance.getPromotionId());
         assertEquals("Black Friday 2024", performance.getPromotionName());
-        assertEquals(25, performance.getTotalUnitsSold());
-        assertEquals(BigDecimal.valueOf(487.31), performance.getTotalRevenue());
-        assertEquals(100, performance.getTotalInitialInventory());
-        assertEquals(75, performance.getTotalCurrentInventory());
-        assertEquals(1, performance.getTotalProducts());
+        assertEquals(35, performance.getTotalUnitsSold());
+        assertEquals(new BigDecimal("587.31"), performance.getTotalRevenue());
+        assertEquals(150, performance.getTotalInitialInventory());
+        assertEquals(105, performance.getTotalCurrentInventory());
+        assertEquals(45, performance.getTotalInventoryDifference());
+        assertEquals(2, performance.getTotalProducts());
+        assertEquals(25.0, performance.getAverageSkuVariationPercentage());
+        assertEquals(lastUpdated, performance.getLastUpdated());
+        assertNull(performance.getProductMetrics()); // El detalle por producto se pide aparte
         assertTrue(performance.getIsActive());
+        verify(promotionMetricsRepository, never()).findLatestSnapshotsByPromotionId(any());
     }
 
     @Test
@@ -132,7 +163,7 @@ class PromotionMetricsServiceTest {
     void testGetPromotionPerformance_PromotionNotFound() {
         // Given
         Integer promotionId = 999;
-        when(promotionRepository.findById(promotionId)).thenReturn(Optional.empty());
+        when(promotionCache.get(promotionId)).thenReturn(Optional.empty());
 
         // When
         Optional<PromotionPerformanceDTO> result = promotionMetricsService.getPromotionPerformance(promotionId);
@@ -146,8 +177,8 @@ class PromotionMetricsServiceTest {
     void testGetPromotionPerformance_NoMetrics() {
         // Given
         Integer promotionId = 1;
-        when(promotionRepository.findById(promotionId)).thenReturn(Optional.of(testPromotion));
-        when(promotionMetricsRepository.existsByPromotionPromotionId(promotionId)).thenReturn(false);
+        when(promotionCache.get(promotionId)).thenReturn(Optional.of(testPromotion));
+        when(rollupRepository.findById(promotionId)).thenReturn(Optional.empty());
 
         // When
         Optional<PromotionPerformanceDTO> result = promotionMetricsService.getPromotionPerformance(promotionId);
@@ -165,8 +196,8 @@ class PromotionMetricsServiceTest {
     void testGetProductMetricsByPromotionId() {
         // Given
         Integer promotionId = 1;
-        when(promotionMetricsRepository.findLatestMetricsByPromotionId(promotionId))
-                .thenReturn(Arrays.asList(testMetrics));
+        when(promotionMetricsRepository.findLatestSnapshotsByPromotionId(promotionId))
+                .thenReturn(List.of(latestRow(1, 100, 75, 25, "487.31", 100, LocalDateTime.now())));
 
         // When
         List<ProductMetricsDTO> result = promotionMetricsService.getProductMetricsByPromotionId(promotionId);
@@ -202,6 +233,9 @@ class PromotionMetricsServiceTest {
         // Then
         assertNotNull(result);
         verify(promotionMetricsRepository).save(any(PromotionMetrics.class));
+        verify(rollupRepository).applyDelta(eq(promotionId), eq(1), eq(25), eq(BigDecimal.valueOf(487.31)),
+                eq(100), eq(75), eq(25.0), any(LocalDateTime.class));
+        verify(seriesService).record(promotionId);
     }
 
     @Test
@@ -215,6 +249,8 @@ class PromotionMetricsServiceTest {
         when(promotionMetricsRepository.findByPromotionPromotionIdAndProductProductId(promotionId, productId))
                 .thenReturn(Optional.of(testMetrics));
         when(promotionMetricsRepository.save(testMetrics)).thenReturn(testMetrics);
+        when(rollupRepository.applyDelta(any(), any(Integer.class), any(Integer.class), any(), any(Integer.class),
+                any(Integer.class), any(Double.class), any())).thenReturn(1);
 
         // When
         PromotionMetrics result = promotionMetricsService.saveOrUpdateMetrics(
@@ -226,6 +262,161 @@ class PromotionMetricsServiceTest {
         assertEquals(30, testMetrics.getUnitsSold());
         assertEquals(BigDecimal.valueOf(600.00), testMetrics.getRevenueGenerated());
         verify(promotionMetricsRepository).save(testMetrics);
+        // Solo la diferencia con los valores previos: +5 unidades, -5 inventario, +112.69 de ingresos
+        verify(rollupRepository).applyDelta(eq(promotionId), eq(0), eq(5), eq(new BigDecimal("112.69")),
+                eq(0), eq(-5), eq(5.0), any(LocalDateTime.class));
+        verify(promotionMetricsRepository, never()).findLatestSnapshotsByPromotionId(any());
+    }
+
+    @Test
+    @DisplayName("Should rebuild the rollup when the promotion has no rollup row yet")
+    void testSaveOrUpdateMetrics_MissingRollupIsRebuilt() {
+        // Given
+        Integer promotionId = 1;
+        Integer productId = 1;
+        when(promotionRepository.findById(promotionId)).thenReturn(Optional.of(testPromotion));
+        when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
+        when(promotionMetricsRepository.findByPromotionPromotionIdAndProductProductId(promotionId, productId))
+                .thenReturn(Optional.empty());
+        when(promotionMetricsRepository.save(any(PromotionMetrics.class))).thenReturn(testMetrics);
+        when(promotionMetricsRepository.findLatestSnapshotsByPromotionId(promotionId))
+                .thenReturn(List.of(latestRow(1, 100, 75, 25, "487.31", 100, null)));
+        when(rollupRepository.findById(promotionId)).thenReturn(Optional.empty());
+        when(rollupRepository.save(any(PromotionPerformanceRollup.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        promotionMetricsService.saveOrUpdateMetrics(promotionId, productId, 100, 75, 25, BigDecimal.valueOf(487.31));
+
+        // Then
+        ArgumentCaptor<PromotionPerformanceRollup> captor = ArgumentCaptor.forClass(PromotionPerformanceRollup.class);
+        verify(rollupRepository).save(captor.capture());
+        PromotionPerformanceRollup rollup = captor.getValue();
+        assertEquals(promotionId, rollup.getPromotionId());
+        assertEquals(1, rollup.getTotalProducts());
+        assertEquals(25, rollup.getTotalUnitsSold());
+        assertEquals(75, rollup.getTotalCurrentInventory());
+        assertNotNull(rollup.getLastUpdated());
+    }
+
+    @Test
+    @DisplayName("Should rebuild a rollup from the latest snapshots")
+    void testRebuildRollup() {
+        // Given
+        Integer promotionId = 1;
+        LocalDateTime lastUpdated = LocalDateTime.now();
+        when(promotionMetricsRepository.findLatestSnapshotsByPromotionId(promotionId)).thenReturn(List.of(
+                latestRow(1, 100, 75, 25, "487.31", 100, lastUpdated),
+                latestRow(2, 40, 30, 10, "100.00", 50, lastUpdated))); // Inventario inicial del primer snapshot: 50
+        PromotionPerformanceRollup stale = new PromotionPerformanceRollup(promotionId);
+        stale.setTotalProducts(7);
+        when(rollupRepository.findById(promotionId)).thenReturn(Optional.of(stale));
+        when(rollupRepository.save(stale)).thenReturn(stale);
+
+        // When
+        Optional<PromotionPerformanceRollup> result = promotionMetricsService.rebuildRollup(promotionId);
+
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals(2, stale.getTotalProducts());
+        assertEquals(35, stale.getTotalUnitsSold());
+        assertEquals(new BigDecimal("587.31"), stale.getTotalRevenue());
+        assertEquals(150, stale.getTotalInitialInventory());
+        assertEquals(105, stale.getTotalCurrentInventory());
+        assertEquals(50.0, stale.getSkuVariationSum());
+        assertEquals(25.0, stale.getAverageSkuVariationPercentage());
+        assertEquals(lastUpdated, stale.getLastUpdated());
+    }
+
+    @Test
+    @DisplayName("Should delete the rollup when rebuilding a promotion without metrics")
+    void testRebuildRollup_NoMetrics() {
+        // Given
+        Integer promotionId = 1;
+        PromotionPerformanceRollup orphan = new PromotionPerformanceRollup(promotionId);
+        when(promotionMetricsRepository.findLatestSnapshotsByPromotionId(promotionId)).thenReturn(List.of());
+        when(rollupRepository.findById(promotionId)).thenReturn(Optional.of(orphan));
+
+        // When
+        Optional<PromotionPerformanceRollup> result = promotionMetricsService.rebuildRollup(promotionId);
+
+        // Then
+        assertTrue(result.isEmpty());
+        verify(rollupRepository).delete(orphan);
+        verify(rollupRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should rebuild every rollup and drop orphans")
+    void testRebuildAllRollups() {
+        // Given
+        PromotionPerformanceRollup orphan = new PromotionPerformanceRollup(99);
+        when(promotionMetricsRepository.findDistinctPromotionIds()).thenReturn(List.of(1));
+        when(rollupRepository.findAll()).thenReturn(List.of(orphan));
+        when(promotionMetricsRepository.findLatestSnapshotsByPromotionId(1))
+                .thenReturn(List.of(latestRow(1, 100, 75, 25, "487.31", 100, LocalDateTime.now())));
+        when(rollupRepository.save(any(PromotionPerformanceRollup.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        int rebuilt = promotionMetricsService.rebuildAllRollups();
+
+        // Then
+        assertEquals(1, rebuilt);
+        verify(rollupRepository).deleteAll(List.of(orphan));
+        verify(rollupRepository).save(any(PromotionPerformanceRollup.class));
+    }
+
+    @Test
+    @DisplayName("Should backfill rollups on startup only when the table is empty")
+    void testBackfillRollupsOnStartup() {
+        // Given
+        when(rollupRepository.count()).thenReturn(3L);
+
+        // When
+        promotionMetricsService.backfillRollupsOnStartup();
+
+        // Then
+        verify(promotionMetricsRepository, never()).findDistinctPromotionIds();
+    }
+
+    @Test
+    @DisplayName("Should drop the rollup of a deleted promotion")
+    void testOnPromotionChanged_Deleted() {
+        // Given
+        PromotionPerformanceRollup rollup = new PromotionPerformanceRollup(1);
+        when(rollupRepository.findById(1)).thenReturn(Optional.of(rollup));
+
+        // When
+        promotionMetricsService.onPromotionChanged(PromotionChangedEvent.deleted(this, 1));
+        promotionMetricsService.onPromotionChanged(PromotionChangedEvent.reloadAll(this));
+
+        // Then
+        verify(rollupRepository, times(1)).delete(rollup);
+        verify(seriesService, times(1)).deleteSeries(1);
+    }
+
+    @Test
+    @DisplayName("Should return the metrics series of an existing promotion")
+    void testGetMetricsSeries() {
+        // Given
+        LocalDateTime to = LocalDateTime.now();
+        LocalDateTime from = to.minusHours(6);
+        MetricsSeriesDTO series = new MetricsSeriesDTO(1, "RAW", from, to, List.of());
+        when(promotionCache.get(1)).thenReturn(Optional.of(testPromotion));
+        when(seriesService.getSeries(1, from, to)).thenReturn(series);
+
+        // When & Then
+        assertEquals(Optional.of(series), promotionMetricsService.getMetricsSeries(1, from, to));
+    }
+
+    @Test
+    @DisplayName("Should return empty series result when promotion not found")
+    void testGetMetricsSeries_PromotionNotFound() {
+        // Given
+        when(promotionCache.get(999)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertTrue(promotionMetricsService.getMetricsSeries(999, LocalDateTime.now().minusDays(1), LocalDateTime.now()).isEmpty());
+        verify(seriesService, never()).getSeries(any(), any(), any());
     }
 
     @Test
@@ -247,45 +438,129 @@ class PromotionMetricsServiceTest {
     }
 
     @Test
-    @DisplayName("Should initialize metrics for promotion")
+    @DisplayName("Should initialize metrics for promotion with a single insert")
     void testInitializeMetricsForPromotion() {
         // Given
         Integer promotionId = 1;
-        List<Product> products = Arrays.asList(testProduct);
-        
-        when(productRepository.findByPromotionPromotionId(promotionId)).thenReturn(products);
-        when(promotionMetricsRepository.findByPromotionPromotionIdAndProductProductId(promotionId, testProduct.getProductId()))
-                .thenReturn(Optional.empty());
-        when(promotionRepository.findById(promotionId)).thenReturn(Optional.of(testPromotion));
-        when(productRepository.findById(testProduct.getProductId())).thenReturn(Optional.of(testProduct));
-        when(promotionMetricsRepository.save(any(PromotionMetrics.class))).thenReturn(testMetrics);
+        when(promotionMetricsRepository.insertMissingForPromotion(eq(promotionId), any())).thenReturn(2);
+        when(promotionMetricsRepository.findLatestSnapshotsByPromotionId(promotionId)).thenReturn(List.of());
+        when(rollupRepository.findById(promotionId)).thenReturn(Optional.empty());
 
         // When
-        promotionMetricsService.initializeMetricsForPromotion(promotionId);
+        int created = promotionMetricsService.initializeMetricsForPromotion(promotionId);
 
         // Then
-        verify(promotionMetricsRepository).save(any(PromotionMetrics.class));
+        assertEquals(2, created);
+        verify(promotionMetricsRepository, never()).save(any(PromotionMetrics.class));
+        verify(promotionMetricsRepository).findLatestSnapshotsByPromotionId(promotionId);
+        verify(seriesService).record(promotionId);
+        verify(eventPublisher).publishEvent(any(PromotionMetricsChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should skip rollup when metrics were already initialized")
+    void testInitializeMetricsForPromotion_AlreadyInitialized() {
+        // Given
+        when(promotionMetricsRepository.insertMissingForPromotion(eq(1), any())).thenReturn(0);
+
+        // When
+        int created = promotionMetricsService.initializeMetricsForPromotion(1);
+
+        // Then
+        assertEquals(0, created);
+        verify(promotionMetricsRepository, never()).findLatestSnapshotsByPromotionId(any());
+        verify(seriesService, never()).record(any());
     }
 
     @Test
-    @DisplayName("Should simulate metrics update")
+    @DisplayName("Should simulate metrics update with an atomic delta")
     void testSimulateMetricsUpdate() {
         // Given
         Integer promotionId = 1;
         Integer productId = 1;
         Integer unitsSoldIncrement = 5;
-        
-        when(promotionMetricsRepository.findByPromotionPromotionIdAndProductProductId(promotionId, productId))
-                .thenReturn(Optional.of(testMetrics));
+        BigDecimal revenue = new BigDecimal("97.45"); // 25.99 con 25 % = 19.49 por unidad (redondeado al centavo) * 5
+
         when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
-        when(promotionRepository.findById(promotionId)).thenReturn(Optional.of(testPromotion));
-        when(promotionMetricsRepository.save(any(PromotionMetrics.class))).thenReturn(testMetrics);
+        when(promotionCache.get(promotionId)).thenReturn(Optional.of(testPromotion));
+        when(promotionMetricsRepository.applySaleDelta(eq(promotionId), eq(productId), eq(5), eq(revenue), eq(5), any()))
+                .thenReturn(1);
+        when(promotionMetricsRepository.findInitialInventory(promotionId, productId)).thenReturn(Optional.of(100));
+        when(rollupRepository.applyDelta(eq(promotionId), eq(0), eq(5), eq(revenue), eq(0), eq(-5), eq(5.0), any()))
+                .thenReturn(1);
 
         // When
         promotionMetricsService.simulateMetricsUpdate(promotionId, productId, unitsSoldIncrement);
 
         // Then
-        verify(promotionMetricsRepository).save(any(PromotionMetrics.class));
+        verify(promotionMetricsRepository, never()).save(any(PromotionMetrics.class));
+        verify(rollupRepository).applyDelta(eq(promotionId), eq(0), eq(5), eq(revenue), eq(0), eq(-5), eq(5.0), any());
+        verify(seriesService).record(promotionId);
+        verify(eventPublisher).publishEvent(any(PromotionMetricsChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should treat a null simulated increment as zero units")
+    void testSimulateMetricsUpdate_NullIncrement() {
+        // Given
+        Integer promotionId = 1;
+        Integer productId = 1;
+        when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
+        when(promotionCache.get(promotionId)).thenReturn(Optional.of(testPromotion));
+        when(promotionMetricsRepository.applySaleDelta(eq(promotionId), eq(productId), eq(0), any(), eq(0), any()))
+                .thenReturn(1);
+        when(promotionMetricsRepository.findInitialInventory(promotionId, productId)).thenReturn(Optional.of(100));
+        when(rollupRepository.applyDelta(eq(promotionId), eq(0), eq(0), any(), eq(0), eq(0), eq(0.0), any()))
+                .thenReturn(1);
+
+        // When
+        promotionMetricsService.simulateMetricsUpdate(promotionId, productId, null);
+
+        // Then
+        verify(promotionMetricsRepository).applySaleDelta(eq(promotionId), eq(productId), eq(0),
+                eq(new BigDecimal("0.00")), eq(0), any());
+        verify(seriesService).record(promotionId);
+    }
+
+    @Test
+    @DisplayName("Should rebuild rollup when simulated sale exhausts inventory")
+    void testSimulateMetricsUpdate_InventoryExhausted() {
+        // Given
+        Integer promotionId = 1;
+        Integer productId = 1;
+        when(productRepository.findById(productId)).thenReturn(Optional.of(testProduct));
+        when(promotionCache.get(promotionId)).thenReturn(Optional.of(testPromotion));
+        when(promotionMetricsRepository.applySaleDelta(eq(promotionId), eq(productId), eq(500), any(), eq(500), any()))
+                .thenReturn(0);
+        when(promotionMetricsRepository.applySaleDelta(eq(promotionId), eq(productId), eq(500), any(), eq(0), any()))
+                .thenReturn(1);
+        when(promotionMetricsRepository.findLatestSnapshotsByPromotionId(promotionId)).thenReturn(List.of());
+        when(rollupRepository.findById(promotionId)).thenReturn(Optional.empty());
+
+        // When
+        promotionMetricsService.simulateMetricsUpdate(promotionId, productId, 500);
+
+        // Then
+        verify(promotionMetricsRepository).findLatestSnapshotsByPromotionId(promotionId);
+        verify(rollupRepository, never()).applyDelta(any(), any(Integer.class), any(Integer.class), any(), any(Integer.class),
+                any(Integer.class), any(Double.class), any());
+        verify(seriesService).record(promotionId);
+    }
+
+    @Test
+    @DisplayName("Should ignore simulated sale without metrics")
+    void testSimulateMetricsUpdate_WithoutMetrics() {
+        // Given
+        when(productRepository.findById(1)).thenReturn(Optional.empty());
+        when(promotionMetricsRepository.applySaleDelta(eq(1), eq(1), eq(5), eq(new BigDecimal("0.00")), any(Integer.class), any()))
+                .thenReturn(0);
+
+        // When
+        promotionMetricsService.simulateMetricsUpdate(1, 1, 5);
+
+        // Then
+        verify(seriesService, never()).record(any());
+        verify(eventPublisher, never()).publishEvent(any(PromotionMetricsChangedEvent.class));
     }
 
     @Test
@@ -314,5 +589,15 @@ class PromotionMetricsServiceTest {
 
         // Then
         verify(promotionMetricsRepository).deleteByPromotionPromotionId(promotionId);
+        verify(rollupRepository).findById(promotionId);
+        verify(seriesService).deleteSeries(promotionId);
+    }
+
+    private LatestProductMetrics latestRow(int productId, int initialInventory, int currentInventory, int unitsSold,
+                                           String revenue, int firstInitialInventory, LocalDateTime promotionLastUpdated) {
+        return new LatestProductMetrics(productId, productId == 1 ? testProduct.getProductName() : "Producto " + productId,
+                12345 + productId, testProduct.getBasePrice(), testCategory.getCategoryId(), testCategory.getCategoryName(),
+                testCategory.getDescription(), testPromotion.getDiscountValue(), initialInventory, currentInventory,
+                unitsSold, new BigDecimal(revenue), promotionLastUpdated, firstInitialInventory, promotionLastUpdated);
     }
 }
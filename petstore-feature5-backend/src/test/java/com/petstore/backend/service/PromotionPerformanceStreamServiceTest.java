@@ -0,0 +1,194 @@
+package com.petstore.backend.service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.petstore.backend.dto.PromotionPerformanceDTO;
+import com.petstore.backend.dto.PromotionPerformanceUpdateDTO;
+import com.petstore.backend.event.PromotionChangedEvent;
+import com.petstore.backend.event.PromotionMetricsChangedEvent;
+
+import reactor.core.Disposable;
+
+@ExtendWith(MockitoExtension.class)
+class PromotionPerformanceStreamServiceTest {
+
+    private static final LocalDateTime UPDATED = LocalDateTime.of(2025, 6, 10, 14, 0);
+
+    @Mock
+    private PromotionMetricsService promotionMetricsService;
+
+    private PromotionPerformanceStreamService streamService;
+
+    @BeforeEach
+    void setUp() {
+        streamService = new PromotionPerformanceStreamService(promotionMetricsService, Duration.ofMillis(200), Runnable::run);
+    }
+
+    @Test
+    void updates_ShouldSendFullStateThenOnlyChangedFields() {
+        when(promotionMetricsService.getPromotionPerformance(1))
+                .thenReturn(Optional.of(performance(10, "100.00", UPDATED)))
+                .thenReturn(Optional.of(performance(14, "140.00", UPDATED.plusMinutes(1))));
+        List<PromotionPerformanceUpdateDTO> received = new CopyOnWriteArrayList<>();
+
+        Disposable subscription = streamService.updates(1).subscribe(received::add);
+        streamService.onMetricsChanged(new PromotionMetricsChangedEvent(this, 1));
+        awaitSize(received, 2);
+        subscription.dispose();
+
+        assertEquals(10, received.get(0).changedFields().size()); // Primer mensaje: todos los campos
+        assertEquals(10, received.get(0).totalUnitsSold());
+        PromotionPerformanceUpdateDTO change = received.get(1);
+        assertEquals(List.of("totalUnitsSold", "totalRevenue", "totalCurrentInventory", "totalInventoryDifference",
+                "inventoryReductionPercentage", "lastUpdated"), change.changedFields());
+        assertEquals(14, change.totalUnitsSold());
+        assertNull(change.totalProducts()); // Sin cambios: no se envía
+        assertEquals(0, streamService.activeChannels());
+    }
+
+    @Test
+    void updates_ShouldThrottleBurstsToTheLatestState() throws InterruptedException {
+        when(promotionMetricsService.getPromotionPerformance(1))
+                .thenReturn(Optional.of(performance(10, "100.00", UPDATED)))
+                .thenReturn(Optional.of(performance(11, "110.00", UPDATED)))
+                .thenReturn(Optional.of(performance(12, "120.00", UPDATED)))
+                .thenReturn(Optional.of(performance(13, "130.00", UPDATED)));
+        List<PromotionPerformanceUpdateDTO> received = new CopyOnWriteArrayList<>();
+
+        Disposable subscription = streamService.updates(1).subscribe(received::add);
+        for (int i = 0; i < 3; i++) {
+            streamService.onMetricsChanged(new PromotionMetricsChangedEvent(this, 1));
+        }
+        awaitSize(received, 2);
+        Thread.sleep(500);
+        subscription.dispose();
+
+        assertEquals(2, received.size());
+        assertEquals(13, received.get(1).totalUnitsSold());
+        assertEquals(0, new BigDecimal("130.00").compareTo(received.get(1).totalRevenue()));
+    }
+
+    @Test
+    void updates_SameValuesShouldNotBeSent() throws InterruptedException {
+        when(promotionMetricsService.getPromotionPerformance(1))
+                .thenReturn(Optional.of(performance(10, "100.00", UPDATED)))
+                .thenReturn(Optional.of(performance(10, "100.0", UPDATED)));
+        List<PromotionPerformanceUpdateDTO> received = new CopyOnWriteArrayList<>();
+
+        Disposable subscription = streamService.updates(1).subscribe(received::add);
+        streamService.onMetricsChanged(new PromotionMetricsChangedEvent(this, 1));
+        Thread.sleep(500);
+        subscription.dispose();
+
+        assertEquals(1, received.size());
+    }
+
+    @Test
+    void onMetricsChanged_WithoutSubscribersShouldNotLoadAnything() {
+        streamService.onMetricsChanged(new PromotionMetricsChangedEvent(this, 1));
+
+        verify(promotionMetricsService, never()).getPromotionPerformance(any());
+    }
+
+    @Test
+    void onMetricsChanged_ShouldReloadOffTheWriterThreadAndCoalesceBursts() {
+        List<Runnable> queued = new ArrayList<>();
+        streamService = new PromotionPerformanceStreamService(promotionMetricsService, Duration.ofMillis(200), queued::add);
+        when(promotionMetricsService.getPromotionPerformance(1))
+                .thenReturn(Optional.of(performance(10, "100.00", UPDATED)))
+                .thenReturn(Optional.of(performance(13, "130.00", UPDATED)));
+        Disposable subscription = streamService.updates(1).subscribe();
+
+        for (int i = 0; i < 3; i++) {
+            streamService.onMetricsChanged(new PromotionMetricsChangedEvent(this, 1));
+        }
+        verify(promotionMetricsService, times(1)).getPromotionPerformance(1); // Solo el estado inicial
+        assertEquals(1, queued.size());
+
+        queued.get(0).run();
+        verify(promotionMetricsService, times(2)).getPromotionPerformance(1);
+        streamService.onMetricsChanged(new PromotionMetricsChangedEvent(this, 1));
+        assertEquals(2, queued.size()); // Tras la recarga, un cambio nuevo programa otra
+        subscription.dispose();
+    }
+
+    @Test
+    void updates_InitialLoadShouldNotHoldTheChannelsLock() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(promotionMetricsService.getPromotionPerformance(1)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return Optional.of(performance(10, "100.00", UPDATED));
+        });
+
+        CompletableFuture<PromotionPerformanceUpdateDTO> first = CompletableFuture.supplyAsync(() -> streamService.updates(1).blockFirst());
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        assertEquals(0, CompletableFuture.supplyAsync(streamService::activeChannels).get(1, TimeUnit.SECONDS));
+        release.countDown();
+        assertEquals(10, first.get(5, TimeUnit.SECONDS).totalUnitsSold());
+    }
+
+    @Test
+    void updates_UnknownPromotionShouldFail() {
+        when(promotionMetricsService.getPromotionPerformance(99)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> streamService.updates(99).blockFirst());
+        assertEquals(0, streamService.activeChannels());
+    }
+
+    @Test
+    void onPromotionChanged_DeletedShouldCompleteSubscribers() {
+        when(promotionMetricsService.getPromotionPerformance(1)).thenReturn(Optional.of(performance(10, "100.00", UPDATED)));
+        AtomicBoolean completed = new AtomicBoolean();
+
+        streamService.updates(1).subscribe(update -> { }, error -> { }, () -> completed.set(true));
+        assertEquals(1, streamService.activeChannels());
+        streamService.onPromotionChanged(PromotionChangedEvent.deleted(this, 1));
+
+        assertTrue(completed.get());
+        assertEquals(0, streamService.activeChannels());
+    }
+
+    private static void awaitSize(List<?> list, int size) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (list.size() < size && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(list.size() >= size, "Se esperaban " + size + " mensajes y llegaron " + list.size());
+    }
+
+    private static PromotionPerformanceDTO performance(int unitsSold, String revenue, LocalDateTime lastUpdated) {
+        PromotionPerformanceDTO performance = new PromotionPerformanceDTO(1, "Promo", "Descripción", 10.0,
+                UPDATED.minusDays(1), UPDATED.plusDays(10), true, 4, unitsSold, new BigDecimal(revenue),
+                200, 200 - unitsSold, lastUpdated, null);
+        performance.setAverageSkuVariationPercentage(5.0);
+        return performance;
+    }
+}
@@ -0,0 +1,255 @@
+package com.petstore.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.context.transaction.AfterTransaction;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.petstore.backend.cache.PromotionIntervalIndex;
+import com.petstore.backend.cache.ReferenceDataRegistry;
+import com.petstore.backend.dto.CursorPage;
+import com.petstore.backend.dto.ProductAssociationResult;
+import com.petstore.backend.dto.ProductAssociationResult.Outcome;
+import com.petstore.backend.dto.PromotionDTO;
+import com.petstore.backend.dto.StatusTransitionResult;
+import com.petstore.backend.entity.Category;
+import com.petstore.backend.entity.Product;
+import com.petstore.backend.entity.Promotion;
+import com.petstore.backend.entity.Status;
+import com.petstore.backend.event.PromotionActivatedEvent;
+import com.petstore.backend.listener.PromotionActivatedListener;
+import com.petstore.backend.repository.CategoryRepository;
+import com.petstore.backend.repository.ProductRepository;
+import com.petstore.backend.repository.PromotionRepository;
+import com.petstore.backend.repository.StatusRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Pruebas de regresión de conteo de consultas: cada listado de promociones
+ * debe resolverse con una única sentencia SQL, sin cargas LAZY por fila, y la
+ * transición masiva de estados con un número fijo de sentencias.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@RecordApplicationEvents
+class PromotionServiceQueryCountTest {
+
+    private static final int PROMOTIONS = 6;
+
+    @Autowired
+    private PromotionService promotionService;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StatusRepository statusRepository;
+
+    @Autowired
+    private PromotionIntervalIndex promotionIntervalIndex;
+
+    @Autowired
+    private ReferenceDataRegistry referenceDataRegistry;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private PromotionActivatedListener promotionActivatedListener; // Evita encolados y envíos que alteren el conteo
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    private Category firstCategory;
+
+    @BeforeEach
+    void setUp() {
+        Status active = statusRepository.findByStatusName("ACTIVE")
+                .orElseGet(() -> statusRepository.save(new Status("ACTIVE")));
+
+        // Una categoría distinta por promoción para que un 1+N sea visible
+        for (int i = 0; i < PROMOTIONS; i++) {
+            Category category = new Category();
+            category.setCategoryName("Query count category " + i);
+            category.setDescription("Descripción " + i);
+            category = categoryRepository.save(category);
+            if (firstCategory == null) {
+                firstCategory = category;
+            }
+
+            Promotion promotion = new Promotion();
+            promotion.setPromotionName("Query count promotion " + i);
+            promotion.setDescription("Descripción larga " + i);
+            promotion.setStartDate(LocalDate.now().minusDays(1));
+            promotion.setEndDate(LocalDate.now().plusDays(10));
+            promotion.setDiscountValue(10.0 + i);
+            promotion.setStatus(active);
+            promotion.setCategory(category);
+            promotionRepository.save(promotion);
+        }
+        entityManager.flush();
+        promotionIntervalIndex.reload(); // El índice ve los datos de esta transacción
+        entityManager.clear(); // Sin entidades en caché: cualquier carga LAZY iría a la BD
+    }
+
+    @AfterTransaction
+    void resetIndex() {
+        promotionIntervalIndex.reload(); // Descartar los datos revertidos
+        referenceDataRegistry.reload();
+    }
+
+    @Test
+    void getAllPromotions_ShouldUseSingleStatement() {
+        List<PromotionDTO> result = countStatements(1, promotionService::getAllPromotions);
+
+        PromotionDTO last = result.get(result.size() - 1);
+        assertNotNull(last.getCategory());
+        assertEquals("Query count category " + (PROMOTIONS - 1), last.getCategory().getCategoryName());
+    }
+
+    @Test
+    void getPromotionsByCategory_ShouldUseSingleStatement() {
+        List<PromotionDTO> result = countStatements(1,
+                () -> promotionService.getPromotionsByCategory(firstCategory.getCategoryId()));
+
+        assertEquals(1, result.size());
+        assertEquals(firstCategory.getCategoryName(), result.get(0).getCategory().getCategoryName());
+    }
+
+    @Test
+    void getValidPromotions_ShouldUseSingleStatement() {
+        List<PromotionDTO> result = countStatements(1, promotionService::getValidPromotions);
+
+        assertEquals(PROMOTIONS, result.stream().filter(dto -> dto.getPromotionName().startsWith("Query count")).count());
+    }
+
+    @Test
+    void getAllActivePromotions_ShouldUseSingleStatement() {
+        List<PromotionDTO> result = countStatements(1, promotionService::getAllActivePromotions);
+
+        assertEquals(PROMOTIONS, result.stream().filter(dto -> "ACTIVE".equals(dto.getStatus())).count());
+    }
+
+    @Test
+    void getPromotionsPage_ShouldUseSingleStatement() {
+        CursorPage<PromotionDTO> page = countStatements(1,
+                () -> promotionService.getPromotionsPage(null, 3, PromotionService.SORT_BY_START_DATE));
+
+        assertEquals(3, page.getSize());
+        page.getItems().forEach(dto -> assertNotNull(dto.getCategory()));
+    }
+
+    @Test
+    void transitionPromotionStatuses_ShouldUseConstantStatementsAndReportNewlyActive() {
+        Status active = statusRepository.findByStatusName("ACTIVE").orElseThrow();
+        Status expired = statusRepository.findByStatusName("EXPIRED")
+                .orElseGet(() -> statusRepository.save(new Status("EXPIRED")));
+        Status scheduled = statusRepository.findByStatusName("SCHEDULED")
+                .orElseGet(() -> statusRepository.save(new Status("SCHEDULED")));
+
+        Promotion shouldExpire = newPromotion("Transition expire", active, -10, -1);
+        Promotion shouldSchedule = newPromotion("Transition schedule", active, 2, 9);
+        Promotion shouldActivate = newPromotion("Transition activate", scheduled, -1, 3);
+        Promotion alreadyExpired = newPromotion("Transition unchanged", expired, -10, -2);
+        entityManager.flush();
+        referenceDataRegistry.reload(); // Los estados se resuelven en memoria, sin consultas
+        entityManager.clear();
+
+        // IDs a activar + 3 UPDATE + carga de las recién activadas
+        StatusTransitionResult result = countStatements(5, promotionService::transitionPromotionStatuses);
+
+        assertEquals(List.of(shouldActivate.getPromotionId()), result.activatedIds());
+        assertEquals(1, result.expired());
+        assertEquals(1, result.scheduled());
+        assertEquals("EXPIRED", statusOf(shouldExpire));
+        assertEquals("SCHEDULED", statusOf(shouldSchedule));
+        assertEquals("ACTIVE", statusOf(shouldActivate));
+        assertEquals("EXPIRED", statusOf(alreadyExpired));
+        // El encolado corre antes del commit, que aquí no ocurre: basta con el evento publicado
+        assertEquals(1, applicationEvents.stream(PromotionActivatedEvent.class).count());
+    }
+
+    @Test
+    void associateProducts_ShouldUseConstantStatementsRegardlessOfProductCount() {
+        Promotion target = promotionRepository.findAll().get(0);
+        Promotion other = promotionRepository.findAll().get(1);
+        List<Integer> productIds = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Product product = new Product();
+            product.setProductName("Bulk product " + i);
+            product.setBasePrice(10.0);
+            product.setSku(900_000 + i);
+            product.setCategory(firstCategory);
+            product.setPromotion(i == 0 ? other : null);
+            productIds.add(productRepository.save(product).getProductId());
+        }
+        productIds.add(-1);
+        entityManager.flush();
+        entityManager.clear();
+
+        // existencia de la promoción + validación de IDs + un UPDATE
+        ProductAssociationResult result = countStatements(3,
+                () -> promotionService.associateProducts(target.getPromotionId(), productIds).orElseThrow());
+
+        assertEquals(39, result.idsWith(Outcome.ASSOCIATED).size());
+        assertEquals(List.of(productIds.get(0)), result.idsWith(Outcome.IN_OTHER_PROMOTION));
+        assertEquals(List.of(-1), result.idsWith(Outcome.MISSING));
+        assertEquals(39, productRepository.findByPromotionPromotionId(target.getPromotionId()).size());
+
+        ProductAssociationResult removal = countStatements(3,
+                () -> promotionService.removeProducts(target.getPromotionId(), productIds).orElseThrow());
+        assertEquals(39, removal.idsWith(Outcome.REMOVED).size());
+        assertEquals(0, productRepository.findByPromotionPromotionId(target.getPromotionId()).size());
+    }
+
+    private Promotion newPromotion(String name, Status status, int startOffset, int endOffset) {
+        Promotion promotion = new Promotion();
+        promotion.setPromotionName(name);
+        promotion.setStartDate(LocalDate.now().plusDays(startOffset));
+        promotion.setEndDate(LocalDate.now().plusDays(endOffset));
+        promotion.setDiscountValue(5.0);
+        promotion.setStatus(status);
+        promotion.setCategory(firstCategory);
+        return promotionRepository.save(promotion);
+    }
+
+    private String statusOf(Promotion promotion) {
+        return promotionRepository.findById(promotion.getPromotionId()).orElseThrow().getStatus().getStatusName();
+    }
+
+    private <T> T countStatements(long expected, Supplier<T> call) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        T result = call.get();
+        assertEquals(expected, statistics.getPrepareStatementCount(), "Sentencias SQL ejecutadas");
+        return result;
+    }
+}
@@ -3,6 +3,7 @@ package com.petstore.backend.service;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -11,12 +12,17 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import static org.mockito.Mockito.never;
@@ -25,24 +31,35 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationEventPublisher;
 
+import com.petstore.backend.cache.CatalogVersion;
+import com.petstore.backend.cache.PromotionCache;
+import com.petstore.backend.cache.PromotionInterval;
+import com.petstore.backend.cache.PromotionIntervalIndex;
+import com.petstore.backend.cache.ReferenceDataRegistry;
+import com.petstore.backend.dto.CursorPage;
 import com.petstore.backend.dto.PromotionDTO;
+import com.petstore.backend.dto.ProductAssociationResult;
+import com.petstore.backend.dto.ProductAssociationResult.Outcome;
 import com.petstore.backend.dto.PromotionDeletedDTO;
+import com.petstore.backend.dto.StatusTransitionResult;
 import com.petstore.backend.entity.Category;
 import com.petstore.backend.entity.Product;
 import com.petstore.backend.entity.Promotion;
 import com.petstore.backend.entity.PromotionDeleted;
 import com.petstore.backend.entity.Status;
 import com.petstore.backend.entity.User;
-import com.petstore.backend.repository.CategoryRepository;
+import com.petstore.backend.event.PromotionActivatedEvent;
+import com.petstore.backend.event.PromotionChangedEvent;
 import com.petstore.backend.repository.NotificationLogRepository;
 import com.petstore.backend.repository.ProductRepository;
 import com.petstore.backend.repository.PromotionDeletedRepository;
 import com.petstore.backend.repository.PromotionMetricsRepository;
 import com.petstore.backend.repository.PromotionRepository;
-import com.petstore.backend.repository.StatusRepository;
 import com.petstore.backend.repository.UserRepository;
+import com.petstore.backend.util.KeysetCursor;
 
 @ExtendWith(MockitoExtension.class)
 class PromotionServiceTest {
@@ -50,15 +67,9 @@ class PromotionServiceTest {
     @Mock
     private PromotionRepository promotionRepository;
     
-    @Mock
-    private StatusRepository statusRepository;
-    
     @Mock
     private UserRepository userRepository;
     
-    @Mock
-    private CategoryRepository categoryRepository;
-    
     @Mock
     private PromotionDeletedRepository promotionDeletedRepository;
     
@@ -71,6 +82,18 @@ class PromotionServiceTest {
     @Mock
     private NotificationLogRepository notificationLogRepository;
     
+    @Mock
+    private PromotionIntervalIndex promotionIntervalIndex;
+    
+    @Mock
+    private ReferenceDataRegistry referenceDataRegistry;
+
+    @Mock
+    private PromotionCache promotionCache;
+
+    @Mock
+    private CatalogVersion catalogVersion;
+    
     @Mock
     private ApplicationEventPublisher eventPublisher;
 
@@ -78,6 +101,7 @@ class PromotionServiceTest {
     private PromotionService promotionService;
 
     private Promotion testPromotion;
+    private PromotionDTO testPromotionDTO;
     private Category testCategory;
     private Status testStatus;
     private User testUser;
@@ -110,6 +134,9 @@ class PromotionServiceTest {
         testPromotion.setUser(testUser);
         testPromotion.setCategory(testCategory);
 
+        testPromotionDTO = new PromotionDTO(1, "Test Promotion", "Test Description", 20.0,
+            testPromotion.getStartDate(), testPromotion.getEndDate(), "ACTIVE", 1, "Test Category", null);
+
         testPromotionDeleted = new PromotionDeleted();
         testPromotionDeleted.setPromotionId(1);
         testPromotionDeleted.setPromotionName("Deleted Promotion");
@@ -127,8 +154,9 @@ class PromotionServiceTest {
     @Test
     void getAllActivePromotions_ShouldReturnCurrentActivePromotions() {
         // Given
-        List<Promotion> activePromotions = Arrays.asList(testPromotion);
-        when(promotionRepository.findActivePromotions()).thenReturn(activePromotions);
+        when(promotionIntervalIndex.findValidOn(any(LocalDate.class)))
+            .thenReturn(List.of(PromotionInterval.from(testPromotion)));
+        when(promotionRepository.findAsDTOByIdIn(List.of(1))).thenReturn(List.of(testPromotionDTO));
 
         // When
         List<PromotionDTO> result = promotionService.getAllActivePromotions();
@@ -138,21 +166,25 @@ class PromotionServiceTest {
         assertEquals(1, result.size());
         assertEquals("Test Promotion", result.get(0).getPromotionName());
         assertEquals(BigDecimal.valueOf(20.0), result.get(0).getDiscountPercentage());
-        verify(promotionRepository).findActivePromotions();
+        verify(promotionRepository, never()).findActivePromotions();
+        verify(promotionRepository, never()).findAllById(any());
     }
 
     @Test
-    void getAllActivePromotions_ShouldFilterExpiredPromotions() {
+    void getAllActivePromotions_ShouldSkipValidButNotActivePromotions() {
         // Given
-        Promotion expiredPromotion = new Promotion();
-        expiredPromotion.setPromotionId(2);
-        expiredPromotion.setPromotionName("Expired Promotion");
-        expiredPromotion.setStartDate(LocalDate.now().minusDays(20));
-        expiredPromotion.setEndDate(LocalDate.now().minusDays(1)); // Expired yesterday
-        expiredPromotion.setDiscountValue(10.0);
-
-        List<Promotion> activePromotions = Arrays.asList(testPromotion, expiredPromotion);
-        when(promotionRepository.findActivePromotions()).thenReturn(activePromotions);
+        Status scheduled = new Status("SCHEDULED");
+        scheduled.setStatusId(3);
+        Promotion scheduledPromotion = new Promotion();
+        scheduledPromotion.setPromotionId(2);
+        scheduledPromotion.setPromotionName("Scheduled Promotion");
+        scheduledPromotion.setStartDate(LocalDate.now().minusDays(1));
+        scheduledPromotion.setEndDate(LocalDate.now().plusDays(1));
+        scheduledPromotion.setStatus(scheduled);
+
+        when(promotionIntervalIndex.findValidOn(any(LocalDate.class)))
+            .thenReturn(List.of(PromotionInterval.from(testPromotion), PromotionInterval.from(scheduledPromotion)));
+        when(promotionRepository.findAsDTOByIdIn(List.of(1))).thenReturn(List.of(testPromotionDTO));
 
         // When
         List<PromotionDTO> result = promotionService.getAllActivePromotions();
@@ -162,11 +194,23 @@ class PromotionServiceTest {
         assertEquals("Test Promotion", result.get(0).getPromotionName());
     }
 
+    @Test
+    void getAllActivePromotions_ShouldNotQueryRepositoryWhenIndexIsEmpty() {
+        // Given
+        when(promotionIntervalIndex.findValidOn(any(LocalDate.class))).thenReturn(List.of());
+
+        // When
+        List<PromotionDTO> result = promotionService.getAllActivePromotions();
+
+        // Then
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(promotionRepository);
+    }
+
     @Test
     void getAllPromotions_ShouldReturnAllPromotions() {
         // Given
-        List<Promotion> allPromotions = Arrays.asList(testPromotion);
-        when(promotionRepository.findAll()).thenReturn(allPromotions);
+        when(promotionRepository.findAllAsDTO()).thenReturn(List.of(testPromotionDTO));
 
         // When
         List<PromotionDTO> result = promotionService.getAllPromotions();
@@ -175,15 +219,55 @@ class PromotionServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("Test Promotion", result.get(0).getPromotionName());
-        verify(promotionRepository).findAll();
+        assertEquals("Test Category", result.get(0).getCategory().getCategoryName());
+        verify(promotionRepository, never()).findAll();
+    }
+
+    @Test
+    void getPromotionsPage_ByStartDate_ShouldSeekFromCursorWithoutLoadingAllPromotions() {
+        // Given
+        LocalDate cursorDate = LocalDate.of(2025, 1, 1);
+        String after = new KeysetCursor(PromotionService.SORT_BY_START_DATE, cursorDate.toString(), 7).encode();
+        when(promotionRepository.findDTOPageAfterStartDate(eq(cursorDate), eq(7), any())).thenReturn(Arrays.asList(testPromotionDTO));
+
+        // When
+        CursorPage<PromotionDTO> page = promotionService.getPromotionsPage(after, 10, PromotionService.SORT_BY_START_DATE);
+
+        // Then
+        assertEquals(1, page.getSize());
+        assertEquals("Test Promotion", page.getItems().get(0).getPromotionName());
+        assertFalse(page.isHasNextPage());
+        assertNull(page.getNextCursor());
+        verify(promotionRepository, never()).findAll();
+    }
+
+    @Test
+    void getPromotionsPage_FirstPageById_ShouldReturnNextCursorWhenMoreRowsExist() {
+        // Given
+        Promotion another = new Promotion();
+        another.setPromotionId(2);
+        another.setStartDate(LocalDate.now());
+        when(promotionRepository.findPageAfterId(eq(0), any())).thenReturn(Arrays.asList(testPromotion, another));
+
+        // When
+        CursorPage<Promotion> page = promotionService.getPromotionsPageEntities(null, 1, null);
+
+        // Then
+        assertEquals(1, page.getSize());
+        assertTrue(page.isHasNextPage());
+        assertEquals(1, KeysetCursor.decode(page.getNextCursor(), PromotionService.SORT_BY_ID).id());
+    }
+
+    @Test
+    void getPromotionsPage_WithUnknownSort_ShouldThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> promotionService.getPromotionsPage(null, 10, "discount"));
     }
 
     @Test
     void getPromotionsByCategory_ShouldReturnPromotionsForCategory() {
         // Given
         Integer categoryId = 1;
-        List<Promotion> promotions = Arrays.asList(testPromotion);
-        when(promotionRepository.findByCategoryCategoryId(categoryId)).thenReturn(promotions);
+        when(promotionRepository.findAsDTOByCategoryId(categoryId)).thenReturn(List.of(testPromotionDTO));
 
         // When
         List<PromotionDTO> result = promotionService.getPromotionsByCategory(categoryId);
@@ -192,14 +276,16 @@ class PromotionServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("Test Promotion", result.get(0).getPromotionName());
-        verify(promotionRepository).findByCategoryCategoryId(categoryId);
+        verify(promotionRepository).findAsDTOByCategoryId(categoryId);
+        verify(promotionRepository, never()).findByCategoryCategoryId(categoryId);
     }
 
     @Test
     void getValidPromotions_ShouldReturnValidPromotions() {
         // Given
-        List<Promotion> validPromotions = Arrays.asList(testPromotion);
-        when(promotionRepository.findValidPromotions(any(LocalDate.class))).thenReturn(validPromotions);
+        when(promotionIntervalIndex.findValidOn(any(LocalDate.class)))
+            .thenReturn(List.of(PromotionInterval.from(testPromotion)));
+        when(promotionRepository.findAsDTOByIdIn(List.of(1))).thenReturn(List.of(testPromotionDTO));
 
         // When
         List<PromotionDTO> result = promotionService.getValidPromotions();
@@ -208,14 +294,15 @@ class PromotionServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("Test Promotion", result.get(0).getPromotionName());
-        verify(promotionRepository).findValidPromotions(any(LocalDate.class));
+        verify(promotionRepository, never()).findValidPromotions(any(LocalDate.class));
     }
 
     @Test
     void getAllActivePromotionsEntities_ShouldReturnActivePromotionEntities() {
         // Given
-        List<Promotion> activePromotions = Arrays.asList(testPromotion);
-        when(promotionRepository.findActivePromotions()).thenReturn(activePromotions);
+        when(promotionIntervalIndex.findValidOn(any(LocalDate.class)))
+            .thenReturn(List.of(PromotionInterval.from(testPromotion)));
+        when(promotionRepository.findAllById(List.of(1))).thenReturn(List.of(testPromotion));
 
         // When
         List<Promotion> result = promotionService.getAllActivePromotionsEntities();
@@ -224,7 +311,6 @@ class PromotionServiceTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("Test Promotion", result.get(0).getPromotionName());
-        verify(promotionRepository).findActivePromotions();
     }
 
     @Test
@@ -293,7 +379,7 @@ class PromotionServiceTest {
     void getPromotionByIdEntity_ShouldReturnPromotionWhenExists() {
         // Given
         Integer promotionId = 1;
-        when(promotionRepository.findById(promotionId)).thenReturn(Optional.of(testPromotion));
+        when(promotionCache.get(promotionId)).thenReturn(Optional.of(testPromotion));
 
         // When
         Promotion result = promotionService.getPromotionByIdEntity(promotionId);
@@ -301,21 +387,21 @@ class PromotionServiceTest {
         // Then
         assertNotNull(result);
         assertEquals("Test Promotion", result.getPromotionName());
-        verify(promotionRepository).findById(promotionId);
+        verify(promotionCache).get(promotionId);
     }
 
     @Test
     void getPromotionByIdEntity_ShouldReturnNullWhenNotExists() {
         // Given
         Integer promotionId = 999;
-        when(promotionRepository.findById(promotionId)).thenReturn(Optional.empty());
+        when(promotionCache.get(promotionId)).thenReturn(Optional.empty());
 
         // When
         Promotion result = promotionService.getPromotionByIdEntity(promotionId);
 
         // Then
         assertNull(result);
-        verify(promotionRepository).findById(promotionId);
+        verify(promotionCache).get(promotionId);
     }
 
     @Test
@@ -330,9 +416,9 @@ class PromotionServiceTest {
         Integer userId = 1;
         Integer categoryId = 1;
 
-        when(statusRepository.findById(statusId)).thenReturn(Optional.of(testStatus));
+        when(referenceDataRegistry.findStatus(statusId)).thenReturn(Optional.of(testStatus));
         when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
-        when(categoryRepository.findById(categoryId)).thenReturn(Optional.of(testCategory));
+        when(referenceDataRegistry.findCategory(categoryId)).thenReturn(Optional.of(testCategory));
         when(promotionRepository.save(any(Promotion.class))).thenReturn(testPromotion);
 
         // When
@@ -341,9 +427,9 @@ class PromotionServiceTest {
 
         // Then
         assertNotNull(result);
-        verify(statusRepository).findById(statusId);
+        verify(referenceDataRegistry).findStatus(statusId);
         verify(userRepository).findById(userId);
-        verify(categoryRepository).findById(categoryId);
+        verify(referenceDataRegistry).findCategory(categoryId);
         verify(promotionRepository).save(any(Promotion.class));
     }
 
@@ -356,6 +442,7 @@ class PromotionServiceTest {
         LocalDate endDate = LocalDate.now().plusDays(30);
         Double discountValue = 25.0;
 
+        when(referenceDataRegistry.requireStatus("ACTIVE")).thenReturn(testStatus);
         when(promotionRepository.save(any(Promotion.class))).thenReturn(testPromotion);
 
         // When
@@ -364,10 +451,13 @@ class PromotionServiceTest {
 
         // Then
         assertNotNull(result);
-        verify(promotionRepository).save(any(Promotion.class));
-        // Ahora el statusRepository se usa para calcular automáticamente el estado
-        verify(statusRepository, times(1)).findById(anyInt());
-        verifyNoInteractions(userRepository, categoryRepository);
+        ArgumentCaptor<Promotion> saved = ArgumentCaptor.forClass(Promotion.class);
+        verify(promotionRepository).save(saved.capture());
+        // El estado se calcula automáticamente y se resuelve por nombre, no por un ID fijo
+        assertSame(testStatus, saved.getValue().getStatus());
+        verify(referenceDataRegistry, never()).findStatus(anyInt());
+        verify(referenceDataRegistry, never()).findCategory(anyInt());
+        verifyNoInteractions(userRepository);
     }
 
     @Test
@@ -384,9 +474,9 @@ class PromotionServiceTest {
         Integer categoryId = 1;
 
         when(promotionRepository.findById(promotionId)).thenReturn(Optional.of(testPromotion));
-        when(statusRepository.findById(statusId)).thenReturn(Optional.of(testStatus));
+        when(referenceDataRegistry.findStatus(statusId)).thenReturn(Optional.of(testStatus));
         when(userRepository.findById(userId)).thenReturn(Optional.of(testUser));
-        when(categoryRepository.findById(categoryId)).thenReturn(Optional.of(testCategory));
+        when(referenceDataRegistry.findCategory(categoryId)).thenReturn(Optional.of(testCategory));
         when(promotionRepository.save(any(Promotion.class))).thenReturn(testPromotion);
 
         // When
@@ -510,6 +600,8 @@ class PromotionServiceTest {
         // Given
         Integer promotionId = 1;
         Integer userId = 1;
+        PromotionInterval interval = new PromotionInterval(promotionId, LocalDate.now(), LocalDate.now().plusDays(5), 1, "ACTIVE");
+        when(promotionRepository.findIntervalById(promotionId)).thenReturn(Optional.of(interval));
 
         // When
         boolean result = promotionService.restorePromotionUsingDBFunction(promotionId, userId);
@@ -518,6 +610,25 @@ class PromotionServiceTest {
         assertTrue(result);
         verify(promotionRepository).setActor(userId);
         verify(promotionRepository).restorePromotionUsingFunction(promotionId);
+        // Invalidación precisa: solo la promoción restaurada
+        verify(eventPublisher).publishEvent(argThat((ApplicationEvent event) -> event instanceof PromotionChangedEvent changed
+            && !changed.isReloadAll() && promotionId.equals(changed.getPromotionId())));
+    }
+
+    @Test
+    void restorePromotionUsingDBFunction_WhenRowNotVisibleShouldReloadAll() {
+        // Given
+        Integer promotionId = 1;
+        when(promotionRepository.findIntervalById(promotionId)).thenReturn(Optional.empty());
+
+        // When
+        boolean result = promotionService.restorePromotionUsingDBFunction(promotionId, null);
+
+        // Then
+        assertTrue(result);
+        verify(promotionRepository, never()).setActor(any());
+        verify(eventPublisher).publishEvent(argThat((ApplicationEvent event) -> event instanceof PromotionChangedEvent changed
+            && changed.isReloadAll()));
     }
 
     @Test
@@ -564,6 +675,119 @@ class PromotionServiceTest {
         verify(promotionRepository).delete(testPromotion);
     }
 
+    @Test
+    void deletePromotion_ShouldPublishChangedEventForIndexes() {
+        // Given
+        Integer promotionId = 1;
+        when(promotionRepository.findById(promotionId)).thenReturn(Optional.of(testPromotion));
+        when(notificationLogRepository.findByPromotionId(Long.valueOf(promotionId))).thenReturn(Arrays.asList());
+        when(promotionMetricsRepository.findByPromotionPromotionId(promotionId)).thenReturn(Arrays.asList());
+
+        // When
+        promotionService.deletePromotion(promotionId);
+
+        // Then
+        verify(eventPublisher).publishEvent(argThat((ApplicationEvent event) -> event instanceof PromotionChangedEvent changed
+            && changed.isDeleted() && promotionId.equals(changed.getPromotionId())));
+    }
+
+    @Test
+    void transitionPromotionStatuses_ShouldRunSetBasedUpdatesAndNotifyOnlyNewlyActive() {
+        // Given
+        Status expired = new Status();
+        expired.setStatusId(2);
+        expired.setStatusName("EXPIRED");
+        Status scheduled = new Status();
+        scheduled.setStatusId(3);
+        scheduled.setStatusName("SCHEDULED");
+        stubStatuses(expired, scheduled);
+        when(promotionRepository.findIdsBecomingActive(testStatus)).thenReturn(List.of(1));
+        when(promotionRepository.bulkMarkExpired(expired)).thenReturn(4);
+        when(promotionRepository.bulkMarkScheduled(scheduled)).thenReturn(2);
+        when(promotionRepository.bulkMarkActive(testStatus)).thenReturn(1);
+        when(promotionRepository.findWithStatusByIdIn(List.of(1))).thenReturn(List.of(testPromotion));
+
+        // When
+        StatusTransitionResult result = promotionService.transitionPromotionStatuses();
+
+        // Then
+        assertEquals(4, result.expired());
+        assertEquals(2, result.scheduled());
+        assertEquals(List.of(1), result.activatedIds());
+        assertEquals(7, result.total());
+        verify(promotionRepository, never()).findAll();
+        verify(promotionRepository, never()).save(any(Promotion.class));
+        verify(eventPublisher, times(1)).publishEvent(argThat((ApplicationEvent event) -> event instanceof PromotionActivatedEvent activated
+            && activated.getPromotion() == testPromotion));
+        verify(eventPublisher).publishEvent(argThat((ApplicationEvent event) -> event instanceof PromotionChangedEvent changed
+            && changed.isReloadAll()));
+    }
+
+    @Test
+    void updateAllPromotionStatuses_WhenNothingChanges_ShouldNotPublishEvents() {
+        // Given
+        Status expired = new Status();
+        expired.setStatusName("EXPIRED");
+        Status scheduled = new Status();
+        scheduled.setStatusName("SCHEDULED");
+        stubStatuses(expired, scheduled);
+        when(promotionRepository.findIdsBecomingActive(testStatus)).thenReturn(List.of());
+
+        // When
+        int updated = promotionService.updateAllPromotionStatuses();
+
+        // Then
+        assertEquals(0, updated);
+        verify(promotionRepository, never()).findWithStatusByIdIn(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void transitionPromotionStatuses_ForIds_ShouldOnlyTouchGivenPromotions() {
+        // Given
+        Status expired = new Status();
+        expired.setStatusName("EXPIRED");
+        Status scheduled = new Status();
+        scheduled.setStatusName("SCHEDULED");
+        List<Integer> ids = List.of(1, 2);
+        stubStatuses(expired, scheduled);
+        when(promotionRepository.findIdsBecomingActiveIn(testStatus, ids)).thenReturn(List.of(1));
+        when(promotionRepository.bulkMarkExpiredIn(expired, ids)).thenReturn(1);
+        when(promotionRepository.bulkMarkActiveIn(testStatus, ids)).thenReturn(1);
+        when(promotionRepository.findWithStatusByIdIn(List.of(1))).thenReturn(List.of(testPromotion));
+        when(promotionRepository.findIntervalsByIdIn(ids)).thenReturn(List.of(
+            new PromotionInterval(1, LocalDate.now(), LocalDate.now().plusDays(5), null, "ACTIVE"),
+            new PromotionInterval(2, LocalDate.now().minusDays(9), LocalDate.now().minusDays(1), null, "EXPIRED")));
+
+        // When
+        StatusTransitionResult result = promotionService.transitionPromotionStatuses(ids);
+
+        // Then - los cachés se actualizan por promoción, sin recargas completas
+        assertEquals(2, result.total());
+        verify(promotionRepository, never()).bulkMarkExpired(any());
+        verify(eventPublisher).publishEvent(argThat((ApplicationEvent event) -> event instanceof PromotionActivatedEvent));
+        verify(eventPublisher, times(2)).publishEvent(argThat((ApplicationEvent event) -> event instanceof PromotionChangedEvent changed
+            && !changed.isReloadAll() && !changed.isDeleted()));
+        verify(eventPublisher, never()).publishEvent(argThat((ApplicationEvent event) -> event instanceof PromotionChangedEvent changed
+            && changed.isReloadAll()));
+    }
+
+    @Test
+    void transitionPromotionStatuses_ForNoIds_ShouldNotQuery() {
+        StatusTransitionResult result = promotionService.transitionPromotionStatuses(List.of());
+
+        assertEquals(0, result.total());
+        verifyNoInteractions(referenceDataRegistry, promotionRepository, eventPublisher);
+    }
+
+    @Test
+    void transitionPromotionStatuses_WhenStatusMissing_ShouldThrow() {
+        when(referenceDataRegistry.requireStatus("ACTIVE")).thenThrow(new IllegalStateException("Estado no configurado: ACTIVE"));
+
+        assertThrows(IllegalStateException.class, () -> promotionService.transitionPromotionStatuses());
+        verify(promotionRepository, never()).bulkMarkActive(any());
+    }
+
     @Test
     void deletePromotion_ShouldReturnFalseWhenPromotionNotExists() {
         // Given
@@ -585,25 +809,19 @@ class PromotionServiceTest {
         Integer promotionId = 1;
         List<Integer> productIds = Arrays.asList(1, 2);
         
-        Product product1 = new Product();
-        product1.setProductId(1);
-        Product product2 = new Product();
-        product2.setProductId(2);
-        
-        when(promotionRepository.findById(promotionId)).thenReturn(Optional.of(testPromotion));
-        when(productRepository.findById(1)).thenReturn(Optional.of(product1));
-        when(productRepository.findById(2)).thenReturn(Optional.of(product2));
-        when(productRepository.save(any(Product.class))).thenReturn(product1);
+        when(promotionRepository.existsById(promotionId)).thenReturn(true);
+        when(promotionRepository.getReferenceById(promotionId)).thenReturn(testPromotion);
+        when(productRepository.findPromotionLinks(productIds)).thenReturn(links(new Object[] {1, null}, new Object[] {2, null}));
+        when(productRepository.assignPromotion(testPromotion, productIds)).thenReturn(2);
 
         // When
         boolean result = promotionService.associateProductsToPromotion(promotionId, productIds);
 
         // Then
         assertTrue(result);
-        verify(promotionRepository).findById(promotionId);
-        verify(productRepository).findById(1);
-        verify(productRepository).findById(2);
-        verify(productRepository, times(2)).save(any(Product.class));
+        verify(productRepository, times(1)).assignPromotion(testPromotion, productIds);
+        verify(productRepository, never()).findById(anyInt());
+        verify(productRepository, never()).save(any(Product.class));
     }
 
     @Test
@@ -612,16 +830,15 @@ class PromotionServiceTest {
         Integer promotionId = 999;
         List<Integer> productIds = Arrays.asList(1, 2);
         
-        when(promotionRepository.findById(promotionId)).thenReturn(Optional.empty());
+        when(promotionRepository.existsById(promotionId)).thenReturn(false);
 
         // When
         boolean result = promotionService.associateProductsToPromotion(promotionId, productIds);
 
         // Then
         assertFalse(result);
-        verify(promotionRepository).findById(promotionId);
-        verify(productRepository, never()).findById(anyInt());
-        verify(productRepository, never()).save(any(Product.class));
+        verify(productRepository, never()).findPromotionLinks(any());
+        verify(productRepository, never()).assignPromotion(any(), any());
     }
 
     @Test
@@ -630,14 +847,60 @@ class PromotionServiceTest {
         Integer promotionId = 1;
         List<Integer> productIds = Arrays.asList(1, 2);
         
-        when(promotionRepository.findById(promotionId)).thenThrow(new RuntimeException("Database error"));
+        when(promotionRepository.existsById(promotionId)).thenThrow(new RuntimeException("Database error"));
 
         // When
         boolean result = promotionService.associateProductsToPromotion(promotionId, productIds);
 
         // Then
         assertFalse(result);
-        verify(promotionRepository).findById(promotionId);
+        verify(promotionRepository).existsById(promotionId);
+    }
+
+    @Test
+    void associateProducts_ShouldReportOutcomePerProduct() {
+        // Given
+        List<Integer> productIds = Arrays.asList(1, 2, 3, 4, 1);
+        when(promotionRepository.existsById(1)).thenReturn(true);
+        when(promotionRepository.getReferenceById(1)).thenReturn(testPromotion);
+        when(productRepository.findPromotionLinks(List.of(1, 2, 3, 4)))
+            .thenReturn(links(new Object[] {1, null}, new Object[] {2, 1}, new Object[] {3, 7}));
+        when(productRepository.assignPromotion(testPromotion, List.of(1))).thenReturn(1);
+
+        // When
+        ProductAssociationResult result = promotionService.associateProducts(1, productIds).orElseThrow();
+
+        // Then
+        assertEquals(List.of(1, 2, 3, 4), List.copyOf(result.outcomes().keySet()));
+        assertEquals(List.of(1), result.idsWith(Outcome.ASSOCIATED));
+        assertEquals(List.of(2), result.idsWith(Outcome.ALREADY_ASSOCIATED));
+        assertEquals(List.of(3), result.idsWith(Outcome.IN_OTHER_PROMOTION));
+        assertEquals(List.of(4), result.idsWith(Outcome.MISSING));
+        verify(catalogVersion).bump();
+    }
+
+    @Test
+    void associateProducts_ShouldChunkUpdates() {
+        // Given
+        int total = PromotionService.ASSOCIATION_CHUNK_SIZE * 2 + 5;
+        List<Integer> productIds = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (int id = 1; id <= total; id++) {
+            productIds.add(id);
+            rows.add(new Object[] {id, null});
+        }
+        when(promotionRepository.existsById(1)).thenReturn(true);
+        when(promotionRepository.getReferenceById(1)).thenReturn(testPromotion);
+        when(productRepository.findPromotionLinks(productIds)).thenReturn(rows);
+        when(productRepository.assignPromotion(eq(testPromotion), any())).thenAnswer(invocation -> invocation.<List<Integer>>getArgument(1).size());
+
+        // When
+        ProductAssociationResult result = promotionService.associateProducts(1, productIds).orElseThrow();
+
+        // Then
+        assertEquals(total, result.idsWith(Outcome.ASSOCIATED).size());
+        verify(productRepository, times(1)).findPromotionLinks(any());
+        verify(productRepository, times(3)).assignPromotion(eq(testPromotion), any());
     }
 
     @Test
@@ -646,30 +909,37 @@ class PromotionServiceTest {
         Integer promotionId = 1;
         List<Integer> productIds = Arrays.asList(1, 2);
         
-        Product product1 = new Product();
-        product1.setProductId(1);
-        product1.setPromotion(testPromotion);
-        
-        Product product2 = new Product();
-        product2.setProductId(2);
-        product2.setPromotion(testPromotion);
-        
-        when(promotionRepository.findById(promotionId)).thenReturn(Optional.of(testPromotion));
-        when(productRepository.findById(1)).thenReturn(Optional.of(product1));
-        when(productRepository.findById(2)).thenReturn(Optional.of(product2));
-        when(productRepository.save(any(Product.class))).thenReturn(product1);
+        when(promotionRepository.existsById(promotionId)).thenReturn(true);
+        when(promotionRepository.getReferenceById(promotionId)).thenReturn(testPromotion);
+        when(productRepository.findPromotionLinks(productIds)).thenReturn(links(new Object[] {1, 1}, new Object[] {2, 1}));
 
         // When
         boolean result = promotionService.removeProductsFromPromotion(promotionId, productIds);
 
         // Then
         assertTrue(result);
-        verify(promotionRepository).findById(promotionId);
-        verify(productRepository).findById(1);
-        verify(productRepository).findById(2);
-        verify(productRepository, times(2)).save(any(Product.class));
-        assertNull(product1.getPromotion());
-        assertNull(product2.getPromotion());
+        verify(productRepository, times(1)).clearPromotion(testPromotion, productIds);
+        verify(productRepository, never()).save(any(Product.class));
+    }
+
+    @Test
+    void removeProducts_ShouldSkipProductsOfOtherPromotions() {
+        // Given
+        when(promotionRepository.existsById(1)).thenReturn(true);
+        when(promotionRepository.getReferenceById(1)).thenReturn(testPromotion);
+        when(productRepository.findPromotionLinks(List.of(1, 2, 3)))
+            .thenReturn(links(new Object[] {1, 1}, new Object[] {2, 5}));
+        when(productRepository.clearPromotion(testPromotion, List.of(1))).thenReturn(1);
+
+        // When
+        ProductAssociationResult result = promotionService.removeProducts(1, List.of(1, 2, 3)).orElseThrow();
+
+        // Then
+        assertEquals(List.of(1), result.idsWith(Outcome.REMOVED));
+        assertEquals(List.of(2), result.idsWith(Outcome.NOT_IN_PROMOTION));
+        assertEquals(List.of(3), result.idsWith(Outcome.MISSING));
+        verify(productRepository).clearPromotion(testPromotion, List.of(1));
+        verify(catalogVersion).bump();
     }
 
     @Test
@@ -678,16 +948,15 @@ class PromotionServiceTest {
         Integer promotionId = 999;
         List<Integer> productIds = Arrays.asList(1, 2);
         
-        when(promotionRepository.findById(promotionId)).thenReturn(Optional.empty());
+        when(promotionRepository.existsById(promotionId)).thenReturn(false);
 
         // When
         boolean result = promotionService.removeProductsFromPromotion(promotionId, productIds);
 
         // Then
         assertFalse(result);
-        verify(promotionRepository).findById(promotionId);
-        verify(productRepository, never()).findById(anyInt());
-        verify(productRepository, never()).save(any(Product.class));
+        verify(productRepository, never()).findPromotionLinks(any());
+        verify(productRepository, never()).clearPromotion(any(), any());
     }
 
     @Test
@@ -696,14 +965,14 @@ class PromotionServiceTest {
         Integer promotionId = 1;
         List<Integer> productIds = Arrays.asList(1, 2);
         
-        when(promotionRepository.findById(promotionId)).thenThrow(new RuntimeException("Database error"));
+        when(promotionRepository.existsById(promotionId)).thenThrow(new RuntimeException("Database error"));
 
         // When
         boolean result = promotionService.removeProductsFromPromotion(promotionId, productIds);
 
         // Then
         assertFalse(result);
-        verify(promotionRepository).findById(promotionId);
+        verify(promotionRepository).existsById(promotionId);
     }
 
     @Test
@@ -755,4 +1024,14 @@ class PromotionServiceTest {
         assertFalse(result);
         verify(promotionDeletedRepository).findById(promotionId);
     }
+
+    private void stubStatuses(Status expired, Status scheduled) {
+        when(referenceDataRegistry.requireStatus("ACTIVE")).thenReturn(testStatus);
+        when(referenceDataRegistry.requireStatus("EXPIRED")).thenReturn(expired);
+        when(referenceDataRegistry.requireStatus("SCHEDULED")).thenReturn(scheduled);
+    }
+
+    private static List<Object[]> links(Object[]... rows) {
+        return Arrays.asList(rows);
+    }
 }
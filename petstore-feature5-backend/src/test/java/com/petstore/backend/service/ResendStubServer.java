@@ -0,0 +1,124 @@
+package com.petstore.backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Proveedor de email local que imita POST /emails/batch de Resend, para tests y benchmarks sin red.
+ * Responde un ID por email en el orden recibido y cuenta las peticiones y los emails.
+ */
+public class ResendStubServer implements AutoCloseable {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger emails = new AtomicInteger();
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private volatile IntPredicate failingRequest = request -> false;
+    private volatile int failureStatus = 500;
+    private volatile Predicate<String> rejectedSubject = subject -> false;
+
+    public ResendStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/emails/batch", this::handleBatch);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Hace fallar con 500 las peticiones cuyo número (desde 1) cumpla la condición
+     */
+    public void failRequests(IntPredicate failingRequest) {
+        failRequests(failingRequest, 500);
+    }
+
+    /**
+     * Hace fallar con el código indicado las peticiones cuyo número (desde 1) cumpla la condición
+     */
+    public void failRequests(IntPredicate failingRequest, int status) {
+        this.failureStatus = status;
+        this.failingRequest = failingRequest;
+    }
+
+    /**
+     * Responde 422 a las peticiones que incluyan algún email cuyo asunto cumpla la condición,
+     * como hace Resend con un lote que tiene un mensaje inválido
+     */
+    public void rejectSubjects(Predicate<String> rejectedSubject) {
+        this.rejectedSubject = rejectedSubject;
+    }
+
+    public int requests() {
+        return requests.get();
+    }
+
+    public int emails() {
+        return emails.get();
+    }
+
+    public List<String> authorizations() {
+        return authorizations;
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        int request = requests.incrementAndGet();
+        authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+        JsonNode batch;
+        try (InputStream body = exchange.getRequestBody()) {
+            batch = objectMapper.readTree(body);
+        }
+
+        for (JsonNode email : batch) {
+            if (rejectedSubject.test(email.path("subject").asText())) {
+                respond(exchange, 422, "{\"statusCode\":422,\"message\":\"Invalid email\"}");
+                return;
+            }
+        }
+
+        if (failingRequest.test(request)) {
+            int status = failureStatus;
+            respond(exchange, status, "{\"statusCode\":" + status + ",\"message\":\"Stub failure\"}");
+            return;
+        }
+
+        StringBuilder response = new StringBuilder("{\"data\":[");
+        for (int i = 0; i < batch.size(); i++) {
+            response.append(i > 0 ? "," : "").append("{\"id\":\"stub-").append(request).append('-').append(i).append("\"}");
+        }
+        emails.addAndGet(batch.size());
+        respond(exchange, 200, response.append("]}").toString());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,145 @@
+package com.petstore.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.petstore.backend.dto.SalesEventDTO;
+import com.petstore.backend.entity.Category;
+import com.petstore.backend.entity.Product;
+import com.petstore.backend.entity.Promotion;
+import com.petstore.backend.entity.PromotionMetrics;
+import com.petstore.backend.entity.PromotionPerformanceRollup;
+import com.petstore.backend.entity.Status;
+import com.petstore.backend.repository.CategoryRepository;
+import com.petstore.backend.repository.ProductRepository;
+import com.petstore.backend.repository.PromotionMetricsRepository;
+import com.petstore.backend.repository.PromotionPerformanceRollupRepository;
+import com.petstore.backend.repository.PromotionRepository;
+import com.petstore.backend.repository.StatusRepository;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Prueba de la ingesta de ventas contra H2: el volcado crea las filas que faltan, suma los
+ * deltas con sentencias JDBC por lotes y deja el rollup consistente.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class SalesIngestionIntegrationTest {
+
+    @Autowired
+    private SalesIngestionService salesIngestionService;
+
+    @Autowired
+    private PromotionMetricsService promotionMetricsService;
+
+    @Autowired
+    private PromotionMetricsRepository promotionMetricsRepository;
+
+    @Autowired
+    private PromotionPerformanceRollupRepository rollupRepository;
+
+    @Autowired
+    private PromotionRepository promotionRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private StatusRepository statusRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Promotion promotion;
+    private Product tracked;
+    private Product untracked;
+    private Product outsider;
+
+    @BeforeEach
+    void setUp() {
+        Status active = statusRepository.findByStatusName("ACTIVE")
+                .orElseGet(() -> statusRepository.save(new Status("ACTIVE")));
+        Category category = categoryRepository.save(new Category("Sales category", "Descripción"));
+        promotion = new Promotion("Sales promotion", "Descripción", LocalDate.now().minusDays(1),
+                LocalDate.now().plusDays(10), 20.0, active);
+        promotion.setCategory(category);
+        promotion = promotionRepository.save(promotion);
+
+        tracked = saveProduct("Sales product A", 100, category);
+        untracked = saveProduct("Sales product B", 40, category);
+        outsider = saveProduct("Sales product C", 30, category);
+        outsider.setPromotion(null);
+        outsider = productRepository.save(outsider);
+        promotionMetricsService.saveOrUpdateMetrics(promotion.getPromotionId(), tracked.getProductId(),
+                100, 95, 5, new BigDecimal("50.00"));
+        entityManager.flush();
+    }
+
+    @Test
+    void flush_ShouldUpsertMetricsAndRefreshRollup() {
+        Integer promotionId = promotion.getPromotionId();
+        salesIngestionService.ingest(List.of(
+                new SalesEventDTO(promotionId, tracked.getProductId(), 3, new BigDecimal("10.00")),
+                new SalesEventDTO(promotionId, tracked.getProductId(), 2, new BigDecimal("10.00")),
+                new SalesEventDTO(promotionId, untracked.getProductId(), 4, new BigDecimal("7.50")),
+                new SalesEventDTO(promotionId, outsider.getProductId(), 2, new BigDecimal("3.00")), // Fuera de la promoción
+                new SalesEventDTO(promotionId, 999_999, 1, new BigDecimal("1.00")))); // Producto inexistente
+
+        assertEquals(2, salesIngestionService.flush());
+        entityManager.clear();
+
+        PromotionMetrics existing = promotionMetricsRepository
+                .findByPromotionPromotionIdAndProductProductId(promotionId, tracked.getProductId()).orElseThrow();
+        assertEquals(10, existing.getUnitsSold());
+        assertEquals(90, existing.getCurrentInventory());
+        assertEquals(0, new BigDecimal("100.00").compareTo(existing.getRevenueGenerated()));
+        assertEquals(10.0, existing.getSkuVariationPercentage(), 1e-9);
+
+        PromotionMetrics created = promotionMetricsRepository
+                .findByPromotionPromotionIdAndProductProductId(promotionId, untracked.getProductId()).orElseThrow();
+        assertEquals(40, created.getInitialInventory()); // Inventario inicial = SKU
+        assertEquals(36, created.getCurrentInventory());
+        assertEquals(4, created.getUnitsSold());
+
+        PromotionPerformanceRollup rollup = rollupRepository.findById(promotionId).orElseThrow();
+        assertEquals(2, rollup.getTotalProducts());
+        assertEquals(14, rollup.getTotalUnitsSold());
+        assertEquals(0, new BigDecimal("130.00").compareTo(rollup.getTotalRevenue()));
+        assertEquals(126, rollup.getTotalCurrentInventory());
+        assertEquals(140, rollup.getTotalInitialInventory());
+        assertEquals(20.0, rollup.getSkuVariationSum(), 1e-9);
+        entityManager.clear();
+        PromotionPerformanceRollup rebuilt = promotionMetricsService.rebuildRollup(promotionId).orElseThrow();
+        assertEquals(126, rebuilt.getTotalCurrentInventory()); // Los deltas coinciden con la reconstrucción
+        assertEquals(20.0, rebuilt.getSkuVariationSum(), 1e-9);
+
+        assertTrue(promotionMetricsRepository
+                .findByPromotionPromotionIdAndProductProductId(promotionId, outsider.getProductId()).isEmpty());
+    }
+
+    private Product saveProduct(String name, int sku, Category category) {
+        Product product = new Product();
+        product.setProductName(name);
+        product.setBasePrice(10.0);
+        product.setSku(sku);
+        product.setCategory(category);
+        product.setPromotion(promotion);
+        return productRepository.save(product);
+    }
+}
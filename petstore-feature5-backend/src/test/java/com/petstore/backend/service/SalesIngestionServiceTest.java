@@ -0,0 +1,206 @@
+package com.petstore.backend.service;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.petstore.backend.dto.SalesEventDTO;
+import com.petstore.backend.dto.SalesIngestionResult;
+import com.petstore.backend.event.PromotionMetricsChangedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class SalesIngestionServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private PromotionMetricsService promotionMetricsService;
+
+    @Mock
+    private PromotionMetricsSeriesService seriesService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private SimpleMeterRegistry meterRegistry;
+    private SalesIngestionService ingestionService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ingestionService = new SalesIngestionService(jdbcTemplate, transactionManager, promotionMetricsService,
+                seriesService, eventPublisher, meterRegistry, 100, 50);
+    }
+
+    @Test
+    void ingest_ShouldCoalesceEventsPerKeyAndRejectInvalidOnes() {
+        SalesIngestionResult result = ingestionService.ingest(List.of(
+                event(1, 10, 2, "9.99"),
+                event(1, 10, 3, "9.99"),
+                event(1, 11, 1, "5.00"),
+                event(2, 10, 0, "5.00"),      // Unidades no positivas
+                event(2, 10, 1, "-1.00"),     // Precio negativo
+                new SalesEventDTO(null, 10, 1, BigDecimal.ONE)));
+
+        assertEquals(3, result.accepted());
+        assertEquals(3, result.rejected());
+        assertEquals(2, ingestionService.pendingKeys());
+        assertEquals(3.0, meterRegistry.get("sales.ingest.events").tag("result", "accepted").counter().count());
+        verify(jdbcTemplate, never()).batchUpdate(any(String.class), any(Collection.class), anyInt(), any());
+    }
+
+    @Test
+    void ingest_ShouldRejectOversizedBatch() {
+        List<SalesEventDTO> events = new ArrayList<>();
+        for (int i = 0; i < 101; i++) {
+            events.add(event(1, i, 1, "1.00"));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> ingestionService.ingest(events));
+        assertEquals(0, ingestionService.pendingKeys());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldWriteEachKeyOnceAndApplyRollupDeltas() {
+        ingestionService.ingest(List.of(event(1, 10, 2, "9.99"), event(1, 10, 3, "9.99"), event(2, 11, 1, "5.00")));
+        // Promoción 1: fila existente; promoción 2: el producto no pertenece (no existe antes ni después del INSERT)
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
+                .thenReturn(List.of(new SalesIngestionService.MetricsRow(10, 100, 80, 20)), List.of(), List.of());
+
+        int written = ingestionService.flush();
+
+        assertEquals(1, written);
+        assertEquals(0, ingestionService.pendingKeys());
+        ArgumentCaptor<Collection<Object>> missing = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(eq(SalesIngestionService.INSERT_MISSING_SQL), missing.capture(), eq(50),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(1, missing.getValue().size()); // Solo la clave sin fila
+        ArgumentCaptor<Collection<Object>> applied = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcTemplate).batchUpdate(eq(SalesIngestionService.APPLY_DELTA_SQL), applied.capture(), eq(50),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(1, applied.getValue().size());
+        verify(promotionMetricsService).applyRollupDelta(1, 0, 5, new BigDecimal("49.95"), 0, -5, 5.0);
+        verify(promotionMetricsService, never()).rebuildRollup(anyInt());
+        verify(seriesService).record(1);
+        verify(seriesService, never()).record(2);
+        verify(eventPublisher).publishEvent(any(PromotionMetricsChangedEvent.class));
+        assertEquals(1.0, meterRegistry.get("sales.ingest.events").tag("result", "dropped").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_OverflowingKeyShouldBeSetAsideInsteadOfRequeued() {
+        ingestionService.ingest(List.of(event(1, 10, 2, "1.00")));
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
+                .thenReturn(List.of(new SalesIngestionService.MetricsRow(10, 100, 0, Integer.MAX_VALUE - 1)));
+
+        assertEquals(0, ingestionService.flush());
+
+        assertEquals(0, ingestionService.pendingKeys());
+        verify(jdbcTemplate, never()).batchUpdate(eq(SalesIngestionService.APPLY_DELTA_SQL), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        verify(seriesService, never()).record(anyInt());
+        assertEquals(1.0, meterRegistry.get("sales.ingest.events").tag("result", "dead_lettered").counter().count());
+    }
+
+    @Test
+    void flush_WithNothingPendingShouldNotTouchDatabase() {
+        assertEquals(0, ingestionService.flush());
+        verify(transactionManager, never()).getTransaction(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_FailureShouldRequeueDeltas() {
+        ingestionService.ingest(List.of(event(1, 10, 2, "9.99")));
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
+                .thenThrow(new DataAccessResourceFailureException("BD no disponible"));
+
+        assertEquals(0, ingestionService.flush());
+        assertEquals(1, ingestionService.pendingKeys());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_KeyThatKeepsFailingShouldBeSetAsideWithoutBlockingTheRest() throws Exception {
+        ingestionService.ingest(List.of(event(1, 10, 2, "1.00"), event(1, 99, 1, "1.00"), event(2, 11, 3, "1.00")));
+        // Todas las claves tienen fila; el UPDATE de la clave (1, 99) viola una restricción
+        when(jdbcTemplate.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
+                .thenAnswer(invocation -> existingRows(invocation.getArgument(1)));
+        doAnswer(invocation -> {
+            Collection<Object> batch = invocation.getArgument(1);
+            if (batch.stream().anyMatch(delta -> delta.toString().contains("productId=99"))) {
+                throw new DataIntegrityViolationException("check constraint");
+            }
+            return new int[0][0];
+        }).when(jdbcTemplate).batchUpdate(eq(SalesIngestionService.APPLY_DELTA_SQL), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+
+        assertEquals(2, ingestionService.flush());
+
+        assertEquals(0, ingestionService.pendingKeys()); // La clave envenenada no vuelve a la cola
+        assertEquals(1.0, meterRegistry.get("sales.ingest.events").tag("result", "dead_lettered").counter().count());
+        verify(seriesService).record(1);
+        verify(seriesService).record(2);
+        // Lote completo, promoción 1 entera, y sus dos claves por separado; la promoción 2 se escribe en su intento
+        verify(jdbcTemplate, times(5)).batchUpdate(eq(SalesIngestionService.APPLY_DELTA_SQL), any(Collection.class),
+                anyInt(), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    /**
+     * Devuelve una fila de métricas por cada producto que la consulta pide
+     */
+    private static List<SalesIngestionService.MetricsRow> existingRows(PreparedStatementSetter setter) throws Exception {
+        PreparedStatement ps = mock(PreparedStatement.class);
+        List<SalesIngestionService.MetricsRow> rows = new ArrayList<>();
+        doAnswer(invocation -> {
+            int index = invocation.getArgument(0);
+            if (index > 1) {
+                rows.add(new SalesIngestionService.MetricsRow(invocation.getArgument(1), 100, 100, 0));
+            }
+            return null;
+        }).when(ps).setInt(anyInt(), anyInt());
+        setter.setValues(ps);
+        return rows;
+    }
+
+    private static SalesEventDTO event(Integer promotionId, Integer productId, Integer units, String unitPrice) {
+        return new SalesEventDTO(promotionId, productId, units, new BigDecimal(unitPrice));
+    }
+}
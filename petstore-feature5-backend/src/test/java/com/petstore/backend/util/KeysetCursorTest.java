@@ -0,0 +1,56 @@
+package com.petstore.backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+class KeysetCursorTest {
+
+    @Test
+    void encodeDecode_ShouldRoundTrip() {
+        KeysetCursor cursor = new KeysetCursor("startDate", "2025-03-01", 42);
+
+        KeysetCursor decoded = KeysetCursor.decode(cursor.encode(), "startDate");
+
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    void encode_ShouldBeUrlSafe() {
+        String encoded = new KeysetCursor("basePrice", "99.99", Integer.MAX_VALUE).encode();
+
+        assertFalse(encoded.contains("+") || encoded.contains("/") || encoded.contains("="));
+    }
+
+    @Test
+    void decode_WithoutKey_ShouldReturnEmptyKey() {
+        KeysetCursor decoded = KeysetCursor.decode(new KeysetCursor("id", null, 7).encode(), "id");
+
+        assertEquals("", decoded.key());
+        assertEquals(7, decoded.id());
+    }
+
+    @Test
+    void decode_WithDifferentSort_ShouldThrow() {
+        String encoded = new KeysetCursor("id", null, 7).encode();
+
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(encoded, "basePrice"));
+    }
+
+    @Test
+    void decode_WithInvalidBase64_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("***", "id"));
+    }
+
+    @Test
+    void decode_WithNonNumericId_ShouldThrow() {
+        String tampered = Base64.getUrlEncoder().encodeToString("id||abc".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(tampered, "id"));
+    }
+}
@@ -0,0 +1,54 @@
+package com.petstore.backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+class MoneyTest {
+
+    @Test
+    void toCents_ShouldRoundBinaryDoublesToTheNearestCent() {
+        assertEquals(1999, Money.toCents(19.99)); // 19.99 * 100 = 1998.9999999999998 en double
+        assertEquals(10, Money.toCents(0.1));
+        assertEquals(0, Money.toCents((BigDecimal) null));
+        assertEquals(1235, Money.toCents(new BigDecimal("12.345")));
+    }
+
+    @Test
+    void toBigDecimal_ShouldAlwaysUseScaleTwo() {
+        assertEquals(new BigDecimal("0.00"), Money.toBigDecimal(0));
+        assertEquals(new BigDecimal("-3.05"), Money.toBigDecimal(-305));
+    }
+
+    @Test
+    void discountedCents_ShouldRoundUnitPriceHalfUp() {
+        assertEquals(1949, Money.discountedCents(2599, 25.0));  // 19.4925
+        assertEquals(1700, Money.discountedCents(1999, 14.96)); // 16.999496 se redondea a 17.00
+        assertEquals(2599, Money.discountedCents(2599, 0.0));
+        assertEquals(0, Money.discountedCents(2599, 100.0));
+        assertEquals(0, Money.discountedCents(2599, 120.0));
+    }
+
+    @Test
+    void sums_ShouldBeExactWhereDoublesDrift() {
+        double doubleTotal = 0.0;
+        long centsTotal = 0L;
+        for (int i = 0; i < 1000; i++) {
+            doubleTotal += 0.1;
+            centsTotal += Money.toCents(0.1);
+        }
+
+        assertNotEquals(100.0, doubleTotal);
+        assertEquals(new BigDecimal("100.00"), Money.toBigDecimal(centsTotal));
+    }
+
+    @Test
+    void revenueCents_ShouldMultiplyAndFailOnOverflow() {
+        assertEquals(5847, Money.revenueCents(1949, 3));
+        assertThrows(ArithmeticException.class, () -> Money.revenueCents(Long.MAX_VALUE / 2, 3));
+    }
+}
@@ -0,0 +1,57 @@
+package com.petstore.backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void tryAcquire_ShouldAllowTheBurstThenRefillAtTheConfiguredRate() {
+        TokenBucket bucket = new TokenBucket(10, 3, now::get);
+
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire()); // Ráfaga agotada
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100)); // 10 por segundo: un token cada 100 ms
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void available_ShouldNeverExceedTheCapacity() {
+        TokenBucket bucket = new TokenBucket(10, 3, now::get);
+        bucket.tryAcquire();
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(60));
+
+        assertEquals(3.0, bucket.available(), 1e-9);
+    }
+
+    @Test
+    void acquire_ShouldWaitForTheNextToken() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(20, 1); // Un token cada 50 ms
+        bucket.acquire();
+
+        long start = System.nanoTime();
+        bucket.acquire();
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(40));
+    }
+
+    @Test
+    void constructor_ShouldRejectInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(10, 0));
+    }
+}
@@ -0,0 +1,89 @@
+package com.petstore.backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class UserIdBitmapTest {
+
+    @Test
+    void of_ShouldContainExactlyTheGivenIds() {
+        UserIdBitmap bitmap = UserIdBitmap.of(List.of(7, 3, 70_000, 3, 1 << 20));
+
+        assertEquals(4, bitmap.cardinality());
+        assertTrue(bitmap.contains(3));
+        assertTrue(bitmap.contains(70_000));
+        assertTrue(bitmap.contains(1 << 20));
+        assertFalse(bitmap.contains(4));
+        assertFalse(bitmap.contains(-1));
+        assertEquals(List.of(3, 7, 70_000, 1 << 20), toList(bitmap));
+    }
+
+    @Test
+    void withAndWithout_ShouldMatchATreeSetAcrossArrayAndBitmapGroups() {
+        // Ids densos en el primer grupo (pasa de arreglo a bitmap y vuelve) y dispersos en otros
+        Random random = new Random(42L);
+        TreeSet<Integer> expected = new TreeSet<>();
+        UserIdBitmap bitmap = UserIdBitmap.empty();
+        for (int i = 0; i < 40_000; i++) {
+            int id = random.nextBoolean() ? random.nextInt(12_000) : random.nextInt(1_000_000);
+            if (random.nextInt(4) == 0) {
+                bitmap = bitmap.without(id);
+                expected.remove(id);
+            } else {
+                bitmap = bitmap.with(id);
+                expected.add(id);
+            }
+        }
+
+        assertEquals(expected.size(), bitmap.cardinality());
+        assertEquals(new ArrayList<>(expected), toList(bitmap));
+        assertEquals(toList(UserIdBitmap.of(expected)), toList(bitmap));
+    }
+
+    @Test
+    void withAndWithout_ShouldNotModifyTheOriginal() {
+        UserIdBitmap original = UserIdBitmap.of(List.of(1, 2, 3));
+
+        UserIdBitmap added = original.with(4);
+        UserIdBitmap removed = original.without(2);
+
+        assertFalse(original.contains(4));
+        assertTrue(original.contains(2));
+        assertTrue(added.contains(4));
+        assertFalse(removed.contains(2));
+        assertSame(original, original.with(3)); // Sin cambios devuelve el mismo conjunto
+        assertSame(original, original.without(99));
+        assertTrue(UserIdBitmap.of(List.of(5)).without(5).isEmpty());
+    }
+
+    @Test
+    void sequentialIds_ShouldUseAboutOneBitPerUser() {
+        UserIdBitmap bitmap = UserIdBitmap.of(IntStream.rangeClosed(1, 1_000_000).boxed().toList());
+
+        assertEquals(1_000_000, bitmap.cardinality());
+        assertTrue(bitmap.sizeInBytes() < 140_000, "Bytes: " + bitmap.sizeInBytes());
+    }
+
+    @Test
+    void negativeIds_ShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> UserIdBitmap.empty().with(-5));
+        assertThrows(IllegalArgumentException.class, () -> UserIdBitmap.of(List.of(-1, 2)));
+    }
+
+    private static List<Integer> toList(UserIdBitmap bitmap) {
+        List<Integer> ids = new ArrayList<>();
+        bitmap.forEach(ids::add);
+        return ids;
+    }
+}